@@ -0,0 +1,75 @@
+package com.bank.service;
+
+import com.bank.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CategorizationService#categorizeTransactions} over a {@link PkoStatementGenerator}
+ * statement. The mix decides whether most titles hit an early rule or fall through every rule
+ * to INNE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CategorizationBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    @Param({"REALISTIC", "HIT_HEAVY", "MISS_HEAVY"})
+    public Mix mix;
+
+    private List<Transaction> transactions;
+    private CategorizationService categorizer;
+
+    public enum Mix {
+        /** The generated titles as they are: mostly known merchants, some bills and transfers. */
+        REALISTIC,
+        /** Every title names a merchant that an early rule matches. */
+        HIT_HEAVY,
+        /** Titles without any rule keyword, so every title rule is tried for every row. */
+        MISS_HEAVY
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path directory = Files.createTempDirectory("pko-bench");
+        Path statement = new PkoStatementGenerator(42).generate(directory, rows, 1).get(0);
+        transactions = new CsvParserService().parseFile(statement.toString());
+        Files.delete(statement);
+        Files.delete(directory);
+        if (mix != Mix.REALISTIC) {
+            transactions.replaceAll(t -> new Transaction(t.getBookingDate(), t.getOperationDate(),
+                t.getOperationType(), t.getAmount(), t.getCurrency(), "", retitle(t.getTitle()), t.getBalanceAfter()));
+        }
+        categorizer = new CategorizationService();
+    }
+
+    private String retitle(String title) {
+        if (mix == Mix.HIT_HEAVY) {
+            return "ZABKA Z1234 KRAKOW Nr karty ...2574";
+        }
+        // Derived from the generated title, so the titles stay as varied but contain no keyword.
+        return "SKLEP NR " + Integer.toUnsignedString(title.hashCode()) + " Nr karty ...2574";
+    }
+
+    @Benchmark
+    public List<Transaction> categorizeTransactions() {
+        // Categorizing again overwrites the previous result, so the same list can be reused.
+        categorizer.categorizeTransactions(transactions);
+        return transactions;
+    }
+}
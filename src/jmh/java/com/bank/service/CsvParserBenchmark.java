@@ -0,0 +1,55 @@
+package com.bank.service;
+
+import com.bank.model.Transaction;
+import com.opencsv.exceptions.CsvException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** {@link CsvParserService#parseFile} on a small and a large generated statement, per engine. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CsvParserBenchmark {
+
+    @Param({"100", "100000"})
+    public int rows;
+
+    @Param({"OPENCSV", "MAPPED"})
+    public ParserEngine engine;
+
+    private Path directory;
+    private Path file;
+    private CsvParserService parser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("pko-bench");
+        file = new PkoStatementGenerator(42).generate(directory, rows, 1).get(0);
+        parser = new CsvParserService(engine);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public List<Transaction> parseFile() throws IOException, CsvException {
+        return parser.parseFile(file.toString());
+    }
+}
@@ -0,0 +1,81 @@
+package com.bank.service;
+
+import com.bank.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The report stage: the single aggregation pass and each section rendered from the
+ * aggregates. Writing whole reports and exports per format is in {@link ReportFormatBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReportBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private List<Transaction> transactions;
+    private ReportAccumulator summary;
+    private TxtReportWriter txtWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path directory = Files.createTempDirectory("pko-bench");
+        Path statement = new PkoStatementGenerator(42).generate(directory, rows, 1).get(0);
+        transactions = new CsvParserService().parseFile(statement.toString());
+        Files.delete(statement);
+        Files.delete(directory);
+        new CategorizationService().categorizeTransactions(transactions);
+        summary = ReportAccumulator.of(transactions);
+        txtWriter = new TxtReportWriter();
+    }
+
+    @Benchmark
+    public ReportAccumulator aggregate() {
+        return ReportAccumulator.of(transactions);
+    }
+
+    @Benchmark
+    public int categorySummary() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReportOutput out = new ReportOutput(Channels.newChannel(bytes), 1 << 16)) {
+            txtWriter.writeCategorySummary(out, summary);
+        }
+        return bytes.size();
+    }
+
+    @Benchmark
+    public int monthlyBreakdown() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReportOutput out = new ReportOutput(Channels.newChannel(bytes), 1 << 16)) {
+            txtWriter.writeMonthlyBreakdown(out, summary);
+        }
+        return bytes.size();
+    }
+
+    @Benchmark
+    public int topExpenses() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReportOutput out = new ReportOutput(Channels.newChannel(bytes), 1 << 16)) {
+            txtWriter.writeTopExpenses(out, summary);
+        }
+        return bytes.size();
+    }
+}
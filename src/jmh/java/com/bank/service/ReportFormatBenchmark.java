@@ -0,0 +1,73 @@
+package com.bank.service;
+
+import com.bank.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Output per format: the whole {@link ReportService#generateReport} including the file write,
+ * and the full transaction export without the disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReportFormatBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    @Param({"TXT", "CSV", "JSON"})
+    public ReportFormat format;
+
+    private List<Transaction> transactions;
+    private ReportAccumulator summary;
+    private ReportService reportService;
+    private Path reportFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path directory = Files.createTempDirectory("pko-bench");
+        Path statement = new PkoStatementGenerator(42).generate(directory, rows, 1).get(0);
+        transactions = new CsvParserService().parseFile(statement.toString());
+        Files.delete(statement);
+        Files.delete(directory);
+        new CategorizationService().categorizeTransactions(transactions);
+        summary = ReportAccumulator.of(transactions);
+        reportService = new ReportService();
+        reportFile = Files.createTempFile("report-bench", "." + format.getExtension());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(reportFile);
+    }
+
+    @Benchmark
+    public Path generateReport() throws IOException {
+        reportService.generateReport(summary, reportFile.toString(), format);
+        return reportFile;
+    }
+
+    @Benchmark
+    public long exportTransactions() throws IOException {
+        try (ReportOutput out = new ReportOutput(Channels.newChannel(OutputStream.nullOutputStream()))) {
+            return format.getWriter().writeTransactions(transactions.iterator(), out);
+        }
+    }
+}
@@ -1,51 +1,505 @@
 package com.bank;
 
 import com.bank.model.Transaction;
+import com.bank.model.TransactionStore;
+import com.bank.service.CategorizationCache;
 import com.bank.service.CategorizationService;
+import com.bank.service.ConcurrentIngestService;
 import com.bank.service.CsvParserService;
+import com.bank.service.CurrencyConverter;
+import com.bank.service.DateRangeIndex;
+import com.bank.service.FileIngestResult;
+import com.bank.service.FxRateTable;
+import com.bank.service.IngestResult;
+import com.bank.service.InternalTransferMatcher;
+import com.bank.service.LedgerStore;
+import com.bank.service.ParserEngine;
+import com.bank.service.PipelineMetrics;
+import com.bank.service.PkoStatementGenerator;
+import com.bank.service.ReportAccumulator;
+import com.bank.service.ReportFormat;
 import com.bank.service.ReportService;
+import com.bank.service.ScaleTest;
+import com.bank.service.SnapshotCache;
+import com.bank.service.StatementDirectoryWatcher;
+import com.bank.service.StatementSession;
+import com.bank.service.TransactionDeduplicator;
+import com.bank.service.RuleSet;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.StreamSupport;
 
 public class BankAnalyzerApp {
+    private static final String REPORT_PATH = "bank_analysis_report.txt";
+    private static final Set<String> LEDGER_COMMANDS = Set.of("import", "report", "stats", "compact");
 
     public static void main(String[] args) {
         if (args.length == 0) {
-            System.out.println("Usage: java -jar bank-analyzer.jar <csv_file1> [csv_file2] ...");
+            System.out.println("Usage: java -jar bank-analyzer.jar [--virtual-threads] [--engine=opencsv|mapped] [--rules=<rules.properties>] [--cache=<entries>] [--footprint] [--snapshots=<dir>] [--watch=<dir>] [--transfer-window=<days>] [--metrics[=<file.json>]] [--from=<yyyy-mm-dd>] [--to=<yyyy-mm-dd>] [--format=txt|csv|json] [--fx-rates=<file|dir> [--currency=<code>]] <csv_file1> [csv_file2] ...");
             System.out.println("Example: java -jar bank-analyzer.jar transactions1.csv transactions2.csv");
+            System.out.println("Export: java -jar bank-analyzer.jar [--rules=<rules.properties>] [--format=txt|csv|json] --export=<file> <csv_file1> [csv_file2] ...");
+            System.out.println("Watch mode: java -jar bank-analyzer.jar --watch=bank_data");
+            System.out.println("Synthetic data: java -jar bank-analyzer.jar --generate=<dir> [--scale-test] [--rows=<n>] [--accounts=<n>] [--seed=<n>]");
+            System.out.println("Scale test: java -jar bank-analyzer.jar --scale-test [--rows=<n>] [--accounts=<n>] [--seed=<n>]");
+            System.out.println("Ledger: java -jar bank-analyzer.jar import|report|stats|compact [--ledger=<dir>] [--rules=<rules.properties>] [--from=<yyyy-mm-dd>] [--to=<yyyy-mm-dd>] [--format=txt|csv|json] [--fx-rates=<file|dir> [--currency=<code>]] [csv_file...]");
+            return;
+        }
+
+        if (LEDGER_COMMANDS.contains(args[0])) {
+            try {
+                ledger(args[0], Arrays.copyOfRange(args, 1, args.length));
+            } catch (Exception e) {
+                System.err.println("Error during " + args[0] + ": " + e.getMessage());
+            }
             return;
         }
 
         try {
-            CsvParserService csvParser = new CsvParserService();
-            CategorizationService categorizer = new CategorizationService();
             ReportService reportService = new ReportService();
 
+            boolean virtualThreads = false;
+            ParserEngine engine = ParserEngine.OPENCSV;
+            RuleSet ruleSet = null;
+            CategorizationCache cache = null;
+            boolean footprint = false;
+            Path snapshotDirectory = null;
+            Path watchDirectory = null;
+            int transferWindow = InternalTransferMatcher.DEFAULT_DAY_WINDOW;
+            Path generateDirectory = null;
+            boolean scaleTest = false;
+            long rows = 1_000_000;
+            int accounts = 1;
+            long seed = 1;
+            boolean metricsEnabled = false;
+            Path metricsFile = null;
+            LocalDate from = null;
+            LocalDate to = null;
+            ReportFormat format = null;
+            String exportPath = null;
+            Path ratesPath = null;
+            String currency = FxRateTable.BASE_CURRENCY;
             List<String> filePaths = new ArrayList<>();
             for (String arg : args) {
-                filePaths.add(arg);
+                if (arg.equals("--virtual-threads")) {
+                    virtualThreads = true;
+                } else if (arg.startsWith("--engine=")) {
+                    engine = ParserEngine.valueOf(arg.substring("--engine=".length()).toUpperCase());
+                } else if (arg.startsWith("--rules=")) {
+                    ruleSet = RuleSet.load(Path.of(arg.substring("--rules=".length())));
+                } else if (arg.startsWith("--cache=")) {
+                    cache = new CategorizationCache(Integer.parseInt(arg.substring("--cache=".length())));
+                } else if (arg.startsWith("--snapshots=")) {
+                    snapshotDirectory = Path.of(arg.substring("--snapshots=".length()));
+                } else if (arg.startsWith("--watch=")) {
+                    watchDirectory = Path.of(arg.substring("--watch=".length()));
+                } else if (arg.startsWith("--transfer-window=")) {
+                    transferWindow = Integer.parseInt(arg.substring("--transfer-window=".length()));
+                } else if (arg.startsWith("--generate=")) {
+                    generateDirectory = Path.of(arg.substring("--generate=".length()));
+                } else if (arg.equals("--scale-test")) {
+                    scaleTest = true;
+                } else if (arg.startsWith("--rows=")) {
+                    rows = Long.parseLong(arg.substring("--rows=".length()));
+                } else if (arg.startsWith("--accounts=")) {
+                    accounts = Integer.parseInt(arg.substring("--accounts=".length()));
+                } else if (arg.startsWith("--seed=")) {
+                    seed = Long.parseLong(arg.substring("--seed=".length()));
+                } else if (arg.equals("--metrics")) {
+                    metricsEnabled = true;
+                } else if (arg.startsWith("--metrics=")) {
+                    metricsEnabled = true;
+                    metricsFile = Path.of(arg.substring("--metrics=".length()));
+                } else if (arg.startsWith("--from=")) {
+                    from = LocalDate.parse(arg.substring("--from=".length()));
+                } else if (arg.startsWith("--to=")) {
+                    to = LocalDate.parse(arg.substring("--to=".length()));
+                } else if (arg.startsWith("--format=")) {
+                    format = ReportFormat.parse(arg.substring("--format=".length()));
+                } else if (arg.startsWith("--export=")) {
+                    exportPath = arg.substring("--export=".length());
+                } else if (arg.startsWith("--fx-rates=")) {
+                    ratesPath = Path.of(arg.substring("--fx-rates=".length()));
+                } else if (arg.startsWith("--currency=")) {
+                    currency = arg.substring("--currency=".length()).toUpperCase();
+                } else if (arg.equals("--footprint")) {
+                    footprint = true;
+                } else {
+                    filePaths.add(arg);
+                }
+            }
+
+            if (generateDirectory != null && !scaleTest) {
+                generate(generateDirectory, rows, accounts, seed);
+                return;
+            }
+
+            CsvParserService csvParser = new CsvParserService(engine);
+            CategorizationService categorizer = ruleSet != null
+                ? new CategorizationService(ruleSet)
+                : new CategorizationService();
+            categorizer.setCache(cache);
+            PipelineMetrics metrics = null;
+            if (metricsEnabled) {
+                metrics = new PipelineMetrics();
+                metrics.register();
+                csvParser.setMetrics(metrics);
+                categorizer.setMetrics(metrics);
+                reportService.setMetrics(metrics);
+            }
+            SnapshotCache snapshotCache = null;
+            if (snapshotDirectory != null) {
+                snapshotCache = new SnapshotCache(snapshotDirectory, categorizer);
+                csvParser.setSnapshotCache(snapshotCache);
+            }
+
+            ExecutorService executor = virtualThreads
+                ? ConcurrentIngestService.newVirtualThreadExecutor()
+                : ConcurrentIngestService.newDefaultExecutor();
+
+            CurrencyConverter converter = currencyConverter(ratesPath, currency);
+            StatementSession session = new StatementSession(categorizer);
+            session.setTransferMatcher(new InternalTransferMatcher(transferWindow));
+            session.setCurrencyConverter(converter);
+
+            if (scaleTest) {
+                try {
+                    scaleTest(generateDirectory, rows, accounts, seed,
+                        new ConcurrentIngestService(csvParser, executor), categorizer, reportService);
+                } finally {
+                    executor.shutdownNow();
+                }
+                dumpMetrics(metrics, metricsFile);
+                return;
+            }
+
+            if (watchDirectory != null) {
+                watch(watchDirectory, new ConcurrentIngestService(csvParser, executor), session, reportService,
+                    format != null ? format : ReportFormat.TXT);
+                return;
             }
 
             System.out.println("Files to process: " + filePaths.size());
             System.out.println();
 
-            List<Transaction> transactions = csvParser.parseMultipleFiles(filePaths);
-            System.out.println("Loaded transactions: " + transactions.size());
+            if (exportPath != null) {
+                if (accountCount(csvParser, filePaths) < 2) {
+                    executor.shutdownNow();
+                    exportStreaming(csvParser, filePaths, categorizer, converter, from, to, reportService,
+                        exportPath, format != null ? format : ReportFormat.forFile(exportPath));
+                    dumpMetrics(metrics, metricsFile);
+                    return;
+                }
+                System.out.println("Files of several accounts: loading them all to pair transfers before the export");
+            }
+
+            IngestResult ingestResult;
+            try {
+                ingestResult = new ConcurrentIngestService(csvParser, executor).ingest(filePaths);
+            } finally {
+                executor.shutdownNow();
+            }
 
-            categorizer.categorizeTransactions(transactions);
+            for (FileIngestResult fileResult : ingestResult.getFileResults()) {
+                System.out.println("Loaded file: " + fileResult);
+            }
+
+            session.addAll(ingestResult);
+            for (String filePath : session.getFilePaths()) {
+                int duplicates = session.getDuplicateCount(filePath);
+                if (duplicates > 0) {
+                    System.out.println("Dropped " + duplicates + " duplicate transaction(s) from " + filePath);
+                }
+            }
+            List<Transaction> transactions = session.getTransactions();
+            System.out.println("Loaded transactions: " + transactions.size());
+            if (session.getInternalTransferCount() > 0) {
+                System.out.println("Matched " + session.getInternalTransferCount() / 2 + " transfer(s) between loaded accounts");
+            }
+            printConversion(session);
             System.out.println("Categorization complete.");
+            if (cache != null) {
+                System.out.println("Categorization cache: " + cache);
+            }
+            if (snapshotCache != null) {
+                System.out.println("Snapshot cache: " + snapshotCache);
+            }
 
-            reportService.printSummaryToConsole(transactions);
+            if (footprint) {
+                System.out.println();
+                System.out.print(TransactionStore.of(transactions).footprintReport(transactions));
+            }
+
+            if (exportPath != null) {
+                // Transfer pairing needs every account's legs at once, so this export is in memory.
+                List<Transaction> exported = from != null || to != null
+                    ? session.getDateRangeIndex().list(from, to)
+                    : transactions;
+                long start = System.nanoTime();
+                reportService.exportTransactions(exported.iterator(), exportPath,
+                    format != null ? format : ReportFormat.forFile(exportPath));
+                System.out.println("Exported " + exported.size() + " transaction(s) to " + exportPath
+                    + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                dumpMetrics(metrics, metricsFile);
+                return;
+            }
 
-            String reportPath = "bank_analysis_report.txt";
-            reportService.generateReport(transactions, reportPath);
+            String reportPath = reportPath(format);
+            if (from != null || to != null) {
+                DateRangeIndex index = session.getDateRangeIndex();
+                System.out.println("Transactions from " + (from != null ? from : "the start")
+                    + " to " + (to != null ? to : "the end") + ": " + index.count(from, to));
+                reportService.printSummaryToConsole(index, from, to);
+                reportService.generateReport(index, from, to, reportPath);
+            } else {
+                ReportAccumulator summary = session.getSummary();
+                reportService.printSummaryToConsole(summary);
+                reportService.generateReport(summary, reportPath);
+            }
             System.out.println("Full report saved to: " + reportPath);
 
             System.out.println("\nAnalysis complete");
+            dumpMetrics(metrics, metricsFile);
 
         } catch (Exception e) {
             System.err.println("Error during analysis: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /** Distinct account numbers of the files; files without one do not count. */
+    private static int accountCount(CsvParserService csvParser, List<String> filePaths) throws Exception {
+        Set<String> accounts = new HashSet<>();
+        for (String filePath : filePaths) {
+            String account = csvParser.readAccountNumber(filePath);
+            if (!account.isEmpty()) {
+                accounts.add(account);
+            }
+        }
+        return accounts.size();
+    }
+
+    /**
+     * Exports straight from the files: each row is parsed, deduplicated, categorized, converted
+     * and written before the next one is read, so memory holds an 8-byte fingerprint per row and
+     * nothing else. Without transfers to pair this gives the same rows as the session would.
+     */
+    private static void exportStreaming(CsvParserService csvParser, List<String> filePaths,
+                                        CategorizationService categorizer, CurrencyConverter converter,
+                                        LocalDate from, LocalDate to, ReportService reportService,
+                                        String exportPath, ReportFormat format) throws Exception {
+        long start = System.nanoTime();
+        TransactionDeduplicator deduplicator = new TransactionDeduplicator();
+        Iterator<Transaction> transactions = categorizer.categorize(csvParser.iterateFiles(filePaths, deduplicator));
+        if (converter != null) {
+            transactions = converter.convert(transactions);
+        }
+        if (from != null || to != null) {
+            transactions = StreamSupport.stream(Spliterators.spliteratorUnknownSize(transactions, Spliterator.ORDERED), false)
+                .filter(transaction -> isInRange(transaction.getOperationDate(), from, to))
+                .iterator();
+        }
+        long exported = reportService.exportTransactions(transactions, exportPath, format);
+        if (deduplicator.getDuplicateCount() > 0) {
+            System.out.println("Dropped " + deduplicator.getDuplicateCount() + " duplicate transaction(s)");
+        }
+        System.out.println("Exported " + exported + " transaction(s) to " + exportPath
+            + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private static boolean isInRange(LocalDate date, LocalDate from, LocalDate to) {
+        return (from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to));
+    }
+
+    /** The converter for {@code --fx-rates}, or {@code null} to report the booked amounts. */
+    private static CurrencyConverter currencyConverter(Path ratesPath, String currency) throws Exception {
+        if (ratesPath == null) {
+            if (!currency.equals(FxRateTable.BASE_CURRENCY)) {
+                throw new IllegalArgumentException("--currency=" + currency + " needs --fx-rates");
+            }
+            return null;
+        }
+        FxRateTable rates = FxRateTable.load(ratesPath);
+        System.out.println("Exchange rates: " + rates);
+        return new CurrencyConverter(rates, currency);
+    }
+
+    private static void printConversion(StatementSession session) {
+        CurrencyConverter converter = session.getCurrencyConverter();
+        if (converter == null) {
+            return;
+        }
+        System.out.println("Amounts converted to " + converter.getReportingCurrency());
+        if (session.getUnconvertedCount() > 0) {
+            System.out.println(session.getUnconvertedCount() + " transaction(s) without an exchange rate kept in their own currency");
+        }
+    }
+
+    /** The report file for the format; the TXT report keeps its usual name. */
+    private static String reportPath(ReportFormat format) {
+        return format == null || format == ReportFormat.TXT
+            ? REPORT_PATH
+            : "bank_analysis_report." + format.getExtension();
+    }
+
+    /** Prints the metrics as JSON, or writes them to the file if one was given. */
+    private static void dumpMetrics(PipelineMetrics metrics, Path file) throws Exception {
+        if (metrics == null) {
+            return;
+        }
+        if (file != null) {
+            Files.writeString(file, metrics.toJson());
+            System.out.println("Metrics saved to: " + file);
+        } else {
+            System.out.println();
+            System.out.print(metrics.toJson());
+        }
+    }
+
+    private static List<Path> generate(Path directory, long rows, int accounts, long seed) throws Exception {
+        long start = System.nanoTime();
+        List<Path> files = new PkoStatementGenerator(seed).generate(directory, rows, accounts);
+        long bytes = 0;
+        for (Path file : files) {
+            bytes += Files.size(file);
+        }
+        System.out.printf("Generated %d rows in %d file(s) under %s (%.1f MB, %d ms)%n", rows, files.size(),
+            directory.toAbsolutePath(), bytes / (1024.0 * 1024.0), (System.nanoTime() - start) / 1_000_000);
+        return files;
+    }
+
+    /**
+     * Generates statements and runs the whole pipeline on them. Without a directory the files
+     * go to a temporary one that is deleted afterwards.
+     */
+    private static void scaleTest(Path directory, long rows, int accounts, long seed, ConcurrentIngestService ingestService,
+                                  CategorizationService categorizer, ReportService reportService) throws Exception {
+        Path target = directory != null ? directory : Files.createTempDirectory("bank-scale-test");
+        List<Path> files = generate(target, rows, accounts, seed);
+        try {
+            List<String> filePaths = new ArrayList<>();
+            for (Path file : files) {
+                filePaths.add(file.toString());
+            }
+            ScaleTest.Result result = new ScaleTest(ingestService, categorizer, reportService).run(filePaths, REPORT_PATH);
+            System.out.print(result);
+        } finally {
+            if (directory == null) {
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+                Files.deleteIfExists(target);
+            }
+        }
+    }
+
+    /**
+     * Runs a command against the ledger: {@code import} stores CSV files, {@code report} writes
+     * the report for a date range, {@code stats} describes the store and {@code compact} merges
+     * its segments.
+     */
+    private static void ledger(String command, String[] args) throws Exception {
+        Path directory = LedgerStore.defaultDirectory();
+        RuleSet ruleSet = null;
+        LocalDate from = null;
+        LocalDate to = null;
+        ReportFormat format = null;
+        Path ratesPath = null;
+        String currency = FxRateTable.BASE_CURRENCY;
+        List<String> filePaths = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--ledger=")) {
+                directory = Path.of(arg.substring("--ledger=".length()));
+            } else if (arg.startsWith("--rules=")) {
+                ruleSet = RuleSet.load(Path.of(arg.substring("--rules=".length())));
+            } else if (arg.startsWith("--from=")) {
+                from = LocalDate.parse(arg.substring("--from=".length()));
+            } else if (arg.startsWith("--to=")) {
+                to = LocalDate.parse(arg.substring("--to=".length()));
+            } else if (arg.startsWith("--format=")) {
+                format = ReportFormat.parse(arg.substring("--format=".length()));
+            } else if (arg.startsWith("--fx-rates=")) {
+                ratesPath = Path.of(arg.substring("--fx-rates=".length()));
+            } else if (arg.startsWith("--currency=")) {
+                currency = arg.substring("--currency=".length()).toUpperCase();
+            } else {
+                filePaths.add(arg);
+            }
+        }
+        CategorizationService categorizer = ruleSet != null
+            ? new CategorizationService(ruleSet)
+            : new CategorizationService();
+
+        long start = System.nanoTime();
+        LedgerStore ledger = LedgerStore.open(directory);
+        switch (command) {
+            case "import":
+                CsvParserService parser = new CsvParserService();
+                for (String filePath : filePaths) {
+                    List<LedgerStore.Segment> segments = ledger.importFile(Path.of(filePath), parser, categorizer);
+                    if (segments.isEmpty()) {
+                        System.out.println("Already imported: " + filePath);
+                    } else {
+                        int rows = 0;
+                        for (LedgerStore.Segment segment : segments) {
+                            rows += segment.getRowCount();
+                        }
+                        System.out.println("Imported " + rows + " transaction(s) from " + filePath
+                            + " into " + segments.size() + " segment(s)");
+                    }
+                }
+                break;
+            case "report":
+                List<LedgerStore.Segment> segments = ledger.segmentsBetween(from, to);
+                StatementSession session = ledger.load(from, to, categorizer);
+                session.setCurrencyConverter(currencyConverter(ratesPath, currency));
+                printConversion(session);
+                ReportAccumulator summary = session.getSummary();
+                ReportService reportService = new ReportService();
+                System.out.println("Transactions from " + (from != null ? from : "the start")
+                    + " to " + (to != null ? to : "the end") + ": " + summary.getTransactionCount()
+                    + " (read " + segments.size() + " of " + ledger.getSegments().size() + " segment(s))");
+                reportService.printSummaryToConsole(summary);
+                String reportPath = reportPath(format);
+                reportService.generateReport(summary, reportPath);
+                System.out.println("Full report saved to: " + reportPath);
+                break;
+            case "stats":
+                System.out.print(ledger.describe());
+                break;
+            case "compact":
+                System.out.println(ledger.compact(categorizer));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + command);
+        }
+        System.out.println("Done in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /** Keeps the report up to date with the CSV files in the directory until the process is stopped. */
+    private static void watch(Path directory, ConcurrentIngestService ingestService, StatementSession session,
+                              ReportService reportService, ReportFormat format) throws Exception {
+        String reportPath = reportPath(format);
+        System.out.println("Watching " + directory.toAbsolutePath() + " (report: " + reportPath + ")");
+        try (StatementDirectoryWatcher watcher = new StatementDirectoryWatcher(
+                directory, ingestService, session, reportService, Path.of(reportPath), format)) {
+            watcher.run(cycle -> {
+                for (FileIngestResult failed : cycle.getRetried()) {
+                    System.err.println("Will retry " + failed);
+                }
+                if (cycle.hasChanges()) {
+                    System.out.println("Cycle: " + cycle);
+                }
+            });
+        }
+    }
+}
@@ -1,17 +1,49 @@
 package com.bank.gui;
 
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import javafx.collections.transformation.SortedList;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import com.bank.model.Category;
 import com.bank.model.Transaction;
+import com.bank.service.ConcurrentIngestService;
 import com.bank.service.CsvParserService;
 import com.bank.service.CategorizationService;
+import com.bank.service.CategoryMonthCube;
+import com.bank.service.CurrencyConverter;
+import com.bank.service.FxRateTable;
+import com.bank.service.ReportAccumulator;
+import com.bank.service.RuleFileWatcher;
+import com.bank.service.RuleSet;
+import com.bank.service.SnapshotCache;
+import com.bank.service.StatementLayout;
+import com.bank.service.StatementSession;
+import com.bank.service.TransactionFilter;
+import com.bank.service.TransactionIndex;
 import java.io.File;
+import java.nio.file.Path;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import javafx.scene.chart.BarChart;
 import javafx.scene.chart.CategoryAxis;
 import javafx.scene.chart.NumberAxis;
@@ -23,11 +55,48 @@ public class BankAnalyzerGUI extends Application {
     private static final String NO_CATEGORY = "N/A";
     private static final String INCOME_LABEL = "Income";
     private static final String EXPENSES_LABEL = "Expenses";
+    /** Rows categorized and handed to the table at a time while a file is parsed. */
+    private static final int PUBLISH_CHUNK = 5_000;
+    /** Queued by a parsing worker after the last chunk of its file. */
+    private static final List<Transaction> END_OF_FILE = new ArrayList<>();
+    /** Most rows added to the table in one pulse, so a frame stays short. */
+    private static final int MAX_ROWS_PER_PULSE = 50_000;
+    private static final long SUMMARY_INTERVAL_NANOS = 250_000_000L;
     
     private TableView<Transaction> transactionTable;
     private Label summaryLabel;
     private Label statsLabel;
     private BarChart<String, Number> expenseChart;
+    private CategoryAxis chartXAxis;
+    private NumberAxis chartYAxis;
+    private Button overviewButton;
+    private CategoryMonthCube chartCube = new CategoryMonthCube();
+    private ChartView chartView = ChartView.CATEGORIES;
+    private Category drillCategory;
+    private YearMonth drillMonth;
+    private Button loadButton;
+    private Button clearButton;
+    private Button cancelButton;
+    private ProgressBar progressBar;
+    private LoadTask currentLoad;
+    private TableFeed tableFeed;
+    private final ObservableList<Transaction> allRows = FXCollections.observableArrayList();
+    private FilteredRows filteredRows;
+    private HBox filterBar;
+    private TextField searchField;
+    private ComboBox<Category> categoryFilter;
+    private DatePicker fromDateFilter;
+    private DatePicker toDateFilter;
+    private TextField minAmountFilter;
+    private TextField maxAmountFilter;
+    private Label matchLabel;
+    private TransactionIndex index;
+    private int indexGeneration;
+    private final ExecutorService ingestExecutor = ConcurrentIngestService.newDefaultExecutor();
+    private final CategorizationService categorizer = new CategorizationService();
+    private final StatementSession session = new StatementSession(categorizer);
+    private SnapshotCache snapshotCache;
+    private RuleFileWatcher ruleFileWatcher;
 
     public static void main(String[] args) {
         launch(args);
@@ -36,28 +105,50 @@ public class BankAnalyzerGUI extends Application {
     @Override
     public void start(Stage primaryStage) {
         primaryStage.setTitle("Bank CSV Analyzer");
+        watchRulesFile(getParameters().getNamed().get("rules"));
+        String snapshots = getParameters().getNamed().get("snapshots");
+        snapshotCache = new SnapshotCache(
+            snapshots != null ? Path.of(snapshots) : SnapshotCache.defaultDirectory(), categorizer);
+        convertCurrencies(getParameters().getNamed().get("fx-rates"), getParameters().getNamed().get("currency"));
 
         BorderPane root = new BorderPane();
         root.setPadding(new Insets(10));
 
-        Button loadButton = new Button("Load CSV Files");
+        loadButton = new Button("Load CSV Files");
         loadButton.setOnAction(e -> loadFiles(primaryStage));
 
+        clearButton = new Button("Clear");
+        clearButton.setOnAction(e -> clearFiles());
+
+        cancelButton = new Button("Cancel");
+        cancelButton.setDisable(true);
+        cancelButton.setOnAction(e -> {
+            if (currentLoad != null) currentLoad.cancel();
+        });
+
+        progressBar = new ProgressBar(0);
+        progressBar.setVisible(false);
+
         statsLabel = new Label("Income: 0.00 " + CURRENCY + " | Expenses: 0.00 " + CURRENCY);
         statsLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold;");
 
         HBox topBar = new HBox(20);
         topBar.setPadding(new Insets(10));
-        topBar.getChildren().addAll(loadButton, statsLabel);
+        topBar.getChildren().addAll(loadButton, clearButton, cancelButton, progressBar, statsLabel);
 
         summaryLabel = new Label("No files loaded");
         transactionTable = createTransactionTable();
+        filteredRows = new FilteredRows(allRows);
+        SortedList<Transaction> sortedRows = new SortedList<>(filteredRows);
+        sortedRows.comparatorProperty().bind(transactionTable.comparatorProperty());
+        transactionTable.setItems(sortedRows);
+        tableFeed = new TableFeed();
 
         SplitPane splitPane = new SplitPane();
-        splitPane.getItems().addAll(transactionTable, createExpenseChart());
+        splitPane.getItems().addAll(transactionTable, createChartPane());
         splitPane.setDividerPositions(0.6);
 
-        root.setTop(topBar);
+        root.setTop(new VBox(0, topBar, createFilterBar()));
         root.setCenter(splitPane);
         root.setBottom(summaryLabel);
 
@@ -66,6 +157,41 @@ public class BankAnalyzerGUI extends Application {
         primaryStage.show();
     }
 
+    @Override
+    public void stop() throws Exception {
+        if (currentLoad != null) {
+            currentLoad.cancel();
+        }
+        if (ruleFileWatcher != null) {
+            ruleFileWatcher.close();
+        }
+        ingestExecutor.shutdownNow();
+    }
+
+    /** Reports in the given currency, PLN by default, at the rates of the file or directory. */
+    private void convertCurrencies(String ratesPath, String currency) {
+        if (ratesPath == null) return;
+        try {
+            FxRateTable rates = FxRateTable.load(Path.of(ratesPath));
+            session.setCurrencyConverter(new CurrencyConverter(rates,
+                currency != null ? currency.toUpperCase() : FxRateTable.BASE_CURRENCY));
+        } catch (Exception e) {
+            System.err.println("Cannot load exchange rates from " + ratesPath + ": " + e.getMessage());
+        }
+    }
+
+    private void watchRulesFile(String rulesPath) {
+        if (rulesPath == null) return;
+
+        try {
+            ruleFileWatcher = new RuleFileWatcher(Path.of(rulesPath), categorizer);
+            ruleFileWatcher.reload();
+            ruleFileWatcher.start();
+        } catch (Exception e) {
+            System.err.println("Cannot watch rules file " + rulesPath + ": " + e.getMessage());
+        }
+    }
+
     private void loadFiles(Stage stage) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Select CSV Files");
@@ -79,122 +205,350 @@ public class BankAnalyzerGUI extends Application {
         }
     }
 
+    /**
+     * Adds the files to what is already loaded; only the new files are parsed and categorized.
+     * Loading runs on a background thread and can be cancelled; rows show up in the table
+     * as they are parsed.
+     */
     private void processFiles(List<File> files) {
+        LoadTask task = new LoadTask(files);
+        currentLoad = task;
+        dropIndex();
+        loadButton.setDisable(true);
+        clearButton.setDisable(true);
+        cancelButton.setDisable(false);
+        progressBar.progressProperty().bind(task.progressProperty());
+        progressBar.setVisible(true);
+        summaryLabel.textProperty().bind(task.messageProperty());
+
+        task.setOnSucceeded(e -> finishLoad(task, null));
+        task.setOnCancelled(e -> finishLoad(task, "Loading cancelled"));
+        task.setOnFailed(e -> finishLoad(task, "Error: " + task.getException().getMessage()));
+        ingestExecutor.execute(task);
+    }
+
+    /** Back on the FX thread once the task is done, whichever way it ended. */
+    private void finishLoad(LoadTask task, String problem) {
+        currentLoad = null;
+        loadButton.setDisable(false);
+        clearButton.setDisable(false);
+        cancelButton.setDisable(true);
+        progressBar.progressProperty().unbind();
+        progressBar.setVisible(false);
+        summaryLabel.textProperty().unbind();
+
+        Runnable showResult = () -> {
+            updateSummaryLabel(allRows.size(), session.getFileCount());
+            reportFailures(task.getFailures());
+            if (problem != null) {
+                summaryLabel.setText(summaryLabel.getText() + " | " + problem);
+            }
+        };
+        if (task.needsResync()) {
+            // Rows of a cancelled, failed or replaced file, or duplicates, were already shown.
+            tableFeed.discard();
+            updateView(session.getTransactions(), session.getSummary(), session.getFileCount());
+            showResult.run();
+            rebuildIndex();
+        } else {
+            updateStatistics(session.getSummary());
+            updateChart(session.getSummary());
+            // Matching transfers may have re-labelled rows that are already in the table.
+            tableFeed.whenDrained(() -> {
+                transactionTable.refresh();
+                showResult.run();
+                rebuildIndex();
+            });
+        }
+    }
+
+    private HBox createFilterBar() {
+        searchField = new TextField();
+        searchField.setPromptText("Search title or counterparty");
+        categoryFilter = new ComboBox<>();
+        categoryFilter.getItems().addAll(Category.values());
+        categoryFilter.setPromptText("Any category");
+        fromDateFilter = new DatePicker();
+        fromDateFilter.setPromptText("From");
+        toDateFilter = new DatePicker();
+        toDateFilter.setPromptText("To");
+        minAmountFilter = new TextField();
+        minAmountFilter.setPromptText("Min amount");
+        maxAmountFilter = new TextField();
+        maxAmountFilter.setPromptText("Max amount");
+        matchLabel = new Label();
+
+        Button resetButton = new Button("Reset");
+        resetButton.setOnAction(e -> {
+            searchField.clear();
+            categoryFilter.setValue(null);
+            fromDateFilter.setValue(null);
+            toDateFilter.setValue(null);
+            minAmountFilter.clear();
+            maxAmountFilter.clear();
+        });
+
+        searchField.textProperty().addListener((obs, old, value) -> applyFilter());
+        categoryFilter.valueProperty().addListener((obs, old, value) -> applyFilter());
+        fromDateFilter.valueProperty().addListener((obs, old, value) -> applyFilter());
+        toDateFilter.valueProperty().addListener((obs, old, value) -> applyFilter());
+        minAmountFilter.textProperty().addListener((obs, old, value) -> applyFilter());
+        maxAmountFilter.textProperty().addListener((obs, old, value) -> applyFilter());
+
+        filterBar = new HBox(10);
+        filterBar.setPadding(new Insets(0, 10, 10, 10));
+        filterBar.getChildren().addAll(searchField, categoryFilter, fromDateFilter, toDateFilter,
+            minAmountFilter, maxAmountFilter, resetButton, matchLabel);
+        filterBar.setDisable(true);
+        return filterBar;
+    }
+
+    /** Shows the rows matching the filter bar; runs on every keystroke, so it only queries the index. */
+    private void applyFilter() {
+        if (index == null) return;
+        if (!categorizer.getRuleSet().getVersion().equals(index.getRulesVersion())) {
+            // The rules were reloaded since indexing, so the category bitsets are out of date.
+            rebuildIndex();
+            return;
+        }
+
+        TransactionFilter filter = new TransactionFilter(searchField.getText(), categoryFilter.getValue(),
+            fromDateFilter.getValue(), toDateFilter.getValue(),
+            parseAmount(minAmountFilter.getText()), parseAmount(maxAmountFilter.getText()));
+        if (filter.isEmpty()) {
+            filteredRows.showAll();
+            matchLabel.setText("");
+        } else {
+            filteredRows.show(index.select(filter).stream().toArray());
+            matchLabel.setText(String.format("Showing %d of %d", filteredRows.size(), index.size()));
+        }
+    }
+
+    private static Double parseAmount(String text) {
+        if (text == null || text.isBlank()) return null;
         try {
-            List<Transaction> allTransactions = loadTransactions(files);
-            categorizeTransactions(allTransactions);
-            updateView(allTransactions, files.size());
-        } catch (Exception e) {
-            summaryLabel.setText("Error: " + e.getMessage());
+            return Math.abs(Double.parseDouble(text.trim().replace(',', '.')));
+        } catch (NumberFormatException e) {
+            return null;
         }
     }
 
-    private List<Transaction> loadTransactions(List<File> files) throws Exception {
-        CsvParserService parser = new CsvParserService();
-        List<Transaction> allTransactions = new ArrayList<>();
-        
-        for (File file : files) {
-            List<Transaction> transactions = parser.parseFile(file.getAbsolutePath());
-            allTransactions.addAll(transactions);
+    /** Filtering is off until the table holds a complete set of rows again. */
+    private void dropIndex() {
+        index = null;
+        indexGeneration++;
+        filterBar.setDisable(true);
+        filteredRows.showAll();
+        matchLabel.setText("");
+    }
+
+    /** Indexes the rows now in the table on the ingest executor, then re-applies the filter. */
+    private void rebuildIndex() {
+        dropIndex();
+        if (allRows.isEmpty()) return;
+
+        int generation = indexGeneration;
+        List<Transaction> rows = new ArrayList<>(allRows);
+        matchLabel.setText("Indexing...");
+        ingestExecutor.execute(() -> {
+            try {
+                // Reading the summary re-categorizes the loaded rows if the rules have changed.
+                String rulesVersion = categorizer.getRuleSet().getVersion();
+                session.getSummary();
+                TransactionIndex built = new TransactionIndex(rows, rulesVersion);
+                Platform.runLater(() -> {
+                    if (generation != indexGeneration) return;
+                    index = built;
+                    filterBar.setDisable(false);
+                    matchLabel.setText("");
+                    applyFilter();
+                });
+            } catch (RuntimeException e) {
+                System.err.println("Cannot index transactions: " + e.getMessage());
+            }
+        });
+    }
+
+    private void clearFiles() {
+        session.clear();
+        tableFeed.discard();
+        dropIndex();
+        updateView(session.getTransactions(), session.getSummary(), 0);
+        summaryLabel.setText("No files loaded");
+    }
+
+    private void reportFailures(Map<String, Exception> failures) {
+        if (failures.isEmpty()) return;
+
+        StringBuilder message = new StringBuilder(summaryLabel.getText());
+        for (Map.Entry<String, Exception> failure : failures.entrySet()) {
+            if (message.indexOf("Failed: " + new File(failure.getKey()).getName()) >= 0) continue;
+            message.append(" | Failed: ")
+                .append(new File(failure.getKey()).getName())
+                .append(" (").append(failure.getValue().getMessage()).append(")");
         }
-        
-        return allTransactions;
+        summaryLabel.setText(message.toString());
     }
 
-    private void categorizeTransactions(List<Transaction> transactions) {
-        CategorizationService categorizer = new CategorizationService();
-        categorizer.categorizeTransactions(transactions);
+    private void updateView(List<Transaction> transactions, ReportAccumulator summary, int fileCount) {
+        allRows.setAll(transactions);
+        updateSummaryLabel(transactions.size(), fileCount);
+        updateStatistics(summary);
+        updateChart(summary);
     }
 
-    private void updateView(List<Transaction> transactions, int fileCount) {
-        transactionTable.getItems().clear();
-        transactionTable.getItems().addAll(transactions);
-        
+    private void updateSummaryLabel(int transactionCount, int fileCount) {
         summaryLabel.setText(String.format(
             "Loaded %d transactions from %d file(s)", 
-            transactions.size(), 
+            transactionCount,
             fileCount
-        ));
-
-        updateStatistics(transactions);
-        updateChart(transactions);
+        ) + (session.getDuplicateCount() > 0
+            ? " | Duplicates skipped: " + session.getDuplicateCount()
+            : "") + (session.getInternalTransferCount() > 0
+            ? " | Own transfers matched: " + session.getInternalTransferCount() / 2
+            : ""));
     }
 
-    private void updateStatistics(List<Transaction> transactions) {
-        double totalIncome = 0;
-        double totalExpenses = 0;
-        
-        for (Transaction t : transactions) {
-            if (t.getAmount() > 0) {
-                totalIncome += t.getAmount();
-            } else {
-                totalExpenses += Math.abs(t.getAmount());
-            }
-        }
-        
+    private void updateStatistics(ReportAccumulator summary) {
+        CategoryMonthCube cube = summary.getCube();
+        String currency = summary.getReportingCurrency();
         statsLabel.setText(String.format(
             "Income: %.2f %s | Expenses: %.2f %s",
-            totalIncome, CURRENCY, totalExpenses, CURRENCY
-        ));
+            cube.getTotalIncome(), currency, cube.getTotalExpenses(), currency
+        ) + (summary.hasMixedCurrencies() ? " | Some amounts not converted" : ""));
     }
 
-    private void updateChart(List<Transaction> transactions) {
-        Map<String, Double> categoryData = aggregateByCategory(transactions);
-        
+    private void updateChart(ReportAccumulator summary) {
+        chartCube = summary.getCube();
+        chartYAxis.setLabel("Amount (" + summary.getReportingCurrency() + ")");
+        renderChart();
+    }
+
+    /** Draws the current chart view from the cube; never looks at the transactions. */
+    private void renderChart() {
         expenseChart.getData().clear();
-        
-        XYChart.Series<String, Number> categorySeries = new XYChart.Series<>();
-        categorySeries.setName("Categories");
-        
-        for (Map.Entry<String, Double> entry : categoryData.entrySet()) {
-            categorySeries.getData().add(
-                new XYChart.Data<>(entry.getKey(), entry.getValue())
-            );
+        switch (chartView) {
+            case MONTHS:
+                renderMonths();
+                break;
+            case CATEGORY_TREND:
+                renderCategoryTrend(drillCategory);
+                break;
+            case MONTH_SPLIT:
+                renderMonthSplit(drillMonth);
+                break;
+            default:
+                renderCategories();
         }
-        
-        double totalIncome = calculateTotalIncome(transactions);
-        double totalExpenses = calculateTotalExpenses(transactions);
-        
+        overviewButton.setDisable(chartView == ChartView.CATEGORIES);
+    }
+
+    private void showChart(ChartView view, Category category, YearMonth month) {
+        chartView = view;
+        drillCategory = category;
+        drillMonth = month;
+        renderChart();
+    }
+
+    /** Income and expenses per category; click a category for its monthly trend, a total for all months. */
+    private void renderCategories() {
+        expenseChart.setTitle("Income & Expenses by Category");
+        chartXAxis.setLabel("Category");
+        XYChart.Series<String, Number> incomeSeries = categorySeries(INCOME_LABEL, chartCube.getIncomeByCategory());
+        XYChart.Series<String, Number> expenseSeries = categorySeries(EXPENSES_LABEL, chartCube.getExpensesByCategory());
+
         XYChart.Series<String, Number> totalSeries = new XYChart.Series<>();
         totalSeries.setName("Totals");
-        totalSeries.getData().add(new XYChart.Data<>(INCOME_LABEL, totalIncome));
-        totalSeries.getData().add(new XYChart.Data<>(EXPENSES_LABEL, totalExpenses));
-        
-        expenseChart.getData().addAll(categorySeries, totalSeries);
+        totalSeries.getData().add(new XYChart.Data<>(INCOME_LABEL, chartCube.getTotalIncome()));
+        totalSeries.getData().add(new XYChart.Data<>(EXPENSES_LABEL, chartCube.getTotalExpenses()));
+
+        expenseChart.getData().addAll(incomeSeries, expenseSeries, totalSeries);
+        onBarClick(incomeSeries, name -> showChart(ChartView.CATEGORY_TREND, categoryNamed(name), null));
+        onBarClick(expenseSeries, name -> showChart(ChartView.CATEGORY_TREND, categoryNamed(name), null));
+        onBarClick(totalSeries, name -> showChart(ChartView.MONTHS, null, null));
     }
 
-    private Map<String, Double> aggregateByCategory(List<Transaction> transactions) {
-        Map<String, Double> categoryData = new HashMap<>();
-        
-        for (Transaction t : transactions) {
-            if (t.getCategory() != null) {
-                String category = t.getCategory().getDisplayName();
-                double amount = Math.abs(t.getAmount());
-                categoryData.put(category, 
-                    categoryData.getOrDefault(category, 0.0) + amount
-                );
+    /** Income and expenses per month; click a month for its category split. */
+    private void renderMonths() {
+        expenseChart.setTitle("Income & Expenses by Month");
+        chartXAxis.setLabel("Month");
+        List<YearMonth> months = chartCube.getMonths();
+        XYChart.Series<String, Number> incomeSeries = new XYChart.Series<>();
+        incomeSeries.setName(INCOME_LABEL);
+        XYChart.Series<String, Number> expenseSeries = new XYChart.Series<>();
+        expenseSeries.setName(EXPENSES_LABEL);
+        for (YearMonth month : months) {
+            incomeSeries.getData().add(new XYChart.Data<>(month.toString(), sum(chartCube.getIncomeSplit(month))));
+            expenseSeries.getData().add(new XYChart.Data<>(month.toString(), sum(chartCube.getExpenseSplit(month))));
+        }
+        expenseChart.getData().addAll(incomeSeries, expenseSeries);
+        onBarClick(incomeSeries, month -> showChart(ChartView.MONTH_SPLIT, null, YearMonth.parse(month)));
+        onBarClick(expenseSeries, month -> showChart(ChartView.MONTH_SPLIT, null, YearMonth.parse(month)));
+    }
+
+    /** One category month by month; click a month for its category split. */
+    private void renderCategoryTrend(Category category) {
+        expenseChart.setTitle(category.getDisplayName() + " by Month");
+        chartXAxis.setLabel("Month");
+        List<YearMonth> months = chartCube.getMonths();
+        double[] income = chartCube.getMonthlyIncome(category);
+        double[] expenses = chartCube.getMonthlyExpenses(category);
+        XYChart.Series<String, Number> incomeSeries = new XYChart.Series<>();
+        incomeSeries.setName(INCOME_LABEL);
+        XYChart.Series<String, Number> expenseSeries = new XYChart.Series<>();
+        expenseSeries.setName(EXPENSES_LABEL);
+        for (int i = 0; i < months.size(); i++) {
+            incomeSeries.getData().add(new XYChart.Data<>(months.get(i).toString(), income[i]));
+            expenseSeries.getData().add(new XYChart.Data<>(months.get(i).toString(), expenses[i]));
+        }
+        expenseChart.getData().addAll(incomeSeries, expenseSeries);
+        onBarClick(incomeSeries, month -> showChart(ChartView.MONTH_SPLIT, null, YearMonth.parse(month)));
+        onBarClick(expenseSeries, month -> showChart(ChartView.MONTH_SPLIT, null, YearMonth.parse(month)));
+    }
+
+    /** Categories of one month; click a category for its monthly trend. */
+    private void renderMonthSplit(YearMonth month) {
+        expenseChart.setTitle("Income & Expenses in " + month);
+        chartXAxis.setLabel("Category");
+        XYChart.Series<String, Number> incomeSeries = categorySeries(INCOME_LABEL, chartCube.getIncomeSplit(month));
+        XYChart.Series<String, Number> expenseSeries = categorySeries(EXPENSES_LABEL, chartCube.getExpenseSplit(month));
+        expenseChart.getData().addAll(incomeSeries, expenseSeries);
+        onBarClick(incomeSeries, name -> showChart(ChartView.CATEGORY_TREND, categoryNamed(name), null));
+        onBarClick(expenseSeries, name -> showChart(ChartView.CATEGORY_TREND, categoryNamed(name), null));
+    }
+
+    /** One bar per category with a non-zero value, values indexed by {@link Category#ordinal()}. */
+    private static XYChart.Series<String, Number> categorySeries(String name, double[] values) {
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        series.setName(name);
+        for (Category category : Category.values()) {
+            if (values[category.ordinal()] != 0) {
+                series.getData().add(new XYChart.Data<>(category.getDisplayName(), values[category.ordinal()]));
             }
         }
-        
-        return categoryData;
+        return series;
     }
 
-    private double calculateTotalIncome(List<Transaction> transactions) {
-        double total = 0;
-        for (Transaction t : transactions) {
-            if (t.getAmount() > 0) {
-                total += t.getAmount();
+    /** Bars exist once the series is in the chart, so call this after adding it. */
+    private static void onBarClick(XYChart.Series<String, Number> series, Consumer<String> action) {
+        for (XYChart.Data<String, Number> data : series.getData()) {
+            if (data.getNode() != null) {
+                data.getNode().setOnMouseClicked(e -> action.accept(data.getXValue()));
             }
         }
-        return total;
     }
 
-    private double calculateTotalExpenses(List<Transaction> transactions) {
+    private static Category categoryNamed(String displayName) {
+        for (Category category : Category.values()) {
+            if (category.getDisplayName().equals(displayName)) return category;
+        }
+        throw new IllegalArgumentException("Unknown category: " + displayName);
+    }
+
+    private static double sum(double[] values) {
         double total = 0;
-        for (Transaction t : transactions) {
-            if (t.getAmount() < 0) {
-                total += Math.abs(t.getAmount());
-            }
+        for (double value : values) {
+            total += value;
         }
         return total;
     }
@@ -236,23 +590,412 @@ public class BankAnalyzerGUI extends Application {
     }
 
     private String formatAmount(Transaction transaction) {
-        return String.format("%.2f %s", 
+        String amount = String.format("%.2f %s", 
             transaction.getAmount(), 
             transaction.getCurrency()
         );
+        if (transaction.getCurrency() == null || transaction.getCurrency().equals(transaction.getReportingCurrency())) {
+            return amount;
+        }
+        return amount + String.format(" (%.2f %s)", transaction.getReportingAmount(), transaction.getReportingCurrency());
+    }
+
+    private VBox createChartPane() {
+        overviewButton = new Button("Back to categories");
+        overviewButton.setDisable(true);
+        overviewButton.setOnAction(e -> showChart(ChartView.CATEGORIES, null, null));
+
+        BarChart<String, Number> chart = createExpenseChart();
+        VBox.setVgrow(chart, Priority.ALWAYS);
+        return new VBox(5, overviewButton, chart);
     }
 
     private BarChart<String, Number> createExpenseChart() {
-        CategoryAxis xAxis = new CategoryAxis();
-        xAxis.setLabel("Category");
+        chartXAxis = new CategoryAxis();
+        chartXAxis.setLabel("Category");
         
-        NumberAxis yAxis = new NumberAxis();
-        yAxis.setLabel("Amount (" + CURRENCY + ")");
+        chartYAxis = new NumberAxis();
+        chartYAxis.setLabel("Amount (" + CURRENCY + ")");
         
-        expenseChart = new BarChart<>(xAxis, yAxis);
+        expenseChart = new BarChart<>(chartXAxis, chartYAxis);
         expenseChart.setTitle("Income & Expenses by Category");
         expenseChart.setLegendVisible(true);
+        // Redrawn several times a second while loading; animating every update would lag behind.
+        expenseChart.setAnimated(false);
         
         return expenseChart;
     }
-}
\ No newline at end of file
+
+    /**
+     * Parses and categorizes the files side by side and adds them to the session in the order
+     * they were picked, handing rows to the {@link TableFeed} in chunks. Files with a snapshot
+     * are read from it; other files are parsed as a stream and their snapshot is saved afterwards.
+     */
+    private class LoadTask extends Task<Void> {
+        private final List<File> files;
+        private final Map<String, Exception> failures = new LinkedHashMap<>();
+        private final AtomicLong doneBytes = new AtomicLong();
+        private volatile boolean resync;
+        private long totalBytes;
+
+        LoadTask(List<File> files) {
+            this.files = files;
+        }
+
+        Map<String, Exception> getFailures() {
+            return failures;
+        }
+
+        /** Whether the table shows rows that are not, or no longer, in the session. */
+        boolean needsResync() {
+            return resync;
+        }
+
+        @Override
+        protected Void call() throws Exception {
+            // One set of rules for the whole load, even if the rules file changes meanwhile.
+            RuleSet rules = categorizer.getRuleSet();
+            CategorizationService loader = new CategorizationService(rules);
+            loader.setCache(categorizer.getCache());
+            loader.setMetrics(categorizer.getMetrics());
+            Set<String> loaded = new HashSet<>(session.getFilePaths());
+
+            for (File file : files) {
+                totalBytes += Math.max(1, file.length());
+            }
+
+            // This task already holds a thread of the ingest pool, so the files get their own.
+            int threads = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+            ExecutorService parsers = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+                Thread thread = new Thread(runnable, "gui-parse");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<FileLoad> loads = new ArrayList<>();
+                for (File file : files) {
+                    FileLoad load = new FileLoad(file);
+                    loads.add(load);
+                    parsers.execute(() -> load.parse(loader, rules));
+                }
+                for (FileLoad load : loads) {
+                    if (isCancelled()) break;
+                    String path = load.file.getAbsolutePath();
+                    updateMessage("Loading " + load.file.getName() + "...");
+                    if (loaded.contains(path)) {
+                        resync = true;
+                    }
+                    try {
+                        addFile(load);
+                    } catch (CancellationException | InterruptedException e) {
+                        resync = true;
+                        break;
+                    } catch (Exception e) {
+                        System.err.println("Cannot load " + path + ": " + e.getMessage());
+                        failures.put(path, e);
+                        resync = true;
+                    }
+                }
+            } finally {
+                parsers.shutdownNow();
+            }
+            return null;
+        }
+
+        /** Shows the chunks of one file as its worker delivers them, then adds the file to the session. */
+        private void addFile(FileLoad load) throws Exception {
+            ReportAccumulator before = session.getSummary();
+            ReportAccumulator filePartial = new ReportAccumulator();
+            long[] lastSummary = {System.nanoTime()};
+            List<Transaction> chunk;
+            while ((chunk = load.chunks.take()) != END_OF_FILE) {
+                if (isCancelled()) throw new CancellationException();
+                publish(chunk, filePartial, before, lastSummary);
+            }
+            if (load.error != null) throw load.error;
+
+            if (session.add(load.file.getAbsolutePath(), load.transactions, load.rulesVersion, load.account) > 0) {
+                resync = true;
+            }
+            tableFeed.publishSummary(session.getSummary());
+        }
+
+        private void advance(long bytes) {
+            updateProgress(doneBytes.addAndGet(bytes), totalBytes);
+        }
+
+        /**
+         * One file read on a worker thread. Its categorized chunks wait in a queue until the
+         * files picked before it have been added, so the table keeps the order of the files.
+         */
+        private class FileLoad {
+            final File file;
+            final BlockingQueue<List<Transaction>> chunks = new LinkedBlockingQueue<>();
+            volatile String account;
+            volatile List<Transaction> transactions;
+            volatile String rulesVersion;
+            volatile Exception error;
+
+            FileLoad(File file) {
+                this.file = file;
+            }
+
+            void parse(CategorizationService loader, RuleSet rules) {
+                long fileBytes = Math.max(1, file.length());
+                long[] reported = {0};
+                try {
+                    String path = file.getAbsolutePath();
+                    CsvParserService parser = new CsvParserService();
+                    StatementLayout layout = parser.detectLayout(path);
+                    account = layout.getAccountNumber();
+                    SnapshotCache.Snapshot snapshot = snapshotCache.find(file.toPath());
+                    if (snapshot != null) {
+                        List<Transaction> rows = snapshot.getTransactions();
+                        for (int from = 0; from < rows.size(); from += PUBLISH_CHUNK) {
+                            if (isCancelled()) throw new CancellationException();
+                            chunks.add(rows.subList(from, Math.min(rows.size(), from + PUBLISH_CHUNK)));
+                        }
+                        transactions = rows;
+                        rulesVersion = snapshot.getRulesVersion();
+                    } else {
+                        long declared = layout.getDeclaredRowCount();
+                        List<Transaction> parsed = new ArrayList<>(declared > 0 ? (int) Math.min(declared, 1 << 24) : 16);
+                        List<Transaction> chunk = new ArrayList<>(PUBLISH_CHUNK);
+                        parser.forEachTransaction(path, layout, transaction -> {
+                            parsed.add(transaction);
+                            chunk.add(transaction);
+                            if (chunk.size() == PUBLISH_CHUNK) {
+                                if (isCancelled()) throw new CancellationException();
+                                loader.categorizeTransactions(chunk);
+                                chunks.add(new ArrayList<>(chunk));
+                                chunk.clear();
+                                if (declared > 0) {
+                                    long done = fileBytes * Math.min(parsed.size(), declared) / declared;
+                                    advance(done - reported[0]);
+                                    reported[0] = done;
+                                }
+                            }
+                        });
+                        loader.categorizeTransactions(chunk);
+                        chunks.add(chunk);
+                        transactions = parsed;
+                        rulesVersion = rules.getVersion();
+                        try {
+                            snapshotCache.save(file.toPath(), parsed, rulesVersion);
+                        } catch (Exception e) {
+                            System.err.println("Cannot write snapshot for " + path + ": " + e.getMessage());
+                        }
+                    }
+                } catch (Exception e) {
+                    error = e;
+                } finally {
+                    advance(fileBytes - reported[0]);
+                    chunks.add(END_OF_FILE);
+                }
+            }
+        }
+
+        /** Hands a chunk to the table and, a few times a second, a summary including it. */
+        private void publish(List<Transaction> chunk, ReportAccumulator filePartial, ReportAccumulator before,
+                             long[] lastSummary) {
+            if (chunk.isEmpty()) return;
+            CurrencyConverter converter = session.getCurrencyConverter();
+            if (converter != null) {
+                converter.convertAll(chunk);
+            }
+            chunk.forEach(filePartial);
+            tableFeed.publish(new ArrayList<>(chunk));
+            long now = System.nanoTime();
+            if (now - lastSummary[0] >= SUMMARY_INTERVAL_NANOS) {
+                lastSummary[0] = now;
+                tableFeed.publishSummary(new ReportAccumulator().merge(before).merge(filePartial));
+            }
+        }
+    }
+
+    /**
+     * Coalesces rows and summaries published from the loading thread into as few
+     * {@link Platform#runLater} calls as possible. Each pulse adds at most
+     * {@value #MAX_ROWS_PER_PULSE} rows and applies only the newest summary.
+     */
+    private class TableFeed {
+        private final ConcurrentLinkedQueue<List<Transaction>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicReference<ReportAccumulator> latestSummary = new AtomicReference<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private Runnable onDrained;
+
+        void publish(List<Transaction> rows) {
+            pending.add(rows);
+            schedule();
+        }
+
+        void publishSummary(ReportAccumulator summary) {
+            latestSummary.set(summary);
+            schedule();
+        }
+
+        /** FX thread: runs the action once everything published so far is in the table. */
+        void whenDrained(Runnable action) {
+            onDrained = action;
+            schedule();
+        }
+
+        /** FX thread: drops whatever has not reached the table yet. */
+        void discard() {
+            pending.clear();
+            latestSummary.set(null);
+            onDrained = null;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                Platform.runLater(this::drain);
+            }
+        }
+
+        private void drain() {
+            scheduled.set(false);
+            List<Transaction> batch = new ArrayList<>();
+            List<Transaction> rows;
+            while (batch.size() < MAX_ROWS_PER_PULSE && (rows = pending.poll()) != null) {
+                batch.addAll(rows);
+            }
+            if (!batch.isEmpty()) {
+                allRows.addAll(batch);
+                summaryLabel.textProperty().unbind();
+                updateSummaryLabel(allRows.size(), session.getFileCount());
+            }
+            ReportAccumulator summary = latestSummary.getAndSet(null);
+            if (summary != null) {
+                updateStatistics(summary);
+                updateChart(summary);
+            }
+
+            if (!pending.isEmpty()) {
+                schedule();
+            } else if (onDrained != null && currentLoad == null) {
+                Runnable action = onDrained;
+                onDrained = null;
+                action.run();
+            }
+        }
+    }
+
+    /**
+     * What the table shows of {@link #allRows}: all of them, or the rows an index query selected,
+     * held as an array of positions so that filtering never copies the transactions.
+     */
+    private static class FilteredRows extends ObservableListBase<Transaction> {
+        private final ObservableList<Transaction> source;
+        private int[] matches;
+
+        FilteredRows(ObservableList<Transaction> source) {
+            this.source = source;
+            source.addListener((ListChangeListener<Transaction>) this::sourceChanged);
+        }
+
+        @Override
+        public Transaction get(int index) {
+            return matches == null ? source.get(index) : source.get(matches[index]);
+        }
+
+        @Override
+        public int size() {
+            return matches == null ? source.size() : matches.length;
+        }
+
+        /** Shows only the given positions of the source, which must be ascending. */
+        void show(int[] rows) {
+            replaceWith(rows);
+        }
+
+        void showAll() {
+            if (matches != null) replaceWith(null);
+        }
+
+        private void replaceWith(int[] rows) {
+            int[] previous = matches;
+            List<Transaction> removed = previous == null
+                ? Collections.unmodifiableList(source)
+                : new AbstractList<>() {
+                    @Override public Transaction get(int i) { return source.get(previous[i]); }
+                    @Override public int size() { return previous.length; }
+                };
+            matches = rows;
+            beginChange();
+            nextReplace(0, size(), removed);
+            endChange();
+        }
+
+        private void sourceChanged(ListChangeListener.Change<? extends Transaction> change) {
+            if (matches != null) {
+                // Positions refer to the old contents; show everything until a new index is built.
+                List<Transaction> removed = previouslyShown(change);
+                matches = null;
+                beginChange();
+                nextReplace(0, size(), removed);
+                endChange();
+                return;
+            }
+            beginChange();
+            while (change.next()) {
+                if (change.wasPermutated()) {
+                    int[] permutation = new int[change.getTo() - change.getFrom()];
+                    for (int i = change.getFrom(); i < change.getTo(); i++) {
+                        permutation[i - change.getFrom()] = change.getPermutation(i);
+                    }
+                    nextPermutation(change.getFrom(), change.getTo(), permutation);
+                } else if (change.wasUpdated()) {
+                    for (int i = change.getFrom(); i < change.getTo(); i++) {
+                        nextUpdate(i);
+                    }
+                } else {
+                    if (change.wasRemoved()) {
+                        nextRemove(change.getFrom(), change.getRemoved());
+                    }
+                    if (change.wasAdded()) {
+                        nextAdd(change.getFrom(), change.getTo());
+                    }
+                }
+            }
+            endChange();
+        }
+
+        /**
+         * The rows at {@link #matches} before the change: unchanged rows are read from the source
+         * at their shifted position, replaced ones from the change's removed lists.
+         */
+        private List<Transaction> previouslyShown(ListChangeListener.Change<? extends Transaction> change) {
+            List<Transaction> rows = new ArrayList<>(matches.length);
+            int next = 0;
+            int shift = 0;
+            while (change.next()) {
+                int from = change.getFrom() - shift;
+                while (next < matches.length && matches[next] < from) {
+                    rows.add(source.get(matches[next++] + shift));
+                }
+                if (change.wasPermutated()) {
+                    while (next < matches.length && matches[next] < change.getTo() - shift) {
+                        rows.add(source.get(change.getPermutation(matches[next++] + shift)));
+                    }
+                    continue;
+                }
+                List<? extends Transaction> removed = change.getRemoved();
+                while (next < matches.length && matches[next] < from + removed.size()) {
+                    rows.add(removed.get(matches[next++] - from));
+                }
+                shift += change.getAddedSize() - removed.size();
+            }
+            change.reset();
+            while (next < matches.length) {
+                rows.add(source.get(matches[next++] + shift));
+            }
+            return rows;
+        }
+    }
+
+    /** What the chart shows; the drill-down views also need {@link #drillCategory} or {@link #drillMonth}. */
+    private enum ChartView {
+        CATEGORIES, MONTHS, CATEGORY_TREND, MONTH_SPLIT
+    }
+}
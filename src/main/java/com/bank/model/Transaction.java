@@ -12,6 +12,8 @@ public class Transaction {
     private String title;
     private double balanceAfter;
     private Category category;
+    private double reportingAmount;
+    private String reportingCurrency;
 
     public Transaction(LocalDate bookingDate, LocalDate operationDate, String operationType,
                       double amount, String currency, String counterparty, String title, double balanceAfter) {
@@ -23,6 +25,8 @@ public class Transaction {
         this.counterparty = counterparty;
         this.title = title;
         this.balanceAfter = balanceAfter;
+        this.reportingAmount = amount;
+        this.reportingCurrency = currency;
     }
 
     public LocalDate getBookingDate() { return bookingDate; }
@@ -35,8 +39,17 @@ public class Transaction {
     public double getBalanceAfter() { return balanceAfter; }
     public Category getCategory() { return category; }
 
+    /** The amount the totals add up: converted to the reporting currency, or the amount itself. */
+    public double getReportingAmount() { return reportingAmount; }
+    public String getReportingCurrency() { return reportingCurrency; }
+
     public void setCategory(Category category) { this.category = category; }
 
+    public void setReportingAmount(double reportingAmount, String reportingCurrency) {
+        this.reportingAmount = reportingAmount;
+        this.reportingCurrency = reportingCurrency;
+    }
+
     @Override
     public String toString() {
         return String.format("%s | %.2f %s | %s | %s",
@@ -0,0 +1,414 @@
+package com.bank.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Column-oriented, primitive-backed alternative to {@code List<Transaction>}.
+ * Amounts and balances are kept as {@code long} minor units (grosze), dates as epoch days,
+ * the category as a byte ordinal, the repetitive text columns as ids into per-column
+ * dictionaries and titles as UTF-8 in one shared byte array.
+ * Categories may be updated concurrently for distinct rows; everything else is immutable.
+ */
+public class TransactionStore {
+    private static final byte NO_CATEGORY = -1;
+    private static final Category[] CATEGORIES = Category.values();
+
+    private final int size;
+    private final int[] bookingDays;
+    private final int[] operationDays;
+    private final long[] amounts;
+    private final long[] balances;
+    private final byte[] categories;
+    private final int[] operationTypeIds;
+    private final int[] currencyIds;
+    private final int[] counterpartyIds;
+    private final int[] titleOffsets;
+    private final byte[] titleBytes;
+    private final String[] operationTypes;
+    private final String[] currencies;
+    private final String[] counterparties;
+
+    private TransactionStore(Builder builder) {
+        size = builder.size;
+        bookingDays = builder.bookingDays;
+        operationDays = builder.operationDays;
+        amounts = builder.amounts;
+        balances = builder.balances;
+        categories = builder.categories;
+        operationTypeIds = builder.operationTypeIds;
+        currencyIds = builder.currencyIds;
+        counterpartyIds = builder.counterpartyIds;
+        titleOffsets = builder.titleOffsets;
+        titleBytes = builder.titleBytes;
+        operationTypes = builder.operationTypes.toArray();
+        currencies = builder.currencies.toArray();
+        counterparties = builder.counterparties.toArray();
+    }
+
+    public static Builder builder() {
+        return new Builder(1024);
+    }
+
+    public static TransactionStore of(List<Transaction> transactions) {
+        Builder builder = new Builder(transactions.size());
+        transactions.forEach(builder);
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getBookingDay(int row) { return bookingDays[row]; }
+    public int getOperationDay(int row) { return operationDays[row]; }
+    public long getAmountMinor(int row) { return amounts[row]; }
+    public long getBalanceAfterMinor(int row) { return balances[row]; }
+    public String getOperationType(int row) { return operationTypes[operationTypeIds[row]]; }
+    public String getCurrency(int row) { return currencies[currencyIds[row]]; }
+    public String getCounterparty(int row) { return counterparties[counterpartyIds[row]]; }
+    public int getOperationTypeId(int row) { return operationTypeIds[row]; }
+    public int getCurrencyId(int row) { return currencyIds[row]; }
+    public int getCounterpartyId(int row) { return counterpartyIds[row]; }
+
+    public String getTitle(int row) {
+        int start = titleOffsets[row];
+        return new String(titleBytes, start, titleOffsets[row + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    public Category getCategory(int row) {
+        byte ordinal = categories[row];
+        return ordinal == NO_CATEGORY ? null : CATEGORIES[ordinal];
+    }
+
+    public void setCategory(int row, Category category) {
+        categories[row] = category == null ? NO_CATEGORY : (byte) category.ordinal();
+    }
+
+    /** Number of distinct values in the operation type, currency and counterparty dictionaries. */
+    public int getOperationTypeCount() { return operationTypes.length; }
+    public int getCurrencyCount() { return currencies.length; }
+    public int getCounterpartyCount() { return counterparties.length; }
+
+    public Transaction toTransaction(int row) {
+        Transaction transaction = new Transaction(
+            LocalDate.ofEpochDay(bookingDays[row]),
+            LocalDate.ofEpochDay(operationDays[row]),
+            getOperationType(row),
+            fromMinor(amounts[row]),
+            getCurrency(row),
+            getCounterparty(row),
+            getTitle(row),
+            fromMinor(balances[row])
+        );
+        transaction.setCategory(getCategory(row));
+        return transaction;
+    }
+
+    /** Returns a view of the given row; {@link Row#moveTo(int)} re-points it without allocating. */
+    public Row row(int row) {
+        return new Row().moveTo(row);
+    }
+
+    /** Visits every row through a single reused {@link Row}; do not keep it past the callback. */
+    public void forEachRow(Consumer<Row> action) {
+        Row cursor = new Row();
+        for (int i = 0; i < size; i++) {
+            action.accept(cursor.moveTo(i));
+        }
+    }
+
+    /** Approximate retained heap size of this store, assuming compressed oops. */
+    public long estimateHeapBytes() {
+        long bytes = HeapEstimates.OBJECT_HEADER + 15 * HeapEstimates.REFERENCE;
+        // Columns may be up to a quarter longer than the row count, see Builder.
+        for (int[] column : new int[][] {bookingDays, operationDays, operationTypeIds, currencyIds, counterpartyIds, titleOffsets}) {
+            bytes += HeapEstimates.array(column.length, 4);
+        }
+        bytes += HeapEstimates.array(amounts.length, 8) + HeapEstimates.array(balances.length, 8);
+        bytes += HeapEstimates.array(categories.length, 1);
+        bytes += HeapEstimates.array(titleBytes.length, 1);
+        for (String[] dictionary : new String[][] {operationTypes, currencies, counterparties}) {
+            bytes += HeapEstimates.array(dictionary.length, HeapEstimates.REFERENCE);
+            for (String value : dictionary) {
+                bytes += HeapEstimates.string(value);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Approximate retained heap size of a list of transactions as the parsers build it,
+     * i.e. with no String or LocalDate shared between rows.
+     */
+    public static long estimateHeapBytes(List<Transaction> transactions) {
+        long bytes = HeapEstimates.ARRAY_LIST + HeapEstimates.array(transactions.size(), HeapEstimates.REFERENCE);
+        for (Transaction transaction : transactions) {
+            bytes += HeapEstimates.TRANSACTION + 2 * HeapEstimates.LOCAL_DATE;
+            bytes += HeapEstimates.string(transaction.getOperationType());
+            bytes += HeapEstimates.string(transaction.getCurrency());
+            bytes += HeapEstimates.string(transaction.getCounterparty());
+            bytes += HeapEstimates.string(transaction.getTitle());
+        }
+        return bytes;
+    }
+
+    /** A few lines comparing the estimated footprint of this store with the given list. */
+    public String footprintReport(List<Transaction> transactions) {
+        long listBytes = estimateHeapBytes(transactions);
+        long storeBytes = estimateHeapBytes();
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Rows: %d (dictionaries: %d operation types, %d currencies, %d counterparties)%n",
+            size, operationTypes.length, currencies.length, counterparties.length));
+        report.append(String.format("List<Transaction>: %,d bytes (%.1f per row)%n",
+            listBytes, size == 0 ? 0.0 : (double) listBytes / size));
+        report.append(String.format("TransactionStore:  %,d bytes (%.1f per row)%n",
+            storeBytes, size == 0 ? 0.0 : (double) storeBytes / size));
+        report.append(String.format("Ratio: %.2fx%n", storeBytes == 0 ? 0.0 : (double) listBytes / storeBytes));
+        return report.toString();
+    }
+
+    /** Converts an amount to minor units. Amounts are expected to have at most two decimals. */
+    public static long toMinor(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    public static double fromMinor(long minor) {
+        return minor / 100.0;
+    }
+
+    /** Transaction-like view of one row of the store. */
+    public final class Row {
+        private int index;
+
+        private Row() {
+        }
+
+        public Row moveTo(int row) {
+            if (row < 0 || row >= size) {
+                throw new IndexOutOfBoundsException("Row " + row + " out of " + size);
+            }
+            index = row;
+            return this;
+        }
+
+        public int getIndex() { return index; }
+        public LocalDate getBookingDate() { return LocalDate.ofEpochDay(bookingDays[index]); }
+        public LocalDate getOperationDate() { return LocalDate.ofEpochDay(operationDays[index]); }
+        public String getOperationType() { return TransactionStore.this.getOperationType(index); }
+        public double getAmount() { return fromMinor(amounts[index]); }
+        public long getAmountMinor() { return amounts[index]; }
+        public String getCurrency() { return TransactionStore.this.getCurrency(index); }
+        public String getCounterparty() { return TransactionStore.this.getCounterparty(index); }
+        public String getTitle() { return TransactionStore.this.getTitle(index); }
+        public double getBalanceAfter() { return fromMinor(balances[index]); }
+        public Category getCategory() { return TransactionStore.this.getCategory(index); }
+
+        public void setCategory(Category category) { TransactionStore.this.setCategory(index, category); }
+
+        public Transaction toTransaction() {
+            return TransactionStore.this.toTransaction(index);
+        }
+    }
+
+    /**
+     * Appends rows column by column; the columns double when full. {@link #build()} hands the
+     * columns over to the store and trims only those more than a quarter empty, one at a time,
+     * so building never holds a second copy of the whole store. The builder cannot be used
+     * afterwards. Also a {@code Consumer<Transaction>}, so it can be handed straight to
+     * {@code CsvParserService.forEachTransaction}. Not thread-safe.
+     */
+    public static class Builder implements Consumer<Transaction> {
+        // Title bytes to reserve per expected row; the buffer doubles when it runs out.
+        private static final int TITLE_BYTES_PER_ROW = 16;
+
+        private int size;
+        private boolean built;
+        private int[] bookingDays;
+        private int[] operationDays;
+        private long[] amounts;
+        private long[] balances;
+        private byte[] categories;
+        private int[] operationTypeIds;
+        private int[] currencyIds;
+        private int[] counterpartyIds;
+        private int[] titleOffsets;
+        private byte[] titleBytes;
+        private final Dictionary operationTypes = new Dictionary();
+        private final Dictionary currencies = new Dictionary();
+        private final Dictionary counterparties = new Dictionary();
+
+        public Builder(int expectedRows) {
+            int capacity = Math.max(1, expectedRows);
+            bookingDays = new int[capacity];
+            operationDays = new int[capacity];
+            amounts = new long[capacity];
+            balances = new long[capacity];
+            categories = new byte[capacity];
+            operationTypeIds = new int[capacity];
+            currencyIds = new int[capacity];
+            counterpartyIds = new int[capacity];
+            titleOffsets = new int[capacity + 1];
+            titleBytes = new byte[Math.toIntExact(Math.min(Integer.MAX_VALUE - 8, (long) capacity * TITLE_BYTES_PER_ROW))];
+        }
+
+        @Override
+        public void accept(Transaction transaction) {
+            add(transaction);
+        }
+
+        public Builder add(Transaction transaction) {
+            add(
+                Math.toIntExact(transaction.getBookingDate().toEpochDay()),
+                Math.toIntExact(transaction.getOperationDate().toEpochDay()),
+                transaction.getOperationType(),
+                toMinor(transaction.getAmount()),
+                transaction.getCurrency(),
+                transaction.getCounterparty(),
+                transaction.getTitle(),
+                toMinor(transaction.getBalanceAfter())
+            );
+            if (transaction.getCategory() != null) {
+                categories[size - 1] = (byte) transaction.getCategory().ordinal();
+            }
+            return this;
+        }
+
+        /** Appends an uncategorized row without going through a {@link Transaction}. A null title is stored as empty. */
+        public Builder add(int bookingDay, int operationDay, String operationType, long amountMinor,
+                           String currency, String counterparty, String title, long balanceAfterMinor) {
+            if (built) {
+                throw new IllegalStateException("The store was already built");
+            }
+            if (size == bookingDays.length) {
+                grow();
+            }
+            bookingDays[size] = bookingDay;
+            operationDays[size] = operationDay;
+            amounts[size] = amountMinor;
+            balances[size] = balanceAfterMinor;
+            categories[size] = NO_CATEGORY;
+            operationTypeIds[size] = operationTypes.idOf(operationType);
+            currencyIds[size] = currencies.idOf(currency);
+            counterpartyIds[size] = counterparties.idOf(counterparty);
+            appendTitle(title == null ? "" : title);
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public TransactionStore build() {
+            if (built) {
+                throw new IllegalStateException("The store was already built");
+            }
+            built = true;
+            bookingDays = fit(bookingDays, size);
+            operationDays = fit(operationDays, size);
+            amounts = fit(amounts, size);
+            balances = fit(balances, size);
+            categories = fit(categories, size);
+            operationTypeIds = fit(operationTypeIds, size);
+            currencyIds = fit(currencyIds, size);
+            counterpartyIds = fit(counterpartyIds, size);
+            titleOffsets = fit(titleOffsets, size + 1);
+            titleBytes = fit(titleBytes, titleOffsets[size]);
+            return new TransactionStore(this);
+        }
+
+        private static int[] fit(int[] column, int used) {
+            return column.length - used <= column.length / 4 ? column : Arrays.copyOf(column, used);
+        }
+
+        private static long[] fit(long[] column, int used) {
+            return column.length - used <= column.length / 4 ? column : Arrays.copyOf(column, used);
+        }
+
+        private static byte[] fit(byte[] column, int used) {
+            return column.length - used <= column.length / 4 ? column : Arrays.copyOf(column, used);
+        }
+
+        private void appendTitle(String title) {
+            int offset = titleOffsets[size];
+            byte[] encoded = title.getBytes(StandardCharsets.UTF_8);
+            if (offset + encoded.length > titleBytes.length) {
+                titleBytes = Arrays.copyOf(titleBytes, Math.max(Math.max(titleBytes.length * 2, 16), offset + encoded.length));
+            }
+            System.arraycopy(encoded, 0, titleBytes, offset, encoded.length);
+            titleOffsets[size + 1] = offset + encoded.length;
+        }
+
+        private void grow() {
+            int capacity = bookingDays.length * 2;
+            bookingDays = Arrays.copyOf(bookingDays, capacity);
+            operationDays = Arrays.copyOf(operationDays, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+            balances = Arrays.copyOf(balances, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            operationTypeIds = Arrays.copyOf(operationTypeIds, capacity);
+            currencyIds = Arrays.copyOf(currencyIds, capacity);
+            counterpartyIds = Arrays.copyOf(counterpartyIds, capacity);
+            titleOffsets = Arrays.copyOf(titleOffsets, capacity + 1);
+        }
+    }
+
+    private static class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private String[] values = new String[16];
+
+        int idOf(String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = ids.size();
+                if (id == values.length) {
+                    values = Arrays.copyOf(values, id * 2);
+                }
+                values[id] = value;
+                ids.put(value, id);
+            }
+            return id;
+        }
+
+        String[] toArray() {
+            return Arrays.copyOf(values, ids.size());
+        }
+    }
+
+    private static final class HeapEstimates {
+        static final int OBJECT_HEADER = 12;
+        static final int REFERENCE = 4;
+        static final long ARRAY_LIST = 24;
+        // Header, two LocalDate refs, five String refs, a Category ref and three doubles.
+        static final long TRANSACTION = align(OBJECT_HEADER + 8 * REFERENCE + 3 * 8);
+        // Header, int year, short month, short day.
+        static final long LOCAL_DATE = align(OBJECT_HEADER + 4 + 2 + 2);
+        // Header, byte[] ref, int hash, byte coder, boolean hashIsZero.
+        static final long STRING = align(OBJECT_HEADER + REFERENCE + 4 + 1 + 1);
+
+        static long array(long length, int elementSize) {
+            return align(16 + length * elementSize);
+        }
+
+        static long string(String value) {
+            if (value == null) {
+                return 0;
+            }
+            boolean latin1 = true;
+            for (int i = 0; i < value.length() && latin1; i++) {
+                latin1 = value.charAt(i) <= 0xFF;
+            }
+            return STRING + array(value.length(), latin1 ? 1 : 2);
+        }
+
+        static long align(long bytes) {
+            return (bytes + 7) & ~7L;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.bank.service;
+
+/**
+ * A bank's statement export format. Given the first bytes of a file, a format says whether
+ * the file is one of its exports and, if so, how its rows are laid out.
+ * <p>
+ * PKO BP, mBank and ING are built in. Other formats are picked up with {@link java.util.ServiceLoader}
+ * from {@code META-INF/services/com.bank.service.BankFormat} on the class path.
+ */
+public interface BankFormat {
+
+    String getName();
+
+    /** The layout of the sampled file, or {@code null} if it is not in this format. */
+    StatementLayout detect(StatementSample sample);
+}
@@ -0,0 +1,68 @@
+package com.bank.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * The known statement formats and the sniffing that picks one for a file. Only the first
+ * {@link #SAMPLE_SIZE} bytes are read to decide; the rows themselves are left to the parser.
+ */
+public class BankFormats {
+    public static final int SAMPLE_SIZE = 8 * 1024;
+
+    private static volatile BankFormats defaults;
+
+    private final List<BankFormat> formats;
+
+    public BankFormats(List<BankFormat> formats) {
+        this.formats = List.copyOf(formats);
+    }
+
+    /** The built-in formats followed by those found with {@link ServiceLoader}, loaded once. */
+    public static BankFormats defaults() {
+        BankFormats result = defaults;
+        if (result == null) {
+            List<BankFormat> formats = new ArrayList<>(List.of(new PkoBankFormat(), new MbankFormat(), new IngBankFormat()));
+            for (BankFormat format : ServiceLoader.load(BankFormat.class)) {
+                formats.add(format);
+            }
+            result = new BankFormats(formats);
+            defaults = result;
+        }
+        return result;
+    }
+
+    public List<BankFormat> getFormats() {
+        return Collections.unmodifiableList(formats);
+    }
+
+    /**
+     * The layout of the file from the first format that recognizes it. A file none of them
+     * recognizes is read with the PKO BP layout, as before there were other formats.
+     */
+    public StatementLayout detect(Path file) throws IOException {
+        byte[] bytes;
+        boolean complete;
+        try (InputStream in = Files.newInputStream(file)) {
+            bytes = in.readNBytes(SAMPLE_SIZE);
+            complete = in.read() < 0;
+        }
+        return detect(new StatementSample(bytes, bytes.length, complete));
+    }
+
+    public StatementLayout detect(StatementSample sample) {
+        for (BankFormat format : formats) {
+            StatementLayout layout = format.detect(sample);
+            if (layout != null) {
+                return layout;
+            }
+        }
+        return PkoBankFormat.standard(sample.getCharset(), sample);
+    }
+}
@@ -0,0 +1,63 @@
+package com.bank.service;
+
+/**
+ * Bloom filter over 64-bit fingerprints. {@link #mightContain} never gives a false negative;
+ * false positives occur at roughly the rate it was sized for. Not thread-safe.
+ */
+public class BloomFilter {
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions number of values the filter is sized for
+     * @param falsePositiveRate  target false positive rate at that size, e.g. 0.01
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        bits = new long[(int) Math.min(Integer.MAX_VALUE - 8, (m + 63) >>> 6)];
+        bitCount = (long) bits.length << 6;
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    public void put(long fingerprint) {
+        long h1 = fingerprint;
+        long h2 = mix(fingerprint);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(long fingerprint) {
+        long h1 = fingerprint;
+        long h2 = mix(fingerprint);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /** Approximate heap size of the filter in bytes. */
+    public long estimateBytes() {
+        return 16L + 8L * bits.length + 32;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        return value | 1;
+    }
+}
@@ -0,0 +1,218 @@
+package com.bank.service;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU memo of categorization results, keyed by a normalized form of the fields
+ * the rules look at. Text is upper-cased and runs of digits (card numbers, dates, order
+ * ids) are collapsed, so "BOLT.EU/O/2601030749" and "bolt.eu/o/2601041120" share an entry.
+ * The key holds the normalized text, built in one pass over the fields together with a
+ * 128-bit fingerprint that serves as its hash and rejects most unequal keys before the text
+ * is compared, which is cheaper than categorizing from scratch. The cache is split into
+ * independently locked segments for parallel use, whose capacities add up to exactly the
+ * maximum size, and drops everything as soon as it is asked about a rule set with a
+ * different version.
+ */
+public class CategorizationCache {
+    static final char DIGIT_PLACEHOLDER = '#';
+    private static final int SEGMENTS = 16;
+    // A noncharacter, so ("AB", "C") and ("A", "BC") differ.
+    private static final char FIELD_SEPARATOR = '\uFFFF';
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long MIX_MULTIPLIER = 0x9e3779b97f4a7c15L;
+    private static final char[] ASCII_NORMALIZED = new char[128];
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            ASCII_NORMALIZED[c] = c >= '0' && c <= '9' ? DIGIT_PLACEHOLDER : Character.toUpperCase(c);
+        }
+    }
+
+    private final int maximumSize;
+    private final AtomicReference<Generation> generation = new AtomicReference<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CategorizationCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    public Category categorize(Transaction transaction, RuleSet rules) {
+        Generation current = generationFor(rules);
+        Key key = key(transaction, !rules.isDigitSensitive());
+        Segment segment = current.segments[(key.hashCode() & 0x7fffffff) % current.segments.length];
+
+        Category category;
+        synchronized (segment) {
+            category = segment.get(key);
+        }
+        if (category != null) {
+            hits.increment();
+            return category;
+        }
+
+        misses.increment();
+        category = rules.categorize(transaction);
+        synchronized (segment) {
+            segment.put(key, category);
+        }
+        return category;
+    }
+
+    private Generation generationFor(RuleSet rules) {
+        while (true) {
+            Generation current = generation.get();
+            if (current != null && current.version.equals(rules.getVersion())) {
+                return current;
+            }
+            Generation replacement = new Generation(rules.getVersion(), maximumSize);
+            if (generation.compareAndSet(current, replacement)) {
+                return replacement;
+            }
+        }
+    }
+
+    static Key key(Transaction transaction, boolean collapseDigits) {
+        double amount = transaction.getAmount();
+        Key key = new Key(amount > 0 ? 1 : amount < 0 ? 2 : 3);
+        key.append(transaction.getOperationType(), collapseDigits);
+        key.append(transaction.getCounterparty(), collapseDigits);
+        key.append(transaction.getTitle(), collapseDigits);
+        key.seal();
+        return key;
+    }
+
+    public void invalidate() {
+        generation.set(null);
+    }
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+
+    public double getHitRate() {
+        long hitCount = getHitCount();
+        long total = hitCount + getMissCount();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    public int size() {
+        Generation current = generation.get();
+        if (current == null) return 0;
+
+        int size = 0;
+        for (Segment segment : current.segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d evictions=%d hitRate=%.1f%% size=%d",
+            getHitCount(), getMissCount(), getEvictionCount(), getHitRate() * 100, size());
+    }
+
+    static final class Key {
+        private long first = FNV_OFFSET;
+        private long second;
+        private StringBuilder builder = new StringBuilder(64);
+        private String text;
+
+        Key(int sign) {
+            mix((char) sign);
+        }
+
+        void append(String text, boolean collapseDigits) {
+            boolean inDigits = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (!collapseDigits) {
+                    mix(Character.toUpperCase(c));
+                    continue;
+                }
+
+                char normalized = c < 128 ? ASCII_NORMALIZED[c]
+                    : Character.isDigit(c) ? DIGIT_PLACEHOLDER : Character.toUpperCase(c);
+                if (normalized == DIGIT_PLACEHOLDER) {
+                    if (inDigits) continue;
+                    inDigits = true;
+                } else {
+                    inDigits = false;
+                }
+                mix(normalized);
+            }
+            mix(FIELD_SEPARATOR);
+        }
+
+        /** Ends the key: the normalized text is kept as a string for {@link #equals}. */
+        void seal() {
+            text = builder.toString();
+            builder = null;
+        }
+
+        private void mix(char value) {
+            first = (first ^ value) * FNV_PRIME;
+            second = second * 31 + value;
+            builder.append(value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return first == other.first && second == other.second && text.equals(other.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(first ^ second * MIX_MULTIPLIER);
+        }
+    }
+
+    private class Generation {
+        private final String version;
+        private final Segment[] segments;
+
+        Generation(String version, int maximumSize) {
+            this.version = version;
+            // Fewer segments than entries would leave some with no room at all.
+            segments = new Segment[Math.min(SEGMENTS, maximumSize)];
+            for (int i = 0; i < segments.length; i++) {
+                int share = maximumSize / segments.length + (i < maximumSize % segments.length ? 1 : 0);
+                segments[i] = new Segment(share);
+            }
+        }
+    }
+
+    private class Segment extends LinkedHashMap<Key, Category> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Category> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.bank.service;
+
+import com.bank.model.Category;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+public class CategorizationRule {
+
+    public enum Field { TITLE, COUNTERPARTY, OPERATION_TYPE }
+
+    public enum Sign { ANY, POSITIVE, NEGATIVE }
+
+    private final String name;
+    private final Category category;
+    private final Set<Field> fields;
+    private final List<String> keywords;
+    private final Sign sign;
+    private final int priority;
+    private final List<String> operationTypes;
+
+    /**
+     * @param fields         where the keywords are searched; any keyword in any field matches
+     * @param priority       rules are tried from the highest priority down
+     * @param operationTypes if not empty, the operation type must also contain one of these
+     */
+    public CategorizationRule(String name, Category category, Set<Field> fields, List<String> keywords,
+                              Sign sign, int priority, List<String> operationTypes) {
+        this.name = name;
+        this.category = category;
+        this.fields = Collections.unmodifiableSet(EnumSet.copyOf(fields));
+        this.keywords = List.copyOf(keywords);
+        this.sign = sign;
+        this.priority = priority;
+        this.operationTypes = List.copyOf(operationTypes);
+    }
+
+    public String getName() { return name; }
+    public Category getCategory() { return category; }
+    public Set<Field> getFields() { return fields; }
+    public List<String> getKeywords() { return keywords; }
+    public Sign getSign() { return sign; }
+    public int getPriority() { return priority; }
+    public List<String> getOperationTypes() { return operationTypes; }
+
+    public boolean acceptsAmount(double amount) {
+        switch (sign) {
+            case POSITIVE: return amount > 0;
+            case NEGATIVE: return amount < 0;
+            default: return true;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s -> %s %s %s sign=%s priority=%d operationTypes=%s",
+            name, category, fields, keywords, sign, priority, operationTypes);
+    }
+}
@@ -1,114 +1,228 @@
 package com.bank.service;
 
-import com.bank.model.Category;
 import com.bank.model.Transaction;
+import com.bank.model.TransactionStore;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
 
 public class CategorizationService {
+    /** Lists shorter than this are categorized on the calling thread. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 20_000;
+
+    private volatile RuleSet ruleSet;
+    private volatile CategorizationCache cache;
+    private volatile PipelineMetrics metrics;
+
+    public CategorizationService() {
+        this(RuleSet.defaults());
+    }
+
+    public CategorizationService(RuleSet ruleSet) {
+        this.ruleSet = ruleSet;
+    }
+
+    public RuleSet getRuleSet() {
+        return ruleSet;
+    }
+
+    /** Swaps the rules atomically; a categorization already running finishes with the old ones. */
+    public void setRuleSet(RuleSet ruleSet) {
+        this.ruleSet = ruleSet;
+    }
+
+    public CategorizationCache getCache() {
+        return cache;
+    }
+
+    /** Memoizes results in the given cache; {@code null} turns caching off. */
+    public void setCache(CategorizationCache cache) {
+        this.cache = cache;
+    }
+
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /** Records categorization time and the resulting categories; {@code null} turns it off. */
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     public void categorizeTransactions(List<Transaction> transactions) {
+        RuleSet rules = ruleSet;
+        CategorizationCache memo = cache;
+        PipelineMetrics recorder = metrics;
+        long start = recorder != null ? System.nanoTime() : 0;
         for (Transaction transaction : transactions) {
-            Category category = detectCategory(transaction);
-            transaction.setCategory(category);
+            categorize(transaction, rules, memo);
+        }
+        if (recorder != null) {
+            recorder.recordCategorized(transactions, System.nanoTime() - start);
         }
     }
 
-    private Category detectCategory(Transaction transaction) {
-        String title = transaction.getTitle().toUpperCase();
-        String counterparty = transaction.getCounterparty().toUpperCase();
-        String operationType = transaction.getOperationType();
-        double amount = transaction.getAmount();
-
-        if (amount > 0 && title.contains("WYNAGRODZENIE")) {
-            return Category.WYNAGRODZENIE;
+    /** Categorizes every row of the store, materializing one short-lived {@link Transaction} at a time. */
+    public void categorizeTransactions(TransactionStore store) {
+        RuleSet rules = ruleSet;
+        CategorizationCache memo = cache;
+        PipelineMetrics recorder = metrics;
+        long start = recorder != null ? System.nanoTime() : 0;
+        for (int row = 0; row < store.size(); row++) {
+            Transaction transaction = store.toTransaction(row);
+            categorize(transaction, rules, memo);
+            store.setCategory(row, transaction.getCategory());
+        }
+        if (recorder != null) {
+            recorder.recordCategorized(store, System.nanoTime() - start);
         }
+    }
+
+    public void categorizeInParallel(List<Transaction> transactions) {
+        categorizeInParallel(transactions, ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
 
-        if (amount > 0 && (title.contains("GODZINY") || title.contains("DODATKI"))) {
-            return Category.WYNAGRODZENIE;
+    /**
+     * Categorizes the list on the given executor, in slices of at least {@code threshold}
+     * transactions. A {@link ForkJoinPool} gets recursive splitting; any other executor gets
+     * one task per slice. Results are the same as {@link #categorizeTransactions(List)}.
+     */
+    public void categorizeInParallel(List<Transaction> transactions, Executor executor, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be positive: " + threshold);
         }
+        PipelineMetrics recorder = metrics;
+        long start = recorder != null ? System.nanoTime() : 0;
+        categorizeInParallel(transactions, executor, threshold, ruleSet, cache);
+        if (recorder != null) {
+            recorder.recordCategorized(transactions, System.nanoTime() - start);
+        }
+    }
 
-        if (isFood(title)) return Category.JEDZENIE;
-        if (isTransport(title)) return Category.TRANSPORT;
-        if (isEntertainment(title)) return Category.ROZRYWKA;
-        if (isBill(counterparty, title)) return Category.RACHUNKI;
-        if (isHealth(title)) return Category.ZDROWIE;
-        if (isShopping(title)) return Category.ZAKUPY;
-        if (operationType.contains("Przelewy")) {
-            if (isInternalTransfer(transaction)) {
-                return Category.INTERNAL_TRANSFER;
+    private static void categorizeInParallel(List<Transaction> transactions, Executor executor, int threshold,
+                                             RuleSet rules, CategorizationCache memo) {
+        if (transactions.size() <= threshold) {
+            for (Transaction transaction : transactions) {
+                categorize(transaction, rules, memo);
             }
-            return Category.PRZELEWY;
+            return;
         }
 
-        return Category.INNE;
-    }
+        List<Transaction> items = transactions instanceof RandomAccess ? transactions : new ArrayList<>(transactions);
+        if (executor instanceof ForkJoinPool pool) {
+            pool.invoke(new CategorizeSlice(items, 0, items.size(), threshold, rules, memo));
+            return;
+        }
 
-    private boolean isFood(String title) {
-        String[] keywords = {
-            "MCDONALDS", "KFC", "BURGER", "PIZZA", "KEBAB", "KABAB",
-            "RESTAUR", "BAR", "CAFE", "PIJALNIA", "THAI", "ASIAN",
-            "PYSZNE.PL", "ZABKA", "STOKROTKA", "BIEDRONKA"
-        };
-        return containsAny(title, keywords);
+        int slices = Math.min(
+            (items.size() + threshold - 1) / threshold,
+            Runtime.getRuntime().availableProcessors() * 4);
+        int sliceSize = (items.size() + slices - 1) / slices;
+        List<CompletableFuture<Void>> futures = new ArrayList<>(slices);
+        for (int from = 0; from < items.size(); from += sliceSize) {
+            int start = from;
+            int end = Math.min(items.size(), from + sliceSize);
+            futures.add(CompletableFuture.runAsync(() -> categorizeRange(items, start, end, rules, memo), executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
-    private boolean isTransport(String title) {
-        String[] keywords = {
-            "BOLT", "UBER", "MPK", "PKP", "ORLEN", "PARKING",
-            "JAKDOJADE", "METROPOLIA GZM"
-        };
-        return containsAny(title, keywords);
+    /**
+     * Categorizes transactions as the stream is consumed, so it can run while the source
+     * is still being parsed. The rules in effect now are used for the whole stream.
+     */
+    public Stream<Transaction> categorize(Stream<Transaction> transactions) {
+        RuleSet rules = ruleSet;
+        CategorizationCache memo = cache;
+        PipelineMetrics recorder = metrics;
+        if (recorder != null) {
+            return transactions.map(transaction -> {
+                categorize(transaction, rules, memo);
+                recorder.recordCategory(transaction.getCategory());
+                return transaction;
+            });
+        }
+        return transactions.map(transaction -> {
+            categorize(transaction, rules, memo);
+            return transaction;
+        });
     }
 
-    private boolean isEntertainment(String title) {
-        String[] keywords = {
-            "CINEMA", "KINO", "THEATER", "TEATR", "NETFLIX", "SPOTIFY"
-        };
-        return containsAny(title, keywords);
-    }
+    /** Iterator counterpart of {@link #categorize(Stream)}. */
+    public Iterator<Transaction> categorize(Iterator<Transaction> transactions) {
+        RuleSet rules = ruleSet;
+        CategorizationCache memo = cache;
+        PipelineMetrics recorder = metrics;
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return transactions.hasNext();
+            }
 
-    private boolean isBill(String counterparty, String title) {
-        String[] keywords = {
-            "PGE", "PGNIG", "MPWIK", "NETIA", "ORANGE", "PLAY",
-            "T-MOBILE", "PLUS", "FUNDUSZ REMONTOWY", "CZYNSZ"
+            @Override
+            public Transaction next() {
+                Transaction transaction = transactions.next();
+                categorize(transaction, rules, memo);
+                if (recorder != null) recorder.recordCategory(transaction.getCategory());
+                return transaction;
+            }
         };
-        return containsAny(counterparty, keywords) || containsAny(title, keywords);
     }
 
-    private boolean isHealth(String title) {
-        String[] keywords = {
-            "APTEKA", "PHARMACY", "LEKARZ", "PRZYCHODNIA", "SZPITAL"
-        };
-        return containsAny(title, keywords);
+    private static void categorize(Transaction transaction, RuleSet rules, CategorizationCache memo) {
+        transaction.setCategory(memo != null ? memo.categorize(transaction, rules) : rules.categorize(transaction));
     }
 
-    private boolean isShopping(String title) {
-        String[] keywords = {
-            "ALLEGRO", "AMAZON", "MEDIA MARKT", "DECATHLON",
-            "H&M", "ZARA", "RESERVED"
-        };
-        return containsAny(title, keywords);
+    private static void categorizeRange(List<Transaction> transactions, int from, int to,
+                                        RuleSet rules, CategorizationCache memo) {
+        for (int i = from; i < to; i++) {
+            categorize(transactions.get(i), rules, memo);
+        }
     }
 
-    private boolean isInternalTransfer(Transaction transaction) {
-        String title = transaction.getTitle().toUpperCase();
-        String counterparty = transaction.getCounterparty().toUpperCase();
-
-        String[] keywords = {"WLASNE", "OSZCZEDNOSCIOWE", "PRZELEW WEWNETRZNY"};
-
-        for (String keyword : keywords) {
-            if (counterparty.contains(keyword) || title.contains(keyword)) {
-                return true;
-            }
+    private static class CategorizeSlice extends RecursiveAction {
+        private final List<Transaction> transactions;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final RuleSet rules;
+        private final CategorizationCache memo;
+
+        CategorizeSlice(List<Transaction> transactions, int from, int to, int threshold,
+                        RuleSet rules, CategorizationCache memo) {
+            this.transactions = transactions;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.rules = rules;
+            this.memo = memo;
         }
-        return false;
-    }
 
-    private boolean containsAny(String text, String[] keywords) {
-        for (String keyword : keywords) {
-            if (text.contains(keyword)) return true;
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                categorizeRange(transactions, from, to, rules, memo);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                new CategorizeSlice(transactions, from, middle, threshold, rules, memo),
+                new CategorizeSlice(transactions, middle, to, threshold, rules, memo));
         }
-        return false;
     }
 }
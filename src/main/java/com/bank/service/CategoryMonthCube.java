@@ -0,0 +1,192 @@
+package com.bank.service;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Income and expenses per category and month of the operation date, in two dense arrays with
+ * one row of {@code Category.values().length} cells per month from the earliest to the latest
+ * month seen. Internal transfers are left out, as in the report totals. Charts and drill-downs
+ * read from here in O(categories x months) instead of going back to the transactions.
+ * Not thread-safe.
+ */
+public class CategoryMonthCube {
+    private static final Category[] CATEGORIES = Category.values();
+    private static final int WIDTH = CATEGORIES.length;
+
+    private int firstMonth;
+    private int monthCount;
+    private double[] income = new double[0];
+    private double[] expenses = new double[0];
+
+    public void add(Transaction transaction) {
+        add(transaction, transaction.getCategory(), 1);
+    }
+
+    /** Adds the transaction under the category, or takes it back out for {@code sign} -1. */
+    void add(Transaction transaction, Category category, int sign) {
+        if (category == null || category == Category.INTERNAL_TRANSFER) return;
+        double amount = transaction.getReportingAmount();
+        if (amount == 0) return;
+        int cell = cell(monthKey(transaction.getOperationDate()), category.ordinal());
+        if (amount > 0) {
+            income[cell] = ReportAccumulator.adjust(income[cell], amount, sign);
+        } else {
+            expenses[cell] = ReportAccumulator.adjust(expenses[cell], -amount, sign);
+        }
+    }
+
+    /** Adds the other cube's cells to this one; the other cube is left unchanged. */
+    public CategoryMonthCube merge(CategoryMonthCube other) {
+        if (other.monthCount == 0) return this;
+        ensureMonth(other.firstMonth);
+        ensureMonth(other.firstMonth + other.monthCount - 1);
+        int offset = (other.firstMonth - firstMonth) * WIDTH;
+        for (int i = 0; i < other.income.length; i++) {
+            income[offset + i] += other.income[i];
+            expenses[offset + i] += other.expenses[i];
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return monthCount == 0;
+    }
+
+    /** Every month from the earliest to the latest, including months without transactions. */
+    public List<YearMonth> getMonths() {
+        List<YearMonth> months = new ArrayList<>(monthCount);
+        for (int i = 0; i < monthCount; i++) {
+            months.add(toYearMonth(firstMonth + i));
+        }
+        return months;
+    }
+
+    public double getIncome(Category category, YearMonth month) {
+        int index = monthIndex(month);
+        return index < 0 ? 0 : income[index * WIDTH + category.ordinal()];
+    }
+
+    /** Expenses as a positive number. */
+    public double getExpenses(Category category, YearMonth month) {
+        int index = monthIndex(month);
+        return index < 0 ? 0 : expenses[index * WIDTH + category.ordinal()];
+    }
+
+    /** Income per category over all months, indexed by {@link Category#ordinal()}. */
+    public double[] getIncomeByCategory() {
+        return sumOverMonths(income);
+    }
+
+    /** Expenses per category over all months, indexed by {@link Category#ordinal()}. */
+    public double[] getExpensesByCategory() {
+        return sumOverMonths(expenses);
+    }
+
+    /** Income of one category per month, in the order of {@link #getMonths()}. */
+    public double[] getMonthlyIncome(Category category) {
+        return column(income, category.ordinal());
+    }
+
+    /** Expenses of one category per month, in the order of {@link #getMonths()}. */
+    public double[] getMonthlyExpenses(Category category) {
+        return column(expenses, category.ordinal());
+    }
+
+    /** Income per category in one month, indexed by {@link Category#ordinal()}. */
+    public double[] getIncomeSplit(YearMonth month) {
+        return row(income, month);
+    }
+
+    /** Expenses per category in one month, indexed by {@link Category#ordinal()}. */
+    public double[] getExpenseSplit(YearMonth month) {
+        return row(expenses, month);
+    }
+
+    public double getTotalIncome() {
+        return sum(income);
+    }
+
+    public double getTotalExpenses() {
+        return sum(expenses);
+    }
+
+    private int cell(int monthKey, int ordinal) {
+        ensureMonth(monthKey);
+        return (monthKey - firstMonth) * WIDTH + ordinal;
+    }
+
+    /** Widens the month range to include the month, keeping the cells already filled. */
+    private void ensureMonth(int monthKey) {
+        if (monthCount == 0) {
+            firstMonth = monthKey;
+            monthCount = 1;
+            income = new double[WIDTH];
+            expenses = new double[WIDTH];
+        } else if (monthKey < firstMonth) {
+            int shift = (firstMonth - monthKey) * WIDTH;
+            income = shifted(income, shift);
+            expenses = shifted(expenses, shift);
+            monthCount += firstMonth - monthKey;
+            firstMonth = monthKey;
+        } else if (monthKey >= firstMonth + monthCount) {
+            monthCount = monthKey - firstMonth + 1;
+            income = Arrays.copyOf(income, monthCount * WIDTH);
+            expenses = Arrays.copyOf(expenses, monthCount * WIDTH);
+        }
+    }
+
+    private static double[] shifted(double[] cells, int shift) {
+        double[] result = new double[cells.length + shift];
+        System.arraycopy(cells, 0, result, shift, cells.length);
+        return result;
+    }
+
+    private int monthIndex(YearMonth month) {
+        int index = month.getYear() * 12 + month.getMonthValue() - 1 - firstMonth;
+        return index >= 0 && index < monthCount ? index : -1;
+    }
+
+    private double[] sumOverMonths(double[] cells) {
+        double[] totals = new double[WIDTH];
+        for (int i = 0; i < cells.length; i++) {
+            totals[i % WIDTH] += cells[i];
+        }
+        return totals;
+    }
+
+    private double[] column(double[] cells, int ordinal) {
+        double[] values = new double[monthCount];
+        for (int month = 0; month < monthCount; month++) {
+            values[month] = cells[month * WIDTH + ordinal];
+        }
+        return values;
+    }
+
+    private double[] row(double[] cells, YearMonth month) {
+        int index = monthIndex(month);
+        return index < 0 ? new double[WIDTH] : Arrays.copyOfRange(cells, index * WIDTH, (index + 1) * WIDTH);
+    }
+
+    private static double sum(double[] cells) {
+        double total = 0;
+        for (double cell : cells) {
+            total += cell;
+        }
+        return total;
+    }
+
+    private static int monthKey(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    private static YearMonth toYearMonth(int key) {
+        return YearMonth.of(Math.floorDiv(key, 12), Math.floorMod(key, 12) + 1);
+    }
+}
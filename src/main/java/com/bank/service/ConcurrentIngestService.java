@@ -0,0 +1,121 @@
+package com.bank.service;
+
+import com.bank.model.Transaction;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses several statement files at once on the given executor. Every file is
+ * parsed independently, so a broken file is reported in its {@link FileIngestResult}
+ * without failing the others.
+ */
+public class ConcurrentIngestService {
+    private final CsvParserService parser;
+    private final ExecutorService executor;
+    private final Duration timeout;
+
+    public ConcurrentIngestService(CsvParserService parser, ExecutorService executor) {
+        this(parser, executor, null);
+    }
+
+    /**
+     * @param timeout how long to wait for the whole batch; files still running after
+     *                that are cancelled and reported as failed. {@code null} waits forever.
+     */
+    public ConcurrentIngestService(CsvParserService parser, ExecutorService executor, Duration timeout) {
+        this.parser = parser;
+        this.executor = executor;
+        this.timeout = timeout;
+    }
+
+    public IngestResult ingest(List<String> filePaths) {
+        long start = System.nanoTime();
+        List<Future<FileIngestResult>> futures = new ArrayList<>();
+
+        for (String filePath : filePaths) {
+            futures.add(executor.submit(() -> parseOne(filePath)));
+        }
+
+        List<FileIngestResult> results = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            results.add(await(filePaths.get(i), futures.get(i), start));
+        }
+
+        return new IngestResult(results);
+    }
+
+    private FileIngestResult parseOne(String filePath) {
+        long start = System.nanoTime();
+        try {
+            StatementLayout layout = parser.detectLayout(filePath);
+            String account = layout.getAccountNumber();
+            SnapshotCache snapshotCache = parser.getSnapshotCache();
+            if (snapshotCache != null) {
+                SnapshotCache.Snapshot snapshot = snapshotCache.getOrParse(Path.of(filePath), parser, layout);
+                return new FileIngestResult(filePath, snapshot.getTransactions(), System.nanoTime() - start, null,
+                    snapshot.getRulesVersion(), account);
+            }
+            List<Transaction> transactions = parser.parseFile(filePath, layout);
+            return new FileIngestResult(filePath, transactions, System.nanoTime() - start, null, null, account);
+        } catch (Exception e) {
+            return new FileIngestResult(filePath, Collections.emptyList(), System.nanoTime() - start, e);
+        }
+    }
+
+    private FileIngestResult await(String filePath, Future<FileIngestResult> future, long start) {
+        try {
+            if (timeout == null) {
+                return future.get();
+            }
+            long remaining = timeout.toNanos() - (System.nanoTime() - start);
+            return future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return failed(filePath, start, new TimeoutException("Timed out after " + timeout.toMillis() + " ms"));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            return failed(filePath, start, cause instanceof Exception ? (Exception) cause : e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return failed(filePath, start, e);
+        }
+    }
+
+    private FileIngestResult failed(String filePath, long start, Exception error) {
+        return new FileIngestResult(filePath, Collections.emptyList(), System.nanoTime() - start, error);
+    }
+
+    /** A pool sized to the available cores, using daemon threads so it never keeps the JVM alive. */
+    public static ExecutorService newDefaultExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "csv-ingest-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * One virtual thread per file when the runtime supports it (Java 21+); otherwise
+     * falls back to {@link #newDefaultExecutor()}.
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return newDefaultExecutor();
+        }
+    }
+}
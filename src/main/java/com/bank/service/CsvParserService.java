@@ -1,63 +1,480 @@
 package com.bank.service;
 
 import com.bank.model.Transaction;
+import com.bank.model.TransactionStore;
+import com.opencsv.CSVParserBuilder;
 import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
 import com.opencsv.exceptions.CsvException;
 
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * Parses bank statement CSV exports. The bank, charset and column layout of each file are
+ * sniffed from its first bytes by {@link BankFormats}, so files from different banks can be
+ * mixed in one call.
+ */
 public class CsvParserService {
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private final ParserEngine engine;
+    private final BankFormats formats;
+    private volatile SnapshotCache snapshotCache;
+    private volatile PipelineMetrics metrics;
+
+    public CsvParserService() {
+        this(ParserEngine.OPENCSV);
+    }
+
+    public CsvParserService(ParserEngine engine) {
+        this(engine, BankFormats.defaults());
+    }
+
+    public CsvParserService(ParserEngine engine, BankFormats formats) {
+        this.engine = engine;
+        this.formats = formats;
+    }
+
+    public ParserEngine getEngine() {
+        return engine;
+    }
+
+    public BankFormats getFormats() {
+        return formats;
+    }
+
+    /** The bank format and layout of the file, from its first few kilobytes. */
+    public StatementLayout detectLayout(String filePath) throws IOException {
+        return formats.detect(Path.of(filePath));
+    }
+
+    public SnapshotCache getSnapshotCache() {
+        return snapshotCache;
+    }
+
+    /**
+     * Makes {@link #parseFile} and {@link #parseMultipleFiles} go through the snapshot cache.
+     * Transactions they return are then already categorized. {@code null} turns it off.
+     */
+    public void setSnapshotCache(SnapshotCache snapshotCache) {
+        this.snapshotCache = snapshotCache;
+    }
+
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /** Records bytes, rows, rejected rows and parse time per file; {@code null} turns it off. */
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     public List<Transaction> parseFile(String filePath) throws IOException, CsvException {
+        return parseFile(filePath, null);
+    }
+
+    /** Like {@link #parseFile(String)} with the layout already detected, or {@code null} to detect it. */
+    public List<Transaction> parseFile(String filePath, StatementLayout layout) throws IOException, CsvException {
+        SnapshotCache cache = snapshotCache;
+        if (cache != null) {
+            return cache.getOrParse(Path.of(filePath), this, layout).getTransactions();
+        }
+        return parseSource(filePath, layout);
+    }
+
+    /**
+     * Parses the files in order. A transaction already loaded from an earlier file, or earlier
+     * in the same file, is dropped, so overlapping exports are not counted twice.
+     */
+    public List<Transaction> parseMultipleFiles(List<String> filePaths) throws IOException, CsvException {
+        List<Transaction> allTransactions = new ArrayList<>();
+        TransactionDeduplicator deduplicator = new TransactionDeduplicator();
+
+        for (String filePath : filePaths) {
+            System.out.println("Loading file: " + filePath);
+            // Sniffed once; the account and the parser both come from it.
+            StatementLayout layout = detectLayout(filePath);
+            String account = layout.getAccountNumber();
+            long duplicatesBefore = deduplicator.getDuplicateCount();
+            Consumer<Transaction> sink = transaction -> {
+                if (deduplicator.add(account, transaction)) {
+                    allTransactions.add(transaction);
+                }
+            };
+            if (snapshotCache != null) {
+                parseFile(filePath, layout).forEach(sink);
+            } else {
+                forEachTransaction(filePath, layout, sink);
+            }
+
+            long dropped = deduplicator.getDuplicateCount() - duplicatesBefore;
+            if (dropped > 0) {
+                System.out.println("Dropped " + dropped + " duplicate transaction(s) from " + filePath);
+            }
+        }
+
+        return allTransactions;
+    }
+
+    /**
+     * The account number from the file's preamble ("Numer rachunku: ..." in PKO BP exports),
+     * digits only, or an empty string if the file has none.
+     */
+    public String readAccountNumber(String filePath) throws IOException {
+        return detectLayout(filePath).getAccountNumber();
+    }
+
+    /**
+     * The number of operations the preamble declares ("Liczba operacji: ..."), or -1 if the
+     * file has none. Useful for progress reporting before the rows are parsed.
+     */
+    public long readDeclaredRowCount(String filePath) throws IOException {
+        return detectLayout(filePath).getDeclaredRowCount();
+    }
+
+    /** Parses the file itself, bypassing the snapshot cache; a {@code null} layout is detected. */
+    List<Transaction> parseSource(String filePath, StatementLayout layout) throws IOException, CsvException {
         List<Transaction> transactions = new ArrayList<>();
+        forEachTransaction(filePath, layout, transactions::add);
+        return transactions;
+    }
+
+    /**
+     * Parses the files into a columnar {@link TransactionStore}, dropping duplicates like
+     * {@link #parseMultipleFiles}. With the mapped engine the rows go into the store without an
+     * intermediate {@link Transaction} per row; only their fingerprints are computed.
+     */
+    public TransactionStore parseToStore(List<String> filePaths) throws IOException, CsvException {
+        TransactionStore.Builder builder = TransactionStore.builder();
+        TransactionDeduplicator deduplicator = new TransactionDeduplicator();
+        for (String filePath : filePaths) {
+            StatementLayout layout = detectLayout(filePath);
+            String account = layout.getAccountNumber();
+            long duplicatesBefore = deduplicator.getDuplicateCount();
+            if (engine == ParserEngine.MAPPED) {
+                appendMapped(filePath, layout, deduplicator, builder);
+            } else {
+                forEachTransaction(filePath, layout, transaction -> {
+                    if (deduplicator.add(account, transaction)) {
+                        builder.accept(transaction);
+                    }
+                });
+            }
+
+            long dropped = deduplicator.getDuplicateCount() - duplicatesBefore;
+            if (dropped > 0) {
+                System.out.println("Dropped " + dropped + " duplicate transaction(s) from " + filePath);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reads the file row by row and hands every parsed transaction to the sink,
+     * so memory use does not depend on the file size.
+     */
+    public void forEachTransaction(String filePath, Consumer<Transaction> sink) throws IOException, CsvException {
+        forEachTransaction(filePath, null, sink);
+    }
+
+    /** Like {@link #forEachTransaction(String, Consumer)} with the layout already detected, or {@code null}. */
+    public void forEachTransaction(String filePath, StatementLayout layout, Consumer<Transaction> sink)
+            throws IOException, CsvException {
+        PipelineMetrics recorder = metrics;
+        long start = recorder != null ? System.nanoTime() : 0;
+        long[] rows = new long[1];
+        Consumer<Transaction> target = recorder != null ? sink.andThen(transaction -> rows[0]++) : sink;
+        try (Stream<Transaction> transactions = streamFile(filePath, layout)) {
+            transactions.forEach(target);
+            if (recorder != null) {
+                recorder.recordFileParsed(Files.size(Path.of(filePath)), rows[0], System.nanoTime() - start);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (UncheckedCsvException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Lazily parses the file. The returned stream holds the file open and must be closed.
+     */
+    public Stream<Transaction> streamFile(String filePath) throws IOException {
+        return streamFile(filePath, null);
+    }
 
-        try (CSVReader reader = new CSVReader(new FileReader(filePath))) {
-            List<String[]> rows = reader.readAll();
+    /** Like {@link #streamFile(String)} with the layout already detected, or {@code null} to detect it. */
+    public Stream<Transaction> streamFile(String filePath, StatementLayout layout) throws IOException {
+        if (layout == null) {
+            layout = detectLayout(filePath);
+        }
+        if (engine == ParserEngine.MAPPED) {
+            MappedTransactionIterator iterator = new MappedTransactionIterator(new MappedPkoReader(Path.of(filePath), layout), metrics);
+            return toStream(iterator).onClose(iterator::close);
+        }
+
+        // Unlike Files.newBufferedReader this replaces bytes that do not fit the charset.
+        CSVReader reader = new CSVReaderBuilder(new InputStreamReader(new FileInputStream(filePath), layout.getCharset()))
+            .withCSVParser(new CSVParserBuilder().withSeparator(layout.getSeparator()).build())
+            .build();
+        TransactionIterator iterator = new TransactionIterator(reader, layout, metrics);
+        return toStream(iterator).onClose(iterator::close);
+    }
 
-            for (int i = 7; i < rows.size(); i++) {
-                String[] row = rows.get(i);
+    /**
+     * Lazily parses the files one after another with only the current one open; a file is
+     * closed once its last row has been read. A flat-mapped stream would read a whole file
+     * ahead when iterated, so this is what constant-memory exports use. Rows the deduplicator
+     * has seen before are skipped; it keeps only their fingerprints. It may be {@code null}.
+     */
+    public Iterator<Transaction> iterateFiles(List<String> filePaths, TransactionDeduplicator deduplicator) {
+        return new Iterator<>() {
+            private int nextFile;
+            private String account;
+            private Stream<Transaction> stream;
+            private Iterator<Transaction> current = Collections.emptyIterator();
+            private Transaction next;
 
-                if (row.length < 9) continue;
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    if (current.hasNext()) {
+                        Transaction transaction = current.next();
+                        if (deduplicator == null || deduplicator.add(account, transaction)) {
+                            next = transaction;
+                        }
+                        continue;
+                    }
+                    if (stream != null) {
+                        stream.close();
+                        stream = null;
+                    }
+                    if (nextFile == filePaths.size()) {
+                        return false;
+                    }
+                    String filePath = filePaths.get(nextFile++);
+                    try {
+                        StatementLayout layout = detectLayout(filePath);
+                        account = layout.getAccountNumber();
+                        stream = streamFile(filePath, layout);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    current = stream.iterator();
+                }
+                return true;
+            }
 
+            @Override
+            public Transaction next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Transaction transaction = next;
+                next = null;
+                return transaction;
+            }
+        };
+    }
+
+    private void appendMapped(String filePath, StatementLayout layout, TransactionDeduplicator deduplicator,
+                              TransactionStore.Builder builder) throws IOException {
+        PipelineMetrics recorder = metrics;
+        long start = recorder != null ? System.nanoTime() : 0;
+        long rows = 0;
+        try (MappedPkoReader reader = new MappedPkoReader(Path.of(filePath), layout)) {
+            while (reader.next()) {
                 try {
-                    LocalDate bookingDate = LocalDate.parse(row[0], DATE_FORMATTER);
-                    LocalDate operationDate = LocalDate.parse(row[1], DATE_FORMATTER);
-                    String operationType = row[2];
-                    double amount = Double.parseDouble(row[3].replace(",", "."));
-                    String currency = row[4];
-                    String counterparty = row[5];
-                    String title = row[7];
-                    double balanceAfter = Double.parseDouble(row[8].replace(",", "."));
-
-                    Transaction transaction = new Transaction(
-                        bookingDate, operationDate, operationType,
-                        amount, currency, counterparty, title, balanceAfter
-                    );
-
-                    transactions.add(transaction);
+                    int bookingDay = Math.toIntExact(reader.bookingDateEpochDay());
+                    int operationDay = Math.toIntExact(reader.operationDateEpochDay());
+                    long amount = TransactionStore.toMinor(reader.amount());
+                    String title = reader.title();
+                    long balance = TransactionStore.toMinor(reader.balanceAfter());
+                    rows++;
+                    if (!deduplicator.add(TransactionDeduplicator.fingerprint(
+                            layout.getAccountNumber(), bookingDay, operationDay, amount, title, balance))) {
+                        continue;
+                    }
+                    builder.add(bookingDay, operationDay, reader.operationType(), amount,
+                        reader.currency(), reader.counterparty(), title, balance);
                 } catch (Exception e) {
-                    System.err.println("Error parsing row " + i + ": " + e.getMessage());
+                    System.err.println("Error parsing row " + reader.getRowIndex() + ": " + e.getMessage());
+                    if (recorder != null) recorder.recordRejected(e);
                 }
             }
         }
+        if (recorder != null) {
+            recorder.recordFileParsed(Files.size(Path.of(filePath)), rows, System.nanoTime() - start);
+        }
+    }
 
-        return transactions;
+    private Stream<Transaction> toStream(Iterator<Transaction> iterator) {
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
     }
 
-    public List<Transaction> parseMultipleFiles(List<String> filePaths) throws IOException, CsvException {
-        List<Transaction> allTransactions = new ArrayList<>();
+    private Transaction toTransaction(String[] row, StatementLayout layout) {
+        LocalDate operationDate = layout.parseDate(row[layout.column(StatementLayout.Column.OPERATION_DATE)]);
+        int bookingColumn = layout.column(StatementLayout.Column.BOOKING_DATE);
+        LocalDate bookingDate = bookingColumn != StatementLayout.ABSENT ? layout.parseDate(row[bookingColumn]) : operationDate;
+        String operationType = text(row, layout.column(StatementLayout.Column.OPERATION_TYPE));
+        double amount = StatementLayout.parseAmount(row[layout.column(StatementLayout.Column.AMOUNT)]);
+        int currencyColumn = layout.column(StatementLayout.Column.CURRENCY);
+        String currency = currencyColumn != StatementLayout.ABSENT ? row[currencyColumn] : layout.getDefaultCurrency();
+        String counterparty = text(row, layout.column(StatementLayout.Column.COUNTERPARTY));
+        String title = text(row, layout.column(StatementLayout.Column.TITLE));
+        int balanceColumn = layout.column(StatementLayout.Column.BALANCE_AFTER);
+        double balanceAfter = balanceColumn != StatementLayout.ABSENT ? StatementLayout.parseAmount(row[balanceColumn]) : 0;
 
-        for (String filePath : filePaths) {
-            System.out.println("Loading file: " + filePath);
-            allTransactions.addAll(parseFile(filePath));
+        return new Transaction(
+            bookingDate, operationDate, operationType,
+            amount, currency, counterparty, title, balanceAfter
+        );
+    }
+
+    private static String text(String[] row, int column) {
+        return column != StatementLayout.ABSENT ? row[column] : "";
+    }
+
+    private class TransactionIterator implements Iterator<Transaction> {
+        private final CSVReader reader;
+        private final StatementLayout layout;
+        private final PipelineMetrics metrics;
+        private int rowIndex = -1;
+        private Transaction next;
+        private boolean finished;
+
+        TransactionIterator(CSVReader reader, StatementLayout layout, PipelineMetrics metrics) {
+            this.reader = reader;
+            this.layout = layout;
+            this.metrics = metrics;
         }
 
-        return allTransactions;
+        @Override
+        public boolean hasNext() {
+            while (next == null && !finished) {
+                String[] row = readRow();
+                if (row == null) {
+                    finished = true;
+                    break;
+                }
+                rowIndex++;
+
+                if (rowIndex < layout.getHeaderRecords() || row.length < layout.getMinFields()) continue;
+
+                try {
+                    next = toTransaction(row, layout);
+                } catch (Exception e) {
+                    System.err.println("Error parsing row " + rowIndex + ": " + e.getMessage());
+                    if (metrics != null) metrics.recordRejected(e);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Transaction transaction = next;
+            next = null;
+            return transaction;
+        }
+
+        private String[] readRow() {
+            try {
+                return reader.readNext();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (CsvException e) {
+                throw new UncheckedCsvException(e);
+            }
+        }
+
+        void close() {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class MappedTransactionIterator implements Iterator<Transaction> {
+        private final MappedPkoReader reader;
+        private final PipelineMetrics metrics;
+        private Transaction next;
+        private boolean finished;
+
+        MappedTransactionIterator(MappedPkoReader reader, PipelineMetrics metrics) {
+            this.reader = reader;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null && !finished) {
+                    if (!reader.next()) {
+                        finished = true;
+                        break;
+                    }
+
+                    try {
+                        next = reader.toTransaction();
+                    } catch (Exception e) {
+                        System.err.println("Error parsing row " + reader.getRowIndex() + ": " + e.getMessage());
+                        if (metrics != null) metrics.recordRejected(e);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return next != null;
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Transaction transaction = next;
+            next = null;
+            return transaction;
+        }
+
+        void close() {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class UncheckedCsvException extends RuntimeException {
+        UncheckedCsvException(CsvException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized CsvException getCause() {
+            return (CsvException) super.getCause();
+        }
     }
 }
@@ -0,0 +1,120 @@
+package com.bank.service;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The report as one CSV table for other tools. Every row names its section: {@code total}
+ * (period is "first/last date"), {@code category}, {@code month} and {@code top_expense}
+ * (period is the operation date); columns a section has no value for stay empty. Amounts
+ * are in the currency of the last column. {@code booked} and {@code converted} rows give the
+ * income and expenses of the currency in their category column, in that currency and as
+ * added to the totals.
+ */
+class CsvReportWriter implements ReportWriter {
+    private static final String REPORT_HEADER = "section,period,category,count,income,expenses,balance,title,currency";
+    private static final String TRANSACTION_HEADER =
+        "operation_date,booking_date,operation_type,amount,currency,balance_after,category,counterparty,title,"
+        + "reporting_amount,reporting_currency";
+
+    @Override
+    public void writeReport(ReportAccumulator summary, ReportOutput out) throws IOException {
+        String currency = summary.getReportingCurrency();
+        out.text(REPORT_HEADER).newLine();
+
+        out.text("total,");
+        if (summary.getTransactionCount() > 0) {
+            out.date(summary.getMinDate()).character('/').date(summary.getMaxDate());
+        }
+        out.text(",,").number(summary.getTransactionCount())
+            .character(',').amount(summary.getTotalIncome())
+            .character(',').amount(summary.getTotalExpenses())
+            .character(',').amount(summary.getTotalIncome() - summary.getTotalExpenses())
+            .text(",,").text(currency).newLine();
+
+        for (ReportAccumulator.CurrencyTotals totals : summary.getCurrencyTotals()) {
+            out.text("booked,,").text(totals.getCurrency()).character(',').number(totals.getCount())
+                .character(',').amount(totals.getIncome())
+                .character(',').amount(totals.getExpenses())
+                .character(',').amount(totals.getIncome() - totals.getExpenses())
+                .text(",,").text(totals.getCurrency()).newLine();
+            out.text("converted,,").text(totals.getCurrency()).character(',').number(totals.getCount())
+                .character(',').amount(totals.getReportingIncome())
+                .character(',').amount(totals.getReportingExpenses())
+                .character(',').amount(totals.getReportingIncome() - totals.getReportingExpenses())
+                .text(",,").text(currency).newLine();
+        }
+
+        for (Map.Entry<Category, Double> entry : summary.getExpensesByCategory().entrySet()) {
+            out.text("category,,").text(entry.getKey().name()).text(",,,").amount(entry.getValue())
+                .text(",,,").text(currency).newLine();
+        }
+
+        for (Map.Entry<YearMonth, ReportAccumulator.MonthTotals> entry : summary.getMonthlyTotals().entrySet()) {
+            ReportAccumulator.MonthTotals totals = entry.getValue();
+            out.text("month,").month(entry.getKey()).text(",,,")
+                .amount(totals.getIncome()).character(',')
+                .amount(totals.getExpenses()).character(',')
+                .amount(totals.getBalance()).text(",,").text(currency).newLine();
+        }
+
+        for (Transaction t : summary.getTopExpenses()) {
+            out.text("top_expense,").date(t.getOperationDate()).character(',')
+                .text(t.getCategory() != null ? t.getCategory().name() : "")
+                .text(",,,").amount(Math.abs(t.getReportingAmount())).text(",,");
+            field(out, t.getTitle());
+            out.character(',');
+            field(out, t.getReportingCurrency() != null ? t.getReportingCurrency() : currency);
+            out.newLine();
+        }
+    }
+
+    @Override
+    public long writeTransactions(Iterator<Transaction> transactions, ReportOutput out) throws IOException {
+        out.text(TRANSACTION_HEADER).newLine();
+        long count = 0;
+        while (transactions.hasNext()) {
+            Transaction t = transactions.next();
+            out.date(t.getOperationDate()).character(',').date(t.getBookingDate()).character(',');
+            field(out, t.getOperationType());
+            out.character(',').amount(t.getAmount()).character(',');
+            field(out, t.getCurrency());
+            out.character(',').amount(t.getBalanceAfter()).character(',')
+                .text(t.getCategory() != null ? t.getCategory().name() : "").character(',');
+            field(out, t.getCounterparty());
+            out.character(',');
+            field(out, t.getTitle());
+            out.character(',').amount(t.getReportingAmount()).character(',');
+            field(out, t.getReportingCurrency());
+            out.newLine();
+            count++;
+        }
+        return count;
+    }
+
+    /** Quotes the value only when it holds a separator, a quote or a line break. */
+    private static void field(ReportOutput out, String value) throws IOException {
+        if (value == null) return;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.text(value);
+            return;
+        }
+        out.character('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') out.character('"');
+            out.character(c);
+        }
+        out.character('"');
+    }
+}
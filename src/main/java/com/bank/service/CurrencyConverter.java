@@ -0,0 +1,146 @@
+package com.bank.service;
+
+import com.bank.model.Transaction;
+import com.bank.model.TransactionStore;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Converts transactions to one reporting currency at the {@link FxRateTable} rates of their
+ * operation date. The per-day factors of each currency pair are looked up once per run of
+ * transactions in the same currency, so converting a row costs an array read and a multiply.
+ * Converted amounts are rounded to cents. Rows without a currency are taken to be in the
+ * reporting currency; rows with no rate for their date keep their own amount and currency.
+ */
+public class CurrencyConverter {
+    private static final double[] SAME_CURRENCY = {1};
+    private static final double[] NO_RATES = new double[0];
+
+    private final FxRateTable rates;
+    private final String reportingCurrency;
+
+    public CurrencyConverter(FxRateTable rates, String reportingCurrency) {
+        if (!rates.hasCurrency(reportingCurrency)) {
+            throw new IllegalArgumentException("No exchange rates for " + reportingCurrency
+                + "; known currencies: " + rates.getCurrencies());
+        }
+        this.rates = rates;
+        this.reportingCurrency = reportingCurrency;
+    }
+
+    public FxRateTable getRates() {
+        return rates;
+    }
+
+    public String getReportingCurrency() {
+        return reportingCurrency;
+    }
+
+    /** Sets the reporting amount of every transaction; returns how many had no rate. */
+    public int convertAll(List<Transaction> transactions) {
+        int missing = 0;
+        String lastCurrency = null;
+        double[] factors = null;
+        for (Transaction transaction : transactions) {
+            String currency = transaction.getCurrency();
+            if (factors == null || !Objects.equals(currency, lastCurrency)) {
+                lastCurrency = currency;
+                factors = factorsFrom(currency);
+            }
+            if (!convert(transaction, factors)) {
+                missing++;
+            }
+        }
+        return missing;
+    }
+
+    /** Sets the reporting amounts as the iterator is consumed, for exports that stream. */
+    public Iterator<Transaction> convert(Iterator<Transaction> transactions) {
+        return new Iterator<>() {
+            private String lastCurrency;
+            private double[] factors;
+
+            @Override
+            public boolean hasNext() {
+                return transactions.hasNext();
+            }
+
+            @Override
+            public Transaction next() {
+                Transaction transaction = transactions.next();
+                String currency = transaction.getCurrency();
+                if (factors == null || !Objects.equals(currency, lastCurrency)) {
+                    lastCurrency = currency;
+                    factors = factorsFrom(currency);
+                }
+                convert(transaction, factors);
+                return transaction;
+            }
+        };
+    }
+
+    /** Puts the booked amounts back as the reporting amounts, undoing {@link #convertAll}. */
+    public static void reset(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            transaction.setReportingAmount(transaction.getAmount(), transaction.getCurrency());
+        }
+    }
+
+    /**
+     * Amounts of the store in minor units of the reporting currency, row by row. The factors
+     * are resolved once per currency of the store's dictionary; rows without a rate keep
+     * their own amount.
+     */
+    public long[] convertAmounts(TransactionStore store) {
+        double[][] byCurrency = new double[store.getCurrencyCount()][];
+        long[] converted = new long[store.size()];
+        for (int row = 0; row < converted.length; row++) {
+            int currency = store.getCurrencyId(row);
+            double[] factors = byCurrency[currency];
+            if (factors == null) {
+                factors = factorsFrom(store.getCurrency(row));
+                byCurrency[currency] = factors;
+            }
+            long amount = store.getAmountMinor(row);
+            double factor = factors == SAME_CURRENCY ? 1 : factorAt(factors, store.getOperationDay(row));
+            converted[row] = Double.isNaN(factor) ? amount : Math.round(amount * factor);
+        }
+        return converted;
+    }
+
+    /** Per-day factors to the reporting currency, or one of the two markers above. */
+    private double[] factorsFrom(String currency) {
+        if (currency == null || currency.isEmpty() || currency.equals(reportingCurrency)) {
+            return SAME_CURRENCY;
+        }
+        double[] factors = rates.factors(currency, reportingCurrency);
+        return factors != null ? factors : NO_RATES;
+    }
+
+    /** Returns false if there is no rate for the transaction's date. */
+    private boolean convert(Transaction transaction, double[] factors) {
+        double amount = transaction.getAmount();
+        if (factors == SAME_CURRENCY) {
+            transaction.setReportingAmount(amount, reportingCurrency);
+            return true;
+        }
+        double factor = factorAt(factors, transaction.getOperationDate().toEpochDay());
+        if (Double.isNaN(factor)) {
+            transaction.setReportingAmount(amount, transaction.getCurrency());
+            return false;
+        }
+        transaction.setReportingAmount(toCents(amount * factor), reportingCurrency);
+        return true;
+    }
+
+    private double factorAt(double[] factors, long epochDay) {
+        int day = rates.dayIndex(epochDay);
+        return day >= 0 && day < factors.length ? factors[day] : Double.NaN;
+    }
+
+    private static double toCents(double amount) {
+        return Math.copySign(Math.round(Math.abs(amount) * 100) / 100.0, amount);
+    }
+}
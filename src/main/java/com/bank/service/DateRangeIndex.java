@@ -0,0 +1,202 @@
+package com.bank.service;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transactions sorted by date with prefix sums per distinct day, for questions like "expenses
+ * per category between X and Y" without going over the whole history. A range is found with
+ * two binary searches over the days, so totals take O(log n) and a listing O(log n) plus its
+ * length. Totals leave out internal transfers, as the report does. The index reflects the
+ * categories at build time and is immutable.
+ */
+public class DateRangeIndex {
+    /** Which date of a transaction the index is ordered by. */
+    public enum DateField {
+        OPERATION, BOOKING
+    }
+
+    private static final Category[] CATEGORIES = Category.values();
+    private static final int WIDTH = CATEGORIES.length;
+
+    private final DateField dateField;
+    private final Transaction[] sorted;
+    private final List<Transaction> sortedView;
+    /** Distinct epoch days in ascending order. */
+    private final long[] days;
+    /** First position in {@link #sorted} of each day, plus the total count at the end. */
+    private final int[] dayStart;
+    // Cumulative totals of the days before each day; index days.length holds the grand total.
+    private final double[] incomePrefix;
+    private final double[] expensePrefix;
+    private final double[] categoryIncomePrefix;
+    private final double[] categoryExpensePrefix;
+    private String reportingCurrency;
+    private boolean mixedCurrencies;
+
+    public DateRangeIndex(List<Transaction> transactions) {
+        this(transactions, DateField.OPERATION);
+    }
+
+    public DateRangeIndex(List<Transaction> transactions, DateField dateField) {
+        this.dateField = dateField;
+        sorted = transactions.toArray(new Transaction[0]);
+        // Stable, so transactions of one day keep the order they were given in.
+        Arrays.sort(sorted, Comparator.comparingLong(this::dayOf));
+        sortedView = Collections.unmodifiableList(Arrays.asList(sorted));
+
+        int dayCount = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || dayOf(sorted[i]) != dayOf(sorted[i - 1])) dayCount++;
+        }
+        days = new long[dayCount];
+        dayStart = new int[dayCount + 1];
+        incomePrefix = new double[dayCount + 1];
+        expensePrefix = new double[dayCount + 1];
+        categoryIncomePrefix = new double[(dayCount + 1) * WIDTH];
+        categoryExpensePrefix = new double[(dayCount + 1) * WIDTH];
+
+        int day = -1;
+        for (int i = 0; i < sorted.length; i++) {
+            Transaction transaction = sorted[i];
+            if (day < 0 || dayOf(transaction) != days[day]) {
+                day++;
+                days[day] = dayOf(transaction);
+                dayStart[day] = i;
+                incomePrefix[day + 1] = incomePrefix[day];
+                expensePrefix[day + 1] = expensePrefix[day];
+                System.arraycopy(categoryIncomePrefix, day * WIDTH, categoryIncomePrefix, (day + 1) * WIDTH, WIDTH);
+                System.arraycopy(categoryExpensePrefix, day * WIDTH, categoryExpensePrefix, (day + 1) * WIDTH, WIDTH);
+            }
+            Category category = transaction.getCategory();
+            if (category == Category.INTERNAL_TRANSFER) continue;
+            double amount = transaction.getReportingAmount();
+            if (amount > 0) {
+                incomePrefix[day + 1] += amount;
+                if (category != null) categoryIncomePrefix[(day + 1) * WIDTH + category.ordinal()] += amount;
+            } else if (amount < 0) {
+                expensePrefix[day + 1] -= amount;
+                if (category != null) categoryExpensePrefix[(day + 1) * WIDTH + category.ordinal()] -= amount;
+            }
+        }
+        dayStart[dayCount] = sorted.length;
+        // In the order given, like ReportAccumulator, so both label the same rows the same way.
+        for (Transaction transaction : transactions) {
+            addReportingCurrency(transaction.getReportingCurrency());
+        }
+    }
+
+    public DateField getDateField() {
+        return dateField;
+    }
+
+    /** The currency of the totals: the reporting currency of the transactions, PLN if there are none. */
+    public String getReportingCurrency() {
+        return reportingCurrency != null ? reportingCurrency : FxRateTable.BASE_CURRENCY;
+    }
+
+    /** Whether the totals add up amounts in different currencies, i.e. some were not converted. */
+    public boolean hasMixedCurrencies() {
+        return mixedCurrencies;
+    }
+
+    public int size() {
+        return sorted.length;
+    }
+
+    /** Earliest date in the index, or {@code null} when it is empty. */
+    public LocalDate getMinDate() {
+        return days.length == 0 ? null : LocalDate.ofEpochDay(days[0]);
+    }
+
+    public LocalDate getMaxDate() {
+        return days.length == 0 ? null : LocalDate.ofEpochDay(days[days.length - 1]);
+    }
+
+    /**
+     * Transactions from {@code from} to {@code to}, both included, in date order. A null end
+     * leaves the range open. The list is a view; nothing is copied.
+     */
+    public List<Transaction> list(LocalDate from, LocalDate to) {
+        int first = firstDay(from);
+        int end = endDay(to);
+        return first >= end ? List.of() : sortedView.subList(dayStart[first], dayStart[end]);
+    }
+
+    public int count(LocalDate from, LocalDate to) {
+        return list(from, to).size();
+    }
+
+    /** Non-internal income in the range. */
+    public double getIncome(LocalDate from, LocalDate to) {
+        return rangeSum(incomePrefix, 1, 0, from, to);
+    }
+
+    /** Non-internal expenses in the range, as a positive number. */
+    public double getExpenses(LocalDate from, LocalDate to) {
+        return rangeSum(expensePrefix, 1, 0, from, to);
+    }
+
+    public double getIncome(Category category, LocalDate from, LocalDate to) {
+        return rangeSum(categoryIncomePrefix, WIDTH, category.ordinal(), from, to);
+    }
+
+    public double getExpenses(Category category, LocalDate from, LocalDate to) {
+        return rangeSum(categoryExpensePrefix, WIDTH, category.ordinal(), from, to);
+    }
+
+    /** Non-internal expenses per category in the range, for the categories that have any. */
+    public Map<Category, Double> getExpensesByCategory(LocalDate from, LocalDate to) {
+        Map<Category, Double> totals = new EnumMap<>(Category.class);
+        int first = firstDay(from);
+        int end = Math.max(first, endDay(to));
+        for (int i = 0; i < WIDTH; i++) {
+            double total = categoryExpensePrefix[end * WIDTH + i] - categoryExpensePrefix[first * WIDTH + i];
+            if (total != 0) totals.put(CATEGORIES[i], total);
+        }
+        return totals;
+    }
+
+    private double rangeSum(double[] prefix, int width, int offset, LocalDate from, LocalDate to) {
+        int first = firstDay(from);
+        int end = endDay(to);
+        return first >= end ? 0 : prefix[end * width + offset] - prefix[first * width + offset];
+    }
+
+    /** Index of the first day on or after {@code from}. */
+    private int firstDay(LocalDate from) {
+        return from == null ? 0 : lowerBound(from.toEpochDay());
+    }
+
+    /** Index one past the last day on or before {@code to}. */
+    private int endDay(LocalDate to) {
+        return to == null ? days.length : lowerBound(to.toEpochDay() + 1);
+    }
+
+    private int lowerBound(long day) {
+        int index = Arrays.binarySearch(days, day);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private long dayOf(Transaction transaction) {
+        LocalDate date = dateField == DateField.BOOKING ? transaction.getBookingDate() : transaction.getOperationDate();
+        return date.toEpochDay();
+    }
+
+    private void addReportingCurrency(String currency) {
+        if (currency == null) return;
+        if (reportingCurrency == null) {
+            reportingCurrency = currency;
+        } else if (!mixedCurrencies && !reportingCurrency.equals(currency)) {
+            mixedCurrencies = true;
+        }
+    }
+}
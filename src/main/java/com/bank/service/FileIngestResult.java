@@ -0,0 +1,47 @@
+package com.bank.service;
+
+import com.bank.model.Transaction;
+
+import java.util.List;
+
+public class FileIngestResult {
+    private final String filePath;
+    private final List<Transaction> transactions;
+    private final long elapsedNanos;
+    private final Exception error;
+    private final String rulesVersion;
+    private final String accountNumber;
+
+    FileIngestResult(String filePath, List<Transaction> transactions, long elapsedNanos, Exception error) {
+        this(filePath, transactions, elapsedNanos, error, null, "");
+    }
+
+    FileIngestResult(String filePath, List<Transaction> transactions, long elapsedNanos, Exception error,
+                     String rulesVersion, String accountNumber) {
+        this.filePath = filePath;
+        this.transactions = transactions;
+        this.elapsedNanos = elapsedNanos;
+        this.error = error;
+        this.rulesVersion = rulesVersion;
+        this.accountNumber = accountNumber;
+    }
+
+    public String getFilePath() { return filePath; }
+    public List<Transaction> getTransactions() { return transactions; }
+    public int getRowCount() { return transactions.size(); }
+    public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+    public Exception getError() { return error; }
+    public boolean isSuccessful() { return error == null; }
+    /** Version of the rules the transactions are already categorized with, or {@code null} if they are not. */
+    public String getRulesVersion() { return rulesVersion; }
+    /** Account number from the statement header, empty if unknown. */
+    public String getAccountNumber() { return accountNumber; }
+
+    @Override
+    public String toString() {
+        if (!isSuccessful()) {
+            return String.format("%s | FAILED after %d ms | %s", filePath, getElapsedMillis(), error.getMessage());
+        }
+        return String.format("%s | %d rows | %d ms", filePath, getRowCount(), getElapsedMillis());
+    }
+}
@@ -0,0 +1,256 @@
+package com.bank.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Exchange rates by day, loaded from local files such as the NBP table A archives
+ * ({@code archiwum_tab_a_2026.csv}). Every currency has one array of its PLN rate per unit,
+ * indexed by days since the first table and filled forward, so a weekend or holiday holds the
+ * rate of the last business day before it and a lookup is a subtraction and an array read.
+ * Dates after the last table keep its rates; dates before the first have none (NaN).
+ * Immutable apart from the cached conversion factors, and safe to share between threads.
+ */
+public final class FxRateTable {
+    /** The currency the rates are quoted in. */
+    public static final String BASE_CURRENCY = "PLN";
+
+    // "1USD", "100JPY": units of the currency the rate is given for, then its code.
+    private static final Pattern RATE_COLUMN = Pattern.compile("(\\d*)([A-Za-z]{3})");
+
+    private final int firstDay;
+    private final int dayCount;
+    private final Map<String, double[]> rates;
+    private final Map<String, double[]> factors = new ConcurrentHashMap<>();
+
+    private FxRateTable(int firstDay, int dayCount, Map<String, double[]> rates) {
+        this.firstDay = firstDay;
+        this.dayCount = dayCount;
+        this.rates = rates;
+    }
+
+    /**
+     * Reads a rate file, or every {@code .csv} file of a directory in name order. A header line
+     * starts with {@code data} or {@code date} and names the currencies as NBP does, e.g.
+     * {@code 1USD} or {@code 100JPY}; each line starting with a date, {@code yyyyMMdd} or
+     * {@code yyyy-MM-dd}, gives the rates in PLN. Cells are separated by ';' or ',' and may
+     * use either as the decimal mark when the other separates them. Other lines are skipped.
+     */
+    public static FxRateTable load(Path path) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> listing = Files.list(path)) {
+                listing.filter(file -> file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv"))
+                    .sorted()
+                    .forEach(files::add);
+            }
+        } else {
+            files.add(path);
+        }
+        Builder builder = new Builder();
+        for (Path file : files) {
+            // Only digits, codes and separators matter; a byte-per-char charset reads any export.
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+                builder.read(reader);
+            }
+        }
+        return builder.build();
+    }
+
+    public LocalDate getFirstDate() {
+        return LocalDate.ofEpochDay(firstDay);
+    }
+
+    /** The last day with a table; later dates use its rates. */
+    public LocalDate getLastDate() {
+        return LocalDate.ofEpochDay(firstDay + dayCount - 1);
+    }
+
+    /** Codes of the currencies with rates, {@link #BASE_CURRENCY} included. */
+    public Set<String> getCurrencies() {
+        Set<String> currencies = new TreeSet<>(rates.keySet());
+        currencies.add(BASE_CURRENCY);
+        return Collections.unmodifiableSet(currencies);
+    }
+
+    public boolean hasCurrency(String currency) {
+        return BASE_CURRENCY.equals(currency) || rates.containsKey(currency);
+    }
+
+    /** PLN for one unit of the currency on the date or the last business day before it; NaN if unknown. */
+    public double getRate(String currency, LocalDate date) {
+        if (BASE_CURRENCY.equals(currency)) return 1;
+        double[] perDay = rates.get(currency);
+        int day = dayIndex(date.toEpochDay());
+        return perDay != null && day >= 0 ? perDay[day] : Double.NaN;
+    }
+
+    /** The amount in {@code from} expressed in {@code to} at the rates of the date; NaN without a rate. */
+    public double convert(double amount, String from, String to, LocalDate date) {
+        if (from.equals(to)) return amount;
+        double[] perDay = factors(from, to);
+        int day = dayIndex(date.toEpochDay());
+        return perDay != null && day >= 0 ? amount * perDay[day] : Double.NaN;
+    }
+
+    /**
+     * Position of the day in the per-day arrays: -1 before the first table, the last position
+     * after the last one.
+     */
+    int dayIndex(long epochDay) {
+        long offset = epochDay - firstDay;
+        if (offset < 0) return -1;
+        return (int) Math.min(offset, dayCount - 1);
+    }
+
+    /**
+     * Per-day multipliers from one currency to the other, computed once per pair and cached;
+     * {@code null} if either currency has no rates.
+     */
+    double[] factors(String from, String to) {
+        if (!hasCurrency(from) || !hasCurrency(to)) return null;
+        return factors.computeIfAbsent(from + '/' + to, pair -> {
+            double[] source = rates.get(from);
+            double[] target = rates.get(to);
+            double[] result = new double[dayCount];
+            for (int day = 0; day < dayCount; day++) {
+                result[day] = (source != null ? source[day] : 1) / (target != null ? target[day] : 1);
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public String toString() {
+        return (rates.size() + 1) + " currencies from " + getFirstDate() + " to " + getLastDate();
+    }
+
+    /** Collects rates day by day; the days may come in any order. */
+    public static class Builder {
+        private final Map<String, TreeMap<Integer, Double>> quotes = new HashMap<>();
+
+        /** Sets the PLN rate of one unit of the currency on the date; a later rate for the same day wins. */
+        public Builder add(LocalDate date, String currency, double rate) {
+            if (!(rate > 0) || Double.isInfinite(rate)) {
+                throw new IllegalArgumentException("Invalid " + currency + " rate on " + date + ": " + rate);
+            }
+            String code = currency.toUpperCase(Locale.ROOT);
+            if (!code.equals(BASE_CURRENCY)) {
+                quotes.computeIfAbsent(code, c -> new TreeMap<>()).put((int) date.toEpochDay(), rate);
+            }
+            return this;
+        }
+
+        /** Reads lines in the format described at {@link FxRateTable#load}. */
+        public Builder read(BufferedReader reader) throws IOException {
+            String[] codes = null;
+            int[] units = null;
+            char separator = ';';
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String first = firstCell(line);
+                if (first.equals("data") || first.equals("date")) {
+                    separator = line.indexOf(';') >= 0 ? ';' : ',';
+                    String[] cells = line.split(String.valueOf(separator), -1);
+                    codes = new String[cells.length];
+                    units = new int[cells.length];
+                    for (int i = 1; i < cells.length; i++) {
+                        Matcher column = RATE_COLUMN.matcher(unquote(cells[i]));
+                        if (column.matches()) {
+                            codes[i] = column.group(2).toUpperCase(Locale.ROOT);
+                            units[i] = column.group(1).isEmpty() ? 1 : Integer.parseInt(column.group(1));
+                        }
+                    }
+                    continue;
+                }
+                LocalDate date = codes != null ? parseDate(first) : null;
+                if (date == null) continue;
+                String[] cells = line.split(String.valueOf(separator), -1);
+                for (int i = 1; i < Math.min(cells.length, codes.length); i++) {
+                    if (codes[i] == null || units[i] == 0) continue;
+                    String value = unquote(cells[i]);
+                    if (value.isEmpty()) continue;
+                    try {
+                        add(date, codes[i], Double.parseDouble(value.replace(',', '.')) / units[i]);
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("Skipping " + codes[i] + " rate on " + date + ": " + value);
+                    }
+                }
+            }
+            return this;
+        }
+
+        public FxRateTable build() {
+            if (quotes.isEmpty()) {
+                throw new IllegalArgumentException("No exchange rates found");
+            }
+            int first = Integer.MAX_VALUE;
+            int last = Integer.MIN_VALUE;
+            for (TreeMap<Integer, Double> byDay : quotes.values()) {
+                first = Math.min(first, byDay.firstKey());
+                last = Math.max(last, byDay.lastKey());
+            }
+            int dayCount = last - first + 1;
+            Map<String, double[]> rates = new HashMap<>();
+            for (Map.Entry<String, TreeMap<Integer, Double>> entry : quotes.entrySet()) {
+                double[] perDay = new double[dayCount];
+                Arrays.fill(perDay, Double.NaN);
+                for (Map.Entry<Integer, Double> quote : entry.getValue().entrySet()) {
+                    perDay[quote.getKey() - first] = quote.getValue();
+                }
+                for (int day = 1; day < dayCount; day++) {
+                    if (Double.isNaN(perDay[day])) perDay[day] = perDay[day - 1];
+                }
+                rates.put(entry.getKey(), perDay);
+            }
+            return new FxRateTable(first, dayCount, rates);
+        }
+
+        private static String firstCell(String line) {
+            int end = 0;
+            while (end < line.length() && line.charAt(end) != ';' && line.charAt(end) != ',') end++;
+            return unquote(line.substring(0, end)).toLowerCase(Locale.ROOT);
+        }
+
+        private static String unquote(String cell) {
+            String trimmed = cell.trim();
+            if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+                trimmed = trimmed.substring(1, trimmed.length() - 1).trim();
+            }
+            return trimmed;
+        }
+
+        private static LocalDate parseDate(String text) {
+            try {
+                if (text.length() == 8) {
+                    return LocalDate.of(Integer.parseInt(text.substring(0, 4)),
+                        Integer.parseInt(text.substring(4, 6)), Integer.parseInt(text.substring(6, 8)));
+                }
+                if (text.length() == 10 && text.charAt(4) == '-' && text.charAt(7) == '-') {
+                    return LocalDate.parse(text);
+                }
+            } catch (RuntimeException e) {
+                // Not a date line.
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.bank.service;
+
+/**
+ * ING Bank Śląski: a free-form preamble, quoted semicolon-separated columns, yyyy-MM-dd dates
+ * and comma decimals. The currency of the amount is the "Waluta" column right after it.
+ */
+class IngBankFormat implements BankFormat {
+    static final String NAME = "ING";
+
+    private static final String[] COLUMNS = {
+        "Data transakcji", "Data księgowania", "Dane kontrahenta", "Tytuł", "Kwota transakcji (waluta rachunku)"
+    };
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public StatementLayout detect(StatementSample sample) {
+        StatementSample.Header header = sample.findHeader(COLUMNS);
+        if (header == null) {
+            return null;
+        }
+        int amount = header.position(4);
+        return new StatementLayout(NAME, sample.getCharset(), header.getSeparator(), header.getLineIndex() + 1,
+            StatementLayout.columns(header.position(1), header.position(0), header.column("Szczegóły"), amount,
+                header.column("Waluta") == amount + 1 ? amount + 1 : StatementLayout.ABSENT,
+                header.position(2), header.position(3), header.column("Saldo po transakcji")),
+            "yyyy-MM-dd", "PLN", sample.findAccountNumber(header.getLineIndex()), -1);
+    }
+}
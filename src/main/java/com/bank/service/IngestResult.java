@@ -0,0 +1,37 @@
+package com.bank.service;
+
+import com.bank.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class IngestResult {
+    private final List<FileIngestResult> fileResults;
+    private final List<Transaction> transactions;
+
+    IngestResult(List<FileIngestResult> fileResults) {
+        this.fileResults = fileResults;
+
+        int total = 0;
+        for (FileIngestResult result : fileResults) {
+            total += result.getRowCount();
+        }
+
+        this.transactions = new ArrayList<>(total);
+        for (FileIngestResult result : fileResults) {
+            transactions.addAll(result.getTransactions());
+        }
+    }
+
+    /** All transactions in file order, then row order. */
+    public List<Transaction> getTransactions() { return transactions; }
+    public List<FileIngestResult> getFileResults() { return fileResults; }
+
+    public List<FileIngestResult> getFailures() {
+        List<FileIngestResult> failures = new ArrayList<>();
+        for (FileIngestResult result : fileResults) {
+            if (!result.isSuccessful()) failures.add(result);
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,315 @@
+package com.bank.service;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Pairs an outgoing transfer on one account with an incoming transfer of the same currency
+ * and absolute amount on another account within a few days, i.e. money moved between the
+ * user's own accounts. Candidates are indexed by currency and amount in minor units and,
+ * per amount, by operation date, so matching is O(n log n) rather than a comparison of
+ * every pair.
+ * <p>
+ * Outgoing legs are taken in date order and each is paired with the closest unpaired incoming
+ * leg, so every transaction ends up in at most one pair.
+ */
+public class InternalTransferMatcher {
+    public static final int DEFAULT_DAY_WINDOW = 3;
+
+    private final int dayWindow;
+    private final Predicate<Transaction> eligible;
+
+    public InternalTransferMatcher() {
+        this(DEFAULT_DAY_WINDOW);
+    }
+
+    public InternalTransferMatcher(int dayWindow) {
+        this(dayWindow, InternalTransferMatcher::isTransfer);
+    }
+
+    /**
+     * @param dayWindow maximum number of days between the operation dates of the two legs
+     * @param eligible  which transactions may be a leg at all
+     */
+    public InternalTransferMatcher(int dayWindow, Predicate<Transaction> eligible) {
+        if (dayWindow < 0) {
+            throw new IllegalArgumentException("Day window must not be negative: " + dayWindow);
+        }
+        this.dayWindow = dayWindow;
+        this.eligible = eligible;
+    }
+
+    public int getDayWindow() {
+        return dayWindow;
+    }
+
+    /**
+     * Finds the pairs among the transactions. {@code accountIds[i]} identifies the account of
+     * {@code transactions.get(i)}; legs of a pair always have different ids.
+     */
+    public List<TransferPair> findPairs(List<Transaction> transactions, int[] accountIds) {
+        if (accountIds.length != transactions.size()) {
+            throw new IllegalArgumentException("Expected " + transactions.size() + " account ids, got " + accountIds.length);
+        }
+        Index<Void> index = newIndex();
+        List<Index<Void>.Leg> incoming = new ArrayList<>();
+        List<Index<Void>.Leg> outgoing = new ArrayList<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            Index<Void>.Leg leg = index.leg(transactions.get(i), accountIds[i], null);
+            if (leg != null) {
+                (leg.incoming ? incoming : outgoing).add(leg);
+            }
+        }
+        // With only incoming legs indexed, each outgoing leg takes the closest one left.
+        index.addLegs(incoming);
+        return index.addLegs(outgoing);
+    }
+
+    /**
+     * An empty index of unpaired legs for matching file by file: each file's legs are paired
+     * against the legs already indexed, so adding or removing a file costs time in
+     * proportion to that file, not to everything loaded before it.
+     *
+     * @param <S> what the legs of one file are tagged with, e.g. the statement they belong to
+     */
+    public <S> Index<S> newIndex() {
+        return new Index<>();
+    }
+
+    /** Finds the pairs and marks both legs of each as {@link Category#INTERNAL_TRANSFER}. */
+    public List<TransferPair> relabel(List<Transaction> transactions, int[] accountIds) {
+        List<TransferPair> pairs = findPairs(transactions, accountIds);
+        for (TransferPair pair : pairs) {
+            pair.getOutgoing().setCategory(Category.INTERNAL_TRANSFER);
+            pair.getIncoming().setCategory(Category.INTERNAL_TRANSFER);
+        }
+        return pairs;
+    }
+
+    /** Default eligibility: the PKO operation types for transfers ("Przelewy wychodzące", ...). */
+    public static boolean isTransfer(Transaction transaction) {
+        String operationType = transaction.getOperationType();
+        return operationType != null && operationType.toLowerCase(Locale.ROOT).contains("przelew");
+    }
+
+    /**
+     * The eligible legs of the files added so far. Unpaired legs are kept per currency and
+     * absolute amount in date order; a leg that gets paired leaves its bucket, so later scans
+     * of the date window never walk over it again. Not thread-safe.
+     */
+    public final class Index<S> {
+        private final Map<BucketKey, Bucket> buckets = new HashMap<>();
+        private final Map<Transaction, Leg> legs = new IdentityHashMap<>();
+        private int sequence;
+        private int pairCount;
+
+        private Index() {
+        }
+
+        /**
+         * Adds the eligible transactions of one file, all of the given account, and pairs each
+         * with the closest unpaired leg of another account. Returns the new pairs.
+         */
+        public List<TransferPair> add(List<Transaction> transactions, int accountId, S owner) {
+            List<Leg> added = new ArrayList<>();
+            for (Transaction transaction : transactions) {
+                Leg leg = leg(transaction, accountId, owner);
+                if (leg != null) added.add(leg);
+            }
+            return addLegs(added);
+        }
+
+        /**
+         * Takes the transactions' legs out of the index. Their partners become unpaired and are
+         * offered to the remaining unpaired legs again.
+         */
+        public Removal remove(List<Transaction> transactions) {
+            List<Transaction> unpaired = new ArrayList<>();
+            List<Leg> freed = new ArrayList<>();
+            for (Transaction transaction : transactions) {
+                Leg leg = legs.remove(transaction);
+                if (leg == null) continue;
+                if (leg.partner == null) {
+                    leg.bucket.unpaired(leg.incoming).remove(leg.key);
+                } else {
+                    unpaired.add(transaction);
+                    unpaired.add(leg.partner.transaction);
+                    leg.partner.partner = null;
+                    freed.add(leg.partner);
+                    pairCount--;
+                }
+            }
+            freed.removeIf(leg -> !legs.containsKey(leg.transaction));
+            return new Removal(unpaired, addLegs(freed));
+        }
+
+        /** The tag the leg's file was added with, or {@code null} if it is not indexed. */
+        public S ownerOf(Transaction transaction) {
+            Leg leg = legs.get(transaction);
+            return leg != null ? leg.owner : null;
+        }
+
+        /** Both legs of every current pair. */
+        public List<Transaction> getPairedLegs() {
+            List<Transaction> paired = new ArrayList<>(pairCount * 2);
+            for (Leg leg : legs.values()) {
+                if (leg.partner != null) paired.add(leg.transaction);
+            }
+            return paired;
+        }
+
+        public int getPairCount() {
+            return pairCount;
+        }
+
+        /** The transaction as a leg, or {@code null} if it cannot be one. */
+        Leg leg(Transaction transaction, int accountId, S owner) {
+            if (!eligible.test(transaction)) return null;
+            long amount = TransactionStore.toMinor(transaction.getAmount());
+            if (amount == 0) return null;
+            BucketKey bucketKey = new BucketKey(transaction.getCurrency(), Math.abs(amount));
+            Bucket bucket = buckets.computeIfAbsent(bucketKey, k -> new Bucket());
+            long key = (transaction.getOperationDate().toEpochDay() << 32) | sequence++;
+            return new Leg(transaction, accountId, owner, bucket, amount > 0, key);
+        }
+
+        /** Pairs the legs in date order, leaving those without a partner in their buckets. */
+        List<TransferPair> addLegs(List<Leg> added) {
+            added.sort((a, b) -> Long.compare(a.key, b.key));
+            List<TransferPair> pairs = new ArrayList<>();
+            for (Leg leg : added) {
+                legs.put(leg.transaction, leg);
+                Leg partner = takeClosest(leg);
+                if (partner == null) {
+                    leg.bucket.unpaired(leg.incoming).put(leg.key, leg);
+                    continue;
+                }
+                leg.partner = partner;
+                partner.partner = leg;
+                pairCount++;
+                Leg out = leg.incoming ? partner : leg;
+                Leg in = leg.incoming ? leg : partner;
+                pairs.add(new TransferPair(out.transaction, in.transaction, Math.abs(day(out.key) - day(in.key))));
+            }
+            return pairs;
+        }
+
+        /** Removes and returns the unpaired opposite leg of another account closest in date. */
+        private Leg takeClosest(Leg leg) {
+            TreeMap<Long, Leg> candidates = leg.bucket.unpaired(!leg.incoming);
+            if (candidates.isEmpty()) return null;
+            int day = day(leg.key);
+            Leg best = null;
+            int bestGap = Integer.MAX_VALUE;
+            for (Leg candidate : candidates.subMap((long) (day - dayWindow) << 32, true,
+                    (long) (day + dayWindow + 1) << 32, false).values()) {
+                int gap = Math.abs(day(candidate.key) - day);
+                if (candidate.accountId != leg.accountId && gap < bestGap) {
+                    best = candidate;
+                    bestGap = gap;
+                }
+            }
+            if (best != null) {
+                candidates.remove(best.key);
+            }
+            return best;
+        }
+
+        final class Leg {
+            final Transaction transaction;
+            final int accountId;
+            final S owner;
+            final Bucket bucket;
+            final boolean incoming;
+            // Epoch day << 32 | sequence: date order, ties in the order the legs were seen.
+            final long key;
+            Leg partner;
+
+            Leg(Transaction transaction, int accountId, S owner, Bucket bucket, boolean incoming, long key) {
+                this.transaction = transaction;
+                this.accountId = accountId;
+                this.owner = owner;
+                this.bucket = bucket;
+                this.incoming = incoming;
+                this.key = key;
+            }
+        }
+
+        private final class Bucket {
+            final TreeMap<Long, Leg> incoming = new TreeMap<>();
+            final TreeMap<Long, Leg> outgoing = new TreeMap<>();
+
+            TreeMap<Long, Leg> unpaired(boolean incomingLegs) {
+                return incomingLegs ? incoming : outgoing;
+            }
+        }
+    }
+
+    /** What removing a file from an {@link Index} changed. */
+    public static class Removal {
+        private final List<Transaction> unpaired;
+        private final List<TransferPair> pairs;
+
+        Removal(List<Transaction> unpaired, List<TransferPair> pairs) {
+            this.unpaired = unpaired;
+            this.pairs = pairs;
+        }
+
+        /** Both legs of every pair that was broken, the removed file's legs included. */
+        public List<Transaction> getUnpaired() { return unpaired; }
+        /** Pairs the freed legs formed with other unpaired legs. */
+        public List<TransferPair> getPairs() { return pairs; }
+    }
+
+    private static final class BucketKey {
+        final String currency;
+        final long amount;
+
+        BucketKey(String currency, long amount) {
+            this.currency = currency != null ? currency : "";
+            this.amount = amount;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof BucketKey)) return false;
+            BucketKey key = (BucketKey) other;
+            return amount == key.amount && currency.equals(key.currency);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(amount) * 31 + currency.hashCode();
+        }
+    }
+
+    private static int day(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static class TransferPair {
+        private final Transaction outgoing;
+        private final Transaction incoming;
+        private final int dayGap;
+
+        TransferPair(Transaction outgoing, Transaction incoming, int dayGap) {
+            this.outgoing = outgoing;
+            this.incoming = incoming;
+            this.dayGap = dayGap;
+        }
+
+        public Transaction getOutgoing() { return outgoing; }
+        public Transaction getIncoming() { return incoming; }
+        public int getDayGap() { return dayGap; }
+    }
+}
@@ -0,0 +1,188 @@
+package com.bank.service;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The report as a JSON object; a transaction listing is a JSON array written row by row.
+ * Report amounts are in {@code currency}; {@code currencies} breaks the totals down by the
+ * currency the transactions were booked in. Amounts that are not finite are written as
+ * {@code null}.
+ */
+class JsonReportWriter implements ReportWriter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    @Override
+    public void writeReport(ReportAccumulator summary, ReportOutput out) throws IOException {
+        out.character('{').newLine();
+        out.text("  \"transactionCount\": ").number(summary.getTransactionCount()).character(',').newLine();
+        out.text("  \"firstDate\": ");
+        date(out, summary.getTransactionCount() > 0 ? summary.getMinDate() : null);
+        out.character(',').newLine();
+        out.text("  \"lastDate\": ");
+        date(out, summary.getTransactionCount() > 0 ? summary.getMaxDate() : null);
+        out.character(',').newLine();
+        out.text("  \"totalIncome\": ").amountOrNull(summary.getTotalIncome()).character(',').newLine();
+        out.text("  \"totalExpenses\": ").amountOrNull(summary.getTotalExpenses()).character(',').newLine();
+        out.text("  \"currency\": ");
+        string(out, summary.getReportingCurrency());
+        out.character(',').newLine();
+        out.text("  \"mixedCurrencies\": ").text(String.valueOf(summary.hasMixedCurrencies())).character(',').newLine();
+
+        out.text("  \"currencies\": [");
+        boolean first = true;
+        for (ReportAccumulator.CurrencyTotals totals : summary.getCurrencyTotals()) {
+            out.text(first ? "" : ",").newLine();
+            out.text("    {\"currency\": ");
+            string(out, totals.getCurrency());
+            out.text(", \"count\": ").number(totals.getCount())
+                .text(", \"income\": ").amountOrNull(totals.getIncome())
+                .text(", \"expenses\": ").amountOrNull(totals.getExpenses())
+                .text(", \"convertedIncome\": ").amountOrNull(totals.getReportingIncome())
+                .text(", \"convertedExpenses\": ").amountOrNull(totals.getReportingExpenses()).character('}');
+            first = false;
+        }
+        closeArray(out, first).character(',').newLine();
+
+        out.text("  \"expensesByCategory\": [");
+        first = true;
+        for (Map.Entry<Category, Double> entry : summary.getExpensesByCategory().entrySet()) {
+            out.text(first ? "" : ",").newLine();
+            out.text("    {\"category\": \"").text(entry.getKey().name())
+                .text("\", \"amount\": ").amountOrNull(entry.getValue()).character('}');
+            first = false;
+        }
+        closeArray(out, first).character(',').newLine();
+
+        out.text("  \"months\": [");
+        first = true;
+        for (Map.Entry<YearMonth, ReportAccumulator.MonthTotals> entry : summary.getMonthlyTotals().entrySet()) {
+            ReportAccumulator.MonthTotals totals = entry.getValue();
+            out.text(first ? "" : ",").newLine();
+            out.text("    {\"month\": \"").month(entry.getKey())
+                .text("\", \"income\": ").amountOrNull(totals.getIncome())
+                .text(", \"expenses\": ").amountOrNull(totals.getExpenses())
+                .text(", \"balance\": ").amountOrNull(totals.getBalance()).character('}');
+            first = false;
+        }
+        closeArray(out, first).character(',').newLine();
+
+        out.text("  \"topExpenses\": [");
+        first = true;
+        for (Transaction t : summary.getTopExpenses()) {
+            out.text(first ? "" : ",").newLine();
+            out.text("    {\"date\": \"").date(t.getOperationDate())
+                .text("\", \"amount\": ").amountOrNull(Math.abs(t.getReportingAmount()))
+                .text(", \"bookedAmount\": ").amountOrNull(Math.abs(t.getAmount()))
+                .text(", \"bookedCurrency\": ");
+            string(out, t.getCurrency());
+            out.text(", \"category\": ");
+            string(out, t.getCategory() != null ? t.getCategory().name() : null);
+            out.text(", \"title\": ");
+            string(out, t.getTitle());
+            out.character('}');
+            first = false;
+        }
+        closeArray(out, first).newLine();
+        out.character('}').newLine();
+    }
+
+    @Override
+    public long writeTransactions(Iterator<Transaction> transactions, ReportOutput out) throws IOException {
+        out.character('[');
+        long count = 0;
+        while (transactions.hasNext()) {
+            Transaction t = transactions.next();
+            out.text(count == 0 ? "" : ",").newLine();
+            out.text("  {\"operationDate\": \"").date(t.getOperationDate())
+                .text("\", \"bookingDate\": \"").date(t.getBookingDate())
+                .text("\", \"operationType\": ");
+            string(out, t.getOperationType());
+            out.text(", \"amount\": ").amountOrNull(t.getAmount()).text(", \"currency\": ");
+            string(out, t.getCurrency());
+            out.text(", \"reportingAmount\": ").amountOrNull(t.getReportingAmount()).text(", \"reportingCurrency\": ");
+            string(out, t.getReportingCurrency());
+            out.text(", \"balanceAfter\": ").amountOrNull(t.getBalanceAfter()).text(", \"category\": ");
+            string(out, t.getCategory() != null ? t.getCategory().name() : null);
+            out.text(", \"counterparty\": ");
+            string(out, t.getCounterparty());
+            out.text(", \"title\": ");
+            string(out, t.getTitle());
+            out.character('}');
+            count++;
+        }
+        if (count > 0) out.newLine();
+        out.character(']').newLine();
+        return count;
+    }
+
+    private static ReportOutput closeArray(ReportOutput out, boolean empty) throws IOException {
+        if (!empty) out.newLine().text("  ");
+        return out.character(']');
+    }
+
+    private static void date(ReportOutput out, LocalDate date) throws IOException {
+        if (date == null) {
+            out.text("null");
+        } else {
+            out.character('"').date(date).character('"');
+        }
+    }
+
+    private static void string(ReportOutput out, String value) throws IOException {
+        if (value == null) {
+            out.text("null");
+            return;
+        }
+        out.character('"');
+        if (needsEscaping(value)) {
+            escaped(out, value);
+        } else {
+            out.text(value);
+        }
+        out.character('"');
+    }
+
+    private static void escaped(ReportOutput out, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.text("\\\"");
+                    break;
+                case '\\':
+                    out.text("\\\\");
+                    break;
+                case '\n':
+                    out.text("\\n");
+                    break;
+                case '\r':
+                    out.text("\\r");
+                    break;
+                case '\t':
+                    out.text("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.text("\\u00").character(HEX[c >> 4]).character(HEX[c & 0xF]);
+                    } else {
+                        out.character(c);
+                    }
+            }
+        }
+    }
+
+    private static boolean needsEscaping(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c == '"' || c == '\\') return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,192 @@
+package com.bank.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Aho-Corasick automaton over a set of keywords, each tagged with an int value.
+ * A text is scanned once, case-insensitively, regardless of how many keywords there are.
+ * Instances are immutable and safe to share between threads.
+ */
+public class KeywordMatcher {
+    private final char[] charClass;
+    private final int alphabetSize;
+    private final int[] transitions;
+    private final long[] stateMask;
+    private final int[] outputStart;
+    private final int[] outputs;
+
+    private KeywordMatcher(char[] charClass, int alphabetSize, int[] transitions,
+                           long[] stateMask, int[] outputStart, int[] outputs) {
+        this.charClass = charClass;
+        this.alphabetSize = alphabetSize;
+        this.transitions = transitions;
+        this.stateMask = stateMask;
+        this.outputStart = outputStart;
+        this.outputs = outputs;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Bit {@code v} of the result is set when a keyword with value {@code v} occurs in the text.
+     * Only values 0-63 are represented.
+     */
+    public long matchMask(CharSequence text) {
+        long mask = 0;
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state * alphabetSize + charClass[text.charAt(i)]];
+            mask |= stateMask[state];
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the smallest value below {@code limit} that occurs in the text and passes
+     * {@code accept}, or {@code limit} if there is none.
+     */
+    public int lowestMatch(CharSequence text, int limit, IntPredicate accept) {
+        int best = limit;
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state * alphabetSize + charClass[text.charAt(i)]];
+            for (int j = outputStart[state]; j < outputStart[state + 1]; j++) {
+                int value = outputs[j];
+                if (value < best && accept.test(value)) {
+                    best = value;
+                }
+            }
+        }
+        return best;
+    }
+
+    public static class Builder {
+        private final List<String> keywords = new ArrayList<>();
+        private final List<Integer> values = new ArrayList<>();
+
+        public Builder add(String keyword, int value) {
+            if (keyword.isEmpty()) {
+                throw new IllegalArgumentException("Keyword must not be empty");
+            }
+            keywords.add(keyword);
+            values.add(value);
+            return this;
+        }
+
+        public Builder addAll(int value, String... keywords) {
+            for (String keyword : keywords) {
+                add(keyword, value);
+            }
+            return this;
+        }
+
+        public KeywordMatcher build() {
+            // Class 0 stands for every character that does not occur in any keyword.
+            char[] classOfUpper = new char[Character.MAX_VALUE + 1];
+            int alphabetSize = 1;
+            int maxStates = 1;
+            for (String keyword : keywords) {
+                maxStates += keyword.length();
+                for (int i = 0; i < keyword.length(); i++) {
+                    char c = Character.toUpperCase(keyword.charAt(i));
+                    if (classOfUpper[c] == 0) {
+                        classOfUpper[c] = (char) alphabetSize++;
+                    }
+                }
+            }
+
+            char[] charClass = new char[Character.MAX_VALUE + 1];
+            for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                charClass[c] = classOfUpper[Character.toUpperCase((char) c)];
+            }
+
+            // Build the trie directly in the transition table; -1 marks a missing edge.
+            int[] transitions = new int[maxStates * alphabetSize];
+            Arrays.fill(transitions, -1);
+            int[] ownOutputHead = new int[maxStates];
+            Arrays.fill(ownOutputHead, -1);
+            int[] ownOutputNext = new int[keywords.size()];
+            int stateCount = 1;
+
+            for (int k = 0; k < keywords.size(); k++) {
+                String keyword = keywords.get(k);
+                int state = 0;
+                for (int i = 0; i < keyword.length(); i++) {
+                    int edge = state * alphabetSize + charClass[keyword.charAt(i)];
+                    if (transitions[edge] < 0) {
+                        transitions[edge] = stateCount++;
+                    }
+                    state = transitions[edge];
+                }
+                ownOutputNext[k] = ownOutputHead[state];
+                ownOutputHead[state] = k;
+            }
+
+            // Breadth-first, so a state's failure target is complete before the state itself.
+            int[] failure = new int[stateCount];
+            int[] outputLink = new int[stateCount];
+            int[] queue = new int[stateCount];
+            int head = 0;
+            int tail = 0;
+            outputLink[0] = -1;
+
+            for (int cls = 0; cls < alphabetSize; cls++) {
+                int child = transitions[cls];
+                if (child < 0) {
+                    transitions[cls] = 0;
+                } else {
+                    failure[child] = 0;
+                    outputLink[child] = -1;
+                    queue[tail++] = child;
+                }
+            }
+
+            while (head < tail) {
+                int state = queue[head++];
+                for (int cls = 0; cls < alphabetSize; cls++) {
+                    int edge = state * alphabetSize + cls;
+                    int fallback = transitions[failure[state] * alphabetSize + cls];
+                    int child = transitions[edge];
+                    if (child < 0) {
+                        transitions[edge] = fallback;
+                    } else {
+                        failure[child] = fallback;
+                        outputLink[child] = ownOutputHead[fallback] >= 0 ? fallback : outputLink[fallback];
+                        queue[tail++] = child;
+                    }
+                }
+            }
+
+            long[] stateMask = new long[stateCount];
+            int[] outputStart = new int[stateCount + 1];
+            int[] outputs = new int[keywords.size()];
+            int position = 0;
+
+            for (int state = 0; state < stateCount; state++) {
+                outputStart[state] = position;
+                for (int s = ownOutputHead[state] >= 0 ? state : outputLink[state]; s >= 0; s = outputLink[s]) {
+                    for (int k = ownOutputHead[s]; k >= 0; k = ownOutputNext[k]) {
+                        if (position == outputs.length) {
+                            outputs = Arrays.copyOf(outputs, Math.max(1, outputs.length * 2));
+                        }
+                        int value = values.get(k);
+                        outputs[position++] = value;
+                        if (value >= 0 && value < 64) {
+                            stateMask[state] |= 1L << value;
+                        }
+                    }
+                }
+            }
+            outputStart[stateCount] = position;
+
+            return new KeywordMatcher(charClass, alphabetSize,
+                Arrays.copyOf(transitions, stateCount * alphabetSize),
+                stateMask, outputStart, Arrays.copyOf(outputs, position));
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.bank.service;
+
+import com.bank.model.Transaction;
+import com.opencsv.exceptions.CsvException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Local, append-only store of categorized transactions for querying years of history without
+ * re-reading the CSV exports. Each import writes one segment file per account and calendar
+ * month, encoded with {@link TransactionCodec}, and appends its description to a text manifest:
+ * <pre>
+ * S  id  account  first date  last date  rows  rules version      (one line per segment)
+ * I  content hash  rows  source path                              (one line per imported file)
+ * </pre>
+ * Fields are tab-separated. Opening the store reads only the manifest, and a query decodes only
+ * the segments whose dates overlap its range. Importing the same file content again is a no-op;
+ * overlapping exports of one account leave several segments for a month until
+ * {@link #compact} merges them and drops the duplicates.
+ */
+public class LedgerStore {
+    static final String MANIFEST = "manifest.tsv";
+    private static final String HEADER = "# bank-analyzer ledger 1";
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+    private final Path manifest;
+    private final List<Segment> segments = new ArrayList<>();
+    /** Manifest fields after the content hash of each imported file: row count and source path. */
+    private final Map<String, String> imports = new LinkedHashMap<>();
+    private long nextSegmentId = 1;
+
+    private LedgerStore(Path directory) {
+        this.directory = directory;
+        this.manifest = directory.resolve(MANIFEST);
+    }
+
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".bank-analyzer", "ledger");
+    }
+
+    /** Opens the store in the directory, creating an empty one if there is none. */
+    public static LedgerStore open(Path directory) throws IOException {
+        LedgerStore store = new LedgerStore(directory);
+        Files.createDirectories(directory);
+        if (Files.exists(store.manifest)) {
+            store.readManifest();
+        } else {
+            Files.writeString(store.manifest, HEADER + "\n", StandardCharsets.UTF_8);
+        }
+        return store;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Parses, categorizes and stores the file. Returns the segments written, or an empty list
+     * when a file with the same content was imported before.
+     */
+    public List<Segment> importFile(Path source, CsvParserService parser, CategorizationService categorizer)
+            throws IOException, CsvException {
+        String contentHash = SnapshotCache.contentHash(source);
+        synchronized (this) {
+            if (imports.containsKey(contentHash)) return List.of();
+        }
+        StatementLayout layout = parser.detectLayout(source.toString());
+        List<Transaction> transactions = parser.parseFile(source.toString(), layout);
+        categorizer.categorizeTransactions(transactions);
+        return append(source.toAbsolutePath().toString(), contentHash, layout.getAccountNumber(), transactions,
+            categorizer.getRuleSet().getVersion());
+    }
+
+    /** Stores categorized transactions of one account, split into one segment per month. */
+    public synchronized List<Segment> append(String source, String contentHash, String account,
+                                             List<Transaction> transactions, String rulesVersion) throws IOException {
+        if (imports.containsKey(contentHash)) return List.of();
+
+        Map<Integer, List<Transaction>> byMonth = new TreeMap<>();
+        for (Transaction transaction : transactions) {
+            LocalDate date = transaction.getOperationDate();
+            byMonth.computeIfAbsent(date.getYear() * 12 + date.getMonthValue() - 1, month -> new ArrayList<>())
+                .add(transaction);
+        }
+
+        List<Segment> written = new ArrayList<>();
+        StringBuilder lines = new StringBuilder();
+        for (List<Transaction> month : byMonth.values()) {
+            Segment segment = writeSegment(account, month, rulesVersion);
+            written.add(segment);
+            lines.append(segment.toManifestLine()).append('\n');
+        }
+        String importFields = transactions.size() + "\t" + clean(source);
+        lines.append("I\t").append(contentHash).append('\t').append(importFields).append('\n');
+        // Segment files are complete before the manifest mentions them, so a crash in between
+        // leaves at most an unreferenced file that compaction removes.
+        Files.writeString(manifest, lines, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        segments.addAll(written);
+        imports.put(contentHash, importFields);
+        return written;
+    }
+
+    public synchronized List<Segment> getSegments() {
+        return new ArrayList<>(segments);
+    }
+
+    /** Number of distinct files imported. */
+    public synchronized int getImportCount() {
+        return imports.size();
+    }
+
+    /** Segments with a transaction between the dates, both included; a null end is open. */
+    public synchronized List<Segment> segmentsBetween(LocalDate from, LocalDate to) {
+        List<Segment> overlapping = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.overlaps(from, to)) {
+                overlapping.add(segment);
+            }
+        }
+        return overlapping;
+    }
+
+    /** Decodes one segment; categories are as of the segment's rules version. */
+    public List<Transaction> read(Segment segment) throws IOException {
+        return TransactionCodec.decode(SnapshotCache.readFully(fileOf(segment.getId())), segment.getRulesVersion());
+    }
+
+    /**
+     * A session holding the transactions between the dates, both included, read from the
+     * overlapping segments only. Duplicates between overlapping exports are dropped and
+     * transfers between accounts matched, as for CSV files.
+     */
+    public StatementSession load(LocalDate from, LocalDate to, CategorizationService categorizer) throws IOException {
+        StatementSession session = new StatementSession(categorizer);
+        for (Segment segment : segmentsBetween(from, to)) {
+            List<Transaction> transactions = read(segment);
+            if (!segment.within(from, to)) {
+                List<Transaction> inRange = new ArrayList<>(transactions.size());
+                for (Transaction transaction : transactions) {
+                    LocalDate date = transaction.getOperationDate();
+                    if ((from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to))) {
+                        inRange.add(transaction);
+                    }
+                }
+                transactions = inRange;
+            }
+            session.add(fileOf(segment.getId()).toString(), transactions, segment.getRulesVersion(), segment.getAccount());
+        }
+        return session;
+    }
+
+    /**
+     * Merges all segments of the same account and month into one, drops duplicate transactions
+     * between them and re-categorizes segments written under other rules. The new manifest
+     * replaces the old one atomically before old segment files are deleted.
+     */
+    public synchronized Compaction compact(CategorizationService categorizer) throws IOException {
+        String rulesVersion = categorizer.getRuleSet().getVersion();
+        Map<String, List<Segment>> groups = new LinkedHashMap<>();
+        for (Segment segment : segments) {
+            LocalDate month = segment.getFirstDate().withDayOfMonth(1);
+            groups.computeIfAbsent(segment.getAccount() + '\t' + month, key -> new ArrayList<>()).add(segment);
+        }
+
+        List<Segment> compacted = new ArrayList<>();
+        List<Segment> obsolete = new ArrayList<>();
+        long duplicates = 0;
+        for (List<Segment> group : groups.values()) {
+            Segment first = group.get(0);
+            if (group.size() == 1 && first.getRulesVersion().equals(rulesVersion)) {
+                compacted.add(first);
+                continue;
+            }
+            TransactionDeduplicator deduplicator = new TransactionDeduplicator();
+            List<Transaction> merged = new ArrayList<>();
+            for (Segment segment : group) {
+                merged.addAll(deduplicator.filter(segment.getAccount(), read(segment)));
+            }
+            duplicates += deduplicator.getDuplicateCount();
+            categorizer.categorizeTransactions(merged);
+            compacted.add(writeSegment(first.getAccount(), merged, rulesVersion));
+            obsolete.addAll(group);
+        }
+
+        int before = segments.size();
+        StringBuilder lines = new StringBuilder(HEADER).append('\n');
+        for (Segment segment : compacted) {
+            lines.append(segment.toManifestLine()).append('\n');
+        }
+        imports.forEach((hash, fields) -> lines.append("I\t").append(hash).append('\t').append(fields).append('\n'));
+        Path temporary = Files.createTempFile(directory, "manifest", ".tmp");
+        try {
+            Files.writeString(temporary, lines, StandardCharsets.UTF_8);
+            moveAtomically(temporary, manifest);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        segments.clear();
+        segments.addAll(compacted);
+
+        for (Segment segment : obsolete) {
+            Files.deleteIfExists(fileOf(segment.getId()));
+        }
+        deleteUnreferencedFiles();
+        return new Compaction(before, segments.size(), duplicates);
+    }
+
+    /** Sizes of the store from the manifest and the file system, without decoding anything. */
+    public synchronized String describe() throws IOException {
+        long rows = 0;
+        long bytes = Files.size(manifest);
+        Map<String, LocalDate[]> accounts = new TreeMap<>();
+        for (Segment segment : segments) {
+            rows += segment.getRowCount();
+            bytes += Files.size(fileOf(segment.getId()));
+            LocalDate[] range = accounts.computeIfAbsent(segment.getAccount(),
+                account -> new LocalDate[] {segment.getFirstDate(), segment.getLastDate()});
+            if (segment.getFirstDate().isBefore(range[0])) range[0] = segment.getFirstDate();
+            if (segment.getLastDate().isAfter(range[1])) range[1] = segment.getLastDate();
+        }
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Ledger: %s%n", directory));
+        out.append(String.format("Files imported: %d, segments: %d, transactions: %d, size: %.1f MB%n",
+            imports.size(), segments.size(), rows, bytes / (1024.0 * 1024.0)));
+        for (Map.Entry<String, LocalDate[]> account : accounts.entrySet()) {
+            out.append(String.format("  %s: %s to %s%n",
+                account.getKey().isEmpty() ? "(unknown account)" : account.getKey(),
+                account.getValue()[0], account.getValue()[1]));
+        }
+        return out.toString();
+    }
+
+    private Segment writeSegment(String account, List<Transaction> transactions, String rulesVersion) throws IOException {
+        List<Transaction> sorted = new ArrayList<>(transactions);
+        sorted.sort(Comparator.comparing(Transaction::getOperationDate));
+        long id = nextSegmentId++;
+        Path file = fileOf(id);
+        Path temporary = Files.createTempFile(directory, "segment", ".tmp");
+        try {
+            ByteBuffer data = TransactionCodec.encode(sorted, rulesVersion);
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+                channel.force(true);
+            }
+            moveAtomically(temporary, file);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return new Segment(id, account, sorted.get(0).getOperationDate(),
+            sorted.get(sorted.size() - 1).getOperationDate(), sorted.size(), rulesVersion);
+    }
+
+    private void readManifest() throws IOException {
+        Map<Long, Segment> byId = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] fields = line.split("\t", -1);
+            try {
+                if (fields[0].equals("S") && fields.length == 7) {
+                    Segment segment = new Segment(Long.parseLong(fields[1]), fields[2], LocalDate.parse(fields[3]),
+                        LocalDate.parse(fields[4]), Integer.parseInt(fields[5]), fields[6]);
+                    byId.put(segment.getId(), segment);
+                    nextSegmentId = Math.max(nextSegmentId, segment.getId() + 1);
+                } else if (fields[0].equals("I") && fields.length == 4) {
+                    Integer.parseInt(fields[2]);
+                    imports.put(fields[1], fields[2] + "\t" + fields[3]);
+                } else {
+                    throw new IllegalArgumentException("unknown record");
+                }
+            } catch (RuntimeException e) {
+                // Most likely the last line of an append that did not finish.
+                System.err.println("Skipping manifest line in " + manifest + ": " + line);
+            }
+        }
+        segments.addAll(byId.values());
+    }
+
+    private void deleteUnreferencedFiles() throws IOException {
+        Set<Path> referenced = new HashSet<>();
+        for (Segment segment : segments) {
+            referenced.add(fileOf(segment.getId()));
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                if (!referenced.contains(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private Path fileOf(long segmentId) {
+        return directory.resolve(String.format("%08d%s", segmentId, SUFFIX));
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String clean(String value) {
+        return value.replace('\t', ' ').replace('\n', ' ');
+    }
+
+    /** One segment file: transactions of one account within one month, sorted by operation date. */
+    public static class Segment {
+        private final long id;
+        private final String account;
+        private final LocalDate firstDate;
+        private final LocalDate lastDate;
+        private final int rowCount;
+        private final String rulesVersion;
+
+        Segment(long id, String account, LocalDate firstDate, LocalDate lastDate, int rowCount, String rulesVersion) {
+            this.id = id;
+            this.account = account;
+            this.firstDate = firstDate;
+            this.lastDate = lastDate;
+            this.rowCount = rowCount;
+            this.rulesVersion = rulesVersion;
+        }
+
+        public long getId() { return id; }
+        public String getAccount() { return account; }
+        public LocalDate getFirstDate() { return firstDate; }
+        public LocalDate getLastDate() { return lastDate; }
+        public int getRowCount() { return rowCount; }
+        public String getRulesVersion() { return rulesVersion; }
+
+        boolean overlaps(LocalDate from, LocalDate to) {
+            return (from == null || !lastDate.isBefore(from)) && (to == null || !firstDate.isAfter(to));
+        }
+
+        boolean within(LocalDate from, LocalDate to) {
+            return (from == null || !firstDate.isBefore(from)) && (to == null || !lastDate.isAfter(to));
+        }
+
+        String toManifestLine() {
+            return String.join("\t", "S", Long.toString(id), clean(account), firstDate.toString(),
+                lastDate.toString(), Integer.toString(rowCount), rulesVersion);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("segment %d (%s, %s to %s, %d rows)", id, account, firstDate, lastDate, rowCount);
+        }
+    }
+
+    public static class Compaction {
+        private final int segmentsBefore;
+        private final int segmentsAfter;
+        private final long duplicatesDropped;
+
+        Compaction(int segmentsBefore, int segmentsAfter, long duplicatesDropped) {
+            this.segmentsBefore = segmentsBefore;
+            this.segmentsAfter = segmentsAfter;
+            this.duplicatesDropped = duplicatesDropped;
+        }
+
+        public int getSegmentsBefore() { return segmentsBefore; }
+        public int getSegmentsAfter() { return segmentsAfter; }
+        public long getDuplicatesDropped() { return duplicatesDropped; }
+
+        @Override
+        public String toString() {
+            return String.format("Compacted %d segment(s) into %d, dropped %d duplicate(s)",
+                segmentsBefore, segmentsAfter, duplicatesDropped);
+        }
+    }
+}
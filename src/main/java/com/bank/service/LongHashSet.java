@@ -0,0 +1,130 @@
+package com.bank.service;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive longs using open addressing with linear probing: one {@code long[]}
+ * slot per entry and no per-entry objects. Not thread-safe.
+ */
+public class LongHashSet {
+    private static final float MAX_LOAD = 0.75f;
+    // Zero marks an empty slot, so the value zero itself is tracked separately.
+    private static final long EMPTY = 0L;
+
+    private long[] slots;
+    private int mask;
+    private int size;
+    private boolean containsZero;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) Math.ceil(expectedSize / MAX_LOAD)) - 1) << 1;
+        slots = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /** Adds the value; returns false if it was already present. */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero) return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int index = indexOf(value);
+        while (true) {
+            long slot = slots[index];
+            if (slot == EMPTY) {
+                slots[index] = value;
+                if (++size > (slots.length * MAX_LOAD)) {
+                    rehash(slots.length << 1);
+                }
+                return true;
+            }
+            if (slot == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+        int index = indexOf(value);
+        while (true) {
+            long slot = slots[index];
+            if (slot == EMPTY) return false;
+            if (slot == value) return true;
+            index = (index + 1) & mask;
+        }
+    }
+
+    /** Removes the value; returns false if it was not present. */
+    public boolean remove(long value) {
+        if (value == EMPTY) {
+            if (!containsZero) return false;
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int hole = indexOf(value);
+        while (slots[hole] != value) {
+            if (slots[hole] == EMPTY) return false;
+            hole = (hole + 1) & mask;
+        }
+        // Move later entries of the probe run back into the hole, so no lookup stops short.
+        int next = (hole + 1) & mask;
+        while (slots[next] != EMPTY) {
+            int home = indexOf(slots[next]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = slots[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[hole] = EMPTY;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, EMPTY);
+        containsZero = false;
+        size = 0;
+    }
+
+    /** Approximate heap size of the set in bytes. */
+    public long estimateBytes() {
+        return 16L + 8L * slots.length + 32;
+    }
+
+    private int indexOf(long value) {
+        // Fingerprints are usually well mixed already, but arbitrary longs may not be.
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = slots;
+        slots = new long[capacity];
+        mask = capacity - 1;
+        for (long value : old) {
+            if (value != EMPTY) {
+                int index = indexOf(value);
+                while (slots[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                slots[index] = value;
+            }
+        }
+    }
+}
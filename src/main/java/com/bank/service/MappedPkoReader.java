@@ -0,0 +1,462 @@
+package com.bank.service;
+
+import com.bank.model.Transaction;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Cursor over a statement export that tokenizes the memory-mapped file directly. Columns,
+ * separator, charset and date order come from a {@link StatementLayout}; without one the
+ * PKO BP layout is used.
+ * <p>
+ * Quoting follows the rules of OpenCSV's default parser, so rows come out the same as
+ * with {@link CsvParserService}'s OpenCSV engine. Dates and amounts are decoded from the
+ * mapped bytes; text columns are only turned into Strings when their getter is called.
+ * Files larger than the mapping window are mapped piece by piece at record boundaries.
+ */
+public class MappedPkoReader implements Closeable {
+    private static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+    private static final long DAYS_0000_TO_1970 = 719_528L;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final byte QUOTE = '"';
+    private static final byte ESCAPE = '\\';
+    private static final int NEED_MORE = -1;
+    private static final int END_OF_DATA = -2;
+
+    private static final int ABSENT = StatementLayout.ABSENT;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int windowSize;
+    private final StatementLayout layout;
+    private final Charset charset;
+    private final byte separator;
+    private final int headerRecords;
+    private final int minFields;
+    private final boolean yearFirst;
+    private final byte dateSeparator;
+    private final int bookingDate;
+    private final int operationDate;
+    private final int operationType;
+    private final int amount;
+    private final int currency;
+    private final int counterparty;
+    private final int title;
+    private final int balanceAfter;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int position;
+    private int rowIndex = -1;
+
+    private int fieldCount;
+    private int[] fieldStart = new int[16];
+    private int[] fieldLength = new int[16];
+    private boolean[] fieldInScratch = new boolean[16];
+    private byte[] scratch = new byte[256];
+    private int scratchLength;
+    private byte[] textBuffer = new byte[256];
+
+    private int currentStart;
+    private int currentLength;
+    private boolean currentInScratch;
+
+    public MappedPkoReader(Path file) throws IOException {
+        this(file, Charset.defaultCharset(), DEFAULT_WINDOW_SIZE);
+    }
+
+    public MappedPkoReader(Path file, Charset charset, int windowSize) throws IOException {
+        this(file, PkoBankFormat.standard(charset, null), windowSize);
+    }
+
+    public MappedPkoReader(Path file, StatementLayout layout) throws IOException {
+        this(file, layout, DEFAULT_WINDOW_SIZE);
+    }
+
+    public MappedPkoReader(Path file, StatementLayout layout, int windowSize) throws IOException {
+        if (layout.getSeparator() > 0x7F) {
+            throw new IllegalArgumentException("Separator must be an ASCII character: " + layout.getSeparator());
+        }
+        this.layout = layout;
+        this.charset = layout.getCharset();
+        this.separator = (byte) layout.getSeparator();
+        this.headerRecords = layout.getHeaderRecords();
+        this.minFields = layout.getMinFields();
+        this.yearFirst = layout.isYearFirst();
+        this.dateSeparator = (byte) layout.getDateSeparator();
+        this.bookingDate = layout.column(StatementLayout.Column.BOOKING_DATE);
+        this.operationDate = layout.column(StatementLayout.Column.OPERATION_DATE);
+        this.operationType = layout.column(StatementLayout.Column.OPERATION_TYPE);
+        this.amount = layout.column(StatementLayout.Column.AMOUNT);
+        this.currency = layout.column(StatementLayout.Column.CURRENCY);
+        this.counterparty = layout.column(StatementLayout.Column.COUNTERPARTY);
+        this.title = layout.column(StatementLayout.Column.TITLE);
+        this.balanceAfter = layout.column(StatementLayout.Column.BALANCE_AFTER);
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.windowSize = windowSize;
+        map(0);
+    }
+
+    /** Advances to the next data row, skipping the header and rows without all the layout's columns. */
+    public boolean next() throws IOException {
+        while (true) {
+            int end = tokenizeRecord(position);
+            if (end == NEED_MORE) {
+                long recordStart = windowStart + position;
+                if (recordStart == windowStart && window.limit() == windowSize) {
+                    throw new IOException("Record at byte " + recordStart + " does not fit in the mapping window");
+                }
+                map(recordStart);
+                continue;
+            }
+            if (end == END_OF_DATA) {
+                return false;
+            }
+
+            position = end;
+            rowIndex++;
+            if (rowIndex >= headerRecords && fieldCount >= minFields) {
+                return true;
+            }
+        }
+    }
+
+    /** Index of the current row in the file, counting header rows, as reported by the OpenCSV engine. */
+    public int getRowIndex() { return rowIndex; }
+
+    public StatementLayout getLayout() { return layout; }
+
+    /** The booking date, or the operation date when the layout has no booking date column. */
+    public long bookingDateEpochDay() { return bookingDate != ABSENT ? decodeEpochDay(bookingDate) : operationDateEpochDay(); }
+    public long operationDateEpochDay() { return decodeEpochDay(operationDate); }
+    public double amount() { return decodeAmount(amount); }
+    public double balanceAfter() { return balanceAfter != ABSENT ? decodeAmount(balanceAfter) : 0; }
+
+    public String operationType() { return text(operationType); }
+    public String currency() { return currency != ABSENT ? text(currency) : layout.getDefaultCurrency(); }
+    public String counterparty() { return text(counterparty); }
+    public String title() { return text(title); }
+
+    public Transaction toTransaction() {
+        return new Transaction(
+            LocalDate.ofEpochDay(bookingDateEpochDay()),
+            LocalDate.ofEpochDay(operationDateEpochDay()),
+            operationType(),
+            amount(),
+            currency(),
+            counterparty(),
+            title(),
+            balanceAfter()
+        );
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    private void map(long start) throws IOException {
+        long size = Math.min(windowSize, fileSize - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        windowStart = start;
+        position = 0;
+    }
+
+    // Mirrors com.opencsv.CSVParser with its defaults: ',' separator, '"' quote,
+    // '\' escape, ignoreLeadingWhiteSpace and multi-line quoted fields.
+    private int tokenizeRecord(int p) {
+        int limit = window.limit();
+        boolean lastWindow = windowStart + limit >= fileSize;
+
+        if (p >= limit) {
+            return lastWindow ? END_OF_DATA : NEED_MORE;
+        }
+
+        fieldCount = 0;
+        scratchLength = 0;
+        beginField();
+
+        boolean inQuotes = false;
+        boolean inField = false;
+        int lineStart = p;
+
+        while (true) {
+            if (p + 1 >= limit && !lastWindow) {
+                return NEED_MORE;
+            }
+            if (p >= limit) {
+                endField();
+                return p;
+            }
+
+            byte c = window.get(p);
+
+            if (c == '\n' || c == '\r') {
+                int next = p + 1;
+                if (c == '\r' && next < limit && window.get(next) == '\n') {
+                    next++;
+                }
+                if (!inQuotes) {
+                    endField();
+                    return next;
+                }
+                if (c == '\n') {
+                    append(p);
+                } else {
+                    appendToScratch((byte) '\n');
+                }
+                lineStart = next;
+                p = next;
+                continue;
+            }
+
+            int nextByte = p + 1 < limit ? window.get(p + 1) : -1;
+            boolean nextOnLine = nextByte != -1 && nextByte != '\n' && nextByte != '\r';
+
+            if (c == ESCAPE) {
+                if ((inQuotes || inField) && nextOnLine && (nextByte == QUOTE || nextByte == ESCAPE)) {
+                    append(p + 1);
+                    inField = true;
+                    p += 2;
+                } else {
+                    p++;
+                }
+            } else if (c == QUOTE) {
+                if ((inQuotes || inField) && nextOnLine && nextByte == QUOTE) {
+                    append(p + 1);
+                    inField = true;
+                    p++;
+                } else {
+                    inQuotes = !inQuotes;
+                    if (p - lineStart > 2 && window.get(p - 1) != separator && nextOnLine && nextByte != separator) {
+                        if (currentLength > 0 && currentIsWhitespace()) {
+                            resetField();
+                        } else {
+                            append(p);
+                        }
+                    }
+                }
+                inField = !inField;
+                p++;
+            } else if (c == separator && !inQuotes) {
+                endField();
+                beginField();
+                inField = false;
+                p++;
+            } else {
+                append(p);
+                inField = true;
+                p++;
+            }
+        }
+    }
+
+    private void beginField() {
+        currentStart = 0;
+        currentLength = 0;
+        currentInScratch = false;
+    }
+
+    private void resetField() {
+        if (currentInScratch) {
+            scratchLength = currentStart;
+        }
+        beginField();
+    }
+
+    private void append(int p) {
+        if (currentInScratch) {
+            appendToScratch(window.get(p));
+        } else if (currentLength == 0) {
+            currentStart = p;
+            currentLength = 1;
+        } else if (currentStart + currentLength == p) {
+            currentLength++;
+        } else {
+            moveCurrentToScratch();
+            appendToScratch(window.get(p));
+        }
+    }
+
+    private void appendToScratch(byte b) {
+        if (!currentInScratch) {
+            moveCurrentToScratch();
+        }
+        ensureScratch(scratchLength + 1);
+        scratch[scratchLength++] = b;
+        currentLength++;
+    }
+
+    private void moveCurrentToScratch() {
+        int start = scratchLength;
+        ensureScratch(start + currentLength);
+        window.get(currentStart, scratch, start, currentLength);
+        scratchLength += currentLength;
+        currentStart = start;
+        currentInScratch = true;
+    }
+
+    private void ensureScratch(int size) {
+        if (size > scratch.length) {
+            scratch = Arrays.copyOf(scratch, Math.max(size, scratch.length * 2));
+        }
+    }
+
+    private boolean currentIsWhitespace() {
+        for (int i = 0; i < currentLength; i++) {
+            if (!Character.isWhitespace(byteAt(currentInScratch, currentStart, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void endField() {
+        if (fieldCount == fieldStart.length) {
+            int size = fieldCount * 2;
+            fieldStart = Arrays.copyOf(fieldStart, size);
+            fieldLength = Arrays.copyOf(fieldLength, size);
+            fieldInScratch = Arrays.copyOf(fieldInScratch, size);
+        }
+        fieldStart[fieldCount] = currentStart;
+        fieldLength[fieldCount] = currentLength;
+        fieldInScratch[fieldCount] = currentInScratch;
+        fieldCount++;
+    }
+
+    private int byteAt(boolean inScratch, int start, int offset) {
+        return inScratch ? scratch[start + offset] : window.get(start + offset);
+    }
+
+    private int fieldByte(int field, int offset) {
+        return byteAt(fieldInScratch[field], fieldStart[field], offset);
+    }
+
+    private String text(int field) {
+        if (field == ABSENT) {
+            return "";
+        }
+        int length = fieldLength[field];
+        if (fieldInScratch[field]) {
+            return new String(scratch, fieldStart[field], length, charset);
+        }
+        if (length > textBuffer.length) {
+            textBuffer = new byte[Math.max(length, textBuffer.length * 2)];
+        }
+        window.get(fieldStart[field], textBuffer, 0, length);
+        return new String(textBuffer, 0, length, charset);
+    }
+
+    private long decodeEpochDay(int field) {
+        if (fieldLength[field] == 10) {
+            int day = -1;
+            int month = -1;
+            int year = -1;
+            if (!yearFirst && fieldByte(field, 2) == dateSeparator && fieldByte(field, 5) == dateSeparator) {
+                day = digits(field, 0, 2);
+                month = digits(field, 3, 2);
+                year = digits(field, 6, 4);
+            } else if (yearFirst && fieldByte(field, 4) == dateSeparator && fieldByte(field, 7) == dateSeparator) {
+                year = digits(field, 0, 4);
+                month = digits(field, 5, 2);
+                day = digits(field, 8, 2);
+            }
+            if (day > 0 && month >= 1 && month <= 12 && year >= 0 && day <= lengthOfMonth(year, month)) {
+                return epochDay(year, month, day);
+            }
+        }
+        return layout.parseDate(text(field)).toEpochDay();
+    }
+
+    private int digits(int field, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = fieldByte(field, i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private double decodeAmount(int field) {
+        int start = 0;
+        int end = fieldLength[field];
+        while (start < end && fieldByte(field, start) <= ' ' && fieldByte(field, start) >= 0) start++;
+        while (end > start && fieldByte(field, end - 1) <= ' ' && fieldByte(field, end - 1) >= 0) end--;
+
+        int i = start;
+        boolean negative = false;
+        if (i < end && (fieldByte(field, i) == '-' || fieldByte(field, i) == '+')) {
+            negative = fieldByte(field, i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digitCount = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            int b = fieldByte(field, i);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digitCount++;
+                if (fractionDigits >= 0) fractionDigits++;
+                if (digitCount > 18) break;
+            } else if ((b == '.' || b == ',') && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (b == ' ' && digitCount > 0 && fractionDigits < 0) {
+                // Thousands grouping, as in "1 234,56".
+                continue;
+            } else {
+                break;
+            }
+        }
+
+        if (i == end && digitCount > 0 && mantissa <= MAX_EXACT_MANTISSA && fractionDigits < POWERS_OF_TEN.length) {
+            // Both operands are exact doubles, so the division is correctly rounded,
+            // which is exactly what Double.parseDouble returns.
+            double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            return negative ? -value : value;
+        }
+        return StatementLayout.parseAmount(text(field));
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2: return isLeapYear(year) ? 29 : 28;
+            case 4: case 6: case 9: case 11: return 30;
+            default: return 31;
+        }
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    // Same arithmetic as LocalDate.toEpochDay, without creating the LocalDate.
+    private static long epochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y + (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        total += (367L * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) total--;
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}
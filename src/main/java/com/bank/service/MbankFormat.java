@@ -0,0 +1,46 @@
+package com.bank.service;
+
+import java.util.List;
+
+/**
+ * mBank: a preamble of "#Label;" lines with the value on the next line, semicolon-separated
+ * columns named with a leading '#', yyyy-MM-dd dates and amounts like "-1 234,56". The
+ * currency is given once in the preamble.
+ */
+class MbankFormat implements BankFormat {
+    static final String NAME = "mBank";
+
+    private static final String[] COLUMNS = {
+        "#Data operacji", "#Data księgowania", "#Opis operacji", "#Tytuł", "#Nadawca/Odbiorca", "#Kwota"
+    };
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public StatementLayout detect(StatementSample sample) {
+        StatementSample.Header header = sample.findHeader(COLUMNS);
+        if (header == null) {
+            return null;
+        }
+        int headerLine = header.getLineIndex();
+        return new StatementLayout(NAME, sample.getCharset(), header.getSeparator(), headerLine + 1,
+            StatementLayout.columns(header.position(1), header.position(0), header.position(2), header.position(5),
+                StatementLayout.ABSENT, header.position(4), header.position(3), header.column("#Saldo po operacji")),
+            "yyyy-MM-dd", currency(sample, headerLine), sample.findAccountNumber(headerLine), -1);
+    }
+
+    /** The value under the "#Waluta" label of the preamble, PLN if there is none. */
+    private static String currency(StatementSample sample, int headerLine) {
+        List<String> lines = sample.getLines();
+        for (int i = 0; i + 1 < headerLine; i++) {
+            if (lines.get(i).startsWith("#Waluta")) {
+                String value = lines.get(i + 1).split(";", -1)[0].trim();
+                if (value.length() == 3) return value;
+            }
+        }
+        return "PLN";
+    }
+}
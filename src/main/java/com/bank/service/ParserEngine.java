@@ -0,0 +1,8 @@
+package com.bank.service;
+
+public enum ParserEngine {
+    /** Generic OpenCSV reader. */
+    OPENCSV,
+    /** Memory-mapped reader driven by the sniffed {@link StatementLayout}, see {@link MappedPkoReader}. */
+    MAPPED
+}
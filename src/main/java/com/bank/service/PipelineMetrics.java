@@ -0,0 +1,334 @@
+package com.bank.service;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionStore;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.DateTimeException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the parse, categorize and report stages. Services record
+ * into it only when one is set on them, so with metrics off nothing is counted or timed.
+ * Recording is lock-free and safe from any thread.
+ */
+public class PipelineMetrics implements PipelineMetricsMXBean {
+    public static final String OBJECT_NAME = "com.bank:type=PipelineMetrics";
+
+    static final String PARSE = "parse";
+    static final String CATEGORIZE = "categorize";
+    static final String REPORT = "report";
+
+    private final LongAdder filesParsed = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder rowsParsed = new LongAdder();
+    private final Map<String, LongAdder> rejectedByReason = new ConcurrentHashMap<>();
+    private final LongAdder[] categoryHits = new LongAdder[Category.values().length];
+    private final Map<String, Timer> timers = new LinkedHashMap<>();
+
+    public PipelineMetrics() {
+        for (int i = 0; i < categoryHits.length; i++) {
+            categoryHits[i] = new LongAdder();
+        }
+        timers.put(PARSE, new Timer());
+        timers.put(CATEGORIZE, new Timer());
+        timers.put(REPORT, new Timer());
+    }
+
+    /** Registers this instance with the platform MBean server, replacing an earlier registration. */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            System.err.println("Cannot register metrics MBean: " + e.getMessage());
+        }
+    }
+
+    public void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            // not registered
+        }
+    }
+
+    void recordFileParsed(long bytes, long rows, long nanos) {
+        filesParsed.increment();
+        bytesRead.add(bytes);
+        rowsParsed.add(rows);
+        timers.get(PARSE).record(nanos);
+    }
+
+    void recordRejected(Exception cause) {
+        rejectedByReason.computeIfAbsent(rejectReason(cause), reason -> new LongAdder()).increment();
+    }
+
+    void recordCategorized(List<Transaction> transactions, long nanos) {
+        long[] counts = new long[categoryHits.length];
+        for (Transaction transaction : transactions) {
+            Category category = transaction.getCategory();
+            if (category != null) counts[category.ordinal()]++;
+        }
+        addCategoryCounts(counts);
+        timers.get(CATEGORIZE).record(nanos);
+    }
+
+    void recordCategorized(TransactionStore store, long nanos) {
+        long[] counts = new long[categoryHits.length];
+        for (int row = 0; row < store.size(); row++) {
+            Category category = store.getCategory(row);
+            if (category != null) counts[category.ordinal()]++;
+        }
+        addCategoryCounts(counts);
+        timers.get(CATEGORIZE).record(nanos);
+    }
+
+    /** For categorization that happens one row at a time, e.g. while a stream is consumed. */
+    void recordCategory(Category category) {
+        categoryHits[category.ordinal()].increment();
+    }
+
+    void recordReportWritten(long nanos) {
+        timers.get(REPORT).record(nanos);
+    }
+
+    @Override
+    public long getFilesParsed() {
+        return filesParsed.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getRowsParsed() {
+        return rowsParsed.sum();
+    }
+
+    @Override
+    public long getRowsRejected() {
+        long total = 0;
+        for (LongAdder count : rejectedByReason.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public Map<String, Long> getRowsRejectedByReason() {
+        Map<String, Long> reasons = new TreeMap<>();
+        rejectedByReason.forEach((reason, count) -> reasons.put(reason, count.sum()));
+        return reasons;
+    }
+
+    @Override
+    public double getParseRowsPerSecond() {
+        long nanos = timers.get(PARSE).totalNanos.sum();
+        return nanos == 0 ? 0 : getRowsParsed() * 1e9 / nanos;
+    }
+
+    @Override
+    public long getRowsCategorized() {
+        long total = 0;
+        for (LongAdder count : categoryHits) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public Map<String, Long> getCategoryHits() {
+        Map<String, Long> hits = new LinkedHashMap<>();
+        for (Category category : Category.values()) {
+            hits.put(category.getDisplayName(), categoryHits[category.ordinal()].sum());
+        }
+        return hits;
+    }
+
+    @Override
+    public long getUncategorizedRows() {
+        return categoryHits[Category.INNE.ordinal()].sum();
+    }
+
+    @Override
+    public Map<String, TimerStats> getStageLatencies() {
+        Map<String, TimerStats> latencies = new LinkedHashMap<>();
+        timers.forEach((stage, timer) -> latencies.put(stage, timer.snapshot()));
+        return latencies;
+    }
+
+    @Override
+    public void reset() {
+        filesParsed.reset();
+        bytesRead.reset();
+        rowsParsed.reset();
+        rejectedByReason.clear();
+        for (LongAdder count : categoryHits) {
+            count.reset();
+        }
+        timers.values().forEach(Timer::reset);
+    }
+
+    /** All values as one JSON object, for the end of a run. */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(1024).append("{\n");
+        json.append("  \"filesParsed\": ").append(getFilesParsed()).append(",\n");
+        json.append("  \"bytesRead\": ").append(getBytesRead()).append(",\n");
+        json.append("  \"rowsParsed\": ").append(getRowsParsed()).append(",\n");
+        json.append("  \"parseRowsPerSecond\": ").append(Math.round(getParseRowsPerSecond())).append(",\n");
+        json.append("  \"rowsRejected\": ").append(getRowsRejected()).append(",\n");
+        json.append("  \"rowsRejectedByReason\": ");
+        appendCounts(json, getRowsRejectedByReason());
+        json.append(",\n  \"rowsCategorized\": ").append(getRowsCategorized()).append(",\n");
+        json.append("  \"uncategorizedRows\": ").append(getUncategorizedRows()).append(",\n");
+        json.append("  \"categoryHits\": ");
+        appendCounts(json, getCategoryHits());
+        json.append(",\n  \"stages\": {");
+        String separator = "\n";
+        for (Map.Entry<String, TimerStats> stage : getStageLatencies().entrySet()) {
+            TimerStats stats = stage.getValue();
+            json.append(separator).append("    \"").append(stage.getKey()).append("\": {")
+                .append("\"count\": ").append(stats.getCount())
+                .append(", \"totalMillis\": ").append(stats.getTotalMillis())
+                .append(", \"p50Micros\": ").append(stats.getP50Micros())
+                .append(", \"p90Micros\": ").append(stats.getP90Micros())
+                .append(", \"p99Micros\": ").append(stats.getP99Micros())
+                .append(", \"maxMicros\": ").append(stats.getMaxMicros()).append('}');
+            separator = ",\n";
+        }
+        return json.append("\n  }\n}\n").toString();
+    }
+
+    private void addCategoryCounts(long[] counts) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) categoryHits[i].add(counts[i]);
+        }
+    }
+
+    private static void appendCounts(StringBuilder json, Map<String, Long> counts) {
+        json.append('{');
+        String separator = "";
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            json.append(separator).append('"').append(escape(entry.getKey())).append("\": ").append(entry.getValue());
+            separator = ", ";
+        }
+        json.append('}');
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    static String rejectReason(Exception cause) {
+        if (cause instanceof DateTimeException) {
+            return "invalid date";
+        }
+        if (cause instanceof NumberFormatException) {
+            return "invalid amount";
+        }
+        if (cause instanceof ArithmeticException) {
+            return "value out of range";
+        }
+        return cause.getClass().getSimpleName();
+    }
+
+    /**
+     * Count, total and a histogram with one bucket per power of two nanoseconds, so recording
+     * is two adds and an array increment. Percentiles are reported as the upper bound of the
+     * bucket they fall in, i.e. within a factor of two.
+     */
+    static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+        void record(long nanos) {
+            long value = Math.max(0, nanos);
+            count.increment();
+            totalNanos.add(value);
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+            maxNanos.accumulateAndGet(value, Math::max);
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.set(0);
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+        }
+
+        TimerStats snapshot() {
+            long[] counts = new long[buckets.length()];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            long max = maxNanos.get();
+            return new TimerStats(count.sum(), totalNanos.sum() / 1_000_000,
+                percentile(counts, total, 0.50, max), percentile(counts, total, 0.90, max),
+                percentile(counts, total, 0.99, max), max / 1_000);
+        }
+
+        private static long percentile(long[] counts, long total, double quantile, long max) {
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(total * quantile);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    long upperBound = i == 0 ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                    return Math.min(upperBound, max) / 1_000;
+                }
+            }
+            return max / 1_000;
+        }
+    }
+
+    /** Latency summary of one stage, in the units the getter names say. */
+    public static class TimerStats {
+        private final long count;
+        private final long totalMillis;
+        private final long p50Micros;
+        private final long p90Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+
+        TimerStats(long count, long totalMillis, long p50Micros, long p90Micros, long p99Micros, long maxMicros) {
+            this.count = count;
+            this.totalMillis = totalMillis;
+            this.p50Micros = p50Micros;
+            this.p90Micros = p90Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        public long getCount() { return count; }
+        public long getTotalMillis() { return totalMillis; }
+        public long getP50Micros() { return p50Micros; }
+        public long getP90Micros() { return p90Micros; }
+        public long getP99Micros() { return p99Micros; }
+        public long getMaxMicros() { return maxMicros; }
+    }
+}
@@ -0,0 +1,34 @@
+package com.bank.service;
+
+import java.util.Map;
+
+/** Management interface of {@link PipelineMetrics}, registered as {@value PipelineMetrics#OBJECT_NAME}. */
+public interface PipelineMetricsMXBean {
+
+    long getFilesParsed();
+
+    long getBytesRead();
+
+    long getRowsParsed();
+
+    long getRowsRejected();
+
+    /** Rejected rows by reason, e.g. "invalid date" or "invalid amount". */
+    Map<String, Long> getRowsRejectedByReason();
+
+    /** Parsed rows per second of time spent parsing. */
+    double getParseRowsPerSecond();
+
+    long getRowsCategorized();
+
+    /** Categorized rows by category display name. */
+    Map<String, Long> getCategoryHits();
+
+    /** Rows no rule matched, i.e. categorized as INNE. */
+    long getUncategorizedRows();
+
+    /** Latency of each stage: one file parsed, one batch categorized, one report written. */
+    Map<String, PipelineMetrics.TimerStats> getStageLatencies();
+
+    void reset();
+}
@@ -0,0 +1,74 @@
+package com.bank.service;
+
+import java.nio.charset.Charset;
+
+/**
+ * PKO BP: a seven-line preamble starting with "Numer rachunku:", comma-separated columns,
+ * dd-MM-yyyy dates.
+ */
+class PkoBankFormat implements BankFormat {
+    static final String NAME = "PKO BP";
+
+    private static final int HEADER_LINES = 7;
+    private static final String[] COLUMNS = {
+        "Data księgowania", "Data operacji", "Rodzaj operacji", "Kwota", "Waluta",
+        "Dane kontrahenta", "Tytuł operacji", "Saldo po operacji"
+    };
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public StatementLayout detect(StatementSample sample) {
+        StatementSample.Header header = sample.findHeader(COLUMNS);
+        if (header == null) {
+            return null;
+        }
+        return new StatementLayout(NAME, sample.getCharset(), header.getSeparator(), header.getLineIndex() + 1,
+            StatementLayout.columns(header.position(0), header.position(1), header.position(2), header.position(3),
+                header.position(4), header.position(5), header.position(6), header.position(7)),
+            "dd-MM-yyyy", "PLN", accountNumber(sample), declaredRowCount(sample));
+    }
+
+    /** The layout every PKO BP export has; also used for files no format recognizes. */
+    static StatementLayout standard(Charset charset, StatementSample sample) {
+        return new StatementLayout(NAME, charset, ',', HEADER_LINES,
+            StatementLayout.columns(0, 1, 2, 3, 4, 5, 7, 8), "dd-MM-yyyy", "PLN",
+            sample != null ? accountNumber(sample) : "", sample != null ? declaredRowCount(sample) : -1);
+    }
+
+    /** Digits after the colon of the first line ("Numer rachunku: ..."), up to the first comma. */
+    private static String accountNumber(StatementSample sample) {
+        if (sample.getLines().isEmpty()) {
+            return "";
+        }
+        String line = sample.getLines().get(0);
+        if (line.indexOf(':') < 0) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder();
+        for (int i = line.indexOf(':') + 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if (c == ',') {
+                break;
+            }
+        }
+        return digits.toString();
+    }
+
+    /** The "Liczba operacji: ..." line of the preamble, or -1. */
+    private static long declaredRowCount(StatementSample sample) {
+        for (int i = 0; i < Math.min(HEADER_LINES, sample.getLines().size()); i++) {
+            String line = sample.getLines().get(i);
+            if (line.startsWith("Liczba operacji:")) {
+                String digits = line.substring("Liczba operacji:".length()).replaceAll("[^0-9]", "");
+                return digits.isEmpty() ? -1 : Long.parseLong(digits);
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,285 @@
+package com.bank.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Writes synthetic statements in the PKO BP export layout for load testing: the 7-line header,
+ * newest operations first, Polish operation types, card payments with the card suffix in the
+ * title, a monthly salary, bills and rent, and a running "Saldo po operacji" that is consistent
+ * with the amounts. Most titles contain a keyword of the default categorization rules.
+ * <p>
+ * With several accounts the first one sends a monthly transfer to each of the others, so the
+ * files also exercise {@link InternalTransferMatcher}. The same seed always produces the same
+ * files. Rows are streamed to disk, so the size is limited only by disk space.
+ */
+public class PkoStatementGenerator {
+    private static final LocalDate END_DATE = LocalDate.of(2026, 1, 31);
+    private static final int MAX_DAYS = 3650;
+    private static final int MIN_ROWS_PER_DAY = 4;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    private static final Merchant[] MERCHANTS = {
+        new Merchant("ZABKA Z", 30, 300, 4_500),
+        new Merchant("BIEDRONKA ", 16, 1_500, 25_000),
+        new Merchant("LIDL SKLEP ", 10, 2_000, 30_000),
+        new Merchant("STOKROTKA ", 5, 1_000, 12_000),
+        new Merchant("MCDONALDS ", 5, 1_500, 6_000),
+        new Merchant("PIZZA HUT ", 2, 4_000, 12_000),
+        new Merchant("PYSZNE.PL ", 3, 3_500, 11_000),
+        new Merchant("BOLT.EU/O/", 6, 1_200, 6_500),
+        new Merchant("UBER *TRIP ", 2, 1_500, 7_000),
+        new Merchant("ORLEN STACJA NR ", 5, 8_000, 35_000),
+        new Merchant("JAKDOJADE.PL ", 2, 340, 1_100),
+        new Merchant("APTEKA DOZ ", 3, 800, 15_000),
+        new Merchant("KINO CINEMA CITY ", 1, 2_500, 9_000),
+        new Merchant("ALLEGRO ", 4, 1_000, 60_000),
+        new Merchant("DECATHLON ", 1, 3_000, 40_000),
+        new Merchant("ROSSMANN ", 3, 700, 9_000),
+        new Merchant("KAUFLAND ", 3, 2_500, 35_000)
+    };
+    private static final int TOTAL_WEIGHT;
+    private static final double MEAN_CARD_PAYMENT;
+    static {
+        int total = 0;
+        double weightedSum = 0;
+        for (Merchant merchant : MERCHANTS) {
+            total += merchant.weight;
+            weightedSum += merchant.weight * (merchant.minMinor + merchant.maxMinor) / 2.0;
+        }
+        TOTAL_WEIGHT = total;
+        MEAN_CARD_PAYMENT = weightedSum / total;
+    }
+
+    private static final String[] CITIES = {"KRAKOW", "WARSZAWA", "KATOWICE", "WROCLAW", "GDANSK", "POZNAN"};
+    private static final String[] MONTHS = {
+        "STYCZEN", "LUTY", "MARZEC", "KWIECIEN", "MAJ", "CZERWIEC",
+        "LIPIEC", "SIERPIEN", "WRZESIEN", "PAZDZIERNIK", "LISTOPAD", "GRUDZIEN"
+    };
+
+    private final long seed;
+
+    public PkoStatementGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Writes one statement per account into the directory, splitting the rows evenly,
+     * and returns the files in account order.
+     */
+    public List<Path> generate(Path directory, long rows, int accounts) throws IOException {
+        if (accounts < 1) {
+            throw new IllegalArgumentException("At least one account is needed: " + accounts);
+        }
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>(accounts);
+        for (int account = 0; account < accounts; account++) {
+            long accountRows = rows / accounts + (account < rows % accounts ? 1 : 0);
+            Path file = directory.resolve("synthetic_" + seed + "_" + (account + 1) + ".csv");
+            write(file, account, accounts, accountRows);
+            files.add(file);
+        }
+        return files;
+    }
+
+    /** The 26-digit account number used for the given account in the headers. */
+    public String accountNumber(int account) {
+        return digits(new Random(seed * 1_000_003 + account), 26);
+    }
+
+    private void write(Path file, int account, int accounts, long rows) throws IOException {
+        // Header totals are only known after all rows, so the rows are generated twice from the same seed.
+        Totals totals = new Totals();
+        generateRows(account, accounts, rows, null, totals);
+
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE)) {
+            LocalDate first = END_DATE.minusDays(days(rows) - 1);
+            StringBuilder header = new StringBuilder(512)
+                .append("Numer rachunku: ").append(accountNumber(account)).append(",\n")
+                .append("Właściciel: JAN KOWALSKI,\n")
+                .append("Historia operacji za okres od ").append(headerDate(first))
+                .append(" do ").append(headerDate(END_DATE)).append(",\n")
+                .append("Liczba operacji: ").append(rows).append(",\n")
+                .append("Suma uznań: ");
+            appendMinor(header, totals.credits).append(" PLN,\n").append("Suma obciążeń: ");
+            appendMinor(header, totals.debits).append(" PLN,\n")
+                .append("Data księgowania,Data operacji,Rodzaj operacji,Kwota,Waluta,Dane kontrahenta,")
+                .append("Numer rachunku kontrahenta,Tytuł operacji,Saldo po operacji,\n");
+            writer.append(header);
+            generateRows(account, accounts, rows, writer, new Totals());
+        }
+    }
+
+    /**
+     * Generates the rows newest first. The balance is walked backwards from the closing
+     * balance, so every "Saldo po operacji" equals the previous row's plus this row's amount.
+     */
+    private void generateRows(int account, int accounts, long rows, BufferedWriter writer, Totals totals) throws IOException {
+        Random random = new Random(seed * 31 + account);
+        String card = String.format("%04d", random.nextInt(10_000));
+        String employerAccount = digits(random, 26);
+        String landlordAccount = digits(random, 26);
+        long balance = 200_000 + random.nextInt(1_000_000);
+        long days = days(rows);
+        // The salary roughly covers a month of card payments and rent, so the balance stays plausible.
+        long salary = Math.max(650_000, Math.round(rows * 30.44 / days * MEAN_CARD_PAYMENT) + 200_000);
+        StringBuilder line = new StringBuilder(256);
+        LocalDate previousDay = null;
+        int event = 0;
+
+        for (long i = 0; i < rows; i++) {
+            LocalDate day = END_DATE.minusDays(i * days / rows);
+            if (!day.equals(previousDay)) {
+                previousDay = day;
+                event = 0;
+            }
+            line.setLength(0);
+
+            // The first rows of some days of the month are the recurring operations.
+            long amount;
+            int dayOfMonth = day.getDayOfMonth();
+            if (dayOfMonth == 10 && event == 0) {
+                amount = salary + monthlyVariation(day, account, 150_000);
+                row(line, day, day, "Przelewy przychodzące", amount, "\"PRACODAWCA SP. Z O.O.\"", employerAccount,
+                    "WYNAGRODZENIE ZA " + MONTHS[day.minusMonths(1).getMonthValue() - 1]);
+            } else if (dayOfMonth == 12 && event < accounts - 1 && accounts > 1 && (account == 0 || account == event + 1)) {
+                // Account 0 sends to account k, which receives on the same day.
+                amount = 50_000 + monthlyVariation(day, event + 1, 200_000);
+                if (account == 0) {
+                    amount = -amount;
+                    row(line, day, day, "Przelewy wychodzące", amount, "\"JAN KOWALSKI\"", accountNumber(event + 1),
+                        "PRZELEW WLASNY " + MONTHS[day.getMonthValue() - 1]);
+                } else {
+                    row(line, day, day, "Przelewy przychodzące", amount, "\"JAN KOWALSKI\"", accountNumber(0),
+                        "PRZELEW WLASNY " + MONTHS[day.getMonthValue() - 1]);
+                }
+            } else if (dayOfMonth == 15 && event == 0) {
+                amount = -(180_000 + monthlyVariation(day, account, 20_000));
+                row(line, day, day, "Przelewy wychodzące", amount, "\"SPOLDZIELNIA MIESZKANIOWA\"", landlordAccount,
+                    "CZYNSZ " + MONTHS[day.getMonthValue() - 1] + " " + day.getYear());
+            } else if (dayOfMonth == 20 && event == 0) {
+                amount = -(9_000 + random.nextInt(25_000));
+                String[] payee = random.nextBoolean()
+                    ? new String[] {"\"PGE OBROT S.A.\"", "FAKTURA PGE/" + day.getYear() + "/" + day.getMonthValue()}
+                    : new String[] {"\"ORANGE POLSKA S.A.\"", "ORANGE FV " + day.getYear() + day.getMonthValue()};
+                row(line, day, day, "Przelewy wychodzące", amount, payee[0], digits(random, 26), payee[1]);
+            } else {
+                Merchant merchant = pickMerchant(random);
+                amount = -(merchant.minMinor + random.nextInt(merchant.maxMinor - merchant.minMinor));
+                // Card payments are booked a day or two after the operation.
+                LocalDate booked = day.plusDays(random.nextInt(3));
+                if (booked.isAfter(END_DATE)) booked = END_DATE;
+                StringBuilder title = new StringBuilder(64)
+                    .append(merchant.name).append(1_000 + random.nextInt(9_000))
+                    .append(' ').append(CITIES[random.nextInt(CITIES.length)])
+                    .append(" Nr karty ...").append(card).append(' ');
+                appendMinor(title, -amount);
+                int dot = title.lastIndexOf(".");
+                title.setCharAt(dot, ',');
+                title.append("PLN");
+                row(line, booked, day, "Płatności kartą", amount, "", "", title.toString());
+            }
+            event++;
+
+            if (amount > 0) {
+                totals.credits += amount;
+            } else {
+                totals.debits += amount;
+            }
+            appendMinor(line, balance).append(",,\n");
+            balance -= amount;
+            if (writer != null) {
+                writer.append(line);
+            }
+        }
+    }
+
+    private static void row(StringBuilder line, LocalDate booked, LocalDate operated, String operationType,
+                            long amount, String counterparty, String counterpartyAccount, String title) {
+        appendDate(line, booked).append(',');
+        appendDate(line, operated).append(',').append(operationType).append(',');
+        appendMinor(line, amount).append(",PLN,").append(counterparty).append(',')
+            .append(counterpartyAccount).append(",\"").append(title).append("\",");
+    }
+
+    private static long days(long rows) {
+        return Math.max(1, Math.min(MAX_DAYS, rows / MIN_ROWS_PER_DAY));
+    }
+
+    private long monthlyVariation(LocalDate day, int account, int range) {
+        long mixed = (seed * 1_000_003 + account) * 31 + day.getYear() * 12L + day.getMonthValue();
+        return Math.floorMod(mixed * 0x9E3779B97F4A7C15L >>> 17, (long) range / 100) * 100;
+    }
+
+    private static Merchant pickMerchant(Random random) {
+        int pick = random.nextInt(TOTAL_WEIGHT);
+        for (Merchant merchant : MERCHANTS) {
+            pick -= merchant.weight;
+            if (pick < 0) {
+                return merchant;
+            }
+        }
+        return MERCHANTS[0];
+    }
+
+    private static String digits(Random random, int count) {
+        char[] digits = new char[count];
+        for (int i = 0; i < count; i++) {
+            digits[i] = (char) ('0' + random.nextInt(10));
+        }
+        return new String(digits);
+    }
+
+    private static String headerDate(LocalDate date) {
+        return String.format("%02d.%02d.%04d", date.getDayOfMonth(), date.getMonthValue(), date.getYear());
+    }
+
+    private static StringBuilder appendDate(StringBuilder out, LocalDate date) {
+        int day = date.getDayOfMonth();
+        int month = date.getMonthValue();
+        if (day < 10) out.append('0');
+        out.append(day).append('-');
+        if (month < 10) out.append('0');
+        return out.append(month).append('-').append(date.getYear());
+    }
+
+    private static StringBuilder appendMinor(StringBuilder out, long minor) {
+        if (minor < 0) {
+            out.append('-');
+            minor = -minor;
+        }
+        long fraction = minor % 100;
+        out.append(minor / 100).append('.');
+        if (fraction < 10) out.append('0');
+        return out.append(fraction);
+    }
+
+    private static final class Merchant {
+        final String name;
+        final int weight;
+        final int minMinor;
+        final int maxMinor;
+
+        /** The title starts with the name followed by a store number. */
+        Merchant(String name, int weight, int minMinor, int maxMinor) {
+            this.name = name;
+            this.weight = weight;
+            this.minMinor = minMinor;
+            this.maxMinor = maxMinor;
+        }
+    }
+
+    private static final class Totals {
+        long credits;
+        long debits;
+    }
+}
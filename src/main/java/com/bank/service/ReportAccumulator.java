@@ -0,0 +1,433 @@
+package com.bank.service;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+
+/**
+ * Collects everything the report and the console summary need in a single pass over the
+ * transactions: date range, expenses per category, income and expenses per month, totals
+ * and the largest expenses. Partial results for separate chunks of transactions can be
+ * combined with {@link #merge(ReportAccumulator)}. Not thread-safe.
+ * <p>
+ * Amounts are the transactions' reporting amounts, so once a {@link CurrencyConverter} has
+ * run, every total is in its reporting currency; the booked amounts are kept per currency.
+ */
+public class ReportAccumulator implements Consumer<Transaction> {
+    public static final int DEFAULT_TOP_EXPENSES = 10;
+
+    private static final Category[] CATEGORIES = Category.values();
+
+    private final int topExpenseLimit;
+    private final double[] categoryExpenses = new double[CATEGORIES.length];
+    private final long[] categoryExpenseCounts = new long[CATEGORIES.length];
+    private final double[] categoryTurnover = new double[CATEGORIES.length];
+    private final long[] turnoverCounts = new long[CATEGORIES.length];
+    private final Map<Integer, MonthTotals> months = new HashMap<>();
+    private final CategoryMonthCube cube = new CategoryMonthCube();
+    private final List<CurrencyTotals> currencies = new ArrayList<>(2);
+    // Max-heap on (amount, sequence): the root is the first candidate to drop.
+    private final PriorityQueue<RankedExpense> topExpenses;
+
+    private long count;
+    private LocalDate minDate;
+    private LocalDate maxDate;
+    private double totalIncome;
+    private double totalExpenses;
+    private double grossIncome;
+    private double grossExpenses;
+    private int lastMonthKey = Integer.MIN_VALUE;
+    private MonthTotals lastMonth;
+    private CurrencyTotals lastCurrency;
+    private String reportingCurrency;
+    private boolean mixedCurrencies;
+
+    public ReportAccumulator() {
+        this(DEFAULT_TOP_EXPENSES);
+    }
+
+    public ReportAccumulator(int topExpenseLimit) {
+        if (topExpenseLimit < 0) {
+            throw new IllegalArgumentException("Top expense limit must not be negative: " + topExpenseLimit);
+        }
+        this.topExpenseLimit = topExpenseLimit;
+        this.topExpenses = new PriorityQueue<>(Math.max(1, topExpenseLimit + 1), (a, b) -> b.compareTo(a));
+    }
+
+    public static ReportAccumulator of(List<Transaction> transactions) {
+        ReportAccumulator accumulator = new ReportAccumulator();
+        transactions.forEach(accumulator);
+        return accumulator;
+    }
+
+    /** Collects a stream into an accumulator; parallel streams merge their partial results. */
+    public static Collector<Transaction, ReportAccumulator, ReportAccumulator> collector() {
+        return Collector.of(ReportAccumulator::new, ReportAccumulator::add, ReportAccumulator::merge);
+    }
+
+    @Override
+    public void accept(Transaction transaction) {
+        add(transaction);
+    }
+
+    public void add(Transaction transaction) {
+        long sequence = count++;
+        double amount = transaction.getReportingAmount();
+        LocalDate date = transaction.getOperationDate();
+        addReportingCurrency(transaction.getReportingCurrency());
+
+        if (minDate == null || date.isBefore(minDate)) minDate = date;
+        if (maxDate == null || date.isAfter(maxDate)) maxDate = date;
+
+        MonthTotals month = monthOf(date);
+        if (amount < 0) {
+            month.expenses += Math.abs(amount);
+        } else {
+            month.income += amount;
+        }
+
+        if (amount > 0) {
+            grossIncome += amount;
+        } else if (amount < 0) {
+            grossExpenses += Math.abs(amount);
+        }
+        addCategorized(transaction, transaction.getCategory(), amount, 1);
+
+        if (amount < 0 && topExpenseLimit > 0) {
+            offerTopExpense(new RankedExpense(transaction, sequence));
+        }
+    }
+
+    /**
+     * Moves a transaction that was already added from the {@code previous} category to its
+     * current one, e.g. once it is paired as an internal transfer, at the cost of adding it.
+     */
+    public void recategorize(Transaction transaction, Category previous) {
+        if (previous == transaction.getCategory()) return;
+        double amount = transaction.getReportingAmount();
+        addCategorized(transaction, previous, amount, -1);
+        addCategorized(transaction, transaction.getCategory(), amount, 1);
+    }
+
+    /**
+     * The category-dependent totals; {@code sign} -1 takes the transaction back out. An
+     * uncategorized transaction counts only in the totals, as in {@link DateRangeIndex}.
+     */
+    private void addCategorized(Transaction transaction, Category category, double amount, int sign) {
+        if (category != null) {
+            int ordinal = category.ordinal();
+            categoryTurnover[ordinal] = adjust(categoryTurnover[ordinal], Math.abs(amount), sign);
+            turnoverCounts[ordinal] += sign;
+        }
+
+        if (category != Category.INTERNAL_TRANSFER) {
+            if (amount > 0) {
+                totalIncome = adjust(totalIncome, amount, sign);
+            } else if (amount < 0) {
+                if (category != null) {
+                    int ordinal = category.ordinal();
+                    categoryExpenses[ordinal] = adjust(categoryExpenses[ordinal], -amount, sign);
+                    categoryExpenseCounts[ordinal] += sign;
+                }
+                totalExpenses = adjust(totalExpenses, -amount, sign);
+            }
+            currencyOf(transaction.getCurrency()).add(transaction, sign);
+            cube.add(transaction, category, sign);
+        }
+    }
+
+    /**
+     * The sum with the amount added, or taken back out for a negative sign. Amounts are whole
+     * cents, so what remains below a millionth after taking one out is rounding error and
+     * becomes zero rather than a "-0.00" in the report.
+     */
+    static double adjust(double sum, double amount, int sign) {
+        if (sign > 0) return sum + amount;
+        double result = sum - amount;
+        return Math.abs(result) < 1e-6 ? 0 : result;
+    }
+
+    /**
+     * Adds the other accumulator's results to this one, as if its transactions had been added
+     * after the ones already here. The other accumulator is left unchanged. Merging is
+     * associative, so partials of consecutive chunks can be combined in any grouping.
+     */
+    public ReportAccumulator merge(ReportAccumulator other) {
+        if (other == this) {
+            throw new IllegalArgumentException("Cannot merge an accumulator into itself");
+        }
+        long offset = count;
+        count += other.count;
+
+        if (other.minDate != null && (minDate == null || other.minDate.isBefore(minDate))) minDate = other.minDate;
+        if (other.maxDate != null && (maxDate == null || other.maxDate.isAfter(maxDate))) maxDate = other.maxDate;
+
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            categoryExpenses[i] += other.categoryExpenses[i];
+            categoryExpenseCounts[i] += other.categoryExpenseCounts[i];
+            categoryTurnover[i] += other.categoryTurnover[i];
+            turnoverCounts[i] += other.turnoverCounts[i];
+        }
+
+        for (Map.Entry<Integer, MonthTotals> entry : other.months.entrySet()) {
+            MonthTotals month = months.computeIfAbsent(entry.getKey(), k -> new MonthTotals());
+            month.income += entry.getValue().income;
+            month.expenses += entry.getValue().expenses;
+        }
+
+        cube.merge(other.cube);
+
+        addReportingCurrency(other.reportingCurrency);
+        mixedCurrencies |= other.mixedCurrencies;
+        for (CurrencyTotals totals : other.currencies) {
+            currencyOf(totals.currency).merge(totals);
+        }
+
+        totalIncome += other.totalIncome;
+        totalExpenses += other.totalExpenses;
+        grossIncome += other.grossIncome;
+        grossExpenses += other.grossExpenses;
+
+        if (topExpenseLimit > 0) {
+            for (RankedExpense expense : other.topExpenses) {
+                offerTopExpense(new RankedExpense(expense.transaction, expense.sequence + offset));
+            }
+        }
+        return this;
+    }
+
+    public long getTransactionCount() {
+        return count;
+    }
+
+    /** Earliest operation date, or {@code null} when nothing was added. */
+    public LocalDate getMinDate() {
+        return minDate;
+    }
+
+    public LocalDate getMaxDate() {
+        return maxDate;
+    }
+
+    /** Income from all non-internal transactions with a positive amount. */
+    public double getTotalIncome() {
+        return totalIncome;
+    }
+
+    /** Expenses of all non-internal transactions, as a positive number. */
+    public double getTotalExpenses() {
+        return totalExpenses;
+    }
+
+    /** Income from every transaction with a positive amount, internal transfers included. */
+    public double getGrossIncome() {
+        return grossIncome;
+    }
+
+    /** Expenses of every transaction, internal transfers included, as a positive number. */
+    public double getGrossExpenses() {
+        return grossExpenses;
+    }
+
+    /** Absolute amounts per category, income and expenses alike, for the categories that occur. */
+    public Map<Category, Double> getTurnoverByCategory() {
+        return toMap(categoryTurnover, turnoverCounts);
+    }
+
+    /** Non-internal expenses per category, for the categories that have any. */
+    public Map<Category, Double> getExpensesByCategory() {
+        return toMap(categoryExpenses, categoryExpenseCounts);
+    }
+
+    /**
+     * Income and expenses per month of the operation date. Unlike the totals above this
+     * includes internal transfers, and a zero amount counts as income.
+     */
+    public SortedMap<YearMonth, MonthTotals> getMonthlyTotals() {
+        SortedMap<YearMonth, MonthTotals> sorted = new TreeMap<>();
+        for (Map.Entry<Integer, MonthTotals> entry : months.entrySet()) {
+            int key = entry.getKey();
+            sorted.put(YearMonth.of(Math.floorDiv(key, 12), Math.floorMod(key, 12) + 1), entry.getValue());
+        }
+        return sorted;
+    }
+
+    /** Non-internal income and expenses per category and month, for charts and drill-downs. */
+    public CategoryMonthCube getCube() {
+        return cube;
+    }
+
+    /** The currency of the totals: the reporting currency of the transactions, PLN if there are none. */
+    public String getReportingCurrency() {
+        return reportingCurrency != null ? reportingCurrency : FxRateTable.BASE_CURRENCY;
+    }
+
+    /** Whether the totals add up amounts in different currencies, i.e. some were not converted. */
+    public boolean hasMixedCurrencies() {
+        return mixedCurrencies;
+    }
+
+    /** Whether everything was booked in the reporting currency, so the totals need no breakdown. */
+    public boolean isSingleCurrency() {
+        return !mixedCurrencies && currencies.size() <= 1
+            && (currencies.isEmpty() || currencies.get(0).currency.equals(getReportingCurrency()));
+    }
+
+    /** Non-internal income and expenses per booked currency, ordered by currency code. */
+    public List<CurrencyTotals> getCurrencyTotals() {
+        List<CurrencyTotals> sorted = new ArrayList<>(currencies);
+        sorted.sort((a, b) -> a.currency.compareTo(b.currency));
+        return Collections.unmodifiableList(sorted);
+    }
+
+    /** The largest expenses, biggest first; equal amounts keep the order they were added in. */
+    public List<Transaction> getTopExpenses() {
+        List<RankedExpense> ranked = new ArrayList<>(topExpenses);
+        Collections.sort(ranked);
+        List<Transaction> result = new ArrayList<>(ranked.size());
+        for (RankedExpense expense : ranked) {
+            result.add(expense.transaction);
+        }
+        return result;
+    }
+
+    public int getTopExpenseLimit() {
+        return topExpenseLimit;
+    }
+
+    private static Map<Category, Double> toMap(double[] values, long[] counts) {
+        Map<Category, Double> totals = new EnumMap<>(Category.class);
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            if (counts[i] > 0) {
+                totals.put(CATEGORIES[i], values[i]);
+            }
+        }
+        return totals;
+    }
+
+    private MonthTotals monthOf(LocalDate date) {
+        int key = date.getYear() * 12 + date.getMonthValue() - 1;
+        if (key != lastMonthKey) {
+            lastMonth = months.computeIfAbsent(key, k -> new MonthTotals());
+            lastMonthKey = key;
+        }
+        return lastMonth;
+    }
+
+    private CurrencyTotals currencyOf(String currency) {
+        String code = currency != null ? currency : "";
+        if (lastCurrency != null && lastCurrency.currency.equals(code)) return lastCurrency;
+        for (CurrencyTotals totals : currencies) {
+            if (totals.currency.equals(code)) {
+                lastCurrency = totals;
+                return totals;
+            }
+        }
+        lastCurrency = new CurrencyTotals(code);
+        currencies.add(lastCurrency);
+        return lastCurrency;
+    }
+
+    private void addReportingCurrency(String currency) {
+        if (currency == null) return;
+        if (reportingCurrency == null) {
+            reportingCurrency = currency;
+        } else if (!mixedCurrencies && !reportingCurrency.equals(currency)) {
+            mixedCurrencies = true;
+        }
+    }
+
+    private void offerTopExpense(RankedExpense expense) {
+        if (topExpenses.size() < topExpenseLimit) {
+            topExpenses.add(expense);
+        } else if (expense.compareTo(topExpenses.peek()) < 0) {
+            topExpenses.poll();
+            topExpenses.add(expense);
+        }
+    }
+
+    public static class MonthTotals {
+        private double income;
+        private double expenses;
+
+        public double getIncome() { return income; }
+        public double getExpenses() { return expenses; }
+        public double getBalance() { return income - expenses; }
+    }
+
+    /**
+     * Non-internal income and expenses of the transactions booked in one currency, as booked
+     * and as added to the totals.
+     */
+    public static class CurrencyTotals {
+        private final String currency;
+        private long count;
+        private double income;
+        private double expenses;
+        private double reportingIncome;
+        private double reportingExpenses;
+
+        CurrencyTotals(String currency) {
+            this.currency = currency;
+        }
+
+        public String getCurrency() { return currency; }
+        public long getCount() { return count; }
+        public double getIncome() { return income; }
+        public double getExpenses() { return expenses; }
+        public double getReportingIncome() { return reportingIncome; }
+        public double getReportingExpenses() { return reportingExpenses; }
+
+        private void add(Transaction transaction, int sign) {
+            count += sign;
+            double amount = transaction.getAmount();
+            double reporting = transaction.getReportingAmount();
+            if (amount > 0) {
+                income = adjust(income, amount, sign);
+                reportingIncome = adjust(reportingIncome, reporting, sign);
+            } else if (amount < 0) {
+                expenses = adjust(expenses, -amount, sign);
+                reportingExpenses = adjust(reportingExpenses, -reporting, sign);
+            }
+        }
+
+        private void merge(CurrencyTotals other) {
+            count += other.count;
+            income += other.income;
+            expenses += other.expenses;
+            reportingIncome += other.reportingIncome;
+            reportingExpenses += other.reportingExpenses;
+        }
+    }
+
+    private static final class RankedExpense implements Comparable<RankedExpense> {
+        final Transaction transaction;
+        final double amount;
+        final long sequence;
+
+        RankedExpense(Transaction transaction, long sequence) {
+            this.transaction = transaction;
+            this.amount = transaction.getReportingAmount();
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(RankedExpense other) {
+            int byAmount = Double.compare(amount, other.amount);
+            return byAmount != 0 ? byAmount : Long.compare(sequence, other.sequence);
+        }
+    }
+}
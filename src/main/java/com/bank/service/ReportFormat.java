@@ -0,0 +1,40 @@
+package com.bank.service;
+
+import java.util.Locale;
+
+/** The report output formats and their writers. */
+public enum ReportFormat {
+    TXT("txt", new TxtReportWriter()),
+    CSV("csv", new CsvReportWriter()),
+    JSON("json", new JsonReportWriter());
+
+    private final String extension;
+    private final ReportWriter writer;
+
+    ReportFormat(String extension, ReportWriter writer) {
+        this.extension = extension;
+        this.writer = writer;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public ReportWriter getWriter() {
+        return writer;
+    }
+
+    /** Format named on the command line, case-insensitive. */
+    public static ReportFormat parse(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    /** Format matching the file's extension; TXT when there is none or it is not known. */
+    public static ReportFormat forFile(String path) {
+        String lower = path.toLowerCase(Locale.ROOT);
+        for (ReportFormat format : values()) {
+            if (lower.endsWith("." + format.extension)) return format;
+        }
+        return TXT;
+    }
+}
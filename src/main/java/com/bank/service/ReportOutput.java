@@ -0,0 +1,225 @@
+package com.bank.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * UTF-8 text output into a channel through one large buffer. Numbers and dates are written
+ * digit by digit into a reusable scratch array, so a line costs no {@code String.format} and
+ * no garbage; amounts come out exactly as {@code String.format("%.2f")} prints them.
+ * Not thread-safe.
+ */
+public class ReportOutput implements Closeable {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    // Below this the cents can be told from value * 100 unless it lies close to a tie.
+    private static final double FAST_AMOUNT_LIMIT = 1e10;
+
+    private final WritableByteChannel channel;
+    private final byte[] buffer;
+    private final byte[] digits = new byte[24];
+    private int position;
+    private char highSurrogate;
+
+    public ReportOutput(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ReportOutput(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = new byte[Math.max(64, bufferSize)];
+    }
+
+    /** Creates or truncates the file. */
+    public static ReportOutput open(Path path) throws IOException {
+        return new ReportOutput(FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    public ReportOutput text(CharSequence text) throws IOException {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80 && position < buffer.length) {
+                buffer[position++] = (byte) c;
+            } else {
+                character(c);
+            }
+        }
+        return this;
+    }
+
+    public ReportOutput character(char c) throws IOException {
+        if (buffer.length - position < 4) flush();
+        if (c < 0x80) {
+            buffer[position++] = (byte) c;
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c) && highSurrogate != 0) {
+            int codePoint = Character.toCodePoint(highSurrogate, c);
+            highSurrogate = 0;
+            buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            buffer[position++] = (byte) '?';
+        } else if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else {
+            buffer[position++] = (byte) (0xE0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return this;
+    }
+
+    /** The text followed by spaces up to the width, like {@code %-20s}. */
+    public ReportOutput padded(CharSequence text, int width) throws IOException {
+        text(text);
+        return spaces(width - text.length());
+    }
+
+    public ReportOutput spaces(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            character(' ');
+        }
+        return this;
+    }
+
+    public ReportOutput number(long value) throws IOException {
+        int start = toDigits(value, digits.length);
+        return bytes(start);
+    }
+
+    /** The amount with two decimals, like {@code %.2f}. */
+    public ReportOutput amount(double value) throws IOException {
+        return amount(value, 0);
+    }
+
+    /** The amount with two decimals, or {@code null} for NaN and infinities, which JSON has no literal for. */
+    public ReportOutput amountOrNull(double value) throws IOException {
+        return Double.isFinite(value) ? amount(value, 0) : text("null");
+    }
+
+    /** The amount with two decimals, right-aligned to the width, like {@code %8.2f}. */
+    public ReportOutput amount(double value, int width) throws IOException {
+        if (!Double.isFinite(value)) {
+            String special = String.valueOf(value);
+            spaces(width - special.length());
+            return text(special);
+        }
+        boolean negative = value < 0 || (value == 0 && 1 / value < 0);
+        double magnitude = Math.abs(value);
+        long cents;
+        if (magnitude < FAST_AMOUNT_LIMIT) {
+            double scaled = magnitude * 100;
+            cents = (long) scaled;
+            double fraction = scaled - cents;
+            if (Math.abs(fraction - 0.5) < 1e-3) {
+                cents = exactCents(magnitude);
+            } else if (fraction > 0.5) {
+                cents++;
+            }
+        } else {
+            String plain = (negative ? "-" : "") + rounded(magnitude).toPlainString();
+            spaces(width - plain.length());
+            return text(plain);
+        }
+
+        int start = digits.length;
+        digits[--start] = (byte) ('0' + cents % 10);
+        digits[--start] = (byte) ('0' + cents / 10 % 10);
+        digits[--start] = '.';
+        start = toDigits(cents / 100, start);
+        if (negative) digits[--start] = '-';
+        spaces(width - (digits.length - start));
+        return bytes(start);
+    }
+
+    /** ISO date, as {@link LocalDate#toString()} prints it. */
+    public ReportOutput date(LocalDate date) throws IOException {
+        int year = date.getYear();
+        if (year < 1000 || year > 9999) return text(date.toString());
+        number(year);
+        character('-');
+        twoDigits(date.getMonthValue());
+        character('-');
+        return twoDigits(date.getDayOfMonth());
+    }
+
+    public ReportOutput month(YearMonth month) throws IOException {
+        int year = month.getYear();
+        if (year < 1000 || year > 9999) return text(month.toString());
+        number(year);
+        character('-');
+        return twoDigits(month.getMonthValue());
+    }
+
+    public ReportOutput newLine() throws IOException {
+        return text(LINE_SEPARATOR);
+    }
+
+    public void flush() throws IOException {
+        ByteBuffer pending = ByteBuffer.wrap(buffer, 0, position);
+        while (pending.hasRemaining()) {
+            channel.write(pending);
+        }
+        position = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private ReportOutput twoDigits(int value) throws IOException {
+        character((char) ('0' + value / 10));
+        return character((char) ('0' + value % 10));
+    }
+
+    /** Puts the digits of the value into the scratch array ending before {@code end}; returns where they start. */
+    private int toDigits(long value, int end) {
+        int start = end;
+        boolean negative = value < 0;
+        do {
+            digits[--start] = (byte) ('0' + Math.abs(value % 10));
+            value /= 10;
+        } while (value != 0);
+        if (negative) digits[--start] = '-';
+        return start;
+    }
+
+    private ReportOutput bytes(int start) throws IOException {
+        if (buffer.length - position < digits.length) flush();
+        System.arraycopy(digits, start, buffer, position, digits.length - start);
+        position += digits.length - start;
+        return this;
+    }
+
+    private static long exactCents(double magnitude) {
+        return rounded(magnitude).unscaledValue().longValue();
+    }
+
+    /**
+     * Formatter rounds the shortest decimal form of the double half up, not its exact binary
+     * value, so 1.005 prints as 1.01; {@link BigDecimal#valueOf(double)} starts from the same form.
+     */
+    private static BigDecimal rounded(double magnitude) {
+        return BigDecimal.valueOf(magnitude).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,18 @@
+package com.bank.service;
+
+import com.bank.model.Transaction;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/** Renders the report and transaction listings in one output format. */
+public interface ReportWriter {
+
+    void writeReport(ReportAccumulator summary, ReportOutput out) throws IOException;
+
+    /**
+     * Writes every transaction as it comes from the iterator and keeps none of them, so a
+     * lazily parsed source is exported in constant memory. Returns the number written.
+     */
+    long writeTransactions(Iterator<Transaction> transactions, ReportOutput out) throws IOException;
+}
@@ -0,0 +1,98 @@
+package com.bank.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads a rules file into a {@link CategorizationService} whenever it changes on disk.
+ * The new rule set is compiled on the watcher thread and swapped in only when it is
+ * complete and valid; a broken file leaves the previous rules in place.
+ */
+public class RuleFileWatcher implements Closeable {
+    private static final long DEBOUNCE_MILLIS = 200;
+
+    private final Path rulesFile;
+    private final CategorizationService categorizer;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    public RuleFileWatcher(Path rulesFile, CategorizationService categorizer) throws IOException {
+        this.rulesFile = rulesFile.toAbsolutePath();
+        this.categorizer = categorizer;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.rulesFile.getParent().register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        this.thread = new Thread(this::watch, "rule-file-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    public RuleFileWatcher start() {
+        thread.start();
+        return this;
+    }
+
+    /** Loads the file now; returns false and keeps the current rules if it is invalid. */
+    public boolean reload() {
+        try {
+            long start = System.nanoTime();
+            RuleSet ruleSet = RuleSet.load(rulesFile);
+            categorizer.setRuleSet(ruleSet);
+            System.out.printf("Reloaded %d rules from %s in %d ms (version %s)%n",
+                ruleSet.getRules().size(), rulesFile, (System.nanoTime() - start) / 1_000_000, ruleSet.getVersion());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Keeping previous rules, cannot load " + rulesFile + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                boolean changed = containsRulesFile(key);
+                key.reset();
+
+                // Editors often write a file in several steps; wait until it settles.
+                while (changed) {
+                    WatchKey next = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                    if (next == null) break;
+                    containsRulesFile(next);
+                    next.reset();
+                }
+
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private boolean containsRulesFile(WatchKey key) {
+        boolean found = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (context instanceof Path && rulesFile.getFileName().equals(context)) {
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        watchService.close();
+    }
+}
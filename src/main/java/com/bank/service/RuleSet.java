@@ -0,0 +1,322 @@
+package com.bank.service;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+/**
+ * An immutable, compiled set of {@link CategorizationRule}s. Keywords of all rules are
+ * merged into one automaton per field, so categorizing a transaction costs one scan of
+ * each text no matter how many rules there are.
+ */
+public class RuleSet {
+    private static final String DEFAULT_RESOURCE = "/categorization-rules.properties";
+    private static final int MAX_OPERATION_TYPE_CONSTRAINTS = 64;
+
+    private static volatile RuleSet defaults;
+
+    private static final int TITLE = 1;
+    private static final int COUNTERPARTY = 1 << 1;
+    private static final int OPERATION_TYPE = 1 << 2;
+
+    private final List<CategorizationRule> rules;
+    private final String version;
+    private final Category[] categories;
+    private final int[] fieldMask;
+    private final int[] operationTypeConstraint;
+    private final KeywordMatcher keywordMatcher;
+    private final KeywordMatcher constraintMatcher;
+    private final int firstCounterpartyRule;
+    private final int firstOperationTypeRule;
+    private final boolean digitSensitive;
+
+    private RuleSet(List<CategorizationRule> rules) {
+        this.rules = rules;
+        this.version = computeVersion(rules);
+        this.categories = new Category[rules.size()];
+        this.fieldMask = new int[rules.size()];
+        this.operationTypeConstraint = new int[rules.size()];
+
+        KeywordMatcher.Builder keywords = KeywordMatcher.builder();
+        KeywordMatcher.Builder constraints = KeywordMatcher.builder();
+        Map<List<String>, Integer> constraintIds = new HashMap<>();
+        int firstCounterparty = rules.size();
+        int firstOperationType = rules.size();
+
+        // Rules are indexed in the order they are tried, so the lowest matching index wins.
+        for (int i = 0; i < rules.size(); i++) {
+            CategorizationRule rule = rules.get(i);
+            categories[i] = rule.getCategory();
+
+            if (rule.getFields().contains(CategorizationRule.Field.TITLE)) {
+                fieldMask[i] |= TITLE;
+            }
+            if (rule.getFields().contains(CategorizationRule.Field.COUNTERPARTY)) {
+                fieldMask[i] |= COUNTERPARTY;
+                firstCounterparty = Math.min(firstCounterparty, i);
+            }
+            if (rule.getFields().contains(CategorizationRule.Field.OPERATION_TYPE)) {
+                fieldMask[i] |= OPERATION_TYPE;
+                firstOperationType = Math.min(firstOperationType, i);
+            }
+            for (String keyword : rule.getKeywords()) {
+                keywords.add(keyword, i);
+            }
+
+            if (rule.getOperationTypes().isEmpty()) {
+                operationTypeConstraint[i] = -1;
+            } else {
+                Integer id = constraintIds.get(rule.getOperationTypes());
+                if (id == null) {
+                    id = constraintIds.size();
+                    if (id == MAX_OPERATION_TYPE_CONSTRAINTS) {
+                        throw new IllegalArgumentException(
+                            "At most " + MAX_OPERATION_TYPE_CONSTRAINTS + " distinct operationType constraints are supported");
+                    }
+                    constraintIds.put(rule.getOperationTypes(), id);
+                    for (String keyword : rule.getOperationTypes()) {
+                        constraints.add(keyword, id);
+                    }
+                }
+                operationTypeConstraint[i] = id;
+            }
+        }
+
+        this.keywordMatcher = keywords.build();
+        this.constraintMatcher = constraints.build();
+        this.firstCounterpartyRule = firstCounterparty;
+        this.firstOperationTypeRule = firstOperationType;
+        this.digitSensitive = containsDigitKeyword(rules);
+    }
+
+    private static boolean containsDigitKeyword(List<CategorizationRule> rules) {
+        for (CategorizationRule rule : rules) {
+            List<String> keywords = new ArrayList<>(rule.getKeywords());
+            keywords.addAll(rule.getOperationTypes());
+            for (String keyword : keywords) {
+                for (int i = 0; i < keyword.length(); i++) {
+                    char c = keyword.charAt(i);
+                    if (Character.isDigit(c) || c == CategorizationCache.DIGIT_PLACEHOLDER) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public static RuleSet compile(List<CategorizationRule> rules) {
+        List<CategorizationRule> ordered = new ArrayList<>(rules);
+        ordered.sort(Comparator.comparingInt(CategorizationRule::getPriority).reversed()
+            .thenComparing(CategorizationRule::getName));
+        return new RuleSet(List.copyOf(ordered));
+    }
+
+    public static RuleSet load(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    public static RuleSet load(Reader reader) throws IOException {
+        Properties properties = new Properties();
+        properties.load(reader);
+        return fromProperties(properties);
+    }
+
+    /** The rules bundled with the application. */
+    public static RuleSet defaults() {
+        RuleSet result = defaults;
+        if (result == null) {
+            try (InputStream in = RuleSet.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+                if (in == null) {
+                    throw new IllegalStateException("Missing resource " + DEFAULT_RESOURCE);
+                }
+                result = load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            defaults = result;
+        }
+        return result;
+    }
+
+    public static RuleSet fromProperties(Properties properties) {
+        Map<String, Map<String, String>> definitions = new TreeMap<>();
+
+        for (String key : properties.stringPropertyNames()) {
+            int attributeStart = key.lastIndexOf('.');
+            if (!key.startsWith("rule.") || attributeStart <= "rule.".length()) {
+                throw new IllegalArgumentException("Unexpected key: " + key);
+            }
+            String name = key.substring("rule.".length(), attributeStart);
+            definitions.computeIfAbsent(name, n -> new HashMap<>())
+                .put(key.substring(attributeStart + 1), properties.getProperty(key).trim());
+        }
+
+        List<CategorizationRule> rules = new ArrayList<>();
+        for (Map.Entry<String, Map<String, String>> definition : definitions.entrySet()) {
+            rules.add(parseRule(definition.getKey(), definition.getValue()));
+        }
+        return compile(rules);
+    }
+
+    private static CategorizationRule parseRule(String name, Map<String, String> attributes) {
+        String category = attributes.remove("category");
+        List<String> keywords = split(attributes.remove("keywords"));
+        String fields = attributes.remove("fields");
+        String sign = attributes.remove("sign");
+        String priority = attributes.remove("priority");
+        List<String> operationTypes = split(attributes.remove("operationType"));
+
+        if (!attributes.isEmpty()) {
+            throw new IllegalArgumentException("Rule '" + name + "': unknown attributes " + attributes.keySet());
+        }
+        if (category == null) {
+            throw new IllegalArgumentException("Rule '" + name + "': category is required");
+        }
+        if (keywords.isEmpty()) {
+            throw new IllegalArgumentException("Rule '" + name + "': keywords are required");
+        }
+
+        Set<CategorizationRule.Field> fieldSet = EnumSet.noneOf(CategorizationRule.Field.class);
+        if (fields == null) {
+            fieldSet.add(CategorizationRule.Field.TITLE);
+        } else {
+            for (String field : split(fields)) {
+                fieldSet.add(parseField(name, field));
+            }
+        }
+
+        try {
+            return new CategorizationRule(
+                name,
+                Category.valueOf(category.toUpperCase()),
+                fieldSet,
+                keywords,
+                sign == null ? CategorizationRule.Sign.ANY : CategorizationRule.Sign.valueOf(sign.toUpperCase()),
+                priority == null ? 0 : Integer.parseInt(priority),
+                operationTypes
+            );
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Rule '" + name + "': " + e.getMessage(), e);
+        }
+    }
+
+    private static CategorizationRule.Field parseField(String rule, String field) {
+        switch (field.toLowerCase()) {
+            case "title": return CategorizationRule.Field.TITLE;
+            case "counterparty": return CategorizationRule.Field.COUNTERPARTY;
+            case "operationtype": return CategorizationRule.Field.OPERATION_TYPE;
+            default: throw new IllegalArgumentException("Rule '" + rule + "': unknown field " + field);
+        }
+    }
+
+    private static List<String> split(String value) {
+        List<String> parts = new ArrayList<>();
+        if (value == null) return parts;
+        for (String part : value.split(",")) {
+            if (!part.isBlank()) parts.add(part.trim());
+        }
+        return parts;
+    }
+
+    public Category categorize(Transaction transaction) {
+        Evaluation evaluation = new Evaluation(transaction);
+        int best = rules.size();
+
+        evaluation.field = TITLE;
+        best = keywordMatcher.lowestMatch(transaction.getTitle(), best, evaluation);
+
+        // A field is only scanned if some rule that could still win looks at it.
+        if (firstCounterpartyRule < best) {
+            evaluation.field = COUNTERPARTY;
+            best = keywordMatcher.lowestMatch(transaction.getCounterparty(), best, evaluation);
+        }
+        if (firstOperationTypeRule < best) {
+            evaluation.field = OPERATION_TYPE;
+            best = keywordMatcher.lowestMatch(transaction.getOperationType(), best, evaluation);
+        }
+
+        return best < rules.size() ? categories[best] : Category.INNE;
+    }
+
+    private class Evaluation implements IntPredicate {
+        private final Transaction transaction;
+        private int field;
+        private boolean constraintsEvaluated;
+        private long satisfiedConstraints;
+
+        Evaluation(Transaction transaction) {
+            this.transaction = transaction;
+        }
+
+        @Override
+        public boolean test(int rule) {
+            if ((fieldMask[rule] & field) == 0) return false;
+
+            if (!rules.get(rule).acceptsAmount(transaction.getAmount())) return false;
+
+            int constraint = operationTypeConstraint[rule];
+            if (constraint < 0) return true;
+            if (!constraintsEvaluated) {
+                satisfiedConstraints = constraintMatcher.matchMask(transaction.getOperationType());
+                constraintsEvaluated = true;
+            }
+            return (satisfiedConstraints & (1L << constraint)) != 0;
+        }
+    }
+
+    /** Rules in the order they are tried. */
+    public List<CategorizationRule> getRules() { return rules; }
+
+    /**
+     * True if some keyword contains a digit, in which case digits in the matched texts
+     * can influence the category and must not be normalized away.
+     */
+    public boolean isDigitSensitive() { return digitSensitive; }
+
+    /** Content hash of the rules; changes whenever the categorization outcome may change. */
+    public String getVersion() { return version; }
+
+    private static String computeVersion(List<CategorizationRule> rules) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StringBuilder definition = new StringBuilder();
+            for (CategorizationRule rule : rules) {
+                definition.setLength(0);
+                definition.append(rule.getName()).append('|').append(rule.getCategory())
+                    .append('|').append(rule.getFields()).append('|').append(rule.getKeywords())
+                    .append('|').append(rule.getSign()).append('|').append(rule.getPriority())
+                    .append('|').append(rule.getOperationTypes()).append('\n');
+                digest.update(definition.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder hex = new StringBuilder();
+            byte[] hash = digest.digest();
+            for (int i = 0; i < 8; i++) {
+                hex.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
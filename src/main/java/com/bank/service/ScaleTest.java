@@ -0,0 +1,155 @@
+package com.bank.service;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the same pipeline as the console application - parse, categorize, aggregate, report -
+ * on a set of statements and measures each stage, the peak heap and the time spent in GC.
+ * Meant for files from {@link PkoStatementGenerator}.
+ */
+public class ScaleTest {
+    private final ConcurrentIngestService ingestService;
+    private final CategorizationService categorizer;
+    private final ReportService reportService;
+
+    public ScaleTest(ConcurrentIngestService ingestService, CategorizationService categorizer, ReportService reportService) {
+        this.ingestService = ingestService;
+        this.categorizer = categorizer;
+        this.reportService = reportService;
+    }
+
+    public Result run(List<String> filePaths, String reportPath) throws IOException {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        Map<String, Long> stages = new LinkedHashMap<>();
+
+        long start = System.nanoTime();
+        IngestResult ingestResult = ingestService.ingest(filePaths);
+        long parsed = System.nanoTime();
+        stages.put("parse", parsed - start);
+
+        List<FileIngestResult> categorized = new ArrayList<>();
+        long rows = 0;
+        for (FileIngestResult fileResult : ingestResult.getFileResults()) {
+            if (!fileResult.isSuccessful()) {
+                System.err.println("Skipping " + fileResult);
+                continue;
+            }
+            // Files read from snapshots arrive categorized already.
+            if (fileResult.getRulesVersion() == null) {
+                categorizer.categorizeInParallel(fileResult.getTransactions());
+            }
+            categorized.add(new FileIngestResult(fileResult.getFilePath(), fileResult.getTransactions(),
+                fileResult.getElapsedMillis() * 1_000_000, null, categorizer.getRuleSet().getVersion(),
+                fileResult.getAccountNumber()));
+            rows += fileResult.getRowCount();
+        }
+        long categorizedAt = System.nanoTime();
+        stages.put("categorize", categorizedAt - parsed);
+
+        StatementSession session = new StatementSession(categorizer);
+        for (FileIngestResult fileResult : categorized) {
+            session.add(fileResult);
+        }
+        ReportAccumulator summary = session.getSummary();
+        long aggregated = System.nanoTime();
+        stages.put("aggregate", aggregated - categorizedAt);
+
+        reportService.generateReport(summary, reportPath);
+        stages.put("report", System.nanoTime() - aggregated);
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        return new Result(categorized.size(), rows, summary.getTransactionCount(), stages, peakHeap,
+            gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    public static class Result {
+        private final int fileCount;
+        private final long rowCount;
+        private final long reportedCount;
+        private final Map<String, Long> stageNanos;
+        private final long peakHeapBytes;
+        private final long gcCount;
+        private final long gcMillis;
+
+        Result(int fileCount, long rowCount, long reportedCount, Map<String, Long> stageNanos,
+               long peakHeapBytes, long gcCount, long gcMillis) {
+            this.fileCount = fileCount;
+            this.rowCount = rowCount;
+            this.reportedCount = reportedCount;
+            this.stageNanos = stageNanos;
+            this.peakHeapBytes = peakHeapBytes;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+
+        public int getFileCount() { return fileCount; }
+        public long getRowCount() { return rowCount; }
+        /** Transactions in the report, i.e. without duplicates. */
+        public long getReportedCount() { return reportedCount; }
+        /** Wall time per stage in pipeline order. */
+        public Map<String, Long> getStageNanos() { return stageNanos; }
+        public long getPeakHeapBytes() { return peakHeapBytes; }
+        public long getGcCount() { return gcCount; }
+        public long getGcMillis() { return gcMillis; }
+
+        public long getTotalNanos() {
+            long total = 0;
+            for (long nanos : stageNanos.values()) {
+                total += nanos;
+            }
+            return total;
+        }
+
+        /** Parsed rows per second over the whole pipeline. */
+        public double getRowsPerSecond() {
+            long total = getTotalNanos();
+            return total == 0 ? 0 : rowCount * 1e9 / total;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("Rows: %d in %d file(s), %d in report%n", rowCount, fileCount, reportedCount));
+            for (Map.Entry<String, Long> stage : stageNanos.entrySet()) {
+                out.append(String.format("  %-12s %8d ms%n", stage.getKey(), stage.getValue() / 1_000_000));
+            }
+            out.append(String.format("  %-12s %8d ms (%.0f rows/s)%n", "total", getTotalNanos() / 1_000_000, getRowsPerSecond()));
+            out.append(String.format("Peak heap: %.1f MB, GC: %d collection(s), %d ms%n",
+                peakHeapBytes / (1024.0 * 1024.0), gcCount, gcMillis));
+            return out.toString();
+        }
+    }
+}
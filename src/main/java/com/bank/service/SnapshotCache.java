@@ -0,0 +1,209 @@
+package com.bank.service;
+
+import com.bank.model.Transaction;
+import com.opencsv.exceptions.CsvException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Directory of binary snapshots of parsed and categorized statements, see {@link TransactionCodec}.
+ * A snapshot is named after the SHA-256 of the source file's bytes and the version of the
+ * rules it was categorized with, so an edited file or changed rules simply miss.
+ * Damaged snapshots are deleted and the source is parsed again.
+ */
+public class SnapshotCache {
+    private static final String SUFFIX = ".snap";
+    private static final int HASH_BUFFER_SIZE = 1 << 20;
+
+    private final Path directory;
+    private final CategorizationService categorizer;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SnapshotCache(Path directory, CategorizationService categorizer) {
+        this.directory = directory;
+        this.categorizer = categorizer;
+    }
+
+    /** The default location, {@code ~/.bank-analyzer/snapshots}. */
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".bank-analyzer", "snapshots");
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the categorized transactions of the source file, from its snapshot when there is
+     * a valid one and otherwise by parsing and categorizing it and saving a new snapshot.
+     */
+    public Snapshot getOrParse(Path source, CsvParserService parser) throws IOException, CsvException {
+        return getOrParse(source, parser, null);
+    }
+
+    /** Like {@link #getOrParse(Path, CsvParserService)} with the file's layout, if already detected. */
+    public Snapshot getOrParse(Path source, CsvParserService parser, StatementLayout layout)
+            throws IOException, CsvException {
+        // Categorize with the same rules the key is built from, even if they are reloaded meanwhile.
+        RuleSet rules = categorizer.getRuleSet();
+        String contentHash = contentHash(source);
+        Path snapshotFile = snapshotFile(contentHash, rules.getVersion());
+
+        Snapshot cached = read(snapshotFile, rules.getVersion());
+        if (cached != null) {
+            return cached;
+        }
+
+        List<Transaction> transactions = parser.parseSource(source.toString(), layout);
+        CategorizationService snapshotCategorizer = new CategorizationService(rules);
+        snapshotCategorizer.setMetrics(categorizer.getMetrics());
+        snapshotCategorizer.categorizeInParallel(transactions);
+        try {
+            write(contentHash, snapshotFile, TransactionCodec.encode(transactions, rules.getVersion()));
+        } catch (IOException e) {
+            System.err.println("Cannot write snapshot " + snapshotFile + ": " + e.getMessage());
+        }
+        return new Snapshot(transactions, rules.getVersion(), false);
+    }
+
+    /**
+     * The snapshot of the source for the current rules, or {@code null} if there is no valid one.
+     * For callers that parse the source themselves, e.g. to show rows while parsing, and then
+     * {@link #save} the result.
+     */
+    public Snapshot find(Path source) throws IOException {
+        String version = categorizer.getRuleSet().getVersion();
+        return read(snapshotFile(contentHash(source), version), version);
+    }
+
+    /** Saves transactions categorized with the given rules version as the snapshot of the source. */
+    public void save(Path source, List<Transaction> transactions, String rulesVersion) throws IOException {
+        String contentHash = contentHash(source);
+        write(contentHash, snapshotFile(contentHash, rulesVersion), TransactionCodec.encode(transactions, rulesVersion));
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (hits=%d, misses=%d)", directory, getHitCount(), getMissCount());
+    }
+
+    private Path snapshotFile(String contentHash, String rulesVersion) {
+        return directory.resolve(contentHash + "-" + rulesVersion + SUFFIX);
+    }
+
+    /** Reads a snapshot, counting a hit or a miss; a damaged one is deleted and counts as a miss. */
+    private Snapshot read(Path snapshotFile, String rulesVersion) throws IOException {
+        if (Files.isRegularFile(snapshotFile)) {
+            try {
+                List<Transaction> transactions = TransactionCodec.decode(readFully(snapshotFile), rulesVersion);
+                hits.increment();
+                return new Snapshot(transactions, rulesVersion, true);
+            } catch (IOException e) {
+                System.err.println("Discarding snapshot " + snapshotFile + ": " + e.getMessage());
+                Files.deleteIfExists(snapshotFile);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    static String contentHash(Path source) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    static ByteBuffer readFully(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("Snapshot is too large: " + size + " bytes");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Snapshot shrank while reading");
+                }
+            }
+            return buffer.flip();
+        }
+    }
+
+    private void write(String contentHash, Path snapshotFile, ByteBuffer data) throws IOException {
+        Files.createDirectories(directory);
+        // Snapshots of the same content under older rules are of no further use.
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, contentHash + "-*" + SUFFIX)) {
+            for (Path file : stale) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        Path temporary = Files.createTempFile(directory, contentHash, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+            try {
+                Files.move(temporary, snapshotFile, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    public static class Snapshot {
+        private final List<Transaction> transactions;
+        private final String rulesVersion;
+        private final boolean cached;
+
+        Snapshot(List<Transaction> transactions, String rulesVersion, boolean cached) {
+            this.transactions = transactions;
+            this.rulesVersion = rulesVersion;
+            this.cached = cached;
+        }
+
+        /** The transactions, already categorized. */
+        public List<Transaction> getTransactions() { return transactions; }
+        public String getRulesVersion() { return rulesVersion; }
+        /** Whether the transactions came from a snapshot rather than from parsing. */
+        public boolean isCached() { return cached; }
+    }
+}
@@ -0,0 +1,228 @@
+package com.bank.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a {@link StatementSession} and a report file in step with the CSV files in a directory.
+ * Each cycle ingests only the files that are new or whose size or modification time changed,
+ * drops files that were deleted, and rewrites the report only if something changed. Between
+ * cycles the thread blocks on a {@link WatchService}, so an idle watcher costs no CPU.
+ * What each cycle did is returned as a {@link Cycle}; reporting it is up to the caller.
+ */
+public class StatementDirectoryWatcher implements Closeable {
+    private static final long DEBOUNCE_MILLIS = 500;
+
+    private final Path directory;
+    private final ConcurrentIngestService ingestService;
+    private final StatementSession session;
+    private final ReportService reportService;
+    private final Path reportPath;
+    private final ReportFormat reportFormat;
+    private final WatchService watchService;
+    private final Map<Path, FileState> known = new HashMap<>();
+
+    public StatementDirectoryWatcher(Path directory, ConcurrentIngestService ingestService, StatementSession session,
+                                     ReportService reportService, Path reportPath, ReportFormat reportFormat) throws IOException {
+        this.directory = directory.toAbsolutePath();
+        this.ingestService = ingestService;
+        this.session = session;
+        this.reportService = reportService;
+        this.reportPath = reportPath;
+        this.reportFormat = reportFormat;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    /**
+     * Runs an initial cycle, then one cycle per burst of changes, until interrupted or closed.
+     * Every cycle is handed to the listener.
+     */
+    public void run(Consumer<Cycle> listener) throws IOException {
+        listener.accept(scan());
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                key.pollEvents();
+                key.reset();
+
+                // Exports are often written in several steps; wait until the directory is quiet.
+                WatchKey next;
+                while ((next = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    next.pollEvents();
+                    next.reset();
+                }
+
+                listener.accept(scan());
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    /**
+     * Brings the session up to date with the directory. A file that fails to parse, e.g.
+     * because it is still being written, is listed in {@link Cycle#getRetried()} and retried
+     * next cycle.
+     */
+    public Cycle scan() throws IOException {
+        long start = System.nanoTime();
+        Map<Path, FileState> current = listStatements();
+
+        List<String> toIngest = new ArrayList<>();
+        for (Map.Entry<Path, FileState> entry : current.entrySet()) {
+            if (!entry.getValue().equals(known.get(entry.getKey()))) {
+                toIngest.add(entry.getKey().toString());
+            }
+        }
+
+        int removed = 0;
+        for (Path file : new ArrayList<>(known.keySet())) {
+            if (!current.containsKey(file)) {
+                known.remove(file);
+                session.remove(file.toString());
+                removed++;
+            }
+        }
+
+        int added = 0;
+        int rows = 0;
+        int duplicates = 0;
+        List<FileIngestResult> retried = new ArrayList<>();
+        if (!toIngest.isEmpty()) {
+            IngestResult result = ingestService.ingest(toIngest);
+            for (FileIngestResult fileResult : result.getFileResults()) {
+                if (fileResult.isSuccessful()) {
+                    Path file = Path.of(fileResult.getFilePath());
+                    duplicates += session.add(fileResult);
+                    known.put(file, current.get(file));
+                    added++;
+                    rows += fileResult.getRowCount();
+                } else {
+                    retried.add(fileResult);
+                }
+            }
+        }
+
+        if (added > 0 || removed > 0) {
+            reportService.generateReport(session.getSummary(), reportPath.toString(), reportFormat);
+        }
+        return new Cycle(added, rows, duplicates, removed, session.getFileCount(), retried,
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private Map<Path, FileState> listStatements() throws IOException {
+        Map<Path, FileState> files = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.{csv,CSV}")) {
+            for (Path file : stream) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attributes.isRegularFile()) {
+                    files.put(file, new FileState(attributes.size(), attributes.lastModifiedTime().toMillis()));
+                }
+            }
+        }
+        return files;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    /** The outcome of one {@link #scan()}. */
+    public static final class Cycle {
+        private final int added;
+        private final int rows;
+        private final int duplicates;
+        private final int removed;
+        private final int fileCount;
+        private final List<FileIngestResult> retried;
+        private final long millis;
+
+        Cycle(int added, int rows, int duplicates, int removed, int fileCount, List<FileIngestResult> retried, long millis) {
+            this.added = added;
+            this.rows = rows;
+            this.duplicates = duplicates;
+            this.removed = removed;
+            this.fileCount = fileCount;
+            this.retried = retried;
+            this.millis = millis;
+        }
+
+        /** Whether files were ingested or removed, and so the report rewritten. */
+        public boolean hasChanges() {
+            return added > 0 || removed > 0;
+        }
+
+        public int getAdded() {
+            return added;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public int getDuplicates() {
+            return duplicates;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        public int getFileCount() {
+            return fileCount;
+        }
+
+        /** Files that failed to parse this cycle. */
+        public List<FileIngestResult> getRetried() {
+            return retried;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d file(s) ingested (%d rows, %d duplicates dropped), %d removed, %d file(s) total, %d ms",
+                added, rows, duplicates, removed, fileCount, millis);
+        }
+    }
+
+    private static final class FileState {
+        final long size;
+        final long modifiedMillis;
+
+        FileState(long size, long modifiedMillis) {
+            this.size = size;
+            this.modifiedMillis = modifiedMillis;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof FileState state && state.size == size && state.modifiedMillis == modifiedMillis;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(size) * 31 + Long.hashCode(modifiedMillis);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.bank.service;
+
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * How the rows of one statement file are laid out, as a {@link BankFormat} worked it out from
+ * the first bytes of the file: charset, separator, how many records precede the data, which
+ * column holds each field and how dates are written. Both parser engines read any layout with
+ * the same per-row code, so a file in any known format parses as fast as a PKO BP export.
+ * <p>
+ * Amounts are read the same way for every bank: an optional sign, digits optionally grouped
+ * with spaces, '.' or ',' as the decimal mark and an optional currency code after a space.
+ */
+public final class StatementLayout {
+    public static final int ABSENT = -1;
+
+    /** The fields of a transaction a layout maps to columns. */
+    public enum Column {
+        BOOKING_DATE, OPERATION_DATE, OPERATION_TYPE, AMOUNT, CURRENCY, COUNTERPARTY, TITLE, BALANCE_AFTER
+    }
+
+    private final String formatName;
+    private final Charset charset;
+    private final char separator;
+    private final int headerRecords;
+    private final int[] columns;
+    private final int minFields;
+    private final String datePattern;
+    private final DateTimeFormatter dateFormatter;
+    private final boolean yearFirst;
+    private final char dateSeparator;
+    private final String defaultCurrency;
+    private final String accountNumber;
+    private final long declaredRowCount;
+
+    /**
+     * @param columns         column index per {@link Column}, in ordinal order; {@link #ABSENT} when the
+     *                        format has no such column. An amount and an operation date are required.
+     * @param datePattern     either {@code dd?MM?yyyy} or {@code yyyy?MM?dd} with one separator character
+     * @param defaultCurrency currency of rows without a currency column
+     */
+    public StatementLayout(String formatName, Charset charset, char separator, int headerRecords, int[] columns,
+                           String datePattern, String defaultCurrency, String accountNumber, long declaredRowCount) {
+        if (columns.length != Column.values().length) {
+            throw new IllegalArgumentException("Expected " + Column.values().length + " columns, got " + columns.length);
+        }
+        if (columns[Column.AMOUNT.ordinal()] == ABSENT || columns[Column.OPERATION_DATE.ordinal()] == ABSENT) {
+            throw new IllegalArgumentException(formatName + " layout needs amount and operation date columns");
+        }
+        if (datePattern.length() != 10 || !(datePattern.startsWith("dd") || datePattern.startsWith("yyyy"))) {
+            throw new IllegalArgumentException("Unsupported date pattern: " + datePattern);
+        }
+        this.formatName = formatName;
+        this.charset = charset;
+        this.separator = separator;
+        this.headerRecords = headerRecords;
+        this.columns = columns.clone();
+        this.minFields = Arrays.stream(columns).max().getAsInt() + 1;
+        this.datePattern = datePattern;
+        this.dateFormatter = DateTimeFormatter.ofPattern(datePattern);
+        this.yearFirst = datePattern.startsWith("yyyy");
+        this.dateSeparator = datePattern.charAt(yearFirst ? 4 : 2);
+        this.defaultCurrency = defaultCurrency;
+        this.accountNumber = accountNumber;
+        this.declaredRowCount = declaredRowCount;
+    }
+
+    /** Convenience for building the column array in {@link Column} order. */
+    public static int[] columns(int bookingDate, int operationDate, int operationType, int amount, int currency,
+                                int counterparty, int title, int balanceAfter) {
+        return new int[] {bookingDate, operationDate, operationType, amount, currency, counterparty, title, balanceAfter};
+    }
+
+    /** The same layout read with another charset. */
+    public StatementLayout withCharset(Charset charset) {
+        return new StatementLayout(formatName, charset, separator, headerRecords, columns, datePattern,
+            defaultCurrency, accountNumber, declaredRowCount);
+    }
+
+    public String getFormatName() {
+        return formatName;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public char getSeparator() {
+        return separator;
+    }
+
+    /** Records before the first data row, the column header included. */
+    public int getHeaderRecords() {
+        return headerRecords;
+    }
+
+    /** Column index of the field, or {@link #ABSENT}. */
+    public int column(Column column) {
+        return columns[column.ordinal()];
+    }
+
+    /** Rows with fewer fields than this are not data rows and are skipped. */
+    public int getMinFields() {
+        return minFields;
+    }
+
+    public boolean isYearFirst() {
+        return yearFirst;
+    }
+
+    public char getDateSeparator() {
+        return dateSeparator;
+    }
+
+    public String getDefaultCurrency() {
+        return defaultCurrency;
+    }
+
+    /** Account number from the file's preamble, digits only, or an empty string. */
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    /** Number of operations the preamble declares, or -1. */
+    public long getDeclaredRowCount() {
+        return declaredRowCount;
+    }
+
+    public LocalDate parseDate(String text) {
+        return LocalDate.parse(text.trim(), dateFormatter);
+    }
+
+    /** Reads an amount by the rules in the class comment; the slow path of both engines. */
+    public static double parseAmount(String text) {
+        StringBuilder number = new StringBuilder(text.length());
+        int end = text.length();
+        while (end > 0 && (Character.isWhitespace(text.charAt(end - 1)) || text.charAt(end - 1) == '\u00A0')) end--;
+        if (end >= 5 && isCurrencyCode(text, end - 3) && Character.isWhitespace(text.charAt(end - 4))) end -= 3;
+        for (int i = 0; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == ',') {
+                number.append('.');
+            } else if (!Character.isWhitespace(c) && c != '\u00A0') {
+                number.append(c);
+            }
+        }
+        return Double.parseDouble(number.toString());
+    }
+
+    private static boolean isCurrencyCode(String text, int start) {
+        for (int i = start; i < start + 3; i++) {
+            char c = text.charAt(i);
+            if (c < 'A' || c > 'Z') return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return formatName + " (" + charset.name() + ", '" + separator + "')";
+    }
+}
@@ -0,0 +1,180 @@
+package com.bank.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The first few kilobytes of a statement file, decoded, for {@link BankFormat}s to recognize.
+ * The charset is sniffed from the bytes: a UTF-8 byte order mark or bytes that decode as
+ * valid UTF-8 mean UTF-8, anything else is taken as windows-1250, the charset Polish banks
+ * export in. Only complete lines are kept.
+ */
+public final class StatementSample {
+    public static final Charset WINDOWS_1250 = Charset.forName("windows-1250");
+
+    private static final char[] SEPARATORS = {';', ',', '\t'};
+
+    private final Charset charset;
+    private final List<String> lines;
+
+    /**
+     * @param complete whether the bytes are the whole file; otherwise the last, possibly cut,
+     *                 line is dropped
+     */
+    public StatementSample(byte[] bytes, int length, boolean complete) {
+        int start = length >= 3 && (bytes[0] & 0xFF) == 0xEF && (bytes[1] & 0xFF) == 0xBB && (bytes[2] & 0xFF) == 0xBF ? 3 : 0;
+        int end = length;
+        if (!complete) {
+            while (end > start && bytes[end - 1] != '\n') end--;
+        }
+        this.charset = start == 3 || isUtf8(bytes, start, end) ? StandardCharsets.UTF_8 : WINDOWS_1250;
+        String text = new String(bytes, start, end - start, charset);
+        List<String> split = new ArrayList<>(Arrays.asList(text.split("\r?\n", -1)));
+        if (!split.isEmpty() && split.get(split.size() - 1).isEmpty()) split.remove(split.size() - 1);
+        this.lines = Collections.unmodifiableList(split);
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public List<String> getLines() {
+        return lines;
+    }
+
+    /**
+     * The first line whose cells, split on ';', ',' or a tab, include all the names. Cells are
+     * compared without surrounding quotes, a leading '#', outer whitespace and case.
+     */
+    public Header findHeader(String... names) {
+        String[] wanted = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            wanted[i] = normalize(names[i]);
+        }
+        for (int index = 0; index < lines.size(); index++) {
+            for (char separator : SEPARATORS) {
+                if (lines.get(index).indexOf(separator) < 0) continue;
+                List<String> cells = split(lines.get(index), separator);
+                int[] positions = new int[wanted.length];
+                boolean all = true;
+                for (int i = 0; i < wanted.length && all; i++) {
+                    positions[i] = cells.indexOf(wanted[i]);
+                    all = positions[i] >= 0;
+                }
+                if (all) return new Header(index, separator, cells, positions);
+            }
+        }
+        return null;
+    }
+
+    /** Whether any of the first lines contains the text, ignoring case. */
+    public boolean contains(String text, int firstLines) {
+        String wanted = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < Math.min(firstLines, lines.size()); i++) {
+            if (lines.get(i).toLowerCase(Locale.ROOT).contains(wanted)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The first account number in the lines before {@code endLine}: 26 digits, possibly split
+     * by spaces and preceded by a country code, as banks print IBANs. Empty if there is none.
+     */
+    public String findAccountNumber(int endLine) {
+        for (int i = 0; i < Math.min(endLine, lines.size()); i++) {
+            String line = lines.get(i);
+            StringBuilder digits = new StringBuilder();
+            for (int j = 0; j < line.length(); j++) {
+                char c = line.charAt(j);
+                if (c >= '0' && c <= '9') {
+                    digits.append(c);
+                    if (digits.length() == 26) return digits.toString();
+                } else if (c != ' ') {
+                    digits.setLength(0);
+                }
+            }
+        }
+        return "";
+    }
+
+    /** A column header line found by {@link #findHeader}. */
+    public static final class Header {
+        private final int lineIndex;
+        private final char separator;
+        private final List<String> cells;
+        private final int[] positions;
+
+        Header(int lineIndex, char separator, List<String> cells, int[] positions) {
+            this.lineIndex = lineIndex;
+            this.separator = separator;
+            this.cells = cells;
+            this.positions = positions;
+        }
+
+        /** Index of the header line; data starts on the next one. */
+        public int getLineIndex() {
+            return lineIndex;
+        }
+
+        public char getSeparator() {
+            return separator;
+        }
+
+        /** Column of the i-th name given to {@link #findHeader}. */
+        public int position(int name) {
+            return positions[name];
+        }
+
+        /** Column of another name on the header line, or {@link StatementLayout#ABSENT}. */
+        public int column(String name) {
+            int index = cells.indexOf(normalize(name));
+            return index >= 0 ? index : StatementLayout.ABSENT;
+        }
+    }
+
+    private static List<String> split(String line, char separator) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == separator && !quoted) {
+                cells.add(normalize(cell.toString()));
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(normalize(cell.toString()));
+        return cells;
+    }
+
+    private static String normalize(String cell) {
+        String trimmed = cell.trim();
+        if (trimmed.startsWith("#")) trimmed = trimmed.substring(1).trim();
+        return trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isUtf8(byte[] bytes, int start, int end) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        try {
+            decoder.decode(ByteBuffer.wrap(bytes, start, end - start));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+}
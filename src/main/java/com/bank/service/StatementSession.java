@@ -0,0 +1,448 @@
+package com.bank.service;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The statements loaded so far, each kept with its own categorized transactions and
+ * {@link ReportAccumulator}. Adding a file only parses, categorizes and aggregates that
+ * file; the combined summary is a merge of the per-file partials. A file categorized with
+ * rules that have since been reloaded is redone the next time the summary is needed.
+ * <p>
+ * Transactions already present in an earlier file of the session are dropped from later
+ * ones, see {@link TransactionDeduplicator}. Removing or replacing a file re-checks the
+ * remaining files, so duplicates it was hiding come back.
+ * <p>
+ * Once files of more than one account are loaded, transfers between them are paired by an
+ * {@link InternalTransferMatcher} and both legs re-labelled as internal transfers. Files
+ * without an account number may be monthly exports of one account, so they are never paired. The
+ * unpaired legs stay indexed between calls: an added file is only matched against them, and
+ * a removed file only frees its own partners, whose files' partials are adjusted in place.
+ * Everything is paired again only when the matcher or the rules change.
+ */
+public class StatementSession {
+    private static final int UNKNOWN_ACCOUNT = -1;
+
+    private final CategorizationService categorizer;
+    private final Map<String, Statement> statements = new LinkedHashMap<>();
+    private TransactionDeduplicator deduplicator = new TransactionDeduplicator();
+    private ReportAccumulator summary;
+    private DateRangeIndex dateIndex;
+    private InternalTransferMatcher transferMatcher = new InternalTransferMatcher();
+    private CurrencyConverter converter;
+    private InternalTransferMatcher.Index<Statement> transfers;
+    private final Map<String, Integer> accountIds = new HashMap<>();
+    private boolean transfersStale;
+
+    public StatementSession(CategorizationService categorizer) {
+        this.categorizer = categorizer;
+    }
+
+    /** Sets the matcher for transfers between accounts, or {@code null} to leave them as categorized. */
+    public synchronized void setTransferMatcher(InternalTransferMatcher transferMatcher) {
+        this.transferMatcher = transferMatcher;
+        transfersStale = true;
+    }
+
+    /**
+     * Converts the loaded and future transactions to the converter's reporting currency, or
+     * puts back the booked amounts for {@code null}.
+     */
+    public synchronized void setCurrencyConverter(CurrencyConverter converter) {
+        this.converter = converter;
+        for (Statement statement : statements.values()) {
+            statement.convert(converter);
+            statement.aggregate();
+        }
+        summary = null;
+        dateIndex = null;
+    }
+
+    public synchronized CurrencyConverter getCurrencyConverter() {
+        return converter;
+    }
+
+    /** Adds the successfully parsed files of the batch, replacing files with the same path. */
+    public synchronized void addAll(IngestResult ingestResult) {
+        for (FileIngestResult fileResult : ingestResult.getFileResults()) {
+            if (fileResult.isSuccessful()) {
+                add(fileResult);
+            }
+        }
+    }
+
+    /**
+     * Adds a parsed file, replacing a file with the same path. Transactions that are already
+     * categorized with the current rules, e.g. from a {@link SnapshotCache}, are not
+     * categorized again. Returns the number of duplicates dropped from the file.
+     */
+    public synchronized int add(FileIngestResult fileResult) {
+        return add(fileResult.getFilePath(), fileResult.getTransactions(),
+            fileResult.getRulesVersion(), fileResult.getAccountNumber());
+    }
+
+    /** Adds uncategorized transactions of an unknown account; returns the duplicates dropped. */
+    public synchronized int add(String filePath, List<Transaction> transactions) {
+        return add(filePath, transactions, null, "");
+    }
+
+    /**
+     * Adds transactions of the given account, replacing a file with the same path. They are
+     * categorized unless {@code rulesVersion} is the version of the current rules. Returns the
+     * number of duplicates dropped from the file.
+     */
+    public synchronized int add(String filePath, List<Transaction> transactions, String rulesVersion, String account) {
+        Statement previous = statements.remove(filePath);
+        if (previous != null) {
+            unlink(previous);
+            forget(previous);
+        }
+        // Without an account number a file cannot be told apart from the other files of its
+        // account, so its rows stay out of transfer pairing.
+        int accountId = account.isEmpty() ? UNKNOWN_ACCOUNT : accountIds.computeIfAbsent(account, a -> accountIds.size());
+        Statement statement = new Statement(transactions, account, accountId);
+        statement.categorize(categorizer, rulesVersion);
+        if (converter != null) {
+            statement.convert(converter);
+        }
+        statement.deduplicate(deduplicator);
+        statements.put(filePath, statement);
+        summary = null;
+        dateIndex = null;
+        link(statement);
+        return statement.duplicates;
+    }
+
+    public synchronized boolean remove(String filePath) {
+        Statement removed = statements.remove(filePath);
+        if (removed != null) {
+            unlink(removed);
+            forget(removed);
+            summary = null;
+            dateIndex = null;
+        }
+        return removed != null;
+    }
+
+    public synchronized void clear() {
+        statements.clear();
+        deduplicator = new TransactionDeduplicator();
+        summary = null;
+        dateIndex = null;
+        transfers = null;
+        accountIds.clear();
+        transfersStale = false;
+    }
+
+    public synchronized int getFileCount() {
+        return statements.size();
+    }
+
+    public synchronized List<String> getFilePaths() {
+        return new ArrayList<>(statements.keySet());
+    }
+
+    /** Duplicates dropped from the given file, or 0 if it is not loaded. */
+    public synchronized int getDuplicateCount(String filePath) {
+        Statement statement = statements.get(filePath);
+        return statement != null ? statement.duplicates : 0;
+    }
+
+    /** Loaded transactions left in their own currency for want of an exchange rate. */
+    public synchronized int getUnconvertedCount() {
+        int total = 0;
+        for (Statement statement : statements.values()) {
+            total += statement.unconverted;
+        }
+        return total;
+    }
+
+    public synchronized int getDuplicateCount() {
+        int total = 0;
+        for (Statement statement : statements.values()) {
+            total += statement.duplicates;
+        }
+        return total;
+    }
+
+    /** All transactions in the order their files were added, without duplicates. */
+    public synchronized List<Transaction> getTransactions() {
+        refreshStale();
+        int total = 0;
+        for (Statement statement : statements.values()) {
+            total += statement.kept.size();
+        }
+        List<Transaction> all = new ArrayList<>(total);
+        for (Statement statement : statements.values()) {
+            all.addAll(statement.kept);
+        }
+        return all;
+    }
+
+    /**
+     * The combined aggregates of every file. Built by merging the per-file partials and
+     * reused until a file is added or removed or the rules change.
+     */
+    public synchronized ReportAccumulator getSummary() {
+        refreshStale();
+        if (summary == null) {
+            ReportAccumulator merged = new ReportAccumulator();
+            for (Statement statement : statements.values()) {
+                merged.merge(statement.partial);
+            }
+            summary = merged;
+        }
+        return summary;
+    }
+
+    /** Kept transactions ordered by operation date, for date-range totals and reports. */
+    public synchronized DateRangeIndex getDateRangeIndex() {
+        refreshStale();
+        if (dateIndex == null) {
+            dateIndex = new DateRangeIndex(getTransactions());
+        }
+        return dateIndex;
+    }
+
+    /** Transactions currently re-labelled as one leg of a transfer between loaded accounts. */
+    public synchronized int getInternalTransferCount() {
+        refreshStale();
+        return transfers != null ? transfers.getPairCount() * 2 : 0;
+    }
+
+    /**
+     * Takes a removed file's rows out of the deduplicator and gives the other files back the rows
+     * they dropped only as duplicates of it. Those rows are added to their file's partial and
+     * offered to the transfer index; nothing is parsed, categorized or deduplicated again.
+     */
+    private void forget(Statement removed) {
+        for (Transaction transaction : removed.kept) {
+            deduplicator.remove(removed.account, transaction);
+        }
+        for (Statement statement : statements.values()) {
+            List<Transaction> restored = statement.restore(deduplicator);
+            if (restored.isEmpty()) continue;
+            summary = null;
+            dateIndex = null;
+            if (transfers != null && !transfersStale && statement.isPairable()) {
+                relabel(transfers.add(restored, statement.accountId, statement));
+            }
+        }
+    }
+
+    /** Pairs the transfers of a newly added file with the unpaired legs of the files before it. */
+    private void link(Statement statement) {
+        if (transferMatcher == null || transfersStale) return;
+        if (transfers == null) {
+            // With a second account there is something to pair; the files so far are matched at once.
+            transfersStale = hasSeveralAccounts();
+            return;
+        }
+        if (statement.isPairable()) {
+            relabel(transfers.add(statement.kept, statement.accountId, statement));
+        }
+    }
+
+    /**
+     * Takes a removed file's legs out of the transfer index: they and their partners get their
+     * rule categories back, and the freed partners are offered to the other unpaired legs.
+     */
+    private void unlink(Statement removed) {
+        if (transfers == null) return;
+        InternalTransferMatcher.Removal removal = transfers.remove(removed.kept);
+        RuleSet rules = categorizer.getRuleSet();
+        for (Transaction transaction : removal.getUnpaired()) {
+            setCategory(transaction, rules.categorize(transaction));
+        }
+        relabel(removal.getPairs());
+        if (statements.isEmpty()) {
+            transfers = null;
+        }
+    }
+
+    private void relabel(List<InternalTransferMatcher.TransferPair> pairs) {
+        for (InternalTransferMatcher.TransferPair pair : pairs) {
+            setCategory(pair.getOutgoing(), Category.INTERNAL_TRANSFER);
+            setCategory(pair.getIncoming(), Category.INTERNAL_TRANSFER);
+        }
+    }
+
+    /** Re-labels an indexed transaction and moves it between categories in its file's partial. */
+    private void setCategory(Transaction transaction, Category category) {
+        Category previous = transaction.getCategory();
+        transaction.setCategory(category);
+        Statement owner = transfers.ownerOf(transaction);
+        if (owner != null) {
+            owner.partial.recategorize(transaction, previous);
+            summary = null;
+            dateIndex = null;
+        }
+    }
+
+    /** Whether files of at least two known accounts are loaded. */
+    private boolean hasSeveralAccounts() {
+        Integer first = null;
+        for (Statement statement : statements.values()) {
+            if (!statement.isPairable()) continue;
+            if (first == null) {
+                first = statement.accountId;
+            } else if (statement.accountId != first) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void refreshStale() {
+        String version = categorizer.getRuleSet().getVersion();
+        for (Statement statement : statements.values()) {
+            if (!version.equals(statement.rulesVersion)) {
+                statement.categorize(categorizer, null);
+                statement.aggregate();
+                summary = null;
+                dateIndex = null;
+                transfersStale = true;
+            }
+        }
+        if (transfersStale) {
+            matchTransfers();
+            transfersStale = false;
+        }
+    }
+
+    /**
+     * Undoes the previous pairing, then pairs the transfers of all files again, file by file as
+     * they would be added. Only files whose categories changed either way are aggregated again.
+     */
+    private void matchTransfers() {
+        Set<Statement> changed = new HashSet<>();
+        if (transfers != null) {
+            RuleSet rules = categorizer.getRuleSet();
+            for (Transaction transaction : transfers.getPairedLegs()) {
+                transaction.setCategory(rules.categorize(transaction));
+                changed.add(transfers.ownerOf(transaction));
+            }
+            transfers = null;
+        }
+
+        if (transferMatcher != null && hasSeveralAccounts()) {
+            transfers = transferMatcher.newIndex();
+            for (Statement statement : statements.values()) {
+                if (!statement.isPairable()) continue;
+                for (InternalTransferMatcher.TransferPair pair : transfers.add(statement.kept, statement.accountId, statement)) {
+                    pair.getOutgoing().setCategory(Category.INTERNAL_TRANSFER);
+                    pair.getIncoming().setCategory(Category.INTERNAL_TRANSFER);
+                    changed.add(transfers.ownerOf(pair.getOutgoing()));
+                    changed.add(transfers.ownerOf(pair.getIncoming()));
+                }
+            }
+        }
+
+        for (Statement statement : changed) {
+            statement.aggregate();
+            summary = null;
+            dateIndex = null;
+        }
+    }
+
+    private static class Statement {
+        final List<Transaction> transactions;
+        final String account;
+        final int accountId;
+        List<Transaction> kept;
+        List<Transaction> dropped;
+        int duplicates;
+        int unconverted;
+        ReportAccumulator partial;
+        String rulesVersion;
+
+        Statement(List<Transaction> transactions, String account, int accountId) {
+            this.transactions = transactions;
+            this.account = account;
+            this.accountId = accountId;
+        }
+
+        boolean isPairable() {
+            return accountId != UNKNOWN_ACCOUNT;
+        }
+
+        void categorize(CategorizationService categorizer, String categorizedWith) {
+            rulesVersion = categorizer.getRuleSet().getVersion();
+            if (!rulesVersion.equals(categorizedWith)) {
+                categorizer.categorizeInParallel(transactions);
+            }
+        }
+
+        void convert(CurrencyConverter converter) {
+            if (converter == null) {
+                CurrencyConverter.reset(transactions);
+                unconverted = 0;
+            } else {
+                unconverted = converter.convertAll(transactions);
+            }
+        }
+
+        void deduplicate(TransactionDeduplicator deduplicator) {
+            List<Transaction> filtered = deduplicator.filter(account, transactions);
+            duplicates = transactions.size() - filtered.size();
+            kept = duplicates == 0 ? transactions : filtered;
+            dropped = new ArrayList<>(duplicates);
+            int next = 0;
+            for (Transaction transaction : transactions) {
+                if (dropped.size() == duplicates) break;
+                if (next < kept.size() && kept.get(next) == transaction) {
+                    next++;
+                } else {
+                    dropped.add(transaction);
+                }
+            }
+            aggregate();
+        }
+
+        /** Keeps the dropped rows the deduplicator no longer knows, in file order; returns them. */
+        List<Transaction> restore(TransactionDeduplicator deduplicator) {
+            List<Transaction> restored = new ArrayList<>();
+            List<Transaction> stillDropped = new ArrayList<>();
+            for (Transaction transaction : dropped) {
+                if (deduplicator.add(account, transaction)) {
+                    restored.add(transaction);
+                } else {
+                    stillDropped.add(transaction);
+                }
+            }
+            if (restored.isEmpty()) return restored;
+
+            List<Transaction> merged = new ArrayList<>(kept.size() + restored.size());
+            int nextKept = 0;
+            int nextRestored = 0;
+            for (Transaction transaction : transactions) {
+                if (nextKept < kept.size() && kept.get(nextKept) == transaction) {
+                    merged.add(transaction);
+                    nextKept++;
+                } else if (nextRestored < restored.size() && restored.get(nextRestored) == transaction) {
+                    merged.add(transaction);
+                    nextRestored++;
+                }
+            }
+            dropped = stillDropped;
+            duplicates = stillDropped.size();
+            kept = duplicates == 0 ? transactions : merged;
+            restored.forEach(partial);
+            return restored;
+        }
+
+        void aggregate() {
+            ReportAccumulator accumulator = new ReportAccumulator();
+            kept.forEach(accumulator);
+            partial = accumulator;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.bank.service;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary form of a list of categorized transactions.
+ * <pre>
+ * int magic, short format version, UTF rules version, int row count
+ * int category count, UTF category name...
+ * int string count, UTF string...            (operation types, currencies, counterparties)
+ * per row: int booking epoch day, int operation epoch day, double amount, double balance,
+ *          int operation type id, int currency id, int counterparty id, byte category (-1 = none),
+ *          UTF title
+ * long CRC32 of everything above
+ * </pre>
+ * UTF strings are an int byte length followed by UTF-8 bytes. Categories are stored by name,
+ * so reordering the {@link Category} enum does not invalidate existing data.
+ */
+public final class TransactionCodec {
+    private static final int MAGIC = 0x42414E4B;
+    private static final short FORMAT_VERSION = 1;
+    private static final int TRAILER_BYTES = Long.BYTES;
+
+    private TransactionCodec() {
+    }
+
+    public static ByteBuffer encode(List<Transaction> transactions, String rulesVersion) {
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[] ids = new int[transactions.size() * 3];
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            ids[i * 3] = idOf(transaction.getOperationType(), stringIds, strings);
+            ids[i * 3 + 1] = idOf(transaction.getCurrency(), stringIds, strings);
+            ids[i * 3 + 2] = idOf(transaction.getCounterparty(), stringIds, strings);
+        }
+
+        Output out = new Output(64 + transactions.size() * 80);
+        out.putInt(MAGIC);
+        out.putShort(FORMAT_VERSION);
+        out.putString(rulesVersion.getBytes(StandardCharsets.UTF_8));
+        out.putInt(transactions.size());
+
+        Category[] categories = Category.values();
+        out.putInt(categories.length);
+        for (Category category : categories) {
+            out.putString(category.name().getBytes(StandardCharsets.UTF_8));
+        }
+
+        out.putInt(strings.size());
+        for (byte[] string : strings) {
+            out.putString(string);
+        }
+
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            out.putInt((int) transaction.getBookingDate().toEpochDay());
+            out.putInt((int) transaction.getOperationDate().toEpochDay());
+            out.putDouble(transaction.getAmount());
+            out.putDouble(transaction.getBalanceAfter());
+            out.putInt(ids[i * 3]);
+            out.putInt(ids[i * 3 + 1]);
+            out.putInt(ids[i * 3 + 2]);
+            out.putByte(transaction.getCategory() == null ? -1 : (byte) transaction.getCategory().ordinal());
+            out.putString(transaction.getTitle().getBytes(StandardCharsets.UTF_8));
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(out.bytes, 0, out.size);
+        out.putLong(crc.getValue());
+        return ByteBuffer.wrap(out.bytes, 0, out.size);
+    }
+
+    /**
+     * Decodes a buffer produced by {@link #encode}. The buffer must be array-backed.
+     *
+     * @throws IOException if the data is damaged, truncated, in an unknown format, or was
+     *                     categorized with rules other than {@code expectedRulesVersion}
+     */
+    public static List<Transaction> decode(ByteBuffer buffer, String expectedRulesVersion) throws IOException {
+        byte[] bytes = buffer.array();
+        int start = buffer.arrayOffset() + buffer.position();
+        int length = buffer.remaining();
+        if (length < TRAILER_BYTES + 6) {
+            throw new IOException("Snapshot is truncated");
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(bytes, start, length).slice();
+        CRC32 crc = new CRC32();
+        crc.update(bytes, start, length - TRAILER_BYTES);
+        if (crc.getValue() != in.getLong(length - TRAILER_BYTES)) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+        in.limit(length - TRAILER_BYTES);
+
+        try {
+            if (in.getInt() != MAGIC || in.getShort() != FORMAT_VERSION) {
+                throw new IOException("Not a snapshot in format " + FORMAT_VERSION);
+            }
+            String rulesVersion = getString(in);
+            if (!rulesVersion.equals(expectedRulesVersion)) {
+                throw new IOException("Snapshot was categorized with rules " + rulesVersion);
+            }
+            int rowCount = in.getInt();
+
+            Category[] categories = new Category[in.getInt()];
+            for (int i = 0; i < categories.length; i++) {
+                categories[i] = Category.valueOf(getString(in));
+            }
+
+            String[] strings = new String[in.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = getString(in);
+            }
+
+            // LocalDates repeat a lot within a statement; reuse the previous ones.
+            int lastDay = Integer.MIN_VALUE;
+            LocalDate lastDate = null;
+            List<Transaction> transactions = new ArrayList<>(rowCount);
+            for (int i = 0; i < rowCount; i++) {
+                int bookingDay = in.getInt();
+                if (bookingDay != lastDay) {
+                    lastDay = bookingDay;
+                    lastDate = LocalDate.ofEpochDay(bookingDay);
+                }
+                LocalDate bookingDate = lastDate;
+                int operationDay = in.getInt();
+                LocalDate operationDate = operationDay == bookingDay ? bookingDate : LocalDate.ofEpochDay(operationDay);
+                double amount = in.getDouble();
+                double balanceAfter = in.getDouble();
+                String operationType = strings[in.getInt()];
+                String currency = strings[in.getInt()];
+                String counterparty = strings[in.getInt()];
+                byte category = in.get();
+                String title = getString(in);
+
+                Transaction transaction = new Transaction(
+                    bookingDate, operationDate, operationType,
+                    amount, currency, counterparty, title, balanceAfter
+                );
+                transaction.setCategory(category < 0 ? null : categories[category]);
+                transactions.add(transaction);
+            }
+            if (in.hasRemaining()) {
+                throw new IOException("Snapshot has " + in.remaining() + " unexpected trailing bytes");
+            }
+            return transactions;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Snapshot is malformed: " + e, e);
+        }
+    }
+
+    private static int idOf(String value, Map<String, Integer> ids, List<byte[]> strings) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = strings.size();
+            ids.put(value, id);
+            strings.add(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return id;
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new IndexOutOfBoundsException("String of " + length + " bytes at " + in.position());
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static final class Output {
+        byte[] bytes;
+        int size;
+        private ByteBuffer view;
+
+        Output(int capacity) {
+            bytes = new byte[capacity];
+            view = ByteBuffer.wrap(bytes);
+        }
+
+        void putByte(byte value) {
+            ensure(1);
+            bytes[size++] = value;
+        }
+
+        void putShort(short value) {
+            ensure(Short.BYTES);
+            view.putShort(size, value);
+            size += Short.BYTES;
+        }
+
+        void putInt(int value) {
+            ensure(Integer.BYTES);
+            view.putInt(size, value);
+            size += Integer.BYTES;
+        }
+
+        void putLong(long value) {
+            ensure(Long.BYTES);
+            view.putLong(size, value);
+            size += Long.BYTES;
+        }
+
+        void putDouble(double value) {
+            ensure(Double.BYTES);
+            view.putDouble(size, value);
+            size += Double.BYTES;
+        }
+
+        void putString(byte[] value) {
+            putInt(value.length);
+            ensure(value.length);
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+                view = ByteBuffer.wrap(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.bank.service;
+
+import com.bank.model.Transaction;
+import com.bank.model.TransactionStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drops transactions that were already seen, e.g. in an overlapping export of the same account.
+ * A transaction is identified by a 64-bit fingerprint of the account number, booking and
+ * operation dates, amount, title and balance after the operation; only the fingerprints are
+ * kept, in a {@link LongHashSet}. An optional {@link BloomFilter} in front answers "new" for
+ * most new transactions without probing the set.
+ */
+public class TransactionDeduplicator {
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+
+    private final LongHashSet seen;
+    private final BloomFilter bloomFilter;
+    private long duplicates;
+
+    public TransactionDeduplicator() {
+        this(1024, false);
+    }
+
+    /**
+     * @param expectedTransactions size hint for the fingerprint set and the Bloom filter
+     * @param useBloomFilter       whether to put a Bloom filter in front of the set
+     */
+    public TransactionDeduplicator(int expectedTransactions, boolean useBloomFilter) {
+        this.seen = new LongHashSet(expectedTransactions);
+        this.bloomFilter = useBloomFilter ? new BloomFilter(expectedTransactions, BLOOM_FALSE_POSITIVE_RATE) : null;
+    }
+
+    /** Records the transaction; returns false if an identical one was recorded before. */
+    public boolean add(String account, Transaction transaction) {
+        return add(fingerprint(account, transaction));
+    }
+
+    /** Records a {@link #fingerprint}; returns false if it was recorded before. */
+    public synchronized boolean add(long fingerprint) {
+        if (bloomFilter != null && !bloomFilter.mightContain(fingerprint)) {
+            bloomFilter.put(fingerprint);
+            seen.add(fingerprint);
+            return true;
+        }
+        if (seen.add(fingerprint)) {
+            if (bloomFilter != null) {
+                bloomFilter.put(fingerprint);
+            }
+            return true;
+        }
+        duplicates++;
+        return false;
+    }
+
+    /**
+     * Forgets the transaction, so that an identical one counts as new again. The Bloom filter
+     * cannot forget; it only passes such a transaction on to the set.
+     */
+    public synchronized boolean remove(String account, Transaction transaction) {
+        return seen.remove(fingerprint(account, transaction));
+    }
+
+    /** Returns the transactions not seen before, in order, and records them. */
+    public List<Transaction> filter(String account, List<Transaction> transactions) {
+        List<Transaction> kept = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            if (add(account, transaction)) {
+                kept.add(transaction);
+            }
+        }
+        return kept;
+    }
+
+    public synchronized int getUniqueCount() {
+        return seen.size();
+    }
+
+    public synchronized long getDuplicateCount() {
+        return duplicates;
+    }
+
+    /** Approximate heap used for fingerprints, including the Bloom filter. */
+    public synchronized long estimateBytes() {
+        return seen.estimateBytes() + (bloomFilter != null ? bloomFilter.estimateBytes() : 0);
+    }
+
+    @Override
+    public synchronized String toString() {
+        int unique = seen.size();
+        return String.format("%d unique, %d duplicate(s), %.1f bytes per transaction",
+            unique, duplicates, unique == 0 ? 0.0 : (double) estimateBytes() / unique);
+    }
+
+    public static long fingerprint(String account, Transaction transaction) {
+        return fingerprint(account, transaction.getBookingDate().toEpochDay(), transaction.getOperationDate().toEpochDay(),
+            TransactionStore.toMinor(transaction.getAmount()), transaction.getTitle(),
+            TransactionStore.toMinor(transaction.getBalanceAfter()));
+    }
+
+    /** The same fingerprint from raw fields, for readers that build no {@link Transaction}. */
+    public static long fingerprint(String account, long bookingDay, long operationDay, long amountMinor,
+                                   String title, long balanceMinor) {
+        long hash = FNV_OFFSET;
+        hash = mix(hash, account);
+        hash = mix(hash, bookingDay);
+        hash = mix(hash, operationDay);
+        hash = mix(hash, amountMinor);
+        hash = mix(hash, title);
+        hash = mix(hash, balanceMinor);
+        // FNV alone spreads the last few bytes poorly; finish with the MurmurHash3 avalanche.
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return mix(hash, -1L);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // The length ends the field, so that ("ab", "c") and ("a", "bc") differ.
+        return mix(hash, (long) value.length());
+    }
+
+    private static long mix(long hash, long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            hash = (hash ^ ((value >>> shift) & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
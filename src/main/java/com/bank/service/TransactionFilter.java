@@ -0,0 +1,46 @@
+package com.bank.service;
+
+import com.bank.model.Category;
+
+import java.time.LocalDate;
+
+/**
+ * Criteria for {@link TransactionIndex#select}. Every criterion is optional; a null or blank one
+ * does not restrict the result. Amounts are compared by absolute value, so a range of 50 to 100
+ * finds both expenses and income of that size.
+ */
+public class TransactionFilter {
+    public static final TransactionFilter ALL = new TransactionFilter(null, null, null, null, null, null);
+
+    private final String text;
+    private final Category category;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final Double minAmount;
+    private final Double maxAmount;
+
+    public TransactionFilter(String text, Category category, LocalDate from, LocalDate to,
+                             Double minAmount, Double maxAmount) {
+        this.text = text == null || text.isBlank() ? null : text.trim();
+        this.category = category;
+        this.from = from;
+        this.to = to;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+    }
+
+    /** Words that must each start a word of the title or the counterparty. */
+    public String getText() { return text; }
+    public Category getCategory() { return category; }
+    /** First operation date included. */
+    public LocalDate getFrom() { return from; }
+    /** Last operation date included. */
+    public LocalDate getTo() { return to; }
+    public Double getMinAmount() { return minAmount; }
+    public Double getMaxAmount() { return maxAmount; }
+
+    public boolean isEmpty() {
+        return text == null && category == null && from == null && to == null
+            && minAmount == null && maxAmount == null;
+    }
+}
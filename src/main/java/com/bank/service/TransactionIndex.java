@@ -0,0 +1,264 @@
+package com.bank.service;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Search indexes over a fixed list of transactions, built once so that a filter is answered
+ * with a few bitset operations instead of a scan:
+ * <ul>
+ *   <li>an inverted index from the words of titles and counterparties to the rows containing them,
+ *       with words sorted so a prefix selects a contiguous range;</li>
+ *   <li>one bitset of rows per category;</li>
+ *   <li>rows sorted by operation date and by absolute amount, so a range is a binary search.</li>
+ * </ul>
+ * Rows are positions in the list given to the constructor. Words are compared lower-case and
+ * without Polish diacritics, so "zabka" finds "ŻABKA". The index reflects the categories at build
+ * time, which came from the rules of {@link #getRulesVersion()}; once the rules are reloaded it
+ * must be built again. Instances are immutable and safe to query from any thread.
+ */
+public class TransactionIndex {
+    /** Amounts are kept in grosze and capped here (about 21 million) to pack them with the row. */
+    private static final long MAX_AMOUNT_KEY = Integer.MAX_VALUE;
+
+    private final int size;
+    private final String rulesVersion;
+    private final String[] words;
+    private final int[][] postings;
+    private final BitSet[] categories;
+    private final long[] dayKeys;
+    private final int[] dateOrder;
+    private final long[] amountKeys;
+    private final int[] amountOrder;
+
+    public TransactionIndex(List<Transaction> transactions) {
+        this(transactions, null);
+    }
+
+    /** @param rulesVersion version of the rules the transactions were categorized with, if known */
+    public TransactionIndex(List<Transaction> transactions, String rulesVersion) {
+        this.rulesVersion = rulesVersion;
+        size = transactions.size();
+        categories = new BitSet[Category.values().length];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = new BitSet(size);
+        }
+
+        Map<String, Postings> byWord = new HashMap<>();
+        long[] byDate = new long[size];
+        long[] byAmount = new long[size];
+        StringBuilder word = new StringBuilder();
+        for (int row = 0; row < size; row++) {
+            Transaction transaction = transactions.get(row);
+            addWords(transaction.getTitle(), row, byWord, word);
+            addWords(transaction.getCounterparty(), row, byWord, word);
+            if (transaction.getCategory() != null) {
+                categories[transaction.getCategory().ordinal()].set(row);
+            }
+            byDate[row] = (transaction.getOperationDate().toEpochDay() << 32) | row;
+            byAmount[row] = (amountKey(Math.abs(transaction.getAmount())) << 32) | row;
+        }
+
+        words = byWord.keySet().toArray(new String[0]);
+        Arrays.sort(words);
+        postings = new int[words.length][];
+        for (int i = 0; i < words.length; i++) {
+            postings[i] = byWord.get(words[i]).toArray();
+        }
+
+        Arrays.sort(byDate);
+        Arrays.sort(byAmount);
+        dayKeys = new long[size];
+        dateOrder = new int[size];
+        amountKeys = new long[size];
+        amountOrder = new int[size];
+        for (int i = 0; i < size; i++) {
+            dayKeys[i] = byDate[i] >> 32;
+            dateOrder[i] = (int) byDate[i];
+            amountKeys[i] = byAmount[i] >>> 32;
+            amountOrder[i] = (int) byAmount[i];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getRulesVersion() {
+        return rulesVersion;
+    }
+
+    /** Rows matching every criterion of the filter. */
+    public BitSet select(TransactionFilter filter) {
+        BitSet result = new BitSet(size);
+        result.set(0, size);
+        if (filter.getText() != null) {
+            result.and(matchText(filter.getText()));
+        }
+        if (filter.getCategory() != null) {
+            result.and(categories[filter.getCategory().ordinal()]);
+        }
+        if (filter.getFrom() != null || filter.getTo() != null) {
+            result.and(matchDates(filter.getFrom(), filter.getTo()));
+        }
+        if (filter.getMinAmount() != null || filter.getMaxAmount() != null) {
+            result.and(matchAmounts(filter.getMinAmount(), filter.getMaxAmount()));
+        }
+        return result;
+    }
+
+    /** Rows where every word of the text starts some word of the title or the counterparty. */
+    public BitSet matchText(String text) {
+        BitSet result = null;
+        StringBuilder word = new StringBuilder();
+        for (String prefix : split(text, word)) {
+            BitSet rows = new BitSet(size);
+            int end = prefixEnd(prefix);
+            for (int i = lowerBound(words, prefix); i < end; i++) {
+                for (int row : postings[i]) {
+                    rows.set(row);
+                }
+            }
+            if (result == null) {
+                result = rows;
+            } else {
+                result.and(rows);
+            }
+        }
+        if (result == null) {
+            result = new BitSet(size);
+            result.set(0, size);
+        }
+        return result;
+    }
+
+    public BitSet matchCategory(Category category) {
+        return (BitSet) categories[category.ordinal()].clone();
+    }
+
+    /** Rows with an operation date in the range, both ends included; a null end is open. */
+    public BitSet matchDates(LocalDate from, LocalDate to) {
+        long low = from != null ? from.toEpochDay() : Long.MIN_VALUE;
+        long high = to != null ? to.toEpochDay() : Long.MAX_VALUE;
+        return range(dayKeys, dateOrder, low, high);
+    }
+
+    /** Rows with an absolute amount in the range, both ends included; a null end is open. */
+    public BitSet matchAmounts(Double min, Double max) {
+        long low = min != null ? amountKey(min) : Long.MIN_VALUE;
+        long high = max != null ? amountKey(max) : Long.MAX_VALUE;
+        return range(amountKeys, amountOrder, low, high);
+    }
+
+    private BitSet range(long[] keys, int[] order, long low, long high) {
+        BitSet rows = new BitSet(size);
+        if (low > high) return rows;
+        int end = high == Long.MAX_VALUE ? keys.length : lowerBound(keys, high + 1);
+        for (int i = lowerBound(keys, low); i < end; i++) {
+            rows.set(order[i]);
+        }
+        return rows;
+    }
+
+    /** One past the last word starting with the prefix, given words sorted as strings. */
+    private int prefixEnd(String prefix) {
+        int low = lowerBound(words, prefix);
+        int high = words.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (words[mid].startsWith(prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int lowerBound(String[] sorted, String key) {
+        int index = Arrays.binarySearch(sorted, key);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static int lowerBound(long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long amountKey(double amount) {
+        return Math.max(0, Math.min(MAX_AMOUNT_KEY, Math.round(amount * 100)));
+    }
+
+    private static void addWords(String text, int row, Map<String, Postings> byWord, StringBuilder word) {
+        for (String token : split(text, word)) {
+            byWord.computeIfAbsent(token, key -> new Postings()).add(row);
+        }
+    }
+
+    /** Lower-case words of letters and digits, with Polish letters folded to ASCII. */
+    static List<String> split(String text, StringBuilder word) {
+        if (text == null || text.isEmpty()) return List.of();
+        List<String> tokens = new ArrayList<>();
+        word.setLength(0);
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(fold(Character.toLowerCase(c)));
+            } else if (word.length() > 0) {
+                tokens.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    private static char fold(char c) {
+        switch (c) {
+            case 'ą': return 'a';
+            case 'ć': return 'c';
+            case 'ę': return 'e';
+            case 'ł': return 'l';
+            case 'ń': return 'n';
+            case 'ó': return 'o';
+            case 'ś': return 's';
+            case 'ź':
+            case 'ż': return 'z';
+            default: return c;
+        }
+    }
+
+    /** Ascending rows of one word; a row is added once even if the word repeats in it. */
+    private static final class Postings {
+        private int[] rows = new int[2];
+        private int count;
+
+        void add(int row) {
+            if (count > 0 && rows[count - 1] == row) return;
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            rows[count++] = row;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(rows, count);
+        }
+    }
+}
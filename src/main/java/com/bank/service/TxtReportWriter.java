@@ -0,0 +1,123 @@
+package com.bank.service;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The human-readable report: category summary, monthly breakdown and the largest expenses.
+ * When not everything was booked in the reporting currency, a breakdown by booked currency
+ * comes first.
+ */
+class TxtReportWriter implements ReportWriter {
+
+    @Override
+    public void writeReport(ReportAccumulator summary, ReportOutput out) throws IOException {
+        out.text("Total transactions: ").number(summary.getTransactionCount()).newLine();
+        out.text("Date range: ");
+        if (summary.getTransactionCount() == 0) {
+            out.text("N/A");
+        } else {
+            out.date(summary.getMinDate()).text(" to ").date(summary.getMaxDate());
+        }
+        out.newLine().newLine();
+
+        if (!summary.isSingleCurrency()) {
+            writeCurrencyTotals(out, summary);
+        }
+        writeCategorySummary(out, summary);
+        writeMonthlyBreakdown(out, summary);
+        writeTopExpenses(out, summary);
+    }
+
+    /**
+     * One line per transaction: date, signed amount in the reporting currency (and as booked
+     * if that differs), category and the full title.
+     */
+    @Override
+    public long writeTransactions(Iterator<Transaction> transactions, ReportOutput out) throws IOException {
+        long count = 0;
+        while (transactions.hasNext()) {
+            Transaction t = transactions.next();
+            out.date(t.getOperationDate()).text(" | ").amount(t.getReportingAmount()).character(' ').text(t.getReportingCurrency());
+            if (t.getCurrency() != null && !t.getCurrency().equals(t.getReportingCurrency())) {
+                out.text(" (").amount(t.getAmount()).character(' ').text(t.getCurrency()).character(')');
+            }
+            out.text(" | ").text(t.getCategory() != null ? t.getCategory().getDisplayName() : "")
+                .text(" | ").text(t.getTitle()).newLine();
+            count++;
+        }
+        return count;
+    }
+
+    void writeCurrencyTotals(ReportOutput out, ReportAccumulator summary) throws IOException {
+        String currency = summary.getReportingCurrency();
+        out.text("Totals by booked currency, in ").text(currency).text(":").newLine();
+        for (ReportAccumulator.CurrencyTotals totals : summary.getCurrencyTotals()) {
+            out.padded(totals.getCurrency(), 3)
+                .text(" | Income: ").amount(totals.getIncome(), 10).character(' ').text(totals.getCurrency())
+                .text(" = ").amount(totals.getReportingIncome(), 10).character(' ').text(currency)
+                .text(" | Expenses: ").amount(totals.getExpenses(), 10).character(' ').text(totals.getCurrency())
+                .text(" = ").amount(totals.getReportingExpenses(), 10).character(' ').text(currency).newLine();
+        }
+        if (summary.hasMixedCurrencies()) {
+            out.text("WARNING: some amounts had no exchange rate and are added up in their own currency").newLine();
+        }
+        out.newLine();
+    }
+
+    void writeCategorySummary(ReportOutput out, ReportAccumulator summary) throws IOException {
+        String currency = summary.getReportingCurrency();
+        Map<Category, Double> categoryTotals = summary.getExpensesByCategory();
+
+        Iterator<Map.Entry<Category, Double>> sorted = categoryTotals.entrySet().stream()
+            .sorted(Map.Entry.<Category, Double>comparingByValue().reversed())
+            .iterator();
+        while (sorted.hasNext()) {
+            Map.Entry<Category, Double> entry = sorted.next();
+            out.padded(entry.getKey().getDisplayName(), 20).text(": ").amount(entry.getValue(), 10).character(' ').text(currency).newLine();
+        }
+
+        double totalExpenses = categoryTotals.values().stream().mapToDouble(Double::doubleValue).sum();
+        out.text("----------------------------------------").newLine();
+        out.text("TOTAL EXPENSES: ").amount(totalExpenses).character(' ').text(currency).newLine();
+        out.newLine();
+    }
+
+    void writeMonthlyBreakdown(ReportOutput out, ReportAccumulator summary) throws IOException {
+        String currency = summary.getReportingCurrency();
+        for (Map.Entry<YearMonth, ReportAccumulator.MonthTotals> entry : summary.getMonthlyTotals().entrySet()) {
+            ReportAccumulator.MonthTotals totals = entry.getValue();
+            out.month(entry.getKey())
+                .text(" | Income: ").amount(totals.getIncome(), 8)
+                .text(" | Expenses: ").amount(totals.getExpenses(), 8)
+                .text(" | Balance: ").amount(totals.getBalance(), 8).character(' ').text(currency).newLine();
+        }
+        out.newLine();
+    }
+
+    void writeTopExpenses(ReportOutput out, ReportAccumulator summary) throws IOException {
+        String currency = summary.getReportingCurrency();
+        for (Transaction t : summary.getTopExpenses()) {
+            String title = t.getTitle();
+            String shown = t.getReportingCurrency() != null ? t.getReportingCurrency() : currency;
+            out.date(t.getOperationDate()).text(" | ").amount(Math.abs(t.getReportingAmount()))
+                .character(' ').text(shown);
+            if (t.getCurrency() != null && !t.getCurrency().equals(shown)) {
+                out.text(" (").amount(Math.abs(t.getAmount())).character(' ').text(t.getCurrency()).character(')');
+            }
+            out.text(" | ").text(t.getCategory() != null ? t.getCategory().getDisplayName() : "").text(" | ");
+            if (title.length() > 50) {
+                out.text(title.subSequence(0, 50)).text("...");
+            } else {
+                out.text(title);
+            }
+            out.newLine();
+        }
+        out.newLine();
+    }
+}
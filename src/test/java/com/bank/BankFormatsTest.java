@@ -0,0 +1,104 @@
+package com.bank;
+
+import com.bank.model.Transaction;
+import com.bank.service.BankFormats;
+import com.bank.service.CsvParserService;
+import com.bank.service.ParserEngine;
+import com.bank.service.StatementLayout;
+import com.bank.service.StatementSample;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BankFormatsTest {
+
+    private static final String MBANK =
+        "mBank S.A. Bankowość Detaliczna;\n" +
+        "Skrytka Pocztowa 2108;\n" +
+        "#Klient;\n" +
+        "JAN KOWALSKI;\n" +
+        "#Za okres:;\n" +
+        "01.01.2026;31.01.2026;\n" +
+        "#Waluta;\n" +
+        "PLN;\n" +
+        "#Numer rachunku;\n" +
+        "12 1140 2004 0000 3102 7654 3210;\n" +
+        "\n" +
+        "#Data operacji;#Data księgowania;#Opis operacji;#Tytuł;#Nadawca/Odbiorca;#Numer konta;#Kwota;#Saldo po operacji;\n" +
+        "2026-01-05;2026-01-07;ZAKUP PRZY UŻYCIU KARTY;\"BIEDRONKA KRAKÓW\";\"  \";'';-85,69;1 012,90;\n" +
+        "2026-01-10;2026-01-10;PRZELEW PRZYCHODZĄCY;\"Wynagrodzenie styczeń\";\"PRACODAWCA SP. Z O.O.\";'26105000997603123456789123';5 000,00;6 012,90;\n" +
+        "\n" +
+        "#Saldo końcowe;6 012,90;\n";
+
+    private static final String ING =
+        "\"Lista transakcji\"\n" +
+        "\"Dokument nr 0123456/2026\"\n" +
+        "\"Wybrany rachunek:\"\n" +
+        "\"Konto Direct\";\"PL 34 1050 0099 7603 1234 5678 9123\"\n" +
+        "\n" +
+        "\"Data transakcji\";\"Data księgowania\";\"Dane kontrahenta\";\"Tytuł\";\"Nr rachunku\";\"Nazwa banku\";\"Szczegóły\";\"Nr transakcji\";\"Kwota transakcji (waluta rachunku)\";\"Waluta\";\"Kwota blokady/zwolnienie blokady\";\"Waluta\";\"Kwota płatności w walucie\";\"Waluta\";\"Konto\";\"Saldo po transakcji\";\"Waluta\";;;\n" +
+        "2026-01-12;2026-01-13;\"APTEKA GDAŃSK\";\"Płatność kartą 10.01.2026 Nr karty 4246xx1234\";\"\";\"\";\"TR.KART\";\"202601130001\";-20,89;PLN;;;-20,89;PLN;Konto Direct;154,86;PLN;;;\n" +
+        "2026-01-14;2026-01-14;\"Jan Testowy\";\"Zwrot za obiad\";\"'25116022020000000230377876'\";\"PKO BP\";\"PRZELEW\";\"202601140001\";120,00;PLN;;;;;Konto Direct;274,86;PLN;;;\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldSniffFormatCharsetAndAccountFromTheFirstBytes() throws Exception {
+        Path mbank = Files.write(tempDir.resolve("mbank.csv"), MBANK.getBytes(StatementSample.WINDOWS_1250));
+        Path ing = Files.writeString(tempDir.resolve("ing.csv"), ING, StandardCharsets.UTF_8);
+        BankFormats formats = BankFormats.defaults();
+
+        StatementLayout mbankLayout = formats.detect(mbank);
+        assertEquals("mBank", mbankLayout.getFormatName());
+        assertEquals(StatementSample.WINDOWS_1250, mbankLayout.getCharset());
+        assertEquals(';', mbankLayout.getSeparator());
+        assertEquals(12, mbankLayout.getHeaderRecords());
+        assertEquals("12114020040000310276543210", mbankLayout.getAccountNumber());
+
+        StatementLayout ingLayout = formats.detect(ing);
+        assertEquals("ING", ingLayout.getFormatName());
+        assertEquals(StandardCharsets.UTF_8, ingLayout.getCharset());
+        assertEquals("34105000997603123456789123", ingLayout.getAccountNumber());
+
+        StatementLayout pko = formats.detect(Path.of("bank_data/lista_operacji_fake.csv"));
+        assertEquals("PKO BP", pko.getFormatName());
+        assertEquals(63, pko.getDeclaredRowCount());
+    }
+
+    @Test
+    void shouldParseMixedBankBatchesTheSameWithBothEngines() throws Exception {
+        Path mbank = Files.write(tempDir.resolve("mbank.csv"), MBANK.getBytes(StatementSample.WINDOWS_1250));
+        Path ing = Files.writeString(tempDir.resolve("ing.csv"), ING, StandardCharsets.UTF_8);
+        List<String> files = List.of("bank_data/lista_operacji_fake.csv", mbank.toString(), ing.toString());
+
+        List<Transaction> expected = new CsvParserService(ParserEngine.OPENCSV).parseMultipleFiles(files);
+        List<Transaction> mapped = new CsvParserService(ParserEngine.MAPPED).parseMultipleFiles(files);
+        assertEquals(7 + 2 + 2, expected.size());
+        assertEquals(expected.toString(), mapped.toString());
+
+        Transaction card = expected.get(7);
+        assertEquals(LocalDate.of(2026, 1, 5), card.getOperationDate());
+        assertEquals(LocalDate.of(2026, 1, 7), card.getBookingDate());
+        assertEquals("ZAKUP PRZY UŻYCIU KARTY", card.getOperationType());
+        assertEquals("BIEDRONKA KRAKÓW", card.getTitle());
+        assertEquals(-85.69, card.getAmount());
+        assertEquals(1012.90, card.getBalanceAfter());
+        assertEquals("PLN", card.getCurrency());
+        assertEquals(5000.00, expected.get(8).getAmount());
+
+        Transaction pharmacy = expected.get(9);
+        assertEquals(LocalDate.of(2026, 1, 12), pharmacy.getOperationDate());
+        assertEquals("APTEKA GDAŃSK", pharmacy.getCounterparty());
+        assertEquals("TR.KART", pharmacy.getOperationType());
+        assertEquals(-20.89, pharmacy.getAmount());
+        assertEquals(154.86, pharmacy.getBalanceAfter());
+    }
+}
@@ -0,0 +1,123 @@
+package com.bank;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+import com.bank.service.CategorizationCache;
+import com.bank.service.CategorizationService;
+import com.bank.service.RuleSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategorizationCacheTest {
+
+    private CategorizationService service;
+    private CategorizationCache cache;
+
+    @BeforeEach
+    void setUp() {
+        service = new CategorizationService();
+        cache = new CategorizationCache(1000);
+        service.setCache(cache);
+    }
+
+    @Test
+    void shouldShareEntryForSameMerchantWithDifferentNumbers() {
+        List<Transaction> transactions = new ArrayList<>();
+        transactions.add(cardPayment("BOLT.EU/O/2601030749 Warsaw"));
+        transactions.add(cardPayment("BOLT.EU/O/2601041120 Warsaw"));
+        transactions.add(cardPayment("bolt.eu/o/2601051234 warsaw"));
+
+        service.categorizeTransactions(transactions);
+
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+        for (Transaction transaction : transactions) {
+            assertEquals(Category.TRANSPORT, transaction.getCategory());
+        }
+    }
+
+    @Test
+    void shouldKeepSignInKey() {
+        Transaction salary = new Transaction(LocalDate.now(), LocalDate.now(), "Przelewy przychodzące",
+            4000.0, "PLN", "EMPLOYER", "WYNAGRODZENIE 01/2026", 0.0);
+        Transaction payment = new Transaction(LocalDate.now(), LocalDate.now(), "Przelewy przychodzące",
+            -4000.0, "PLN", "EMPLOYER", "WYNAGRODZENIE 01/2026", 0.0);
+
+        service.categorizeTransactions(List.of(salary, payment));
+
+        assertEquals(Category.WYNAGRODZENIE, salary.getCategory());
+        assertEquals(Category.PRZELEWY, payment.getCategory());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    void shouldInvalidateWhenRulesChange() throws Exception {
+        Transaction first = cardPayment("KAUFLAND 123");
+        service.categorizeTransactions(List.of(first));
+        assertEquals(Category.INNE, first.getCategory());
+
+        service.setRuleSet(RuleSet.load(new StringReader(
+            "rule.groceries.category=JEDZENIE\nrule.groceries.keywords=KAUFLAND\n")));
+        Transaction second = cardPayment("KAUFLAND 456");
+        service.categorizeTransactions(List.of(second));
+
+        assertEquals(Category.JEDZENIE, second.getCategory());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    void shouldKeepDigitsWhenRulesMatchOnThem() throws Exception {
+        service.setRuleSet(RuleSet.load(new StringReader(
+            "rule.line.category=TRANSPORT\nrule.line.keywords=LINIA 52\n")));
+        Transaction line52 = cardPayment("MPK LINIA 52");
+        Transaction line17 = cardPayment("MPK LINIA 17");
+
+        service.categorizeTransactions(List.of(line52, line17));
+
+        assertEquals(Category.TRANSPORT, line52.getCategory());
+        assertEquals(Category.INNE, line17.getCategory());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntries() {
+        CategorizationCache small = new CategorizationCache(16);
+        service.setCache(small);
+
+        List<Transaction> transactions = new ArrayList<>();
+        for (char c = 'A'; c <= 'Z'; c++) {
+            transactions.add(cardPayment("SHOP " + c + c + c));
+        }
+        service.categorizeTransactions(transactions);
+
+        assertTrue(small.getEvictionCount() > 0);
+        assertTrue(small.size() <= 16);
+    }
+
+    @Test
+    void shouldHoldNoMoreThanTheRequestedSize() {
+        CategorizationCache tiny = new CategorizationCache(5);
+        service.setCache(tiny);
+
+        List<Transaction> transactions = new ArrayList<>();
+        for (char c = 'A'; c <= 'Z'; c++) {
+            transactions.add(cardPayment("SHOP " + c + c + c));
+        }
+        service.categorizeTransactions(transactions);
+
+        assertTrue(tiny.size() <= 5, "size " + tiny.size());
+        assertEquals(26, tiny.getMissCount());
+    }
+
+    private Transaction cardPayment(String title) {
+        return new Transaction(LocalDate.now(), LocalDate.now(), "Płatności kartą",
+            -15.0, "PLN", "", title, 0.0);
+    }
+}
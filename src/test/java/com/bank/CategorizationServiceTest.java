@@ -9,6 +9,10 @@ import org.junit.jupiter.api.Test;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -180,4 +184,100 @@ class CategorizationServiceTest {
 
         assertEquals(Category.RACHUNKI, transaction.getCategory());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldMatchKeywordsCaseInsensitively() {
+        Transaction transaction = new Transaction(
+            LocalDate.now(), LocalDate.now(), "Card payment",
+            -12.00, "PLN", "", "Zabka Z1234 Krakow", 1000.0
+        );
+
+        List<Transaction> transactions = new ArrayList<>();
+        transactions.add(transaction);
+        service.categorizeTransactions(transactions);
+
+        assertEquals(Category.JEDZENIE, transaction.getCategory());
+    }
+
+    @Test
+    void shouldKeepPriorityWhenSeveralCategoriesMatch() {
+        Transaction transaction = new Transaction(
+            LocalDate.now(), LocalDate.now(), "Card payment",
+            -30.00, "PLN", "ORANGE", "PIZZA NA DWORCU PKP", 1000.0
+        );
+
+        List<Transaction> transactions = new ArrayList<>();
+        transactions.add(transaction);
+        service.categorizeTransactions(transactions);
+
+        assertEquals(Category.JEDZENIE, transaction.getCategory());
+    }
+
+    @Test
+    void shouldCategorizeOwnAccountTransferAsInternal() {
+        Transaction transaction = new Transaction(
+            LocalDate.now(), LocalDate.now(), "Przelewy wychodzące",
+            -500.00, "PLN", "Konto oszczednosciowe", "Przelew", 1000.0
+        );
+
+        List<Transaction> transactions = new ArrayList<>();
+        transactions.add(transaction);
+        service.categorizeTransactions(transactions);
+
+        assertEquals(Category.INTERNAL_TRANSFER, transaction.getCategory());
+    }
+
+    @Test
+    void shouldCategorizeInParallelLikeSequential() {
+        List<Transaction> sequential = sampleTransactions(5_000);
+        List<Transaction> forkJoin = sampleTransactions(5_000);
+        List<Transaction> pooled = sampleTransactions(5_000);
+
+        service.categorizeTransactions(sequential);
+        service.categorizeInParallel(forkJoin, ForkJoinPool.commonPool(), 64);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            service.categorizeInParallel(pooled, executor, 64);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getCategory(), forkJoin.get(i).getCategory());
+            assertEquals(sequential.get(i).getCategory(), pooled.get(i).getCategory());
+        }
+    }
+
+    @Test
+    void shouldCategorizeStreamLazily() {
+        List<Transaction> transactions = sampleTransactions(10);
+
+        List<Transaction> firstTwo = service.categorize(transactions.stream())
+            .limit(2)
+            .collect(Collectors.toList());
+
+        assertEquals(2, firstTwo.size());
+        assertNotNull(transactions.get(1).getCategory());
+        assertNull(transactions.get(2).getCategory());
+    }
+
+    private List<Transaction> sampleTransactions(int count) {
+        String[][] samples = {
+            {"Płatności kartą", "", "MCDONALDS 180 LUBLIN"},
+            {"Płatności kartą", "", "BOLT.EU/O/2601030749 Warsaw"},
+            {"Przelewy wychodzące", "Konto oszczednosciowe", "Przelew"},
+            {"Przelewy przychodzące", "FIRMA SP. Z O.O.", "Wynagrodzenie 01/2026"},
+            {"Płatności kartą", "", "NIEZNANY SKLEP"},
+        };
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String[] sample = samples[i % samples.length];
+            double amount = sample[2].startsWith("Wynagrodzenie") ? 5000.0 : -10.0 - i % 7;
+            transactions.add(new Transaction(
+                LocalDate.now(), LocalDate.now(), sample[0],
+                amount, "PLN", sample[1], sample[2], 1000.0
+            ));
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,64 @@
+package com.bank;
+
+import com.bank.model.Transaction;
+import com.bank.service.ConcurrentIngestService;
+import com.bank.service.CsvParserService;
+import com.bank.service.FileIngestResult;
+import com.bank.service.IngestResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentIngestServiceTest {
+
+    private static final String FILE_1 = "bank_data/lista_operacji_fake.csv";
+    private static final String FILE_2 = "bank_data/lista_operacji_fake2.csv";
+
+    private CsvParserService parser;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        parser = new CsvParserService();
+        executor = ConcurrentIngestService.newDefaultExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldMergeInFileOrderThenRowOrder() throws Exception {
+        List<Transaction> expected = new ArrayList<>(parser.parseFile(FILE_2));
+        expected.addAll(parser.parseFile(FILE_1));
+
+        IngestResult result = new ConcurrentIngestService(parser, executor).ingest(List.of(FILE_2, FILE_1));
+
+        assertEquals(expected.size(), result.getTransactions().size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), result.getTransactions().get(i).toString());
+        }
+        assertEquals(FILE_2, result.getFileResults().get(0).getFilePath());
+        assertEquals(expected.size(),
+            result.getFileResults().get(0).getRowCount() + result.getFileResults().get(1).getRowCount());
+    }
+
+    @Test
+    void shouldReportBrokenFileWithoutFailingOthers() {
+        IngestResult result = new ConcurrentIngestService(parser, executor)
+            .ingest(List.of(FILE_1, "bank_data/missing.csv", FILE_2));
+
+        List<FileIngestResult> failures = result.getFailures();
+        assertEquals(1, failures.size());
+        assertEquals("bank_data/missing.csv", failures.get(0).getFilePath());
+        assertTrue(result.getFileResults().get(0).isSuccessful());
+        assertTrue(result.getFileResults().get(2).isSuccessful());
+    }
+}
@@ -0,0 +1,108 @@
+package com.bank;
+
+import com.bank.model.Transaction;
+import com.bank.service.CsvParserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvParserServiceTest {
+
+    private static final String HEADER =
+        "Numer rachunku: 45678901234567890123456789,\n" +
+        "Właściciel: JAN KOWALSKI,\n" +
+        "Historia operacji za okres od 21.11.2025 do 21.01.2026,\n" +
+        "Liczba operacji: 3,\n" +
+        "Suma uznań: 100.00 PLN,\n" +
+        "Suma obciążeń: -81.09 PLN,\n" +
+        "Data księgowania,Data operacji,Rodzaj operacji,Kwota,Waluta,Dane kontrahenta,Numer rachunku kontrahenta,Tytuł operacji,Saldo po operacji,\n";
+
+    @TempDir
+    Path tempDir;
+
+    private CsvParserService parser;
+
+    @BeforeEach
+    void setUp() {
+        parser = new CsvParserService();
+    }
+
+    @Test
+    void shouldSkipHeaderAndParseRows() throws Exception {
+        Path file = writeStatement(
+            "15-01-2026,12-01-2026,Płatności kartą,-20.89,PLN,,,\"Apteka Bajeczna KRAKÓW Nr karty ...2574 19,99PLN\",154.86,,\n" +
+            "08-01-2026,05-01-2026,Płatności kartą,\"-61,09\",PLN,,,\"MCDONALDS 180 KRAKÓW\",954.7,,\n"
+        );
+
+        List<Transaction> transactions = parser.parseFile(file.toString());
+
+        assertEquals(2, transactions.size());
+        Transaction first = transactions.get(0);
+        assertEquals(LocalDate.of(2026, 1, 15), first.getBookingDate());
+        assertEquals(LocalDate.of(2026, 1, 12), first.getOperationDate());
+        assertEquals("Płatności kartą", first.getOperationType());
+        assertEquals(-20.89, first.getAmount(), 0.0001);
+        assertEquals("Apteka Bajeczna KRAKÓW Nr karty ...2574 19,99PLN", first.getTitle());
+        assertEquals(154.86, first.getBalanceAfter(), 0.0001);
+        assertEquals(-61.09, transactions.get(1).getAmount(), 0.0001);
+    }
+
+    @Test
+    void shouldSkipMalformedAndShortRows() throws Exception {
+        Path file = writeStatement(
+            "not-a-date,12-01-2026,Płatności kartą,-20.89,PLN,,,\"Apteka\",154.86,,\n" +
+            "15-01-2026,12-01-2026\n" +
+            "14-01-2026,14-01-2026,Przelewy wychodzące,-100.00,PLN,\"Jan Testowy\",123,\"Czynsz\",54.86,,\n"
+        );
+
+        List<Transaction> transactions = parser.parseFile(file.toString());
+
+        assertEquals(1, transactions.size());
+        assertEquals("Czynsz", transactions.get(0).getTitle());
+    }
+
+    @Test
+    void shouldStreamRowsLazily() throws Exception {
+        Path file = writeStatement(
+            "15-01-2026,12-01-2026,Płatności kartą,-20.89,PLN,,,\"APTEKA\",154.86,,\n" +
+            "14-01-2026,14-01-2026,Płatności kartą,-10.00,PLN,,,\"BOLT\",175.75,,\n"
+        );
+
+        try (Stream<Transaction> stream = parser.streamFile(file.toString())) {
+            Iterator<Transaction> iterator = stream.iterator();
+            assertTrue(iterator.hasNext());
+            assertEquals("APTEKA", iterator.next().getTitle());
+            assertEquals("BOLT", iterator.next().getTitle());
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    void shouldParseMultipleFilesInOrder() throws Exception {
+        List<Transaction> transactions = parser.parseMultipleFiles(List.of(
+            "bank_data/lista_operacji_fake.csv",
+            "bank_data/lista_operacji_fake2.csv"
+        ));
+
+        assertEquals(parser.parseFile("bank_data/lista_operacji_fake.csv").size()
+            + parser.parseFile("bank_data/lista_operacji_fake2.csv").size(), transactions.size());
+        assertEquals(LocalDate.of(2026, 1, 12), transactions.get(0).getOperationDate());
+    }
+
+    private Path writeStatement(String rows) throws IOException {
+        Path file = tempDir.resolve("statement.csv");
+        Files.writeString(file, HEADER + rows, StandardCharsets.UTF_8);
+        return file;
+    }
+}
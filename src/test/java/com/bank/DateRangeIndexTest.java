@@ -0,0 +1,99 @@
+package com.bank;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+import com.bank.service.DateRangeIndex;
+import com.bank.service.ReportAccumulator;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DateRangeIndexTest {
+
+    private static Transaction transaction(String operationDate, String bookingDate, double amount, Category category) {
+        Transaction transaction = new Transaction(LocalDate.parse(bookingDate), LocalDate.parse(operationDate),
+            "Płatność kartą", amount, "PLN", "", "T", 0);
+        transaction.setCategory(category);
+        return transaction;
+    }
+
+    @Test
+    void shouldAnswerRangeTotalsAndListingsWithBothEndsIncluded() {
+        List<Transaction> transactions = List.of(
+            transaction("2026-01-20", "2026-01-21", -30.00, Category.JEDZENIE),
+            transaction("2026-01-05", "2026-01-07", -20.00, Category.JEDZENIE),
+            transaction("2026-01-10", "2026-01-10", 5000.00, Category.WYNAGRODZENIE),
+            transaction("2026-01-10", "2026-01-12", -500.00, Category.INTERNAL_TRANSFER),
+            transaction("2026-02-01", "2026-02-02", -12.50, Category.TRANSPORT));
+        DateRangeIndex index = new DateRangeIndex(transactions);
+
+        LocalDate from = LocalDate.of(2026, 1, 5);
+        LocalDate to = LocalDate.of(2026, 1, 20);
+        assertEquals(List.of(transactions.get(1), transactions.get(2), transactions.get(3), transactions.get(0)),
+            index.list(from, to));
+        assertEquals(5000.00, index.getIncome(from, to), 0.001);
+        assertEquals(50.00, index.getExpenses(from, to), 0.001);
+        assertEquals(Map.of(Category.JEDZENIE, 50.00), index.getExpensesByCategory(from, to));
+        assertEquals(12.50, index.getExpenses(Category.TRANSPORT, LocalDate.of(2026, 1, 21), null), 0.001);
+        assertEquals(0, index.count(LocalDate.of(2026, 1, 21), LocalDate.of(2026, 1, 31)));
+
+        DateRangeIndex byBooking = new DateRangeIndex(transactions, DateRangeIndex.DateField.BOOKING);
+        assertEquals(List.of(transactions.get(1)), byBooking.list(LocalDate.of(2026, 1, 6), LocalDate.of(2026, 1, 9)));
+    }
+
+    @Test
+    void shouldMatchAFullScanForRandomRanges() {
+        Random random = new Random(5);
+        Category[] categories = Category.values();
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            String date = start.plusDays(random.nextInt(400)).toString();
+            transactions.add(transaction(date, date, Math.round((random.nextDouble() - 0.7) * 50_000) / 100.0,
+                categories[random.nextInt(categories.length)]));
+        }
+        DateRangeIndex index = new DateRangeIndex(transactions);
+
+        for (int i = 0; i < 100; i++) {
+            LocalDate from = start.plusDays(random.nextInt(420) - 10);
+            LocalDate to = from.plusDays(random.nextInt(120));
+            ReportAccumulator scan = new ReportAccumulator();
+            transactions.stream()
+                .filter(t -> !t.getOperationDate().isBefore(from) && !t.getOperationDate().isAfter(to))
+                .forEach(scan);
+
+            assertEquals(scan.getTransactionCount(), index.count(from, to));
+            assertEquals(scan.getTotalIncome(), index.getIncome(from, to), 0.01);
+            assertEquals(scan.getTotalExpenses(), index.getExpenses(from, to), 0.01);
+            Map<Category, Double> expected = scan.getExpensesByCategory();
+            Map<Category, Double> actual = index.getExpensesByCategory(from, to);
+            assertEquals(expected.keySet(), actual.keySet());
+            expected.forEach((category, total) -> assertEquals(total, actual.get(category), 0.01));
+        }
+    }
+
+    @Test
+    void shouldLabelAndFlagCurrenciesLikeTheAccumulator() {
+        List<Transaction> transactions = new ArrayList<>();
+        transactions.add(transaction("2026-01-05", "2026-01-05", -20.00, Category.JEDZENIE));
+        // Earlier than the first exchange rate, so it keeps its own currency.
+        Transaction unconverted = transaction("2025-12-31", "2025-12-31", -1.00, Category.ZAKUPY);
+        unconverted.setReportingAmount(-1.00, "EUR");
+        transactions.add(unconverted);
+
+        DateRangeIndex index = new DateRangeIndex(transactions);
+        ReportAccumulator summary = ReportAccumulator.of(transactions);
+        assertEquals("PLN", index.getReportingCurrency());
+        assertEquals(summary.getReportingCurrency(), index.getReportingCurrency());
+        assertTrue(index.hasMixedCurrencies());
+
+        assertFalse(new DateRangeIndex(transactions.subList(0, 1)).hasMixedCurrencies());
+        assertEquals("PLN", new DateRangeIndex(List.of()).getReportingCurrency());
+    }
+}
@@ -0,0 +1,101 @@
+package com.bank;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionStore;
+import com.bank.service.CurrencyConverter;
+import com.bank.service.FxRateTable;
+import com.bank.service.ReportAccumulator;
+import com.bank.service.ReportService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxRateTableTest {
+
+    // Friday 2 and Monday 5 January: the weekend has no table.
+    private static final String NBP_ARCHIVE =
+        "data;1USD;100JPY;1EUR;nr tabeli;pełny numer tabeli\n" +
+        ";dolar amerykański;jen (Japonia);euro;;\n" +
+        "20260102;3,6000;2,3000;4,2000;1;001/A/NBP/2026\n" +
+        "20260105;3,6500;2,3100;4,2500;2;002/A/NBP/2026\n" +
+        "kod ISO;USD;JPY;EUR;;\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldFallBackToTheLastBusinessDay() throws Exception {
+        FxRateTable rates = FxRateTable.load(Files.writeString(tempDir.resolve("archiwum_tab_a_2026.csv"), NBP_ARCHIVE));
+
+        assertEquals(LocalDate.of(2026, 1, 2), rates.getFirstDate());
+        assertEquals(LocalDate.of(2026, 1, 5), rates.getLastDate());
+        assertEquals(4.20, rates.getRate("EUR", LocalDate.of(2026, 1, 3)));
+        assertEquals(4.25, rates.getRate("EUR", LocalDate.of(2026, 1, 5)));
+        assertEquals(4.25, rates.getRate("EUR", LocalDate.of(2026, 3, 1)));
+        assertEquals(0.023, rates.getRate("JPY", LocalDate.of(2026, 1, 4)), 1e-12);
+        assertEquals(1.0, rates.getRate("PLN", LocalDate.of(2025, 1, 1)));
+        assertTrue(Double.isNaN(rates.getRate("EUR", LocalDate.of(2026, 1, 1))));
+        assertTrue(Double.isNaN(rates.getRate("CHF", LocalDate.of(2026, 1, 2))));
+        assertEquals(42.0 * 3.6 / 4.2, rates.convert(42, "USD", "EUR", LocalDate.of(2026, 1, 4)), 1e-9);
+    }
+
+    @Test
+    void shouldReportConvertedTotalsNextToTheBookedOnes() throws Exception {
+        FxRateTable rates = FxRateTable.load(Files.writeString(tempDir.resolve("rates.csv"), NBP_ARCHIVE));
+        List<Transaction> transactions = new ArrayList<>();
+        transactions.add(transaction(LocalDate.of(2026, 1, 2), 5000.00, "PLN", Category.WYNAGRODZENIE));
+        transactions.add(transaction(LocalDate.of(2026, 1, 3), -100.00, "EUR", Category.ZAKUPY));
+        transactions.add(transaction(LocalDate.of(2026, 1, 5), -10.01, "USD", Category.ZAKUPY));
+
+        CurrencyConverter converter = new CurrencyConverter(rates, "PLN");
+        assertEquals(0, converter.convertAll(transactions));
+        assertEquals(-420.00, transactions.get(1).getReportingAmount());
+        assertEquals(-36.54, transactions.get(2).getReportingAmount());
+        assertEquals("PLN", transactions.get(2).getReportingCurrency());
+
+        long[] columnar = converter.convertAmounts(TransactionStore.of(transactions));
+        assertArrayEquals(new long[] {500000, -42000, -3654}, columnar);
+
+        CurrencyConverter.reset(transactions);
+        converter.convert(transactions.iterator()).forEachRemaining(transaction -> { });
+        assertEquals(-420.00, transactions.get(1).getReportingAmount());
+        assertEquals(-36.54, transactions.get(2).getReportingAmount());
+
+        ReportAccumulator summary = ReportAccumulator.of(transactions);
+        assertEquals("PLN", summary.getReportingCurrency());
+        assertFalse(summary.isSingleCurrency());
+        assertFalse(summary.hasMixedCurrencies());
+        assertEquals(456.54, summary.getTotalExpenses(), 1e-9);
+        ReportAccumulator.CurrencyTotals euro = summary.getCurrencyTotals().get(0);
+        assertEquals("EUR", euro.getCurrency());
+        assertEquals(100.00, euro.getExpenses());
+        assertEquals(420.00, euro.getReportingExpenses());
+
+        Path report = tempDir.resolve("report.txt");
+        new ReportService().generateReport(summary, report.toString());
+        String text = Files.readString(report, StandardCharsets.UTF_8);
+        assertTrue(text.contains("EUR | Income:       0.00 EUR =       0.00 PLN | Expenses:     100.00 EUR =     420.00 PLN"), text);
+        assertTrue(text.contains("2026-01-03 | 420.00 PLN (100.00 EUR) | "), text);
+
+        // Before the first table there is no rate: the amount stays in euro and the totals say so.
+        transactions.add(transaction(LocalDate.of(2025, 12, 31), -1.00, "EUR", Category.ZAKUPY));
+        assertEquals(1, converter.convertAll(transactions));
+        assertTrue(ReportAccumulator.of(transactions).hasMixedCurrencies());
+    }
+
+    private static Transaction transaction(LocalDate date, double amount, String currency, Category category) {
+        Transaction transaction = new Transaction(date, date, "Płatność kartą", amount, currency,
+            "", "Zakup " + currency, 0);
+        transaction.setCategory(category);
+        return transaction;
+    }
+}
@@ -0,0 +1,137 @@
+package com.bank;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+import com.bank.service.CategorizationService;
+import com.bank.service.InternalTransferMatcher;
+import com.bank.service.InternalTransferMatcher.TransferPair;
+import com.bank.service.StatementSession;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InternalTransferMatcherTest {
+
+    @Test
+    void shouldPairClosestLegOnAnotherAccount() {
+        Transaction out = transfer("2026-01-10", -500.00, "Przelewy wychodzące");
+        Transaction sameAccount = transfer("2026-01-10", 500.00, "Przelewy przychodzące");
+        Transaction farther = transfer("2026-01-12", 500.00, "Przelewy przychodzące");
+        Transaction closer = transfer("2026-01-11", 500.00, "Przelewy przychodzące");
+        Transaction tooLate = transfer("2026-01-20", 500.00, "Przelewy przychodzące");
+
+        List<TransferPair> pairs = new InternalTransferMatcher(3).findPairs(
+            List.of(out, sameAccount, farther, closer, tooLate), new int[] {0, 0, 1, 1, 1});
+
+        assertEquals(1, pairs.size());
+        assertSame(out, pairs.get(0).getOutgoing());
+        assertSame(closer, pairs.get(0).getIncoming());
+        assertEquals(1, pairs.get(0).getDayGap());
+    }
+
+    @Test
+    void shouldUseEachLegOnceAndSkipCardPayments() {
+        Transaction firstOut = transfer("2026-01-10", -100.00, "Przelewy wychodzące");
+        Transaction secondOut = transfer("2026-01-10", -100.00, "Przelewy wychodzące");
+        Transaction in = transfer("2026-01-10", 100.00, "Przelewy przychodzące");
+        Transaction card = transfer("2026-01-10", -100.00, "Płatności kartą");
+        Transaction refund = transfer("2026-01-10", 100.00, "Przelewy przychodzące");
+
+        List<TransferPair> pairs = new InternalTransferMatcher().relabel(
+            List.of(firstOut, secondOut, in, card), new int[] {0, 0, 1, 0});
+
+        assertEquals(1, pairs.size());
+        assertEquals(Category.INTERNAL_TRANSFER, firstOut.getCategory());
+        assertEquals(Category.INTERNAL_TRANSFER, in.getCategory());
+        assertNotEquals(Category.INTERNAL_TRANSFER, secondOut.getCategory());
+        assertTrue(new InternalTransferMatcher().findPairs(List.of(card, refund), new int[] {0, 1}).isEmpty());
+    }
+
+    @Test
+    void shouldOnlyPairLegsInTheSameCurrency() {
+        Transaction out = transfer("2026-01-10", -100.00, "Przelewy wychodzące");
+        Transaction euro = transfer("2026-01-10", 100.00, "EUR", "Przelewy przychodzące");
+        Transaction zloty = transfer("2026-01-11", 100.00, "Przelewy przychodzące");
+
+        assertTrue(new InternalTransferMatcher().findPairs(List.of(out, euro), new int[] {0, 1}).isEmpty());
+        List<TransferPair> pairs = new InternalTransferMatcher().findPairs(List.of(out, euro, zloty), new int[] {0, 1, 1});
+        assertEquals(1, pairs.size());
+        assertSame(zloty, pairs.get(0).getIncoming());
+    }
+
+    @Test
+    void shouldMatchManyTransactionsQuickly() {
+        List<Transaction> transactions = new ArrayList<>();
+        int pairs = 100_000;
+        int[] accounts = new int[pairs * 2];
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < pairs; i++) {
+            transactions.add(new Transaction(start.plusDays(i % 1500), start.plusDays(i % 1500),
+                "Przelewy wychodzące", -(i + 1) / 100.0, "PLN", "", "t", 0));
+            transactions.add(new Transaction(start.plusDays(i % 1500 + 1), start.plusDays(i % 1500 + 1),
+                "Przelewy przychodzące", (i + 1) / 100.0, "PLN", "", "t", 0));
+            accounts[2 * i + 1] = 1;
+        }
+
+        long started = System.nanoTime();
+        int found = new InternalTransferMatcher().findPairs(transactions, accounts).size();
+        long millis = (System.nanoTime() - started) / 1_000_000;
+
+        assertEquals(pairs, found);
+        assertTrue(millis < 5_000, "matching took " + millis + " ms");
+    }
+
+    @Test
+    void shouldRelabelAcrossSessionFilesAndRevertOnRemove() {
+        StatementSession session = new StatementSession(new CategorizationService());
+        List<Transaction> checking = new ArrayList<>(List.of(
+            transfer("2026-01-10", -250.00, "Przelewy wychodzące"),
+            transfer("2026-01-11", -40.00, "Płatności kartą")));
+        List<Transaction> savings = new ArrayList<>(List.of(
+            transfer("2026-01-11", 250.00, "Przelewy przychodzące")));
+
+        session.add("checking.csv", checking, null, "11111111111111111111111111");
+        assertEquals(0, session.getInternalTransferCount());
+        assertEquals(290.00, session.getSummary().getTotalExpenses(), 0.001);
+
+        session.add("savings.csv", savings, null, "22222222222222222222222222");
+        assertEquals(2, session.getInternalTransferCount());
+        assertEquals(Category.INTERNAL_TRANSFER, checking.get(0).getCategory());
+        assertEquals(40.00, session.getSummary().getTotalExpenses(), 0.001);
+        assertEquals(0.00, session.getSummary().getTotalIncome(), 0.001);
+
+        // A second candidate stays unpaired until the leg it lost to goes away.
+        List<Transaction> deposit = new ArrayList<>(List.of(
+            transfer("2026-01-12", 250.00, "Przelewy przychodzące")));
+        session.add("deposit.csv", deposit, null, "33333333333333333333333333");
+        assertEquals(2, session.getInternalTransferCount());
+        assertEquals(250.00, session.getSummary().getTotalIncome(), 0.001);
+
+        session.remove("savings.csv");
+        assertEquals(2, session.getInternalTransferCount());
+        assertNotEquals(Category.INTERNAL_TRANSFER, savings.get(0).getCategory());
+        assertEquals(Category.INTERNAL_TRANSFER, deposit.get(0).getCategory());
+        assertEquals(0.00, session.getSummary().getTotalIncome());
+        assertEquals(40.00, session.getSummary().getTotalExpenses(), 0.001);
+
+        session.remove("deposit.csv");
+        assertEquals(0, session.getInternalTransferCount());
+        assertNotEquals(Category.INTERNAL_TRANSFER, checking.get(0).getCategory());
+        assertEquals(290.00, session.getSummary().getTotalExpenses(), 0.001);
+    }
+
+    private Transaction transfer(String date, double amount, String operationType) {
+        return transfer(date, amount, "PLN", operationType);
+    }
+
+    private Transaction transfer(String date, double amount, String currency, String operationType) {
+        return new Transaction(
+            LocalDate.parse(date), LocalDate.parse(date), operationType,
+            amount, currency, "", "PRZELEW", 0
+        );
+    }
+}
@@ -0,0 +1,59 @@
+package com.bank;
+
+import com.bank.model.Transaction;
+import com.bank.service.CategorizationService;
+import com.bank.service.CsvParserService;
+import com.bank.service.LedgerStore;
+import com.bank.service.ReportAccumulator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldImportOnceAndAnswerRangesFromOverlappingSegmentsOnly() throws Exception {
+        Path statement = Path.of("bank_data/lista_operacji_fake.csv");
+        // Same rows, different bytes: an overlapping export of the same account.
+        Path overlapping = tempDir.resolve("again.csv");
+        Files.writeString(overlapping, Files.readString(statement, StandardCharsets.UTF_8) + "\n", StandardCharsets.UTF_8);
+        CsvParserService parser = new CsvParserService();
+        CategorizationService categorizer = new CategorizationService();
+        List<Transaction> transactions = parser.parseFile(statement.toString());
+        categorizer.categorizeTransactions(transactions);
+        ReportAccumulator expected = ReportAccumulator.of(transactions);
+
+        LedgerStore ledger = LedgerStore.open(tempDir.resolve("ledger"));
+        List<LedgerStore.Segment> segments = ledger.importFile(statement, parser, categorizer);
+        assertFalse(segments.isEmpty());
+        assertEquals(List.of(), ledger.importFile(statement, parser, categorizer));
+        ledger.importFile(overlapping, parser, categorizer);
+        assertEquals(2 * segments.size(), ledger.getSegments().size());
+
+        ReportAccumulator all = ledger.load(null, null, categorizer).getSummary();
+        assertEquals(expected.getTransactionCount(), all.getTransactionCount());
+        assertEquals(expected.getMinDate(), all.getMinDate());
+
+        LocalDate month = expected.getMaxDate().withDayOfMonth(1);
+        assertEquals(2, ledger.segmentsBetween(month, expected.getMaxDate()).size());
+
+        LedgerStore.Compaction compaction = ledger.compact(categorizer);
+        assertEquals(segments.size(), compaction.getSegmentsAfter());
+        assertEquals(expected.getTransactionCount(), compaction.getDuplicatesDropped());
+
+        LedgerStore reopened = LedgerStore.open(tempDir.resolve("ledger"));
+        assertEquals(segments.size(), reopened.getSegments().size());
+        assertEquals(2, reopened.getImportCount());
+        assertEquals(expected.getTotalExpenses(), reopened.load(null, null, categorizer).getSummary().getTotalExpenses(), 0.001);
+    }
+}
@@ -0,0 +1,112 @@
+package com.bank;
+
+import com.bank.model.Transaction;
+import com.bank.service.CsvParserService;
+import com.bank.service.MappedPkoReader;
+import com.bank.service.ParserEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedPkoReaderTest {
+
+    private static final String HEADER =
+        "Numer rachunku: 45678901234567890123456789,\n" +
+        "Właściciel: JAN KOWALSKI,\n" +
+        "Historia operacji za okres od 21.11.2025 do 21.01.2026,\n" +
+        "Liczba operacji: 3,\n" +
+        "Suma uznań: 100.00 PLN,\n" +
+        "Suma obciążeń: -81.09 PLN,\n" +
+        "Data księgowania,Data operacji,Rodzaj operacji,Kwota,Waluta,Dane kontrahenta,Numer rachunku kontrahenta,Tytuł operacji,Saldo po operacji,\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldMatchOpenCsvEngineOnSampleFiles() throws Exception {
+        for (String file : List.of("bank_data/lista_operacji_fake.csv", "bank_data/lista_operacji_fake2.csv")) {
+            List<Transaction> expected = new CsvParserService(ParserEngine.OPENCSV).parseFile(file);
+            List<Transaction> actual = new CsvParserService(ParserEngine.MAPPED).parseFile(file);
+
+            assertSameTransactions(expected, actual);
+        }
+    }
+
+    @Test
+    void shouldDecodeQuotedFieldsAndCommaDecimals() throws Exception {
+        Path file = tempDir.resolve("quoted.csv");
+        Files.writeString(file, HEADER +
+            "15-01-2026,12-01-2026,Płatności kartą,\"-1234,5\",PLN,\"Sklep \"\"Pod Lipą\"\"\",,\"ZAKUPY, RÓŻNE\",10.25,,\r\n" +
+            "29-02-2024,01-03-2024,Przelewy przychodzące,+100,EUR,\"Jan\",123,\"Linia 1\nLinia 2\",1e2,,",
+            StandardCharsets.UTF_8);
+
+        List<Transaction> transactions = new ArrayList<>();
+        try (MappedPkoReader reader = new MappedPkoReader(file, StandardCharsets.UTF_8, 192)) {
+            while (reader.next()) {
+                transactions.add(reader.toTransaction());
+            }
+        }
+
+        assertEquals(2, transactions.size());
+        Transaction first = transactions.get(0);
+        assertEquals(-1234.5, first.getAmount());
+        assertEquals("Sklep \"Pod Lipą\"", first.getCounterparty());
+        assertEquals("ZAKUPY, RÓŻNE", first.getTitle());
+        assertEquals(10.25, first.getBalanceAfter());
+
+        Transaction second = transactions.get(1);
+        assertEquals(LocalDate.of(2024, 2, 29), second.getBookingDate());
+        assertEquals(LocalDate.of(2024, 3, 1), second.getOperationDate());
+        assertEquals(100.0, second.getAmount());
+        assertEquals("EUR", second.getCurrency());
+        assertEquals("Linia 1\nLinia 2", second.getTitle());
+        assertEquals(100.0, second.getBalanceAfter());
+    }
+
+    @Test
+    void shouldReadAcrossSmallMappingWindows() throws Exception {
+        StringBuilder rows = new StringBuilder(HEADER);
+        for (int i = 0; i < 500; i++) {
+            rows.append(String.format("%02d-01-2026,%02d-01-2026,Płatności kartą,-%d.%02d,PLN,,,\"BOLT %d\",%d.5,,\n",
+                i % 28 + 1, i % 28 + 1, i, i % 100, i, i));
+        }
+        Path file = tempDir.resolve("large.csv");
+        Files.writeString(file, rows.toString(), StandardCharsets.UTF_8);
+
+        int count = 0;
+        try (MappedPkoReader reader = new MappedPkoReader(file, StandardCharsets.UTF_8, 256)) {
+            while (reader.next()) {
+                assertEquals("BOLT " + count, reader.title());
+                assertEquals(-(count + (count % 100) / 100.0), reader.amount(), 0.0001);
+                assertEquals(LocalDate.of(2026, 1, count % 28 + 1).toEpochDay(), reader.operationDateEpochDay());
+                count++;
+            }
+        }
+
+        assertEquals(500, count);
+    }
+
+    private void assertSameTransactions(List<Transaction> expected, List<Transaction> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Transaction e = expected.get(i);
+            Transaction a = actual.get(i);
+            assertEquals(e.getBookingDate(), a.getBookingDate());
+            assertEquals(e.getOperationDate(), a.getOperationDate());
+            assertEquals(e.getOperationType(), a.getOperationType());
+            assertEquals(e.getAmount(), a.getAmount());
+            assertEquals(e.getCurrency(), a.getCurrency());
+            assertEquals(e.getCounterparty(), a.getCounterparty());
+            assertEquals(e.getTitle(), a.getTitle());
+            assertEquals(e.getBalanceAfter(), a.getBalanceAfter());
+        }
+    }
+}
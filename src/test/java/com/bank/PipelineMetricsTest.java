@@ -0,0 +1,89 @@
+package com.bank;
+
+import com.bank.model.Transaction;
+import com.bank.service.CategorizationService;
+import com.bank.service.CsvParserService;
+import com.bank.service.ParserEngine;
+import com.bank.service.PipelineMetrics;
+import com.bank.service.ReportService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineMetricsTest {
+
+    private static final String HEADER =
+        "Numer rachunku: 45678901234567890123456789,\n" +
+        "Właściciel: JAN KOWALSKI,\n" +
+        "Historia operacji za okres od 21.11.2025 do 21.01.2026,\n" +
+        "Liczba operacji: 4,\n" +
+        "Suma uznań: 0.00 PLN,\n" +
+        "Suma obciążeń: -30.89 PLN,\n" +
+        "Data księgowania,Data operacji,Rodzaj operacji,Kwota,Waluta,Dane kontrahenta,Numer rachunku kontrahenta,Tytuł operacji,Saldo po operacji,\n";
+
+    private static final String ROWS =
+        "15-01-2026,12-01-2026,Płatności kartą,-20.89,PLN,,,\"APTEKA\",154.86,,\n" +
+        "14-01-2026,14-01-2026,Płatności kartą,-10.00,PLN,,,\"NIEZNANY SKLEP\",175.75,,\n" +
+        "2026-01-13,13-01-2026,Płatności kartą,-5.00,PLN,,,\"ZLA DATA\",185.75,,\n" +
+        "12-01-2026,12-01-2026,Płatności kartą,abc,PLN,,,\"ZLA KWOTA\",190.75,,\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldCountRowsRejectsAndCategoriesPerEngine() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("metrics.csv"), HEADER + ROWS, StandardCharsets.UTF_8);
+
+        for (ParserEngine engine : ParserEngine.values()) {
+            PipelineMetrics metrics = new PipelineMetrics();
+            CsvParserService parser = new CsvParserService(engine);
+            parser.setMetrics(metrics);
+            CategorizationService categorizer = new CategorizationService();
+            categorizer.setMetrics(metrics);
+            ReportService reportService = new ReportService();
+            reportService.setMetrics(metrics);
+
+            List<Transaction> transactions = parser.parseFile(file.toString());
+            categorizer.categorizeTransactions(transactions);
+            reportService.generateReport(transactions, tempDir.resolve("report.txt").toString());
+
+            assertEquals(1, metrics.getFilesParsed(), engine.name());
+            assertEquals(Files.size(file), metrics.getBytesRead());
+            assertEquals(2, metrics.getRowsParsed());
+            assertEquals(Map.of("invalid date", 1L, "invalid amount", 1L), metrics.getRowsRejectedByReason(), engine.name());
+            assertEquals(2, metrics.getRowsCategorized());
+            assertEquals(1, metrics.getUncategorizedRows());
+            assertEquals(1, (long) metrics.getCategoryHits().get("Zdrowie"));
+            assertEquals(1, metrics.getStageLatencies().get("report").getCount());
+            assertTrue(metrics.toJson().contains("\"rowsRejected\": 2"));
+        }
+    }
+
+    @Test
+    void shouldBeReadableOverJmx() throws Exception {
+        PipelineMetrics metrics = new PipelineMetrics();
+        metrics.register();
+        try {
+            CategorizationService categorizer = new CategorizationService();
+            categorizer.setMetrics(metrics);
+            categorizer.categorizeTransactions(List.of(new Transaction(
+                LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 1), "Płatności kartą", -1.0, "PLN", "", "NIEZNANY", 0)));
+
+            ObjectName name = new ObjectName(PipelineMetrics.OBJECT_NAME);
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "UncategorizedRows"));
+            assertNotNull(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "StageLatencies"));
+        } finally {
+            metrics.unregister();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.bank;
+
+import com.bank.model.Transaction;
+import com.bank.service.CategorizationService;
+import com.bank.service.CsvParserService;
+import com.bank.service.PkoStatementGenerator;
+import com.bank.service.StatementSession;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PkoStatementGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldWriteParseableStatementsWithConsistentBalances() throws Exception {
+        List<Path> files = new PkoStatementGenerator(7).generate(tempDir, 5_001, 2);
+        CsvParserService parser = new CsvParserService();
+
+        assertEquals(2, files.size());
+        List<Transaction> transactions = parser.parseFile(files.get(0).toString());
+        assertEquals(2_501, transactions.size());
+        assertEquals(new PkoStatementGenerator(7).accountNumber(0), parser.readAccountNumber(files.get(0).toString()));
+
+        double credits = 0;
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            if (transaction.getAmount() > 0) credits += transaction.getAmount();
+            if (i + 1 < transactions.size()) {
+                // Newest first: each balance is the older row's balance plus this row's amount.
+                assertEquals(transactions.get(i + 1).getBalanceAfter() + transaction.getAmount(),
+                    transaction.getBalanceAfter(), 0.001);
+            }
+        }
+        List<String> header = Files.readAllLines(files.get(0), StandardCharsets.UTF_8).subList(0, 7);
+        assertEquals(String.format(Locale.ROOT, "Suma uznań: %.2f PLN,", credits), header.get(4));
+    }
+
+    @Test
+    void shouldBeDeterministicAndPairTransfersBetweenAccounts() throws Exception {
+        List<Path> first = new PkoStatementGenerator(3).generate(tempDir.resolve("a"), 3_000, 2);
+        List<Path> second = new PkoStatementGenerator(3).generate(tempDir.resolve("b"), 3_000, 2);
+        assertEquals(-1, Files.mismatch(first.get(1), second.get(1)));
+
+        CsvParserService parser = new CsvParserService();
+        StatementSession session = new StatementSession(new CategorizationService());
+        for (Path file : first) {
+            session.add(file.toString(), parser.parseFile(file.toString()), null,
+                parser.readAccountNumber(file.toString()));
+        }
+        assertTrue(session.getInternalTransferCount() > 0);
+    }
+}
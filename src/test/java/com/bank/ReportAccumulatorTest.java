@@ -0,0 +1,148 @@
+package com.bank;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+import com.bank.service.CategoryMonthCube;
+import com.bank.service.ReportAccumulator;
+import com.bank.service.ReportFormat;
+import com.bank.service.ReportOutput;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportAccumulatorTest {
+
+    @Test
+    void shouldCollectTotalsInOnePass() {
+        ReportAccumulator accumulator = new ReportAccumulator();
+        accumulator.add(transaction("2026-01-05", -20.00, Category.JEDZENIE, "Obiad"));
+        accumulator.add(transaction("2026-01-20", 5000.00, Category.WYNAGRODZENIE, "Pensja"));
+        accumulator.add(transaction("2025-12-31", -500.00, Category.INTERNAL_TRANSFER, "Oszczednosci"));
+        accumulator.add(transaction("2026-02-01", -30.00, Category.JEDZENIE, "Kolacja"));
+
+        assertEquals(4, accumulator.getTransactionCount());
+        assertEquals(LocalDate.parse("2025-12-31"), accumulator.getMinDate());
+        assertEquals(LocalDate.parse("2026-02-01"), accumulator.getMaxDate());
+        assertEquals(5000.00, accumulator.getTotalIncome(), 0.001);
+        assertEquals(50.00, accumulator.getTotalExpenses(), 0.001);
+        assertEquals(Map.of(Category.JEDZENIE, 50.00), accumulator.getExpensesByCategory());
+
+        Map<YearMonth, ReportAccumulator.MonthTotals> months = accumulator.getMonthlyTotals();
+        assertEquals(List.of(YearMonth.of(2025, 12), YearMonth.of(2026, 1), YearMonth.of(2026, 2)),
+            new ArrayList<>(months.keySet()));
+        assertEquals(500.00, months.get(YearMonth.of(2025, 12)).getExpenses(), 0.001);
+        assertEquals(4980.00, months.get(YearMonth.of(2026, 1)).getBalance(), 0.001);
+    }
+
+    @Test
+    void shouldFillCategoryMonthCubeWithoutInternalTransfers() {
+        ReportAccumulator later = new ReportAccumulator();
+        later.add(transaction("2026-03-02", -30.00, Category.JEDZENIE, "Kolacja"));
+        later.add(transaction("2026-03-10", -800.00, Category.INTERNAL_TRANSFER, "Oszczednosci"));
+        ReportAccumulator earlier = new ReportAccumulator();
+        earlier.add(transaction("2026-01-05", -20.00, Category.JEDZENIE, "Obiad"));
+        earlier.add(transaction("2026-01-20", 5000.00, Category.WYNAGRODZENIE, "Pensja"));
+
+        CategoryMonthCube cube = later.merge(earlier).getCube();
+
+        assertEquals(List.of(YearMonth.of(2026, 1), YearMonth.of(2026, 2), YearMonth.of(2026, 3)), cube.getMonths());
+        assertArrayEquals(new double[] {20.00, 0, 30.00}, cube.getMonthlyExpenses(Category.JEDZENIE), 0.001);
+        assertEquals(5000.00, cube.getIncome(Category.WYNAGRODZENIE, YearMonth.of(2026, 1)), 0.001);
+        assertEquals(0, cube.getExpenseSplit(YearMonth.of(2026, 3))[Category.INTERNAL_TRANSFER.ordinal()], 0.001);
+        assertEquals(later.getTotalExpenses(), cube.getTotalExpenses(), 0.001);
+        assertEquals(later.getTotalIncome(), cube.getTotalIncome(), 0.001);
+    }
+
+    @Test
+    void shouldKeepLargestExpensesInStableOrder() {
+        ReportAccumulator accumulator = new ReportAccumulator(3);
+        accumulator.add(transaction("2026-01-01", -10.00, Category.INNE, "a"));
+        accumulator.add(transaction("2026-01-02", -50.00, Category.INNE, "b"));
+        accumulator.add(transaction("2026-01-03", 100.00, Category.INNE_PRZYCHODY, "c"));
+        accumulator.add(transaction("2026-01-04", -50.00, Category.INNE, "d"));
+        accumulator.add(transaction("2026-01-05", -5.00, Category.INNE, "e"));
+        accumulator.add(transaction("2026-01-06", -50.00, Category.INNE, "f"));
+        accumulator.add(transaction("2026-01-07", -70.00, Category.INNE, "g"));
+
+        List<String> titles = new ArrayList<>();
+        accumulator.getTopExpenses().forEach(t -> titles.add(t.getTitle()));
+
+        assertEquals(List.of("g", "b", "d"), titles);
+    }
+
+    @Test
+    void shouldReportNothingForEmptyInput() {
+        ReportAccumulator accumulator = ReportAccumulator.of(List.of());
+
+        assertEquals(0, accumulator.getTransactionCount());
+        assertNull(accumulator.getMinDate());
+        assertTrue(accumulator.getExpensesByCategory().isEmpty());
+        assertTrue(accumulator.getMonthlyTotals().isEmpty());
+        assertTrue(accumulator.getTopExpenses().isEmpty());
+    }
+
+    @Test
+    void shouldMergeChunksLikeOnePass() {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Category category = i % 7 == 0 ? Category.INTERNAL_TRANSFER : Category.values()[i % 5];
+            transactions.add(transaction(LocalDate.of(2025, 1, 1).plusDays(i * 3).toString(),
+                i % 4 == 0 ? 100 + i : -(i % 13), category, "t" + i));
+        }
+
+        ReportAccumulator whole = ReportAccumulator.of(transactions);
+        ReportAccumulator left = ReportAccumulator.of(transactions.subList(0, 70));
+        ReportAccumulator middle = ReportAccumulator.of(transactions.subList(70, 150));
+        ReportAccumulator right = ReportAccumulator.of(transactions.subList(150, 200));
+        ReportAccumulator merged = left.merge(middle.merge(right));
+        ReportAccumulator collected = transactions.parallelStream().collect(ReportAccumulator.collector());
+
+        for (ReportAccumulator candidate : List.of(merged, collected)) {
+            assertEquals(whole.getTransactionCount(), candidate.getTransactionCount());
+            assertEquals(whole.getMinDate(), candidate.getMinDate());
+            assertEquals(whole.getMaxDate(), candidate.getMaxDate());
+            assertEquals(whole.getTotalIncome(), candidate.getTotalIncome(), 0.001);
+            assertEquals(whole.getTotalExpenses(), candidate.getTotalExpenses(), 0.001);
+            assertEquals(whole.getExpensesByCategory().keySet(), candidate.getExpensesByCategory().keySet());
+            assertEquals(whole.getMonthlyTotals().keySet(), candidate.getMonthlyTotals().keySet());
+            assertEquals(whole.getTopExpenses(), candidate.getTopExpenses());
+        }
+    }
+
+    @Test
+    void shouldCountUncategorizedTransactionsOnlyInTotals() throws Exception {
+        List<Transaction> transactions = List.of(
+            transaction("2026-01-05", -20.00, Category.JEDZENIE, "Obiad"),
+            transaction("2026-01-06", -75.00, null, "Nieznany sklep"),
+            transaction("2026-01-07", 10.00, null, "Nieznany zwrot"));
+
+        ReportAccumulator summary = ReportAccumulator.of(transactions);
+
+        assertEquals(10.00, summary.getTotalIncome(), 0.001);
+        assertEquals(95.00, summary.getTotalExpenses(), 0.001);
+        assertEquals(Map.of(Category.JEDZENIE, 20.00), summary.getExpensesByCategory());
+        assertEquals("Nieznany sklep", summary.getTopExpenses().get(0).getTitle());
+        for (ReportFormat format : ReportFormat.values()) {
+            try (ReportOutput out = new ReportOutput(Channels.newChannel(new ByteArrayOutputStream()))) {
+                format.getWriter().writeReport(summary, out);
+            }
+        }
+    }
+
+    private Transaction transaction(String date, double amount, Category category, String title) {
+        Transaction transaction = new Transaction(
+            LocalDate.parse(date), LocalDate.parse(date), "Płatności kartą",
+            amount, "PLN", "", title, 1000.0
+        );
+        transaction.setCategory(category);
+        return transaction;
+    }
+}
@@ -0,0 +1,83 @@
+package com.bank;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+import com.bank.service.ReportAccumulator;
+import com.bank.service.ReportFormat;
+import com.bank.service.ReportOutput;
+import com.bank.service.ReportService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportOutputTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldFormatAmountsExactlyLikeStringFormat() throws Exception {
+        Random random = new Random(3);
+        double[] values = new double[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 2 == 0
+                ? Math.round((random.nextDouble() - 0.5) * 2_000_000) / 1000.0
+                : (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(14));
+        }
+        double[] edges = {0, -0.0, -0.001, 0.005, 0.125, 1.005, 2.675, 0.285, 1e20, -123456789012.345, 99.995};
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StringBuilder expected = new StringBuilder();
+        try (ReportOutput out = new ReportOutput(Channels.newChannel(bytes), 64)) {
+            for (double value : edges) {
+                out.amount(value, 8).newLine();
+                expected.append(String.format("%8.2f", value)).append(System.lineSeparator());
+            }
+            for (double value : values) {
+                out.amount(value).newLine();
+                expected.append(String.format("%.2f", value)).append(System.lineSeparator());
+            }
+            out.date(LocalDate.of(2026, 1, 5)).character(' ').padded("Łódź", 6).character('|');
+            expected.append("2026-01-05 Łódź  |");
+        }
+        assertEquals(expected.toString(), bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldQuoteCsvFieldsAndEscapeJsonStringsInExports() throws Exception {
+        Transaction transaction = new Transaction(LocalDate.of(2026, 1, 8), LocalDate.of(2026, 1, 5),
+            "Płatność kartą", -76.0, "PLN", "Cafe \"Pianka\", Kraków", "Nr karty\n...2574", 1012.9);
+        transaction.setCategory(Category.JEDZENIE);
+        ReportService reportService = new ReportService();
+
+        Path csv = tempDir.resolve("export.csv");
+        assertEquals(1, reportService.exportTransactions(List.of(transaction).iterator(), csv.toString(), ReportFormat.CSV));
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        assertEquals("operation_date,booking_date,operation_type,amount,currency,balance_after,category,counterparty,title,"
+            + "reporting_amount,reporting_currency", lines.get(0));
+        assertEquals("2026-01-05,2026-01-08,Płatność kartą,-76.00,PLN,1012.90,JEDZENIE,\"Cafe \"\"Pianka\"\", Kraków\",\"Nr karty", lines.get(1));
+
+        Path json = tempDir.resolve("export.json");
+        reportService.exportTransactions(List.of(transaction).iterator(), json.toString(), ReportFormat.JSON);
+        String content = Files.readString(json, StandardCharsets.UTF_8);
+        assertTrue(content.contains("\"counterparty\": \"Cafe \\\"Pianka\\\", Kraków\", \"title\": \"Nr karty\\n...2574\""));
+        assertEquals(ReportFormat.JSON, ReportFormat.forFile("report.JSON"));
+
+        // JSON has no NaN: a month whose income is not a number is written as null.
+        Transaction broken = new Transaction(LocalDate.of(2026, 1, 9), LocalDate.of(2026, 1, 9),
+            "Przelew", Double.NaN, "PLN", "", "?", 0);
+        Path report = tempDir.resolve("report.json");
+        reportService.generateReport(ReportAccumulator.of(List.of(transaction, broken)), report.toString(), ReportFormat.JSON);
+        assertTrue(Files.readString(report, StandardCharsets.UTF_8).contains("\"income\": null"));
+    }
+}
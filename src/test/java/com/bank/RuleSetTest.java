@@ -0,0 +1,101 @@
+package com.bank;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+import com.bank.service.CategorizationService;
+import com.bank.service.RuleFileWatcher;
+import com.bank.service.RuleSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleSetTest {
+
+    private static final String RULES =
+        "rule.coffee.category=JEDZENIE\n" +
+        "rule.coffee.keywords=COSTA, STARBUCKS\n" +
+        "rule.coffee.priority=50\n" +
+        "rule.refund.category=INNE_PRZYCHODY\n" +
+        "rule.refund.keywords=STARBUCKS\n" +
+        "rule.refund.sign=positive\n" +
+        "rule.refund.priority=100\n" +
+        "rule.landlord.category=RACHUNKI\n" +
+        "rule.landlord.keywords=KOWALSKI\n" +
+        "rule.landlord.fields=counterparty\n" +
+        "rule.landlord.operationType=Przelewy\n" +
+        "rule.landlord.priority=10\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldApplyPriorityAndSignConstraint() throws Exception {
+        RuleSet ruleSet = RuleSet.load(new StringReader(RULES));
+
+        assertEquals(Category.INNE_PRZYCHODY, ruleSet.categorize(transaction("Card payment", 12.0, "", "Starbucks refund")));
+        assertEquals(Category.JEDZENIE, ruleSet.categorize(transaction("Card payment", -12.0, "", "STARBUCKS WARSZAWA")));
+        assertEquals(Category.INNE, ruleSet.categorize(transaction("Card payment", -12.0, "", "LIDL")));
+    }
+
+    @Test
+    void shouldMatchOnlyConfiguredFieldsAndOperationTypes() throws Exception {
+        RuleSet ruleSet = RuleSet.load(new StringReader(RULES));
+
+        assertEquals(Category.RACHUNKI, ruleSet.categorize(transaction("Przelewy wychodzące", -1500.0, "Jan Kowalski", "Najem")));
+        assertEquals(Category.INNE, ruleSet.categorize(transaction("Płatności kartą", -1500.0, "Jan Kowalski", "Najem")));
+        assertEquals(Category.INNE, ruleSet.categorize(transaction("Przelewy wychodzące", -1500.0, "", "Kowalski")));
+    }
+
+    @Test
+    void shouldRejectInvalidRules() {
+        assertThrows(IllegalArgumentException.class,
+            () -> RuleSet.load(new StringReader("rule.x.category=NO_SUCH_CATEGORY\nrule.x.keywords=A\n")));
+        assertThrows(IllegalArgumentException.class,
+            () -> RuleSet.load(new StringReader("rule.x.category=INNE\n")));
+        assertThrows(IllegalArgumentException.class,
+            () -> RuleSet.load(new StringReader("rule.x.category=INNE\nrule.x.keywords=A\nrule.x.colour=red\n")));
+    }
+
+    @Test
+    void shouldChangeVersionWhenRulesChange() throws Exception {
+        RuleSet first = RuleSet.load(new StringReader(RULES));
+        RuleSet same = RuleSet.load(new StringReader(RULES));
+        RuleSet changed = RuleSet.load(new StringReader(RULES.replace("COSTA", "COSTA COFFEE")));
+
+        assertEquals(first.getVersion(), same.getVersion());
+        assertNotEquals(first.getVersion(), changed.getVersion());
+    }
+
+    @Test
+    void shouldKeepPreviousRulesWhenReloadFails() throws Exception {
+        Path rulesFile = tempDir.resolve("rules.properties");
+        Files.writeString(rulesFile, RULES, StandardCharsets.UTF_8);
+        CategorizationService categorizer = new CategorizationService();
+
+        try (RuleFileWatcher watcher = new RuleFileWatcher(rulesFile, categorizer)) {
+            assertTrue(watcher.reload());
+            RuleSet loaded = categorizer.getRuleSet();
+
+            Files.writeString(rulesFile, "rule.broken.category=INNE\n", StandardCharsets.UTF_8);
+            assertFalse(watcher.reload());
+            assertSame(loaded, categorizer.getRuleSet());
+        }
+
+        Transaction transaction = transaction("Card payment", -9.0, "", "COSTA KRAKOW");
+        categorizer.categorizeTransactions(List.of(transaction));
+        assertEquals(Category.JEDZENIE, transaction.getCategory());
+    }
+
+    private Transaction transaction(String operationType, double amount, String counterparty, String title) {
+        return new Transaction(LocalDate.now(), LocalDate.now(), operationType,
+            amount, "PLN", counterparty, title, 0.0);
+    }
+}
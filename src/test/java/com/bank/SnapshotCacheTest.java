@@ -0,0 +1,133 @@
+package com.bank;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+import com.bank.service.CategorizationRule;
+import com.bank.service.CategorizationService;
+import com.bank.service.CsvParserService;
+import com.bank.service.RuleSet;
+import com.bank.service.SnapshotCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path statement;
+    private Path cacheDir;
+    private CategorizationService categorizer;
+    private SnapshotCache cache;
+    private CsvParserService parser;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        statement = Files.copy(Path.of("bank_data/lista_operacji_fake.csv"), tempDir.resolve("statement.csv"));
+        cacheDir = tempDir.resolve("snapshots");
+        categorizer = new CategorizationService();
+        cache = new SnapshotCache(cacheDir, categorizer);
+        parser = new CsvParserService();
+    }
+
+    @Test
+    void shouldReloadIdenticalCategorizedTransactions() throws Exception {
+        List<Transaction> expected = parser.parseFile(statement.toString());
+        categorizer.categorizeTransactions(expected);
+
+        SnapshotCache.Snapshot first = cache.getOrParse(statement, parser);
+        SnapshotCache.Snapshot second = cache.getOrParse(statement, parser);
+
+        assertFalse(first.isCached());
+        assertTrue(second.isCached());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(expected.size(), second.getTransactions().size());
+        for (int i = 0; i < expected.size(); i++) {
+            Transaction a = expected.get(i);
+            Transaction b = second.getTransactions().get(i);
+            assertEquals(a.toString(), b.toString());
+            assertEquals(a.getBookingDate(), b.getBookingDate());
+            assertEquals(a.getOperationType(), b.getOperationType());
+            assertEquals(a.getCounterparty(), b.getCounterparty());
+            assertEquals(a.getBalanceAfter(), b.getBalanceAfter());
+            assertEquals(a.getCategory(), b.getCategory());
+        }
+    }
+
+    @Test
+    void shouldFindWhatWasSavedForTheCurrentRules() throws Exception {
+        List<Transaction> transactions = parser.parseFile(statement.toString());
+        categorizer.categorizeTransactions(transactions);
+        assertNull(cache.find(statement));
+
+        cache.save(statement, transactions, categorizer.getRuleSet().getVersion());
+        SnapshotCache.Snapshot found = cache.find(statement);
+
+        assertNotNull(found);
+        assertTrue(found.isCached());
+        assertEquals(transactions.size(), found.getTransactions().size());
+        assertEquals(63, parser.readDeclaredRowCount(statement.toString()));
+    }
+
+    @Test
+    void shouldMissWhenContentOrRulesChange() throws Exception {
+        cache.getOrParse(statement, parser);
+
+        Files.copy(Path.of("bank_data/lista_operacji_fake2.csv"), statement, StandardCopyOption.REPLACE_EXISTING);
+        assertFalse(cache.getOrParse(statement, parser).isCached());
+        assertTrue(cache.getOrParse(statement, parser).isCached());
+
+        categorizer.setRuleSet(RuleSet.compile(List.of(new CategorizationRule(
+            "everything", Category.INNE, Set.of(CategorizationRule.Field.TITLE),
+            List.of("a"), CategorizationRule.Sign.ANY, 1, List.of()))));
+        assertFalse(cache.getOrParse(statement, parser).isCached());
+        // One for the original content, one for the new content under the new rules.
+        assertEquals(2, countSnapshots());
+    }
+
+    @Test
+    void shouldFallBackToParsingWhenSnapshotIsCorrupt() throws Exception {
+        int rows = cache.getOrParse(statement, parser).getTransactions().size();
+        Path snapshot;
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            snapshot = files.findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(snapshot, bytes);
+
+        SnapshotCache.Snapshot reloaded = cache.getOrParse(statement, parser);
+
+        assertFalse(reloaded.isCached());
+        assertEquals(rows, reloaded.getTransactions().size());
+        assertTrue(cache.getOrParse(statement, parser).isCached());
+    }
+
+    @Test
+    void shouldServeParseFileFromCache() throws Exception {
+        parser.setSnapshotCache(cache);
+
+        List<Transaction> first = parser.parseFile(statement.toString());
+        List<Transaction> second = parser.parseFile(statement.toString());
+
+        assertEquals(first.size(), second.size());
+        assertNotNull(second.get(0).getCategory());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    private long countSnapshots() throws Exception {
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.bank;
+
+import com.bank.service.CategorizationService;
+import com.bank.service.ConcurrentIngestService;
+import com.bank.service.CsvParserService;
+import com.bank.service.ReportFormat;
+import com.bank.service.ReportService;
+import com.bank.service.StatementDirectoryWatcher;
+import com.bank.service.StatementSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementDirectoryWatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService executor;
+    private StatementSession session;
+    private Path inbox;
+    private Path report;
+    private StatementDirectoryWatcher watcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        executor = Executors.newSingleThreadExecutor();
+        session = new StatementSession(new CategorizationService());
+        inbox = Files.createDirectory(tempDir.resolve("inbox"));
+        report = tempDir.resolve("report.txt");
+        watcher = new StatementDirectoryWatcher(inbox,
+            new ConcurrentIngestService(new CsvParserService(), executor), session, new ReportService(), report, ReportFormat.TXT);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        watcher.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldIngestOnlyNewOrChangedFiles() throws Exception {
+        assertFalse(watcher.scan().hasChanges());
+        assertFalse(Files.exists(report));
+
+        Files.copy(Path.of("bank_data/lista_operacji_fake.csv"), inbox.resolve("a.csv"));
+        assertTrue(watcher.scan().hasChanges());
+        assertEquals(1, session.getFileCount());
+        assertTrue(Files.readString(report).startsWith("Total transactions: 7"));
+
+        Files.writeString(inbox.resolve("notes.txt"), "ignored");
+        assertFalse(watcher.scan().hasChanges());
+
+        Files.copy(Path.of("bank_data/lista_operacji_fake2.csv"), inbox.resolve("b.csv"));
+        assertTrue(watcher.scan().hasChanges());
+        assertEquals(2, session.getFileCount());
+        assertTrue(Files.readString(report).startsWith("Total transactions: 10"));
+
+        Files.copy(Path.of("bank_data/lista_operacji_fake2.csv"), inbox.resolve("a.csv"), StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(inbox.resolve("a.csv"), FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        assertTrue(watcher.scan().hasChanges());
+        // a.csv now repeats b.csv, so its rows are dropped as duplicates.
+        assertEquals(3, session.getDuplicateCount());
+        assertTrue(Files.readString(report).startsWith("Total transactions: 3"));
+    }
+
+    @Test
+    void shouldDropDeletedFiles() throws Exception {
+        Files.copy(Path.of("bank_data/lista_operacji_fake.csv"), inbox.resolve("a.csv"));
+        watcher.scan();
+
+        Files.delete(inbox.resolve("a.csv"));
+
+        assertTrue(watcher.scan().hasChanges());
+        assertEquals(0, session.getFileCount());
+        assertTrue(Files.readString(report).startsWith("Total transactions: 0"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.bank;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+import com.bank.service.CategorizationRule;
+import com.bank.service.CategorizationService;
+import com.bank.service.RuleSet;
+import com.bank.service.StatementSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementSessionTest {
+
+    private CategorizationService categorizer;
+    private StatementSession session;
+
+    @BeforeEach
+    void setUp() {
+        categorizer = new CategorizationService();
+        session = new StatementSession(categorizer);
+    }
+
+    @Test
+    void shouldAddStatementsIncrementally() {
+        session.add("january.csv", statement("2026-01-10", -40.00, "MCDONALDS 180 KRAKOW"));
+        assertEquals(40.00, session.getSummary().getTotalExpenses(), 0.001);
+
+        session.add("february.csv", statement("2026-02-10", -15.00, "BOLT.EU/O/2602"));
+        assertEquals(2, session.getFileCount());
+        assertEquals(2, session.getSummary().getTransactionCount());
+        assertEquals(55.00, session.getSummary().getTotalExpenses(), 0.001);
+        assertEquals("MCDONALDS 180 KRAKOW", session.getTransactions().get(0).getTitle());
+
+        session.add("january.csv", statement("2026-01-11", -5.00, "ZABKA"));
+        assertEquals(List.of("february.csv", "january.csv"), session.getFilePaths());
+        assertEquals(20.00, session.getSummary().getTotalExpenses(), 0.001);
+
+        assertTrue(session.remove("february.csv"));
+        assertEquals(5.00, session.getSummary().getTotalExpenses(), 0.001);
+    }
+
+    @Test
+    void shouldRecategorizeAfterRulesChange() {
+        session.add("january.csv", statement("2026-01-10", -40.00, "MCDONALDS 180 KRAKOW"));
+        assertEquals(Category.JEDZENIE, session.getTransactions().get(0).getCategory());
+
+        categorizer.setRuleSet(RuleSet.compile(List.of(new CategorizationRule(
+            "fast-food-fun", Category.ROZRYWKA, Set.of(CategorizationRule.Field.TITLE),
+            List.of("MCDONALDS"), CategorizationRule.Sign.ANY, 1, List.of()))));
+
+        assertEquals(Category.ROZRYWKA, session.getTransactions().get(0).getCategory());
+        assertEquals(List.of(Category.ROZRYWKA), new ArrayList<>(session.getSummary().getExpensesByCategory().keySet()));
+    }
+
+    @Test
+    void shouldNotPairFilesWithoutAnAccountNumber() {
+        // Two monthly exports of the same account, without the "Numer rachunku" line.
+        session.add("january.csv", statement("2026-01-31", -250.00, "Przelewy wychodzące", "CZYNSZ"));
+        session.add("february.csv", statement("2026-02-01", 250.00, "Przelewy przychodzące", "ZWROT"));
+
+        assertEquals(0, session.getInternalTransferCount());
+        assertEquals(250.00, session.getSummary().getTotalExpenses(), 0.001);
+        assertEquals(250.00, session.getSummary().getTotalIncome(), 0.001);
+
+        // With an account number on each side the same rows are a transfer between accounts.
+        session.add("january.csv", statement("2026-01-31", -250.00, "Przelewy wychodzące", "CZYNSZ"),
+            null, "11111111111111111111111111");
+        session.add("february.csv", statement("2026-02-01", 250.00, "Przelewy przychodzące", "ZWROT"),
+            null, "22222222222222222222222222");
+        assertEquals(2, session.getInternalTransferCount());
+    }
+
+    private List<Transaction> statement(String date, double amount, String title) {
+        return statement(date, amount, "Płatności kartą", title);
+    }
+
+    private List<Transaction> statement(String date, double amount, String operationType, String title) {
+        List<Transaction> transactions = new ArrayList<>();
+        transactions.add(new Transaction(
+            LocalDate.parse(date), LocalDate.parse(date), operationType,
+            amount, "PLN", "", title, 1000.0
+        ));
+        return transactions;
+    }
+}
@@ -0,0 +1,136 @@
+package com.bank;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+import com.bank.service.CategorizationService;
+import com.bank.service.CsvParserService;
+import com.bank.service.LongHashSet;
+import com.bank.service.StatementSession;
+import com.bank.service.TransactionDeduplicator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionDeduplicatorTest {
+
+    private static final String HEADER =
+        "Numer rachunku: 45678901234567890123456789,\n" +
+        "Właściciel: JAN KOWALSKI,\n" +
+        "Historia operacji za okres od 21.11.2025 do 21.01.2026,\n" +
+        "Liczba operacji: 1,\n" +
+        "Suma uznań: 0.00 PLN,\n" +
+        "Suma obciążeń: -20.89 PLN,\n" +
+        "Data księgowania,Data operacji,Rodzaj operacji,Kwota,Waluta,Dane kontrahenta,Numer rachunku kontrahenta,Tytuł operacji,Saldo po operacji,\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldFingerprintIdentifyingFieldsOnly() {
+        Transaction transaction = transaction("2026-01-15", -20.89, "APTEKA", 154.86);
+        Transaction sameButCategorized = transaction("2026-01-15", -20.89, "APTEKA", 154.86);
+        sameButCategorized.setCategory(Category.ZDROWIE);
+
+        long fingerprint = TransactionDeduplicator.fingerprint("123", transaction);
+
+        assertEquals(fingerprint, TransactionDeduplicator.fingerprint("123", sameButCategorized));
+        assertNotEquals(fingerprint, TransactionDeduplicator.fingerprint("124", transaction));
+        assertNotEquals(fingerprint, TransactionDeduplicator.fingerprint("123", transaction("2026-01-15", -20.89, "APTEKA", 154.87)));
+        assertNotEquals(fingerprint, TransactionDeduplicator.fingerprint("123", transaction("2026-01-15", -20.89, "APTEKI", 154.86)));
+    }
+
+    @Test
+    void shouldDropRepeatsWithAndWithoutBloomFilter() {
+        for (boolean bloom : new boolean[] {false, true}) {
+            TransactionDeduplicator deduplicator = new TransactionDeduplicator(100, bloom);
+            List<Transaction> first = new ArrayList<>();
+            List<Transaction> overlapping = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                first.add(transaction("2026-01-01", -i, "t" + i, 1000 + i));
+                overlapping.add(transaction("2026-01-01", -(i + 600), "t" + (i + 600), 1600 + i));
+            }
+
+            assertEquals(1000, deduplicator.filter("1", first).size());
+            List<Transaction> kept = deduplicator.filter("1", overlapping);
+
+            assertEquals(600, kept.size());
+            assertEquals("t1000", kept.get(0).getTitle());
+            assertEquals(400, deduplicator.getDuplicateCount());
+            assertEquals(1600, deduplicator.getUniqueCount());
+        }
+    }
+
+    @Test
+    void shouldBehaveLikeASetOfLongs() {
+        LongHashSet set = new LongHashSet(4);
+        Set<Long> reference = new HashSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            long value = random.nextInt(20_000) - 10_000;
+            assertEquals(reference.add(value), set.add(value));
+        }
+        assertEquals(reference.size(), set.size());
+        assertTrue(set.contains(0));
+        assertFalse(set.contains(20_000));
+
+        for (int i = 0; i < 50_000; i++) {
+            long value = random.nextInt(20_000) - 10_000;
+            if (random.nextBoolean()) {
+                assertEquals(reference.remove(value), set.remove(value));
+            } else {
+                assertEquals(reference.add(value), set.add(value));
+            }
+        }
+        assertEquals(reference.size(), set.size());
+        for (long value = -10_000; value < 10_000; value++) {
+            assertEquals(reference.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    void shouldDeduplicateOverlappingExports() throws Exception {
+        String january = "15-01-2026,12-01-2026,Płatności kartą,-20.89,PLN,,,\"APTEKA\",154.86,,\n";
+        String february = "02-02-2026,01-02-2026,Płatności kartą,-10.00,PLN,,,\"BOLT\",144.86,,\n";
+        Path first = Files.writeString(tempDir.resolve("first.csv"), HEADER + january, StandardCharsets.UTF_8);
+        Path second = Files.writeString(tempDir.resolve("second.csv"), HEADER + february + january, StandardCharsets.UTF_8);
+        CsvParserService parser = new CsvParserService();
+
+        assertEquals("45678901234567890123456789", parser.readAccountNumber(first.toString()));
+        assertEquals(2, parser.parseMultipleFiles(List.of(first.toString(), second.toString())).size());
+
+        TransactionDeduplicator deduplicator = new TransactionDeduplicator();
+        Iterator<Transaction> streamed = parser.iterateFiles(List.of(first.toString(), second.toString()), deduplicator);
+        assertEquals("APTEKA", streamed.next().getTitle());
+        assertEquals("BOLT", streamed.next().getTitle());
+        assertFalse(streamed.hasNext());
+        assertEquals(1, deduplicator.getDuplicateCount());
+
+        StatementSession session = new StatementSession(new CategorizationService());
+        session.add("first", parser.parseFile(first.toString()));
+        assertEquals(1, session.add("second", parser.parseFile(second.toString())));
+        assertEquals(2, session.getSummary().getTransactionCount());
+
+        session.remove("first");
+        assertEquals(0, session.getDuplicateCount());
+        assertEquals(2, session.getSummary().getTransactionCount());
+    }
+
+    private Transaction transaction(String date, double amount, String title, double balanceAfter) {
+        return new Transaction(
+            LocalDate.parse(date), LocalDate.parse(date), "Płatności kartą",
+            amount, "PLN", "", title, balanceAfter
+        );
+    }
+}
@@ -0,0 +1,58 @@
+package com.bank;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+import com.bank.service.TransactionFilter;
+import com.bank.service.TransactionIndex;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionIndexTest {
+
+    private static Transaction transaction(String date, double amount, String counterparty, String title, Category category) {
+        LocalDate day = LocalDate.parse(date);
+        Transaction transaction = new Transaction(day, day, "Płatność kartą", amount, "PLN", counterparty, title, 0);
+        transaction.setCategory(category);
+        return transaction;
+    }
+
+    private final List<Transaction> transactions = List.of(
+        transaction("2025-12-03", -18.50, "", "BOLT.EU/O/2512 Tallinn", Category.TRANSPORT),
+        transaction("2025-11-28", -24.00, "", "BOLT.EU/O/2511 Tallinn", Category.TRANSPORT),
+        transaction("2025-12-10", -56.99, "ŻABKA POLSKA", "Zakup ŻABKA Z1234 KRAKÓW", Category.JEDZENIE),
+        transaction("2025-12-15", 5200.00, "ACME SP. Z O.O.", "Wynagrodzenie 12/2025", Category.WYNAGRODZENIE),
+        transaction("2025-12-20", -120.00, "", "BOLTON PUB Krakow", Category.ROZRYWKA));
+
+    @Test
+    void shouldCombineTextDateAndCategoryCriteria() {
+        TransactionIndex index = new TransactionIndex(transactions);
+
+        assertEquals(List.of(0, 1, 4), rows(index, new TransactionFilter("bolt", null, null, null, null, null)));
+        assertEquals(List.of(0), rows(index, new TransactionFilter("bolt", Category.TRANSPORT,
+            LocalDate.of(2025, 12, 1), LocalDate.of(2025, 12, 31), null, null)));
+        assertEquals(List.of(2), rows(index, new TransactionFilter("zabka krak", null, null, null, null, null)));
+        assertEquals(List.of(), rows(index, new TransactionFilter("zabka bolt", null, null, null, null, null)));
+        assertEquals(List.of(0, 1, 2, 3, 4), rows(index, TransactionFilter.ALL));
+    }
+
+    @Test
+    void shouldMatchAmountAndDateRangesInclusively() {
+        TransactionIndex index = new TransactionIndex(transactions);
+
+        assertEquals(List.of(1, 2, 4), rows(index, new TransactionFilter(null, null, null, null, 24.0, 120.0)));
+        assertEquals(List.of(3), rows(index, new TransactionFilter(null, null, null, null, 1000.0, null)));
+        assertEquals(List.of(), rows(index, new TransactionFilter(null, null, null, null, 100.0, 50.0)));
+        assertEquals(List.of(0, 1, 2), rows(index, new TransactionFilter(null, null, null, LocalDate.of(2025, 12, 10), null, null)));
+    }
+
+    private static List<Integer> rows(TransactionIndex index, TransactionFilter filter) {
+        List<Integer> rows = new ArrayList<>();
+        index.select(filter).stream().forEach(rows::add);
+        return rows;
+    }
+}
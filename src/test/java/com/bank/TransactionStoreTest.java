@@ -0,0 +1,84 @@
+package com.bank;
+
+import com.bank.model.Category;
+import com.bank.model.Transaction;
+import com.bank.model.TransactionStore;
+import com.bank.service.CategorizationService;
+import com.bank.service.CsvParserService;
+import com.bank.service.ParserEngine;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionStoreTest {
+
+    @Test
+    void shouldRoundTripTransactions() {
+        Transaction transaction = new Transaction(
+            LocalDate.of(2026, 1, 15), LocalDate.of(2026, 1, 12), "Płatności kartą",
+            -20.89, "PLN", "", "Apteka Bajeczna KRAKÓW", 154.86
+        );
+        transaction.setCategory(Category.ZDROWIE);
+
+        TransactionStore store = TransactionStore.of(List.of(transaction));
+        Transaction copy = store.toTransaction(0);
+
+        assertEquals(1, store.size());
+        assertEquals(-2089, store.getAmountMinor(0));
+        assertEquals(transaction.getBookingDate(), copy.getBookingDate());
+        assertEquals(transaction.getOperationDate(), copy.getOperationDate());
+        assertEquals(transaction.getOperationType(), copy.getOperationType());
+        assertEquals(transaction.getAmount(), copy.getAmount());
+        assertEquals(transaction.getTitle(), copy.getTitle());
+        assertEquals(transaction.getBalanceAfter(), copy.getBalanceAfter());
+        assertEquals(Category.ZDROWIE, copy.getCategory());
+    }
+
+    @Test
+    void shouldShareDictionaryEntries() {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            transactions.add(new Transaction(
+                LocalDate.of(2026, 1, 1).plusDays(i), LocalDate.of(2026, 1, 1), i % 2 == 0 ? "Płatności kartą" : "Przelewy",
+                -i, "PLN", "Sklep " + (i % 5), "Zakupy " + i, 1000.0 - i
+            ));
+        }
+
+        TransactionStore store = TransactionStore.of(transactions);
+
+        assertEquals(2, store.getOperationTypeCount());
+        assertEquals(1, store.getCurrencyCount());
+        assertEquals(5, store.getCounterpartyCount());
+        assertEquals("Zakupy 42", store.row(42).getTitle());
+        assertSame(store.getCounterparty(3), store.getCounterparty(8));
+        assertTrue(store.estimateHeapBytes() < TransactionStore.estimateHeapBytes(transactions));
+    }
+
+    @Test
+    void shouldLoadAndCategorizeLikeTheListPath() throws Exception {
+        // The first file again overlaps completely, so both paths must drop it.
+        List<String> files = List.of("bank_data/lista_operacji_fake.csv", "bank_data/lista_operacji_fake2.csv",
+            "bank_data/lista_operacji_fake.csv");
+        CsvParserService parser = new CsvParserService();
+        CategorizationService categorizer = new CategorizationService();
+        List<Transaction> transactions = parser.parseMultipleFiles(files);
+        categorizer.categorizeTransactions(transactions);
+
+        for (ParserEngine engine : ParserEngine.values()) {
+            TransactionStore store = new CsvParserService(engine).parseToStore(files);
+            categorizer.categorizeTransactions(store);
+
+            assertEquals(transactions.size(), store.size());
+            List<Transaction> copies = new ArrayList<>();
+            store.forEachRow(row -> copies.add(row.toTransaction()));
+            for (int i = 0; i < transactions.size(); i++) {
+                assertEquals(transactions.get(i).toString(), copies.get(i).toString());
+                assertEquals(transactions.get(i).getBalanceAfter(), copies.get(i).getBalanceAfter());
+            }
+        }
+    }
+}